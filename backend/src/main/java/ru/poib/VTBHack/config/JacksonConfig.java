@@ -0,0 +1,22 @@
+package ru.poib.VTBHack.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Общая настройка Jackson.
+ * ObjectMapper создается Spring Boot; модули-бины регистрируются в нем автоматически
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Blackbird заменяет рефлексию при чтении и записи свойств сгенерированными лямбдами (LambdaMetafactory)
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
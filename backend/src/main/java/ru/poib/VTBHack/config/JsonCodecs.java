@@ -0,0 +1,96 @@
+package ru.poib.VTBHack.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import ru.poib.VTBHack.execution.model.TestExecutionResult;
+import ru.poib.VTBHack.generator.model.TestDataGenerationResult;
+import ru.poib.VTBHack.mapping.model.MappingResult;
+import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
+
+/**
+ * Общий ObjectMapper и заранее подготовленные ObjectReader/ObjectWriter для часто используемых типов.
+ * Reader и writer неизменяемы и потокобезопасны, поиск сериализаторов для типа выполняется один раз
+ */
+@Component
+public class JsonCodecs {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final Configuration jsonPathConfiguration;
+    private final ObjectReader executionResultReader;
+    private final ObjectWriter executionResultWriter;
+    private final ObjectReader mappingResultReader;
+    private final ObjectWriter mappingResultWriter;
+    private final ObjectReader openApiModelReader;
+    private final ObjectReader testDataReader;
+
+    public JsonCodecs(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer();
+        // JSONPath работает прямо с Jackson деревом, без повторного разбора текста
+        this.jsonPathConfiguration = Configuration.builder()
+                .jsonProvider(new JacksonJsonNodeJsonProvider(objectMapper))
+                .mappingProvider(new JacksonMappingProvider(objectMapper))
+                .build();
+        this.executionResultReader = objectMapper.readerFor(TestExecutionResult.class);
+        this.executionResultWriter = objectMapper.writerFor(TestExecutionResult.class);
+        this.mappingResultReader = objectMapper.readerFor(MappingResult.class);
+        this.mappingResultWriter = objectMapper.writerFor(MappingResult.class);
+        this.openApiModelReader = objectMapper.readerFor(OpenApiModel.class);
+        this.testDataReader = objectMapper.readerFor(TestDataGenerationResult.class);
+    }
+
+    /**
+     * Создает кодеки вне Spring контекста (тесты, утилиты) с той же настройкой, что и у Spring Boot
+     */
+    public static JsonCodecs standalone() {
+        return new JsonCodecs(Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(new BlackbirdModule())
+                .build());
+    }
+
+    public ObjectMapper mapper() { return objectMapper; }
+
+    /**
+     * Writer для произвольных значений (тела запросов)
+     */
+    public ObjectWriter writer() { return writer; }
+
+    /**
+     * Конфигурация JSONPath поверх JsonNode того же ObjectMapper
+     */
+    public Configuration jsonPathConfiguration() { return jsonPathConfiguration; }
+
+    /**
+     * Узлы Jackson преобразуются в обычные Java значения (Map, List, String, Number):
+     * значения попадают в контекст и подставляются в URL и заголовки
+     */
+    public Object toPlainValue(Object value) {
+        if (value instanceof JsonNode node) {
+            return node.isNull() || node.isMissingNode() ? null : objectMapper.convertValue(node, Object.class);
+        }
+        return value;
+    }
+
+    public ObjectReader executionResultReader() { return executionResultReader; }
+
+    public ObjectWriter executionResultWriter() { return executionResultWriter; }
+
+    public ObjectReader mappingResultReader() { return mappingResultReader; }
+
+    public ObjectWriter mappingResultWriter() { return mappingResultWriter; }
+
+    public ObjectReader openApiModelReader() { return openApiModelReader; }
+
+    public ObjectReader testDataReader() { return testDataReader; }
+}
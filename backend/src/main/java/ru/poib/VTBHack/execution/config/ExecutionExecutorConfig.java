@@ -0,0 +1,24 @@
+package ru.poib.VTBHack.execution.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Конфигурация пула для асинхронного выполнения тестов
+ */
+@Configuration
+public class ExecutionExecutorConfig {
+
+    /**
+     * Каждый запуск теста выполняется в отдельном виртуальном потоке,
+     * поэтому долгие прогоны не занимают рабочие потоки Tomcat
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService testExecutionExecutor() {
+        return Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("test-execution-", 0).factory());
+    }
+}
@@ -0,0 +1,56 @@
+package ru.poib.VTBHack.execution.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.common.engine.impl.history.HistoryLevel;
+import org.flowable.engine.ProcessEngine;
+import org.flowable.engine.ProcessEngineConfiguration;
+import org.flowable.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.flowable.job.service.impl.asyncexecutor.AsyncJobExecutorConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import ru.poib.VTBHack.execution.service.FlowableStepDelegate;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Конфигурация встроенного движка Flowable для режима выполнения ENGINE
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(FlowableEngineProperties.class)
+public class FlowableEngineConfig {
+
+    /**
+     * Движок создается при первом запуске в режиме ENGINE: создание схемы и старт async executor
+     * не замедляют запуск приложения, если режим не используется.
+     * История не ведется: итоги шагов собирает TestExecutionService
+     */
+    @Lazy
+    @Bean(destroyMethod = "close")
+    public ProcessEngine flowableProcessEngine(FlowableEngineProperties properties, FlowableStepDelegate stepDelegate) {
+        StandaloneInMemProcessEngineConfiguration configuration = new StandaloneInMemProcessEngineConfiguration();
+        configuration.setJdbcUrl(properties.getJdbcUrl());
+        configuration.setJdbcDriver("org.h2.Driver");
+        configuration.setJdbcUsername("sa");
+        configuration.setJdbcPassword("");
+        configuration.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_CREATE_DROP);
+        configuration.setHistoryLevel(HistoryLevel.NONE);
+        // Задачи процесса вызывают делегат по имени бина: ${stepDelegate}
+        configuration.setBeans(Map.<Object, Object>of(FlowableStepDelegate.BEAN_NAME, stepDelegate));
+
+        configuration.setAsyncExecutorActivate(true);
+        configuration.setAsyncFailedJobWaitTime(properties.getFailedJobWaitSeconds());
+        AsyncJobExecutorConfiguration executor = configuration.getAsyncExecutorConfiguration();
+        executor.setCorePoolSize(properties.getCorePoolSize());
+        executor.setMaxPoolSize(Math.max(properties.getCorePoolSize(), properties.getMaxPoolSize()));
+        executor.setDefaultAsyncJobAcquireWaitTime(Duration.ofMillis(properties.getAsyncJobAcquireWaitMs()));
+        executor.setDefaultTimerJobAcquireWaitTime(Duration.ofMillis(properties.getTimerJobAcquireWaitMs()));
+
+        log.info("Starting embedded Flowable engine: jdbcUrl={}, asyncPool={}..{}",
+                properties.getJdbcUrl(), properties.getCorePoolSize(), properties.getMaxPoolSize());
+        return configuration.buildProcessEngine();
+    }
+}
@@ -0,0 +1,47 @@
+package ru.poib.VTBHack.execution.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки встроенного движка Flowable для режима выполнения ENGINE (секция execution.flowable в application.yml)
+ */
+@Data
+@ConfigurationProperties(prefix = "execution.flowable")
+public class FlowableEngineProperties {
+    /**
+     * База движка: отдельная in-memory H2, таблицы Flowable не попадают в файловое хранилище приложения
+     */
+    private String jdbcUrl = "jdbc:h2:mem:flowable;DB_CLOSE_DELAY=-1";
+
+    /**
+     * Минимальное количество потоков async executor (задачи процесса выполняются на нем)
+     */
+    private int corePoolSize = 8;
+
+    /**
+     * Максимальное количество потоков async executor: сколько шагов всех запусков выполняется одновременно
+     */
+    private int maxPoolSize = 32;
+
+    /**
+     * Пауза между опросами очереди асинхронных заданий, если новых заданий нет, в миллисекундах.
+     * Задания, созданные в транзакции, передаются executor сразу; опрос подбирает повторы после конфликтов
+     */
+    private long asyncJobAcquireWaitMs = 100;
+
+    /**
+     * Пауза между опросами таймеров, в миллисекундах
+     */
+    private long timerJobAcquireWaitMs = 100;
+
+    /**
+     * Пауза перед повтором упавшего задания, в секундах
+     */
+    private int failedJobWaitSeconds = 1;
+
+    /**
+     * Интервал проверки состояния экземпляра процесса координатором запуска, в миллисекундах
+     */
+    private long pollIntervalMs = 20;
+}
@@ -1,33 +1,148 @@
 package ru.poib.VTBHack.execution.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpRoute;
 import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.URISyntaxException;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 /**
  * Конфигурация HTTP клиента для выполнения тестов
  */
+@Slf4j
 @Configuration
+@EnableConfigurationProperties(HttpClientPoolProperties.class)
 public class HttpClientConfig {
     
-    @Bean
-    public HttpClient httpClient() {
-        RequestConfig requestConfig = RequestConfig.custom()
-                .setConnectionRequestTimeout(Timeout.of(10, TimeUnit.SECONDS))
-                .setResponseTimeout(Timeout.of(30, TimeUnit.SECONDS))
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(HttpClientPoolProperties pool) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(pool.getMaxTotal())
+                .setMaxConnPerRoute(pool.getMaxPerRoute())
+                .setDefaultConnectionConfig(connectionConfig(pool))
                 .build();
+        applyRouteLimits(pool, connectionManager::setMaxPerRoute);
         
+        log.info("HTTP connection pool: maxTotal={}, maxPerRoute={}, routes={}",
+                pool.getMaxTotal(), pool.getMaxPerRoute(), pool.getRoutes());
+        return connectionManager;
+    }
+    
+    @Bean
+    public HttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager,
+                                 RequestConfig defaultRequestConfig,
+                                 HttpClientPoolProperties pool) {
         CloseableHttpClient httpClient = HttpClients.custom()
-                .setDefaultRequestConfig(requestConfig)
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(defaultRequestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(pool.getIdleEvictionMs()))
                 .build();
         
         return httpClient;
     }
+    
+    /**
+     * Пул неблокирующего клиента с теми же лимитами.
+     * Для HTTPS версия протокола согласуется через ALPN: HTTP/2, если сервер его поддерживает
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingAsyncClientConnectionManager httpAsyncConnectionManager(HttpClientPoolProperties pool) {
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(pool.getMaxTotal())
+                .setMaxConnPerRoute(pool.getMaxPerRoute())
+                .setDefaultConnectionConfig(connectionConfig(pool))
+                .setDefaultTlsConfig(TlsConfig.custom()
+                        .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                        .build())
+                .build();
+        applyRouteLimits(pool, connectionManager::setMaxPerRoute);
+        return connectionManager;
+    }
+    
+    /**
+     * Неблокирующий клиент для параллельного выполнения шагов
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient httpAsyncClient(PoolingAsyncClientConnectionManager httpAsyncConnectionManager,
+                                                    RequestConfig defaultRequestConfig,
+                                                    HttpClientPoolProperties pool) {
+        CloseableHttpAsyncClient httpAsyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(httpAsyncConnectionManager)
+                .setDefaultRequestConfig(defaultRequestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(pool.getIdleEvictionMs()))
+                .build();
+        httpAsyncClient.start();
+        
+        return httpAsyncClient;
+    }
+    
+    private ConnectionConfig connectionConfig(HttpClientPoolProperties pool) {
+        ConnectionConfig.Builder connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(pool.getConnectTimeoutMs()))
+                .setValidateAfterInactivity(TimeValue.ofMilliseconds(pool.getValidateAfterInactivityMs()));
+        if (pool.getTimeToLiveMs() > 0) {
+            connectionConfig.setTimeToLive(TimeValue.ofMilliseconds(pool.getTimeToLiveMs()));
+        }
+        return connectionConfig.build();
+    }
+    
+    /**
+     * Настройки запроса по умолчанию. Исполнители строят конфигурацию запроса копией этих настроек,
+     * иначе RequestConfig запроса заменил бы их целиком вместе с keep-alive
+     */
+    @Bean
+    public RequestConfig defaultRequestConfig(HttpClientPoolProperties pool) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(10, TimeUnit.SECONDS))
+                .setResponseTimeout(Timeout.of(30, TimeUnit.SECONDS))
+                // Используется, если сервер не прислал заголовок Keep-Alive
+                .setConnectionKeepAlive(TimeValue.ofMilliseconds(pool.getKeepAliveMs()))
+                .build();
+    }
+    
+    /**
+     * Индивидуальные лимиты для отдельных маршрутов
+     */
+    private void applyRouteLimits(HttpClientPoolProperties pool, BiConsumer<HttpRoute, Integer> setMaxPerRoute) {
+        for (Map.Entry<String, Integer> route : pool.getRoutes().entrySet()) {
+            try {
+                setMaxPerRoute.accept(toRoute(route.getKey()), route.getValue());
+            } catch (URISyntaxException e) {
+                log.warn("Ignoring invalid pool route '{}': {}", route.getKey(), e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Преобразует "scheme://host[:port]" в маршрут пула с портом по умолчанию для схемы
+     */
+    static HttpRoute toRoute(String uri) throws URISyntaxException {
+        HttpHost host = HttpHost.create(uri);
+        boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+        int port = host.getPort() > 0 ? host.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(host.getSchemeName(), host.getHostName(), port), null, secure);
+    }
 }
-
@@ -0,0 +1,54 @@
+package ru.poib.VTBHack.execution.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Настройки пула HTTP соединений (секция execution.http.pool в application.yml)
+ */
+@Data
+@ConfigurationProperties(prefix = "execution.http.pool")
+public class HttpClientPoolProperties {
+    /**
+     * Максимальное количество соединений в пуле
+     */
+    private int maxTotal = 200;
+    
+    /**
+     * Максимальное количество соединений на один маршрут (схема + хост + порт) по умолчанию
+     */
+    private int maxPerRoute = 50;
+    
+    /**
+     * Индивидуальные лимиты для маршрутов: "https://api.example.com" -> максимум соединений
+     */
+    private Map<String, Integer> routes = new LinkedHashMap<>();
+    
+    /**
+     * Время жизни простаивающего соединения, если сервер не прислал заголовок Keep-Alive, в миллисекундах
+     */
+    private long keepAliveMs = 30000;
+    
+    /**
+     * Соединения, простаивающие дольше этого времени, закрываются фоновым потоком, в миллисекундах
+     */
+    private long idleEvictionMs = 60000;
+    
+    /**
+     * Максимальное время жизни соединения (0 - без ограничения), в миллисекундах
+     */
+    private long timeToLiveMs = 300000;
+    
+    /**
+     * Проверять соединение перед повторным использованием после простоя дольше этого времени, в миллисекундах
+     */
+    private long validateAfterInactivityMs = 2000;
+    
+    /**
+     * Таймаут установки TCP соединения в миллисекундах
+     */
+    private long connectTimeoutMs = 10000;
+}
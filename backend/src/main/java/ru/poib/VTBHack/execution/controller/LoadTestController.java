@@ -0,0 +1,59 @@
+package ru.poib.VTBHack.execution.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.poib.VTBHack.execution.model.LoadTestRequest;
+import ru.poib.VTBHack.execution.model.LoadTestResult;
+import ru.poib.VTBHack.execution.service.LoadTestService;
+
+import java.net.URI;
+
+/**
+ * REST контроллер для нагрузочных прогонов процесса
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/load-test")
+@CrossOrigin(origins = "*")
+public class LoadTestController {
+
+    private final LoadTestService loadTestService;
+
+    public LoadTestController(LoadTestService loadTestService) {
+        this.loadTestService = loadTestService;
+    }
+
+    /**
+     * Запускает нагрузочный прогон в фоне: процесс повторяется K виртуальными пользователями.
+     * Прогон длится до maxDurationMs, поэтому результат забирается по ссылке из заголовка Location
+     *
+     * @param request описание процесса и параметры нагрузки
+     * @return 202 Accepted с loadTestId и статусом RUNNING
+     */
+    @PostMapping("/run")
+    public ResponseEntity<LoadTestResult> runLoadTest(@RequestBody LoadTestRequest request) {
+        try {
+            LoadTestResult snapshot = loadTestService.submit(request);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/load-test/status/" + snapshot.getLoadTestId()))
+                    .body(snapshot);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid load test request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Возвращает статистику прогона: промежуточную (RUNNING) или итоговую
+     *
+     * @param loadTestId ID прогона
+     * @return снимок статистики или 404, если прогон неизвестен или удален по сроку хранения
+     */
+    @GetMapping("/status/{loadTestId}")
+    public ResponseEntity<LoadTestResult> getStatus(@PathVariable String loadTestId) {
+        return loadTestService.getSnapshot(loadTestId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
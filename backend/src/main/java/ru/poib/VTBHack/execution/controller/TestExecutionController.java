@@ -2,14 +2,27 @@ package ru.poib.VTBHack.execution.controller;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.poib.VTBHack.config.JsonCodecs;
 import ru.poib.VTBHack.execution.model.ExecutionConfig;
+import ru.poib.VTBHack.execution.model.HttpPoolStatistics;
+import ru.poib.VTBHack.execution.model.JsonPathCacheStatistics;
 import ru.poib.VTBHack.execution.model.TestExecutionRequest;
 import ru.poib.VTBHack.execution.model.TestExecutionResult;
+import ru.poib.VTBHack.execution.service.AsyncExecutionService;
+import ru.poib.VTBHack.execution.service.DataExtractor;
+import ru.poib.VTBHack.execution.service.ExecutionStatisticsService;
+import ru.poib.VTBHack.execution.service.HttpConnectionPoolService;
 import ru.poib.VTBHack.execution.service.TestExecutionService;
 import ru.poib.VTBHack.generator.model.TestDataGenerationResult;
 import ru.poib.VTBHack.mapping.model.MappingResult;
 import ru.poib.VTBHack.parser.model.ProcessModel;
+import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
 import ru.poib.VTBHack.parser.service.BpmnParserService;
+import ru.poib.VTBHack.parser.service.OpenApiParserService;
+import ru.poib.VTBHack.storage.service.ArtifactStoreService;
+
+import java.net.URI;
+import java.util.List;
 
 /**
  * REST контроллер для модуля выполнения тестов
@@ -20,25 +33,53 @@ import ru.poib.VTBHack.parser.service.BpmnParserService;
 public class TestExecutionController {
     
     private final TestExecutionService testExecutionService;
+    private final AsyncExecutionService asyncExecutionService;
+    private final ExecutionStatisticsService executionStatisticsService;
     private final BpmnParserService bpmnParserService;
+    private final OpenApiParserService openApiParserService;
+    private final HttpConnectionPoolService httpConnectionPoolService;
+    private final DataExtractor dataExtractor;
+    private final JsonCodecs jsonCodecs;
+    private final ArtifactStoreService artifactStoreService;
     
     public TestExecutionController(
             TestExecutionService testExecutionService,
-            BpmnParserService bpmnParserService) {
+            AsyncExecutionService asyncExecutionService,
+            ExecutionStatisticsService executionStatisticsService,
+            BpmnParserService bpmnParserService,
+            OpenApiParserService openApiParserService,
+            HttpConnectionPoolService httpConnectionPoolService,
+            DataExtractor dataExtractor,
+            JsonCodecs jsonCodecs,
+            ArtifactStoreService artifactStoreService) {
         this.testExecutionService = testExecutionService;
+        this.asyncExecutionService = asyncExecutionService;
+        this.executionStatisticsService = executionStatisticsService;
         this.bpmnParserService = bpmnParserService;
+        this.openApiParserService = openApiParserService;
+        this.httpConnectionPoolService = httpConnectionPoolService;
+        this.dataExtractor = dataExtractor;
+        this.jsonCodecs = jsonCodecs;
+        this.artifactStoreService = artifactStoreService;
     }
     
     /**
      * Выполняет тест с полным запросом
      * 
      * @param request полный запрос на выполнение теста
-     * @return результат выполнения
+     * @param async запустить асинхронно и сразу вернуть executionId (по умолчанию false)
+     * @return результат выполнения или начальный снимок асинхронного выполнения
      */
     @PostMapping("/execute")
-    public ResponseEntity<TestExecutionResult> executeTest(@RequestBody TestExecutionRequest request) {
+    public ResponseEntity<TestExecutionResult> executeTest(
+            @RequestBody TestExecutionRequest request,
+            @RequestParam(defaultValue = "false") boolean async) {
         try {
+            if (async) {
+                return submitAsync(request);
+            }
             TestExecutionResult result = testExecutionService.executeTest(request);
+            artifactStoreService.recordExecutionResult(result);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -56,7 +97,8 @@ public class TestExecutionController {
      * @param baseUrl базовый URL API
      * @param variantIndex индекс варианта тестовых данных (по умолчанию 0)
      * @param stopOnFirstError остановить выполнение при первой ошибке (по умолчанию false)
-     * @return результат выполнения
+     * @param async запустить асинхронно и сразу вернуть executionId (по умолчанию false)
+     * @return результат выполнения или начальный снимок асинхронного выполнения
      */
     @PostMapping("/execute-simple")
     public ResponseEntity<TestExecutionResult> executeTestSimple(
@@ -66,15 +108,20 @@ public class TestExecutionController {
             @RequestParam String mappingResultJson,
             @RequestParam String baseUrl,
             @RequestParam(defaultValue = "0") int variantIndex,
-            @RequestParam(defaultValue = "false") boolean stopOnFirstError) {
+            @RequestParam(defaultValue = "false") boolean stopOnFirstError,
+            @RequestParam(defaultValue = "false") boolean async) {
         try {
             // Парсим входные данные
             ProcessModel processModel = bpmnParserService.parse(bpmnXml);
             
-            // Парсим тестовые данные и маппинг (нужно использовать ObjectMapper)
-            com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            TestDataGenerationResult testData = objectMapper.readValue(testDataJson, TestDataGenerationResult.class);
-            MappingResult mappingResult = objectMapper.readValue(mappingResultJson, MappingResult.class);
+            // Парсим тестовые данные и маппинг подготовленными reader'ами общего ObjectMapper
+            TestDataGenerationResult testData = jsonCodecs.testDataReader().readValue(testDataJson);
+            MappingResult mappingResult = jsonCodecs.mappingResultReader().readValue(mappingResultJson);
+            // Спецификация нужна для проверки ответов по контракту (статусы и схемы);
+            // схемы ответов связываются только для выполняемых операций
+            OpenApiModel openApiModel = openApiJson != null && !openApiJson.isBlank()
+                    ? openApiParserService.parseOpenApiLazily(openApiJson)
+                    : null;
             
             // Создаем конфигурацию
             ExecutionConfig config = new ExecutionConfig();
@@ -87,13 +134,19 @@ public class TestExecutionController {
             TestExecutionRequest request = new TestExecutionRequest();
             request.setProcessModel(processModel);
             request.setMappingResult(mappingResult);
+            request.setOpenApiModel(openApiModel);
             request.setTestData(testData);
             request.setConfig(config);
             request.setTestDataVariantIndex(variantIndex);
             request.setStopOnFirstError(stopOnFirstError);
             
-            // Выполняем тест
+            if (async) {
+                return submitAsync(request);
+            }
+            
+            // Выполняем тест, итог сохраняется в хранилище артефактов
             TestExecutionResult result = testExecutionService.executeTest(request);
+            artifactStoreService.recordExecutionResult(result);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             System.out.println("Ошибка выполнения простого теста: " + e.getMessage());
@@ -102,16 +155,56 @@ public class TestExecutionController {
     }
     
     /**
-     * Получает статус выполнения теста (для асинхронных операций)
-     * В текущей реализации тесты выполняются синхронно, но метод оставлен для будущего расширения
+     * Получает статус асинхронного выполнения теста
+     * Пока выполнение идет, возвращает снимок со статусом RUNNING и уже завершенными шагами
      * 
-     * @param executionId ID выполнения (если будет реализована асинхронность)
-     * @return результат выполнения
+     * @param executionId ID выполнения, полученный при асинхронном запуске
+     * @return текущий снимок или итоговый результат выполнения
      */
     @GetMapping("/status/{executionId}")
     public ResponseEntity<TestExecutionResult> getExecutionStatus(@PathVariable String executionId) {
-        // В будущем здесь можно реализовать получение статуса асинхронного выполнения
-        return ResponseEntity.notFound().build();
+        return asyncExecutionService.getSnapshot(executionId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Объединяет статистику нескольких прогонов, включая гистограммы задержек по эндпоинтам
+     * 
+     * @param statistics статистика прогонов (поле statistics из TestExecutionResult)
+     * @return объединенная статистика
+     */
+    @PostMapping("/statistics/merge")
+    public ResponseEntity<TestExecutionResult.ExecutionStatistics> mergeStatistics(
+            @RequestBody List<TestExecutionResult.ExecutionStatistics> statistics) {
+        return ResponseEntity.ok(executionStatisticsService.merge(statistics));
+    }
+    
+    /**
+     * Возвращает состояние пулов HTTP соединений: занятые, ожидающие и свободные соединения
+     * 
+     * @return статистика блокирующего и неблокирующего пулов целиком и по маршрутам
+     */
+    @GetMapping("/http-pool")
+    public ResponseEntity<HttpPoolStatistics> getHttpPoolStatistics() {
+        return ResponseEntity.ok(httpConnectionPoolService.getStatistics());
+    }
+    
+    /**
+     * Возвращает статистику кэша скомпилированных JSONPath выражений
+     * 
+     * @return размер кэша, попадания, промахи и вытеснения
+     */
+    @GetMapping("/jsonpath-cache")
+    public ResponseEntity<JsonPathCacheStatistics> getJsonPathCacheStatistics() {
+        return ResponseEntity.ok(dataExtractor.getCacheStatistics());
+    }
+    
+    private ResponseEntity<TestExecutionResult> submitAsync(TestExecutionRequest request) {
+        TestExecutionResult snapshot = asyncExecutionService.submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/execution/status/" + snapshot.getExecutionId()))
+                .body(snapshot);
     }
 }
 
@@ -0,0 +1,40 @@
+package ru.poib.VTBHack.execution.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Circuit breaker для деградирующего API.
+ * После failureThreshold ошибок подряд (5xx или сетевая ошибка) запросы отклоняются как CIRCUIT_OPEN
+ * в течение openDurationMs, затем пропускаются пробные запросы (half-open)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CircuitBreakerConfig {
+    /**
+     * Включен ли circuit breaker (по умолчанию нет)
+     */
+    private boolean enabled = false;
+    
+    /**
+     * Ключ состояния: весь base URL или отдельный эндпоинт (METHOD + путь)
+     */
+    private ExecutionConfig.GuardScope scope = ExecutionConfig.GuardScope.ENDPOINT;
+    
+    /**
+     * Количество ошибок подряд, после которого цепь размыкается (по умолчанию 5)
+     */
+    private int failureThreshold = 5;
+    
+    /**
+     * Время в разомкнутом состоянии до пробных запросов в миллисекундах (по умолчанию 10000)
+     */
+    private long openDurationMs = 10000;
+    
+    /**
+     * Количество одновременных пробных запросов в полуоткрытом состоянии (по умолчанию 1)
+     */
+    private int halfOpenMaxCalls = 1;
+}
@@ -48,11 +48,68 @@ public class ExecutionConfig {
      */
     private long retryDelayMs = 1000;
     
+    /**
+     * Условия повтора и параметры экспоненциальной задержки
+     */
+    private RetryPolicy retryPolicy = new RetryPolicy();
+    
+    /**
+     * Ограничение частоты запросов к целевому API
+     */
+    private RateLimitConfig rateLimit = new RateLimitConfig();
+    
+    /**
+     * Размыкание цепи при деградации целевого API
+     */
+    private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+    
     /**
      * Максимальное время выполнения всего процесса в миллисекундах (по умолчанию 120000 = 2 минуты)
      */
     private long maxExecutionTimeMs = 120000;
-    
+
+    /**
+     * Жесткий лимит размера тела ответа в байтах: больший ответ прерывается (по умолчанию 10 МБ, 0 - без лимита)
+     */
+    private long maxResponseBodyBytes = 10L * 1024 * 1024;
+
+    /**
+     * Сколько байт тела ответа сохранять в отчете (ResponseDetails.body), по умолчанию 64 КБ
+     */
+    private int responsePreviewBytes = 64 * 1024;
+
+    /**
+     * Режим выполнения шагов процесса (по умолчанию SEQUENTIAL)
+     */
+    private ExecutionMode executionMode = ExecutionMode.SEQUENTIAL;
+
+    /**
+     * Максимальное количество одновременно выполняемых шагов в режиме PARALLEL (по умолчанию 8).
+     * В режиме клиента ASYNC ограничивает число запросов в полете, а не потоков
+     */
+    private int maxParallelSteps = 8;
+
+    /**
+     * HTTP клиент для отправки запросов (по умолчанию BLOCKING)
+     */
+    private HttpClientMode httpClientMode = HttpClientMode.BLOCKING;
+
+    public enum ExecutionMode {
+        SEQUENTIAL, // Шаги выполняются строго по одному в порядке execution order
+        PARALLEL,   // Независимые шаги (без sequence flow и потока данных между ними) выполняются одновременно
+        ENGINE      // Процесс выполняется встроенным движком Flowable: ветки шлюзов идут одновременно на его async executor
+    }
+
+    public enum HttpClientMode {
+        BLOCKING, // Классический клиент: поток ожидает ответа
+        ASYNC     // Неблокирующий клиент с HTTP/2 (если сервер поддерживает): запросы не занимают потоки
+    }
+
+    public enum GuardScope {
+        BASE_URL, // Общее состояние для всех запросов к baseUrl
+        ENDPOINT  // Отдельное состояние для каждого METHOD + путь
+    }
+
     /**
      * Конфигурация аутентификации
      */
@@ -67,7 +67,9 @@ public class ExecutionProblem {
         CONTRACT_ERROR,
         BUSINESS_LOGIC_ERROR,
         UNEXPECTED_RESPONSE,
-        DATA_EXTRACTION_ERROR
+        DATA_EXTRACTION_ERROR,
+        RATE_LIMITED,
+        CIRCUIT_OPEN
     }
     
     public enum Severity {
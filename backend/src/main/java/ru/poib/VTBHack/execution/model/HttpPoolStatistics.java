@@ -0,0 +1,61 @@
+package ru.poib.VTBHack.execution.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Состояние пулов HTTP соединений
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HttpPoolStatistics {
+    /**
+     * Суммарная статистика пула блокирующего клиента
+     */
+    private RouteStatistics total;
+    
+    /**
+     * Статистика пула блокирующего клиента по маршрутам: "https://host:port" -> статистика
+     */
+    private Map<String, RouteStatistics> routes = new LinkedHashMap<>();
+    
+    /**
+     * Суммарная статистика пула неблокирующего клиента (параллельное выполнение шагов)
+     */
+    private RouteStatistics asyncTotal;
+    
+    /**
+     * Статистика пула неблокирующего клиента по маршрутам
+     */
+    private Map<String, RouteStatistics> asyncRoutes = new LinkedHashMap<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RouteStatistics {
+        /**
+         * Соединения, выданные запросам в данный момент
+         */
+        private int leased;
+        
+        /**
+         * Запросы, ожидающие свободного соединения
+         */
+        private int pending;
+        
+        /**
+         * Свободные соединения, готовые к повторному использованию
+         */
+        private int available;
+        
+        /**
+         * Лимит соединений
+         */
+        private int max;
+    }
+}
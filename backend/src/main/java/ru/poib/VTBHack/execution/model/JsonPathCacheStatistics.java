@@ -0,0 +1,43 @@
+package ru.poib.VTBHack.execution.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Состояние кэша скомпилированных JSONPath выражений
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JsonPathCacheStatistics {
+    /**
+     * Количество выражений в кэше
+     */
+    private int size;
+
+    /**
+     * Максимальный размер кэша
+     */
+    private int maxSize;
+
+    /**
+     * Обращения, для которых выражение уже было скомпилировано
+     */
+    private long hits;
+
+    /**
+     * Обращения, потребовавшие компиляции выражения
+     */
+    private long misses;
+
+    /**
+     * Выражения, вытесненные из-за ограничения размера
+     */
+    private long evictions;
+
+    /**
+     * Доля попаданий от 0 до 1
+     */
+    private double hitRate;
+}
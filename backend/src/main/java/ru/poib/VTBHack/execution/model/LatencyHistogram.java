@@ -0,0 +1,206 @@
+package ru.poib.VTBHack.execution.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Гистограмма задержек в стиле HDR Histogram с логарифмически-линейными корзинами.
+ * Значения записываются инкрементально без хранения отдельных замеров,
+ * относительная погрешность перцентилей не превышает ~1.6%.
+ * Гистограммы можно объединять (например, между прогонами разных сборок)
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class LatencyHistogram {
+
+    // 128 под-корзин на первый порядок, по 64 на каждый следующий
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    // Значения ограничены 2^31 мс (~24 дня), этого достаточно для любых задержек
+    private static final long MAX_TRACKABLE_VALUE = (1L << 31) - 1;
+    private static final int BUCKET_COUNT = indexFor(MAX_TRACKABLE_VALUE) + 1;
+
+    private long[] counts;
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private double sum;
+
+    /**
+     * Записывает одно значение задержки в миллисекундах
+     */
+    public synchronized void record(long valueMs) {
+        long value = Math.max(0, Math.min(valueMs, MAX_TRACKABLE_VALUE));
+        if (counts == null) {
+            counts = new long[BUCKET_COUNT];
+        }
+        counts[indexFor(value)]++;
+        totalCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Добавляет в гистограмму все значения другой гистограммы
+     */
+    public void merge(LatencyHistogram other) {
+        if (other == null || other == this) {
+            return;
+        }
+        long[] otherCounts;
+        long otherTotal;
+        long otherMin;
+        long otherMax;
+        double otherSum;
+        synchronized (other) {
+            if (other.totalCount == 0) {
+                return;
+            }
+            otherCounts = other.counts.clone();
+            otherTotal = other.totalCount;
+            otherMin = other.min;
+            otherMax = other.max;
+            otherSum = other.sum;
+        }
+        synchronized (this) {
+            if (counts == null) {
+                counts = new long[BUCKET_COUNT];
+            }
+            for (int i = 0; i < otherCounts.length; i++) {
+                counts[i] += otherCounts[i];
+            }
+            totalCount += otherTotal;
+            sum += otherSum;
+            min = Math.min(min, otherMin);
+            max = Math.max(max, otherMax);
+        }
+    }
+
+    /**
+     * Возвращает значение, не превышаемое заданной долей замеров
+     *
+     * @param percentile перцентиль от 0 до 100
+     * @return верхняя граница корзины, содержащей перцентиль (не больше максимума)
+     */
+    public synchronized long valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double p = Math.max(0.0, Math.min(percentile, 100.0));
+        long target = Math.max(1, (long) Math.ceil(p / 100.0 * totalCount));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return Math.min(highestValueAt(i), max);
+            }
+        }
+        return max;
+    }
+
+    public synchronized long getCount() {
+        return totalCount;
+    }
+
+    public synchronized long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getSum() {
+        return sum;
+    }
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public synchronized double getMean() {
+        return totalCount == 0 ? 0.0 : sum / totalCount;
+    }
+
+    @JsonProperty(value = "p50", access = JsonProperty.Access.READ_ONLY)
+    public long getP50() {
+        return valueAtPercentile(50.0);
+    }
+
+    @JsonProperty(value = "p90", access = JsonProperty.Access.READ_ONLY)
+    public long getP90() {
+        return valueAtPercentile(90.0);
+    }
+
+    @JsonProperty(value = "p99", access = JsonProperty.Access.READ_ONLY)
+    public long getP99() {
+        return valueAtPercentile(99.0);
+    }
+
+    @JsonProperty(value = "p999", access = JsonProperty.Access.READ_ONLY)
+    public long getP999() {
+        return valueAtPercentile(99.9);
+    }
+
+    /**
+     * Ненулевые корзины в разреженном виде (индекс корзины -> количество).
+     * Используются для сериализации и последующего объединения гистограмм
+     */
+    public synchronized Map<Integer, Long> getBuckets() {
+        Map<Integer, Long> buckets = new TreeMap<>();
+        if (counts != null) {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    buckets.put(i, counts[i]);
+                }
+            }
+        }
+        return buckets;
+    }
+
+    public synchronized void setBuckets(Map<Integer, Long> buckets) {
+        counts = new long[BUCKET_COUNT];
+        totalCount = 0;
+        if (buckets == null) {
+            return;
+        }
+        for (Map.Entry<Integer, Long> entry : buckets.entrySet()) {
+            int index = entry.getKey();
+            if (index >= 0 && index < BUCKET_COUNT && entry.getValue() != null) {
+                counts[index] += entry.getValue();
+                totalCount += entry.getValue();
+            }
+        }
+    }
+
+    public synchronized void setMin(long min) {
+        this.min = min;
+    }
+
+    public synchronized void setMax(long max) {
+        this.max = max;
+    }
+
+    public synchronized void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    private static int indexFor(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> exponent);
+        return SUB_BUCKET_COUNT + (exponent - 1) * SUB_BUCKET_HALF + (subBucket - SUB_BUCKET_HALF);
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((subBucket + 1) << exponent) - 1;
+    }
+}
@@ -0,0 +1,38 @@
+package ru.poib.VTBHack.execution.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Конфигурация нагрузочного прогона процесса
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadTestConfig {
+    /**
+     * Количество одновременно работающих виртуальных пользователей (по умолчанию 1)
+     */
+    private int virtualUsers = 1;
+    
+    /**
+     * Общее количество итераций (прогонов процесса) по всем пользователям (по умолчанию 100)
+     */
+    private int iterations = 100;
+    
+    /**
+     * Время, за которое равномерно стартуют все виртуальные пользователи, в миллисекундах (по умолчанию 0)
+     */
+    private long rampUpMs = 0;
+    
+    /**
+     * Целевое количество итераций в секунду по всем пользователям (0 - без ограничения)
+     */
+    private double targetIterationsPerSecond = 0;
+    
+    /**
+     * Максимальная длительность нагрузочного прогона в миллисекундах (по умолчанию 300000 = 5 минут)
+     */
+    private long maxDurationMs = 300000;
+}
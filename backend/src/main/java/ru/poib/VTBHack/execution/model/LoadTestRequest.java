@@ -0,0 +1,24 @@
+package ru.poib.VTBHack.execution.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Запрос на нагрузочный прогон процесса
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadTestRequest {
+    /**
+     * Описание одного прогона: процесс, маппинг, тестовые данные и окружение.
+     * Поле testDataVariantIndex игнорируется: итерации перебирают все варианты по кругу
+     */
+    private TestExecutionRequest execution;
+    
+    /**
+     * Параметры нагрузки
+     */
+    private LoadTestConfig loadConfig;
+}
@@ -0,0 +1,122 @@
+package ru.poib.VTBHack.execution.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Агрегированный результат нагрузочного прогона.
+ * Вместо списков шагов хранит гистограммы задержек, поэтому размер не зависит от числа итераций
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadTestResult {
+    /**
+     * ID прогона для запроса статуса (/api/load-test/status/{loadTestId})
+     */
+    private String loadTestId;
+    
+    /**
+     * Состояние прогона: RUNNING - промежуточный снимок
+     */
+    private LoadTestStatus status;
+    
+    /**
+     * Причина аварийного завершения прогона (status = FAILED)
+     */
+    private String errorMessage;
+    
+    /**
+     * ID процесса
+     */
+    private String processId;
+    
+    /**
+     * Название процесса
+     */
+    private String processName;
+    
+    /**
+     * Время начала прогона
+     */
+    private Instant startTime;
+    
+    /**
+     * Время окончания прогона
+     */
+    private Instant endTime;
+    
+    /**
+     * Общая длительность прогона в миллисекундах
+     */
+    private long totalDurationMs;
+    
+    /**
+     * Количество завершенных итераций
+     */
+    private long iterationsCompleted;
+    
+    /**
+     * Количество итераций со статусом SUCCESS
+     */
+    private long successfulIterations;
+    
+    /**
+     * Количество итераций со статусом PARTIAL
+     */
+    private long partialIterations;
+    
+    /**
+     * Количество итераций со статусом FAILED
+     */
+    private long failedIterations;
+    
+    /**
+     * Фактическая пропускная способность (итераций в секунду)
+     */
+    private double actualIterationsPerSecond;
+    
+    /**
+     * Признак остановки по maxDurationMs до выполнения всех итераций
+     */
+    private boolean stoppedByTimeout;
+    
+    /**
+     * Гистограмма длительности итераций (весь процесс целиком)
+     */
+    private LatencyHistogram iterationLatency = new LatencyHistogram();
+    
+    /**
+     * Статистика по шагам: taskId -> задержки и ошибки
+     */
+    private Map<String, StepLoadStatistics> stepStatistics = new LinkedHashMap<>();
+    
+    /**
+     * Количество выявленных проблем по типам
+     */
+    private Map<ExecutionProblem.ProblemType, Long> problemCounts = new EnumMap<>(ExecutionProblem.ProblemType.class);
+    
+    public enum LoadTestStatus {
+        RUNNING,    // Прогон идет, статистика неполная
+        COMPLETED,  // Все итерации выполнены или истек maxDurationMs
+        FAILED      // Прогон прервался из-за ошибки
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StepLoadStatistics {
+        private String taskId;
+        private String taskName;
+        private long successCount;
+        private long failedCount;
+        private long skippedCount;
+        private LatencyHistogram latency = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.poib.VTBHack.execution.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ограничение частоты запросов (token bucket).
+ * Состояние бакета общее для всех запусков с тем же ключом (base URL или эндпоинт)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitConfig {
+    /**
+     * Включено ли ограничение (по умолчанию нет)
+     */
+    private boolean enabled = false;
+    
+    /**
+     * Ключ бакета: весь base URL или отдельный эндпоинт (METHOD + путь)
+     */
+    private ExecutionConfig.GuardScope scope = ExecutionConfig.GuardScope.BASE_URL;
+    
+    /**
+     * Скорость пополнения бакета, запросов в секунду (по умолчанию 50)
+     */
+    private double requestsPerSecond = 50;
+    
+    /**
+     * Емкость бакета: сколько запросов можно отправить подряд без ожидания (по умолчанию 50)
+     */
+    private int burst = 50;
+    
+    /**
+     * Сколько запрос может ждать свободного токена; если дольше, он отклоняется как RATE_LIMITED (по умолчанию 1000)
+     */
+    private long maxWaitMs = 1000;
+}
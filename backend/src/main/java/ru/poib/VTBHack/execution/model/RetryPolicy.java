@@ -0,0 +1,59 @@
+package ru.poib.VTBHack.execution.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Политика повторных попыток HTTP запросов.
+ * Количество попыток и базовая задержка задаются в ExecutionConfig (retryCount, retryDelayMs),
+ * задержка перед попыткой N: min(maxDelayMs, retryDelayMs * backoffMultiplier^(N-1)) с долей случайного разброса jitter
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetryPolicy {
+    /**
+     * Статусы ответа, при которых запрос повторяется: точный код ("503") или класс ("5xx")
+     */
+    private List<String> retryableStatuses = new ArrayList<>(List.of("429", "502", "503", "504"));
+    
+    /**
+     * Исключения, при которых запрос повторяется: простое или полное имя класса.
+     * Учитываются суперклассы и причины (cause) исключения
+     */
+    private List<String> retryableExceptions = new ArrayList<>(List.of(
+            "ConnectException",
+            "SocketTimeoutException",
+            "NoHttpResponseException"
+    ));
+    
+    /**
+     * Повторять ли неидемпотентные запросы (POST, PATCH). По умолчанию нет:
+     * повтор может создать ресурс дважды
+     */
+    private boolean retryNonIdempotent = false;
+    
+    /**
+     * Множитель экспоненциальной задержки (по умолчанию 2.0)
+     */
+    private double backoffMultiplier = 2.0;
+    
+    /**
+     * Максимальная задержка между попытками в миллисекундах (по умолчанию 30000)
+     */
+    private long maxDelayMs = 30000;
+    
+    /**
+     * Доля задержки, заменяемая случайной величиной: 0 - без разброса, 1 - от 0 до полной задержки (по умолчанию 0.5)
+     */
+    private double jitter = 0.5;
+    
+    /**
+     * Учитывать заголовок Retry-After (в секундах) для ответов 429 и 503, не превышая maxDelayMs
+     */
+    private boolean respectRetryAfter = true;
+}
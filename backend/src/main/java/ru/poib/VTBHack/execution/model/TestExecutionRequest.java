@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import ru.poib.VTBHack.generator.model.TestDataGenerationResult;
 import ru.poib.VTBHack.mapping.model.MappingResult;
 import ru.poib.VTBHack.parser.model.ProcessModel;
+import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
 
 /**
  * Запрос на выполнение тестов
@@ -24,6 +25,11 @@ public class TestExecutionRequest {
      */
     private MappingResult mappingResult;
     
+    /**
+     * OpenAPI спецификация (необязательно): ожидаемые статусы и схемы ответов для валидации
+     */
+    private OpenApiModel openApiModel;
+    
     /**
      * Сгенерированные тестовые данные
      */
@@ -7,6 +7,8 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Результат выполнения теста
@@ -16,7 +18,12 @@ import java.util.List;
 @AllArgsConstructor
 public class TestExecutionResult {
     /**
-     * Общий статус выполнения: SUCCESS, FAILED, PARTIAL
+     * ID выполнения (заполняется при асинхронном запуске)
+     */
+    private String executionId;
+    
+    /**
+     * Общий статус выполнения: SUCCESS, FAILED, PARTIAL, RUNNING
      */
     private ExecutionStatus status;
     
@@ -63,7 +70,8 @@ public class TestExecutionResult {
     public enum ExecutionStatus {
         SUCCESS,    // Все шаги выполнены успешно
         FAILED,     // Выполнение завершилось с ошибкой
-        PARTIAL     // Часть шагов выполнена успешно, часть - с ошибками
+        PARTIAL,    // Часть шагов выполнена успешно, часть - с ошибками
+        RUNNING     // Асинхронное выполнение еще не завершено (промежуточный снимок)
     }
     
     @Data
@@ -119,6 +127,27 @@ public class TestExecutionResult {
          * Количество ошибок валидации
          */
         private int validationErrors;
+        
+        /**
+         * Количество HTTP попыток, включая повторные
+         */
+        private int totalAttempts;
+        
+        /**
+         * Количество шагов, потребовавших хотя бы одного повтора
+         */
+        private int retriedSteps;
+        
+        /**
+         * Гистограмма длительности всех выполненных шагов (p50, p90, p99, p99.9)
+         */
+        private LatencyHistogram stepLatency = new LatencyHistogram();
+        
+        /**
+         * Гистограммы задержек по эндпоинтам: "METHOD /path/{template}" -> гистограмма.
+         * Гистограммы можно объединять между прогонами для сравнения сборок
+         */
+        private Map<String, LatencyHistogram> endpointLatencies = new TreeMap<>();
     }
 }
 
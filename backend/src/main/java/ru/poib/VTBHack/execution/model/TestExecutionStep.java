@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -69,6 +71,16 @@ public class TestExecutionStep {
      */
     private String errorMessage;
     
+    /**
+     * HTTP попытки шага, включая повторные (в durationMs шага входят все попытки и задержки между ними)
+     */
+    private List<Attempt> attempts = new ArrayList<>();
+    
+    /**
+     * Причина, по которой запрос не был отправлен (RATE_LIMITED, CIRCUIT_OPEN), иначе null
+     */
+    private ExecutionProblem.ProblemType rejectedBy;
+    
     public enum StepStatus {
         SUCCESS,
         FAILED,
@@ -92,9 +104,31 @@ public class TestExecutionStep {
     public static class ResponseDetails {
         private int statusCode;
         private Map<String, String> headers;
+        /**
+         * Тело ответа или его начало, если оно больше responsePreviewBytes
+         */
         private String body;
         private long responseTimeMs;
         private Instant timestamp;
+        /**
+         * Полный размер тела ответа в байтах
+         */
+        private long bodySizeBytes;
+        /**
+         * Тело в отчете усечено
+         */
+        private boolean bodyTruncated;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Attempt {
+        private int number;
+        private Instant startTime;
+        private long durationMs;
+        private long delayBeforeMs;
+        private int statusCode;
+        private String errorMessage;
     }
 }
-
@@ -0,0 +1,179 @@
+package ru.poib.VTBHack.execution.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.execution.model.ExecutionProblem;
+import ru.poib.VTBHack.execution.model.TestExecutionRequest;
+import ru.poib.VTBHack.execution.model.TestExecutionResult;
+import ru.poib.VTBHack.execution.model.TestExecutionStep;
+import ru.poib.VTBHack.storage.service.ArtifactStoreService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Сервис асинхронного выполнения тестов.
+ * Запускает тест на управляемом пуле и хранит промежуточные снимки результата по executionId
+ */
+@Slf4j
+@Service
+public class AsyncExecutionService {
+
+    private final TestExecutionService testExecutionService;
+    private final ExecutorService executor;
+    private final ArtifactStoreService artifactStoreService;
+    private final long retentionMs;
+    private final int maxRetained;
+    private final Map<String, ExecutionHandle> executions = new ConcurrentHashMap<>();
+
+    public AsyncExecutionService(
+            TestExecutionService testExecutionService,
+            @Qualifier("testExecutionExecutor") ExecutorService executor,
+            ArtifactStoreService artifactStoreService,
+            @Value("${execution.async.retention-ms:3600000}") long retentionMs,
+            @Value("${execution.async.max-retained:1000}") int maxRetained) {
+        this.testExecutionService = testExecutionService;
+        this.executor = executor;
+        this.artifactStoreService = artifactStoreService;
+        this.retentionMs = retentionMs;
+        this.maxRetained = maxRetained;
+    }
+
+    /**
+     * Запускает тест асинхронно
+     *
+     * @param request запрос на выполнение теста
+     * @return начальный снимок результата с executionId и статусом RUNNING
+     */
+    public TestExecutionResult submit(TestExecutionRequest request) {
+        evictExpired();
+
+        String executionId = UUID.randomUUID().toString();
+        ExecutionHandle handle = new ExecutionHandle(executionId, request);
+        executions.put(executionId, handle);
+
+        executor.execute(() -> {
+            try {
+                TestExecutionResult result = testExecutionService.executeTest(request, handle);
+                result.setExecutionId(executionId);
+                handle.finish(result);
+            } catch (RuntimeException e) {
+                log.error("Async execution {} failed", executionId, e);
+                handle.fail(e);
+            }
+            // Итог сохраняется, чтобы быть доступным после вытеснения из памяти
+            artifactStoreService.recordExecutionResult(handle.snapshot());
+        });
+
+        log.info("Submitted async execution {}", executionId);
+        return handle.snapshot();
+    }
+
+    /**
+     * Возвращает текущий снимок результата выполнения.
+     * Выполнения, уже вытесненные из памяти, читаются из хранилища артефактов
+     *
+     * @param executionId ID выполнения
+     * @return промежуточный или итоговый результат, если выполнение известно
+     */
+    public Optional<TestExecutionResult> getSnapshot(String executionId) {
+        ExecutionHandle handle = executions.get(executionId);
+        return handle != null ? Optional.of(handle.snapshot()) : artifactStoreService.loadExecutionResult(executionId);
+    }
+
+    /**
+     * Удаляет завершенные выполнения старше retentionMs и самые старые сверх лимита maxRetained
+     */
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        executions.values().removeIf(h -> h.finishedAt > 0 && now - h.finishedAt > retentionMs);
+
+        int excess = executions.size() - maxRetained + 1;
+        if (excess > 0) {
+            executions.values().stream()
+                    .filter(h -> h.finishedAt > 0)
+                    .sorted((a, b) -> Long.compare(a.finishedAt, b.finishedAt))
+                    .limit(excess)
+                    .map(h -> h.executionId)
+                    .toList()
+                    .forEach(executions::remove);
+        }
+    }
+
+    /**
+     * Состояние одного асинхронного выполнения.
+     * Шаги и проблемы накапливаются по мере завершения, итоговый результат заменяет снимок
+     */
+    private static final class ExecutionHandle implements ExecutionProgressListener {
+        private final String executionId;
+        private final String processId;
+        private final String processName;
+        private final Instant startTime = Instant.now();
+        private final List<TestExecutionStep> steps = new CopyOnWriteArrayList<>();
+        private final List<ExecutionProblem> problems = new CopyOnWriteArrayList<>();
+        private volatile TestExecutionResult finalResult;
+        private volatile long finishedAt;
+
+        private ExecutionHandle(String executionId, TestExecutionRequest request) {
+            this.executionId = executionId;
+            this.processId = request.getProcessModel() != null ? request.getProcessModel().getId() : null;
+            this.processName = request.getProcessModel() != null ? request.getProcessModel().getName() : null;
+        }
+
+        @Override
+        public void onStep(TestExecutionStep step) {
+            steps.add(step);
+        }
+
+        @Override
+        public void onProblem(ExecutionProblem problem) {
+            problems.add(problem);
+        }
+
+        void finish(TestExecutionResult result) {
+            finalResult = result;
+            finishedAt = System.currentTimeMillis();
+        }
+
+        void fail(Exception e) {
+            TestExecutionResult result = snapshot();
+            ExecutionProblem problem = new ExecutionProblem();
+            problem.setType(ExecutionProblem.ProblemType.UNEXPECTED_RESPONSE);
+            problem.setSeverity(ExecutionProblem.Severity.ERROR);
+            problem.setMessage("Unexpected error during async execution: " + e.getMessage());
+            problem.setDetails(e.toString());
+            problem.setTimestamp(Instant.now());
+            result.getProblems().add(problem);
+            result.setStatus(TestExecutionResult.ExecutionStatus.FAILED);
+            result.setEndTime(Instant.now());
+            result.setTotalDurationMs(result.getEndTime().toEpochMilli() - startTime.toEpochMilli());
+            finish(result);
+        }
+
+        TestExecutionResult snapshot() {
+            TestExecutionResult done = finalResult;
+            if (done != null) {
+                return done;
+            }
+            TestExecutionResult result = new TestExecutionResult();
+            result.setExecutionId(executionId);
+            result.setStatus(TestExecutionResult.ExecutionStatus.RUNNING);
+            result.setProcessId(processId);
+            result.setProcessName(processName);
+            result.setStartTime(startTime);
+            result.setTotalDurationMs(Instant.now().toEpochMilli() - startTime.toEpochMilli());
+            result.setSteps(new ArrayList<>(steps));
+            result.setProblems(new ArrayList<>(problems));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package ru.poib.VTBHack.execution.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.config.JsonCodecs;
+import ru.poib.VTBHack.execution.model.ExecutionConfig;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Неблокирующий исполнитель HTTP запросов на базе асинхронного клиента HttpClient 5.
+ * Запрос не занимает поток на время ожидания ответа, HTTP/2 используется, если сервер его предлагает (ALPN).
+ * Тело ответа накапливается в пределах maxResponseBodyBytes, разбор JSON выполняется вне потоков ввода-вывода
+ */
+@Slf4j
+@Service
+public class AsyncHttpRequestExecutor {
+
+    private static final ContentType TEXT_UTF8 = ContentType.create("text/plain", StandardCharsets.UTF_8);
+
+    private final CloseableHttpAsyncClient httpAsyncClient;
+    private final ExecutorService responseExecutor;
+    private final ObjectMapper objectMapper;
+    private final RequestConfigCache requestConfigs;
+
+    public AsyncHttpRequestExecutor(CloseableHttpAsyncClient httpAsyncClient,
+                                    RequestConfig defaultRequestConfig,
+                                    @Qualifier("testExecutionExecutor") ExecutorService responseExecutor,
+                                    JsonCodecs jsonCodecs) {
+        this.httpAsyncClient = httpAsyncClient;
+        this.requestConfigs = new RequestConfigCache(defaultRequestConfig);
+        this.responseExecutor = responseExecutor;
+        this.objectMapper = jsonCodecs.mapper();
+    }
+
+    /**
+     * Отправляет HTTP запрос асинхронно
+     *
+     * @param method HTTP метод (GET, POST, PUT, DELETE)
+     * @param url полный URL запроса
+     * @param headers заголовки запроса
+     * @param body тело запроса: byte[] (уже сериализованный JSON) или String (может быть null)
+     * @param config конфигурация выполнения
+     * @return future с результатом; завершается успешно и при сетевых ошибках (success = false)
+     */
+    public CompletableFuture<HttpRequestExecutor.ExecutionResult> execute(String method, String url,
+                                                                         Map<String, String> headers,
+                                                                         Object body, ExecutionConfig config) {
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<HttpRequestExecutor.ExecutionResult> future = new CompletableFuture<>();
+
+        SimpleHttpRequest request;
+        try {
+            request = createRequest(method, url, headers, body, config);
+        } catch (RuntimeException e) {
+            log.error("Unexpected error for {} {}: {}", method, url, e.getMessage(), e);
+            future.complete(new HttpRequestExecutor.ExecutionResult(false, 0, null, null, 0,
+                    "Unexpected error: " + e.getMessage(), e));
+            return future;
+        }
+
+        log.debug("Executing async {} request to {}", method, url);
+        CappedResponseConsumer consumer = new CappedResponseConsumer(config.getMaxResponseBodyBytes());
+        httpAsyncClient.execute(SimpleRequestProducer.create(request), consumer, new FutureCallback<>() {
+            @Override
+            public void completed(CappedResponseConsumer.BufferedResponse response) {
+                long durationMs = System.currentTimeMillis() - startTime;
+                log.debug("Response received: status={}, duration={}ms, protocol={}, size={} bytes",
+                        response.response().getCode(), durationMs, response.response().getVersion(), response.length());
+                responseExecutor.execute(() -> {
+                    try {
+                        future.complete(new HttpRequestExecutor.ExecutionResult(
+                                response.response().getCode(),
+                                extractHeaders(response.response()),
+                                extractBody(response, config),
+                                durationMs));
+                    } catch (RuntimeException e) {
+                        log.error("Error processing response for {} {}: {}", method, url, e.getMessage(), e);
+                        future.complete(new HttpRequestExecutor.ExecutionResult(false, 0, null, null, durationMs,
+                                "Unexpected error: " + e.getMessage(), e));
+                    }
+                });
+            }
+
+            @Override
+            public void failed(Exception e) {
+                long durationMs = System.currentTimeMillis() - startTime;
+                if (e instanceof ResponseBody.ResponseTooLargeException) {
+                    log.warn("Aborted {} {}: {}", method, url, e.getMessage());
+                    future.complete(new HttpRequestExecutor.ExecutionResult(false, 0, null, null, durationMs,
+                            e.getMessage(), e));
+                    return;
+                }
+                log.error("Network error for {} {}: {}", method, url, e.getMessage());
+                future.complete(new HttpRequestExecutor.ExecutionResult(false, 0, null, null, durationMs,
+                        "Network error: " + e.getMessage(), e));
+            }
+
+            @Override
+            public void cancelled() {
+                long durationMs = System.currentTimeMillis() - startTime;
+                future.complete(new HttpRequestExecutor.ExecutionResult(false, 0, null, null, durationMs,
+                        "Request cancelled"));
+            }
+        });
+        return future;
+    }
+
+    private SimpleHttpRequest createRequest(String method, String url, Map<String, String> headers,
+                                            Object body, ExecutionConfig config) {
+        String upperMethod = method.toUpperCase();
+        SimpleRequestBuilder builder = switch (upperMethod) {
+            case "GET" -> SimpleRequestBuilder.get(url);
+            case "POST" -> SimpleRequestBuilder.post(url);
+            case "PUT" -> SimpleRequestBuilder.put(url);
+            case "DELETE" -> SimpleRequestBuilder.delete(url);
+            default -> throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+        };
+        builder.setRequestConfig(requestConfigs.get(config));
+
+        if (headers != null) {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                builder.setHeader(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (body != null && (upperMethod.equals("POST") || upperMethod.equals("PUT"))) {
+            if (body instanceof byte[] bytes) {
+                builder.setBody(bytes, ContentType.APPLICATION_JSON);
+            } else {
+                builder.setBody(body.toString().getBytes(StandardCharsets.UTF_8), TEXT_UTF8);
+            }
+        }
+        return builder.build();
+    }
+
+    private Map<String, String> extractHeaders(HttpResponse response) {
+        Map<String, String> headers = new HashMap<>();
+        response.headerIterator().forEachRemaining(header ->
+            headers.put(header.getName(), header.getValue())
+        );
+        return headers;
+    }
+
+    private ResponseBody extractBody(CappedResponseConsumer.BufferedResponse response, ExecutionConfig config) {
+        if (response.length() == 0) {
+            return ResponseBody.EMPTY;
+        }
+        ContentType contentType = response.contentType();
+        Charset charset = contentType != null && contentType.getCharset() != null
+                ? contentType.getCharset()
+                : StandardCharsets.UTF_8;
+        return ResponseBody.fromBytes(response.body(), response.length(),
+                contentType != null ? contentType.toString() : null, charset,
+                config.getResponsePreviewBytes(), objectMapper);
+    }
+}
@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.poib.VTBHack.mapping.model.DataFlowEdge;
 import ru.poib.VTBHack.mapping.model.MappingResult;
+import ru.poib.VTBHack.parser.model.ProcessGraph;
 import ru.poib.VTBHack.parser.model.ProcessModel;
 import ru.poib.VTBHack.parser.model.ProcessTask;
 
@@ -11,7 +12,7 @@ import java.util.*;
 
 /**
  * Упрощенный движок для выполнения BPMN логики
- * Обрабатывает последовательное выполнение шагов согласно графу процесса
+ * Определяет порядок шагов и план их запуска согласно графу процесса
  */
 @Slf4j
 @Service
@@ -25,75 +26,122 @@ public class BpmnExecutionEngine {
      * @return упорядоченный список ID задач для выполнения
      */
     public List<String> determineExecutionOrder(ProcessModel processModel, MappingResult mappingResult) {
-        Map<String, ProcessTask> taskMap = new HashMap<>();
-        for (ProcessTask task : processModel.getTasks()) {
-            taskMap.put(task.getId(), task);
-        }
-        
-        // Строим граф зависимостей
-        Map<String, List<String>> dependencies = new HashMap<>();
-        Map<String, Integer> inDegree = new HashMap<>();
+        List<ProcessTask> tasks = processModel.getTasks() != null ? processModel.getTasks() : List.of();
+        ProcessGraph graph = processModel.getGraph();
         
-        // Инициализация
-        for (ProcessTask task : processModel.getTasks()) {
-            dependencies.put(task.getId(), new ArrayList<>());
-            inDegree.put(task.getId(), 0);
+        // Топологический порядок графа по всем веткам шлюзов; переходы, замыкающие циклы, не учитываются
+        Map<String, Integer> taskIndex = new HashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            taskIndex.putIfAbsent(tasks.get(i).getId(), i);
         }
-        
-        // Добавляем зависимости из sequence flows
-        if (processModel.getSequenceFlows() != null) {
-            for (Map.Entry<String, String> flow : processModel.getSequenceFlows().entrySet()) {
-                String sourceId = flow.getKey();
-                String targetId = flow.getValue();
-                
-                if (taskMap.containsKey(sourceId) && taskMap.containsKey(targetId)) {
-                    dependencies.get(sourceId).add(targetId);
-                    inDegree.put(targetId, inDegree.get(targetId) + 1);
-                }
+        List<String> executionOrder = new ArrayList<>(tasks.size());
+        boolean[] ordered = new boolean[tasks.size()];
+        for (int node : graph.topologicalOrder()) {
+            Integer task = graph.isTask(node) ? taskIndex.get(graph.nodeId(node)) : null;
+            if (task != null) {
+                ordered[task] = true;
+                executionOrder.add(graph.nodeId(node));
             }
         }
         
-        // Топологическая сортировка (Kahn's algorithm)
-        List<String> executionOrder = new ArrayList<>();
-        Queue<String> queue = new LinkedList<>();
-        
-        // Находим задачи без входящих зависимостей (стартовые задачи)
-        for (Map.Entry<String, Integer> entry : inDegree.entrySet()) {
-            if (entry.getValue() == 0) {
-                queue.offer(entry.getKey());
+        // Задачи с повторяющимися id добавляются в конец
+        for (int i = 0; i < tasks.size(); i++) {
+            if (!ordered[i]) {
+                executionOrder.add(tasks.get(i).getId());
             }
         }
         
-        // Если нет явных стартовых задач, начинаем с первой задачи
-        if (queue.isEmpty() && !processModel.getTasks().isEmpty()) {
-            queue.offer(processModel.getTasks().get(0).getId());
+        log.debug("Determined execution order: {}", executionOrder);
+        return executionOrder;
+    }
+    
+    /**
+     * Строит DAG зависимостей между задачами для параллельного выполнения.
+     * Ребро A -> B добавляется, если между задачами есть sequence flow (в том числе через
+     * промежуточные элементы вроде gateway, по всем веткам) или DataFlowEdge. Учитываются только ребра,
+     * направленные вперед относительно executionOrder, поэтому граф всегда ацикличен
+     *
+     * @param processModel модель процесса
+     * @param mappingResult результат маппинга (может быть null)
+     * @param executionOrder порядок выполнения, полученный из determineExecutionOrder
+     * @return план выполнения на основе DAG
+     */
+    public DagExecutionPlan buildExecutionDag(ProcessModel processModel,
+                                              MappingResult mappingResult,
+                                              List<String> executionOrder) {
+        Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < executionOrder.size(); i++) {
+            position.put(executionOrder.get(i), i);
         }
-        
-        while (!queue.isEmpty()) {
-            String currentTaskId = queue.poll();
-            executionOrder.add(currentTaskId);
-            
-            // Уменьшаем in-degree для зависимых задач
-            for (String dependentTaskId : dependencies.get(currentTaskId)) {
-                int newInDegree = inDegree.get(dependentTaskId) - 1;
-                inDegree.put(dependentTaskId, newInDegree);
-                if (newInDegree == 0) {
-                    queue.offer(dependentTaskId);
-                }
+
+        Map<String, List<String>> successors = new HashMap<>();
+        for (String taskId : executionOrder) {
+            successors.put(taskId, new ArrayList<>());
+        }
+
+        // Зависимости из sequence flows: идем от задачи через нетиповые элементы до следующих задач
+        ProcessGraph graph = processModel.getGraph();
+        for (String sourceId : executionOrder) {
+            int node = graph.indexOf(sourceId);
+            if (node < 0) {
+                continue;
+            }
+            for (int target : graph.nextTasks(node)) {
+                addForwardEdge(sourceId, graph.nodeId(target), position, successors);
             }
         }
-        
-        // Если остались задачи, которые не были обработаны, добавляем их в конец
-        for (ProcessTask task : processModel.getTasks()) {
-            if (!executionOrder.contains(task.getId())) {
-                executionOrder.add(task.getId());
+
+        // Зависимости по данным
+        if (mappingResult != null && mappingResult.getDataFlowEdges() != null) {
+            for (DataFlowEdge edge : mappingResult.getDataFlowEdges()) {
+                addForwardEdge(edge.getSourceTaskId(), edge.getTargetTaskId(), position, successors);
             }
         }
-        
-        log.debug("Determined execution order: {}", executionOrder);
-        return executionOrder;
+
+        log.debug("Built execution DAG: {}", successors);
+        return new DagExecutionPlan(executionOrder, successors);
     }
-    
+
+    /**
+     * Строит план выполнения процесса. Если в процессе есть шлюзы, задачи запускаются движением токенов
+     * по графу: условия exclusive/inclusive шлюзов вычисляются по контексту выполнения, parallel шлюзы
+     * разветвляют и синхронизируют ветки, задачи на невыбранных ветках пропускаются.
+     * Без шлюзов используется DAG зависимостей
+     *
+     * @param processModel модель процесса
+     * @param mappingResult результат маппинга (может быть null)
+     * @param executionOrder порядок выполнения, полученный из determineExecutionOrder
+     * @return план выполнения
+     */
+    public ExecutionPlan buildExecutionPlan(ProcessModel processModel,
+                                            MappingResult mappingResult,
+                                            List<String> executionOrder) {
+        ProcessGraph graph = processModel.getGraph();
+        if (!graph.hasGateways()) {
+            return buildExecutionDag(processModel, mappingResult, executionOrder);
+        }
+        log.debug("Using token execution plan for process {}", processModel.getId());
+        return new TokenExecutionPlan(graph, executionOrder,
+                mappingResult != null ? mappingResult.getDataFlowEdges() : null);
+    }
+
+    private void addForwardEdge(String sourceId, String targetId,
+                                Map<String, Integer> position,
+                                Map<String, List<String>> successors) {
+        if (sourceId == null || targetId == null) {
+            return;
+        }
+        Integer sourcePos = position.get(sourceId);
+        Integer targetPos = position.get(targetId);
+        if (sourcePos == null || targetPos == null || sourcePos >= targetPos) {
+            return;
+        }
+        List<String> targets = successors.get(sourceId);
+        if (!targets.contains(targetId)) {
+            targets.add(targetId);
+        }
+    }
+
     /**
      * Получает зависимости данных для задачи
      * 
@@ -114,19 +162,5 @@ public class BpmnExecutionEngine {
         
         return dependencies;
     }
-    
-    /**
-     * Определяет, должна ли задача быть выполнена на основе условий gateway
-     * В упрощенной версии всегда возвращает true
-     * 
-     * @param taskId ID задачи
-     * @param context контекст выполнения
-     * @return true, если задача должна быть выполнена
-     */
-    public boolean shouldExecuteTask(String taskId, Map<String, Object> context) {
-        // В упрощенной версии всегда выполняем задачу
-        // В полной версии здесь была бы логика для exclusive/parallel gateways
-        return true;
-    }
 }
 
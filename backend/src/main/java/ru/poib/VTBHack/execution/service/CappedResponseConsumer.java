@@ -0,0 +1,68 @@
+package ru.poib.VTBHack.execution.service;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.support.AbstractBinResponseConsumer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Потребитель ответа асинхронного клиента с жестким лимитом размера тела.
+ * При превышении лимита обмен прерывается, не дожидаясь конца тела
+ */
+final class CappedResponseConsumer extends AbstractBinResponseConsumer<CappedResponseConsumer.BufferedResponse> {
+
+    private static final int CAPACITY_INCREMENT = 64 * 1024;
+
+    private final long maxBytes;
+    private HttpResponse response;
+    private ContentType contentType;
+    private byte[] buffer = new byte[0];
+    private int length;
+
+    CappedResponseConsumer(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    protected void start(HttpResponse response, ContentType contentType) {
+        this.response = response;
+        this.contentType = contentType;
+    }
+
+    @Override
+    protected int capacityIncrement() {
+        return CAPACITY_INCREMENT;
+    }
+
+    @Override
+    protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+        int remaining = src.remaining();
+        if (maxBytes > 0 && (long) length + remaining > maxBytes) {
+            throw new ResponseBody.ResponseTooLargeException(maxBytes);
+        }
+        if (length + remaining > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + remaining));
+        }
+        src.get(buffer, length, remaining);
+        length += remaining;
+    }
+
+    @Override
+    protected BufferedResponse buildResult() {
+        return new BufferedResponse(response, contentType, buffer, length);
+    }
+
+    @Override
+    public void releaseResources() {
+        buffer = new byte[0];
+    }
+
+    /**
+     * Ответ с телом, накопленным в пределах лимита
+     */
+    record BufferedResponse(HttpResponse response, ContentType contentType, byte[] body, int length) {
+    }
+}
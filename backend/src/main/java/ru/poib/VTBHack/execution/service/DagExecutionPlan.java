@@ -0,0 +1,63 @@
+package ru.poib.VTBHack.execution.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * План выполнения на основе DAG зависимостей между задачами.
+ * Задача становится готовой, когда завершены все её предшественники
+ */
+public class DagExecutionPlan implements ExecutionPlan {
+
+    private final List<String> order;
+    private final Map<String, List<String>> successors;
+    private final Map<String, Integer> remainingDependencies;
+
+    /**
+     * @param order порядок задач (топологический, используется для стабильного порядка запуска)
+     * @param successors задача -> список зависимых задач
+     */
+    public DagExecutionPlan(List<String> order, Map<String, List<String>> successors) {
+        this.order = order;
+        this.successors = successors;
+        this.remainingDependencies = new HashMap<>();
+        for (String taskId : order) {
+            remainingDependencies.putIfAbsent(taskId, 0);
+            for (String dependent : successors.getOrDefault(taskId, List.of())) {
+                remainingDependencies.merge(dependent, 1, Integer::sum);
+            }
+        }
+    }
+
+    @Override
+    public List<String> start() {
+        List<String> ready = new ArrayList<>();
+        for (String taskId : order) {
+            if (remainingDependencies.get(taskId) == 0) {
+                ready.add(taskId);
+            }
+        }
+        return ready;
+    }
+
+    @Override
+    public List<String> complete(String taskId, Map<String, Object> context) {
+        List<String> ready = new ArrayList<>();
+        for (String dependent : successors.getOrDefault(taskId, List.of())) {
+            int left = remainingDependencies.merge(dependent, -1, Integer::sum);
+            if (left == 0) {
+                ready.add(dependent);
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * Возвращает зависимые задачи для указанной задачи
+     */
+    public List<String> getSuccessors(String taskId) {
+        return successors.getOrDefault(taskId, List.of());
+    }
+}
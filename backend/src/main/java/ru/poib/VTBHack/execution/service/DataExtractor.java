@@ -1,11 +1,18 @@
 package ru.poib.VTBHack.execution.service;
 
-import com.jayway.jsonpath.JsonPath;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.PathNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.config.JsonCodecs;
+import ru.poib.VTBHack.execution.model.JsonPathCacheStatistics;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -15,6 +22,14 @@ import java.util.Map;
 @Service
 public class DataExtractor {
     
+    private final JsonCodecs jsonCodecs;
+    private final JsonPathCache jsonPathCache;
+    
+    public DataExtractor(JsonCodecs jsonCodecs, @Value("${execution.jsonpath.cache-size:1024}") int cacheSize) {
+        this.jsonCodecs = jsonCodecs;
+        this.jsonPathCache = new JsonPathCache(cacheSize);
+    }
+    
     /**
      * Извлекает значения из JSON по JSONPath выражениям
      * 
@@ -23,35 +38,52 @@ public class DataExtractor {
      * @return Map: имя переменной -> извлеченное значение
      */
     public Map<String, Object> extractData(String jsonBody, Map<String, String> jsonPaths) {
+        return extractData(ParsedResponse.parse(jsonBody, jsonCodecs), jsonPaths);
+    }
+    
+    /**
+     * Извлекает значения по JSONPath выражениям из ответа, разобранного один раз на шаг
+     * 
+     * @param response разобранный ответ
+     * @param jsonPaths Map: имя переменной -> JSONPath выражение
+     * @return Map: имя переменной -> извлеченное значение (строки, числа, Map, List)
+     */
+    public Map<String, Object> extractData(ParsedResponse response, Map<String, String> jsonPaths) {
         Map<String, Object> extractedData = new HashMap<>();
         
-        if (jsonBody == null || jsonBody.trim().isEmpty()) {
-            log.warn("Empty JSON body, cannot extract data");
+        if (response.getJson() == null) {
+            if (response.getBody().getJsonError() != null) {
+                log.error("Error parsing JSON body: {}", response.getBody().getJsonError());
+            } else {
+                log.warn("Empty JSON body, cannot extract data");
+            }
             return extractedData;
         }
         
-        try {
-            Object document = JsonPath.parse(jsonBody).json();
+        // Простые пути вычисляются одним обходом дерева, остальные - скомпилированными выражениями
+        PathNode plan = new PathNode();
+        for (Map.Entry<String, String> entry : jsonPaths.entrySet()) {
+            String variableName = entry.getKey();
+            String jsonPathExpression = entry.getValue();
             
-            for (Map.Entry<String, String> entry : jsonPaths.entrySet()) {
-                String variableName = entry.getKey();
-                String jsonPathExpression = entry.getValue();
-                
-                try {
-                    Object value = JsonPath.read(document, jsonPathExpression);
-                    extractedData.put(variableName, value);
-                    log.debug("Extracted {} = {} from JSONPath: {}", variableName, value, jsonPathExpression);
-                } catch (PathNotFoundException e) {
-                    log.warn("Path not found for variable {} with JSONPath: {}", variableName, jsonPathExpression);
-                    // Не добавляем в extractedData, если путь не найден
-                } catch (Exception e) {
-                    log.error("Error extracting data for variable {} with JSONPath {}: {}", 
-                            variableName, jsonPathExpression, e.getMessage());
+            try {
+                JsonPathCache.CompiledPath compiled = jsonPathCache.get(jsonPathExpression);
+                if (compiled.isSimple()) {
+                    plan.add(compiled.segments(), 0, variableName);
+                    continue;
                 }
+                Object value = jsonCodecs.toPlainValue(response.document().read(compiled.path()));
+                extractedData.put(variableName, value);
+                log.debug("Extracted {} = {} from JSONPath: {}", variableName, value, jsonPathExpression);
+            } catch (PathNotFoundException e) {
+                log.warn("Path not found for variable {} with JSONPath: {}", variableName, jsonPathExpression);
+                // Не добавляем в extractedData, если путь не найден
+            } catch (Exception e) {
+                log.error("Error extracting data for variable {} with JSONPath {}: {}", 
+                        variableName, jsonPathExpression, e.getMessage());
             }
-        } catch (Exception e) {
-            log.error("Error parsing JSON body: {}", e.getMessage());
         }
+        plan.collect(response.getJson(), extractedData, jsonPaths, jsonCodecs);
         
         return extractedData;
     }
@@ -67,10 +99,24 @@ public class DataExtractor {
         if (jsonBody == null || jsonBody.trim().isEmpty() || jsonPath == null) {
             return null;
         }
+        return extractValue(ParsedResponse.parse(jsonBody, jsonCodecs), jsonPath);
+    }
+    
+    /**
+     * Извлекает значение по одному JSONPath выражению из уже разобранного ответа
+     * 
+     * @param response разобранный ответ
+     * @param jsonPath JSONPath выражение
+     * @return извлеченное значение или null
+     */
+    public Object extractValue(ParsedResponse response, String jsonPath) {
+        DocumentContext document = response.document();
+        if (document == null || jsonPath == null) {
+            return null;
+        }
         
         try {
-            Object document = JsonPath.parse(jsonBody).json();
-            return JsonPath.read(document, jsonPath);
+            return jsonCodecs.toPlainValue(document.read(jsonPathCache.get(jsonPath).path()));
         } catch (PathNotFoundException e) {
             log.debug("Path not found: {}", jsonPath);
             return null;
@@ -79,5 +125,54 @@ public class DataExtractor {
             return null;
         }
     }
+    
+    /**
+     * Возвращает статистику кэша скомпилированных JSONPath выражений
+     */
+    public JsonPathCacheStatistics getCacheStatistics() {
+        return jsonPathCache.getStatistics();
+    }
+    
+    /**
+     * Узел плана извлечения: дерево общих префиксов простых путей.
+     * Общий префикс нескольких путей проходится по JSON дереву один раз
+     */
+    private static final class PathNode {
+        private final Map<Object, PathNode> children = new LinkedHashMap<>();
+        private final List<String> variables = new ArrayList<>();
+        
+        void add(List<Object> segments, int index, String variableName) {
+            if (index == segments.size()) {
+                variables.add(variableName);
+                return;
+            }
+            children.computeIfAbsent(segments.get(index), k -> new PathNode()).add(segments, index + 1, variableName);
+        }
+        
+        void collect(JsonNode node, Map<String, Object> extractedData, Map<String, String> jsonPaths,
+                     JsonCodecs jsonCodecs) {
+            for (String variableName : variables) {
+                Object value = jsonCodecs.toPlainValue(node);
+                extractedData.put(variableName, value);
+                log.debug("Extracted {} = {} from JSONPath: {}", variableName, value, jsonPaths.get(variableName));
+            }
+            for (Map.Entry<Object, PathNode> child : children.entrySet()) {
+                JsonNode next = child.getKey() instanceof Integer index
+                        ? (node.isArray() ? node.get(index) : null)
+                        : (node.isObject() ? node.get((String) child.getKey()) : null);
+                if (next != null) {
+                    child.getValue().collect(next, extractedData, jsonPaths, jsonCodecs);
+                } else {
+                    child.getValue().reportMissing(jsonPaths);
+                }
+            }
+        }
+        
+        private void reportMissing(Map<String, String> jsonPaths) {
+            for (String variableName : variables) {
+                log.warn("Path not found for variable {} with JSONPath: {}", variableName, jsonPaths.get(variableName));
+            }
+            children.values().forEach(child -> child.reportMissing(jsonPaths));
+        }
+    }
 }
-
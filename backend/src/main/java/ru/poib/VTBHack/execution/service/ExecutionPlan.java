@@ -0,0 +1,41 @@
+package ru.poib.VTBHack.execution.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * План выполнения шагов процесса.
+ * Выдает задачи, готовые к запуску, по мере завершения предыдущих.
+ * Реализации не потокобезопасны: вызываются только из координирующего потока
+ */
+public interface ExecutionPlan {
+
+    /**
+     * Возвращает задачи, которые можно запустить сразу
+     */
+    List<String> start();
+
+    /**
+     * Возвращает задачи, которые можно запустить сразу, с учетом начального контекста выполнения
+     */
+    default List<String> start(Map<String, Object> context) {
+        return start();
+    }
+
+    /**
+     * Отмечает задачу завершенной и возвращает задачи, ставшие готовыми к запуску
+     *
+     * @param taskId ID завершенной задачи
+     * @param context контекст выполнения с извлеченными данными
+     * @return список ID задач, которые теперь можно запустить
+     */
+    List<String> complete(String taskId, Map<String, Object> context);
+
+    /**
+     * Задачи, которые не будут выполнены: например, ветки шлюзов, по которым не прошел токен
+     */
+    default Set<String> skipped() {
+        return Set.of();
+    }
+}
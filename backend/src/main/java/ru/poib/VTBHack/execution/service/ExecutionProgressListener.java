@@ -0,0 +1,25 @@
+package ru.poib.VTBHack.execution.service;
+
+import ru.poib.VTBHack.execution.model.ExecutionProblem;
+import ru.poib.VTBHack.execution.model.TestExecutionStep;
+
+/**
+ * Слушатель прогресса выполнения теста.
+ * Вызывается из координирующего потока по мере записи шагов и проблем в результат
+ */
+public interface ExecutionProgressListener {
+
+    ExecutionProgressListener NONE = new ExecutionProgressListener() { };
+
+    /**
+     * Шаг завершен и записан в результат
+     */
+    default void onStep(TestExecutionStep step) {
+    }
+
+    /**
+     * Проблема выявлена и записана в результат
+     */
+    default void onProblem(ExecutionProblem problem) {
+    }
+}
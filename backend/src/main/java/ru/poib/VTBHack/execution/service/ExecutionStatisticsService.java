@@ -0,0 +1,60 @@
+package ru.poib.VTBHack.execution.service;
+
+import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.execution.model.LatencyHistogram;
+import ru.poib.VTBHack.execution.model.TestExecutionResult;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис для объединения статистики нескольких прогонов (например, для сравнения сборок)
+ */
+@Service
+public class ExecutionStatisticsService {
+
+    /**
+     * Объединяет статистику прогонов: счетчики суммируются, гистограммы задержек сливаются
+     *
+     * @param statisticsList статистика отдельных прогонов
+     * @return суммарная статистика
+     */
+    public TestExecutionResult.ExecutionStatistics merge(List<TestExecutionResult.ExecutionStatistics> statisticsList) {
+        TestExecutionResult.ExecutionStatistics merged = new TestExecutionResult.ExecutionStatistics();
+        long minDuration = Long.MAX_VALUE;
+        double totalDuration = 0;
+
+        for (TestExecutionResult.ExecutionStatistics stats : statisticsList) {
+            if (stats == null) {
+                continue;
+            }
+            merged.setTotalSteps(merged.getTotalSteps() + stats.getTotalSteps());
+            merged.setSuccessfulSteps(merged.getSuccessfulSteps() + stats.getSuccessfulSteps());
+            merged.setFailedSteps(merged.getFailedSteps() + stats.getFailedSteps());
+            merged.setSkippedSteps(merged.getSkippedSteps() + stats.getSkippedSteps());
+            merged.setTotalRequests(merged.getTotalRequests() + stats.getTotalRequests());
+            merged.setSuccessfulRequests(merged.getSuccessfulRequests() + stats.getSuccessfulRequests());
+            merged.setValidationErrors(merged.getValidationErrors() + stats.getValidationErrors());
+            merged.setTotalAttempts(merged.getTotalAttempts() + stats.getTotalAttempts());
+            merged.setRetriedSteps(merged.getRetriedSteps() + stats.getRetriedSteps());
+            merged.setMaxStepDurationMs(Math.max(merged.getMaxStepDurationMs(), stats.getMaxStepDurationMs()));
+            if (stats.getTotalSteps() > 0) {
+                minDuration = Math.min(minDuration, stats.getMinStepDurationMs());
+            }
+            totalDuration += stats.getAverageStepDurationMs() * stats.getTotalSteps();
+
+            merged.getStepLatency().merge(stats.getStepLatency());
+            if (stats.getEndpointLatencies() != null) {
+                for (Map.Entry<String, LatencyHistogram> entry : stats.getEndpointLatencies().entrySet()) {
+                    merged.getEndpointLatencies()
+                            .computeIfAbsent(entry.getKey(), k -> new LatencyHistogram())
+                            .merge(entry.getValue());
+                }
+            }
+        }
+
+        merged.setMinStepDurationMs(minDuration == Long.MAX_VALUE ? 0 : minDuration);
+        merged.setAverageStepDurationMs(merged.getTotalSteps() > 0 ? totalDuration / merged.getTotalSteps() : 0);
+        return merged;
+    }
+}
@@ -0,0 +1,351 @@
+package ru.poib.VTBHack.execution.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.bpmn.converter.BpmnXMLConverter;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.EndEvent;
+import org.flowable.bpmn.model.ExclusiveGateway;
+import org.flowable.bpmn.model.FlowElementsContainer;
+import org.flowable.bpmn.model.FlowNode;
+import org.flowable.bpmn.model.Gateway;
+import org.flowable.bpmn.model.ImplementationType;
+import org.flowable.bpmn.model.InclusiveGateway;
+import org.flowable.bpmn.model.ParallelGateway;
+import org.flowable.bpmn.model.Process;
+import org.flowable.bpmn.model.SequenceFlow;
+import org.flowable.bpmn.model.ServiceTask;
+import org.flowable.bpmn.model.StartEvent;
+import org.flowable.bpmn.model.SubProcess;
+import org.flowable.bpmn.model.ThrowEvent;
+import org.flowable.common.engine.api.FlowableException;
+import org.flowable.common.engine.api.FlowableObjectNotFoundException;
+import org.flowable.engine.ProcessEngine;
+import org.flowable.engine.repository.Deployment;
+import org.flowable.job.api.Job;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.execution.config.FlowableEngineProperties;
+import ru.poib.VTBHack.mapping.service.ContentHash;
+import ru.poib.VTBHack.parser.model.FlowConditions;
+import ru.poib.VTBHack.parser.model.ProcessGraph;
+import ru.poib.VTBHack.parser.model.ProcessModel;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Выполнение процесса во встроенном движке Flowable (режим ENGINE).
+ * Граф процесса переводится в BPMN модель: каждая задача становится асинхронной неэксклюзивной
+ * service task с делегатом {@link FlowableStepDelegate}, поэтому ветки parallel и inclusive шлюзов
+ * выполняются одновременно на async executor движка. Условия переходов движок вычисляет через делегат
+ * над контекстом запуска ({@link FlowConditions}), переменные процесса для них не нужны.
+ * Переходы, замыкающие цикл, ведут в завершающее событие: как и в остальных режимах,
+ * каждая задача выполняется не более одного раза за запуск
+ */
+@Slf4j
+@Service
+public class FlowableExecutionEngine {
+
+    private static final Pattern PROCESS_KEY = Pattern.compile("[A-Za-z_][A-Za-z0-9_.-]*");
+
+    private final ObjectProvider<ProcessEngine> processEngine;
+    private final FlowableStepDelegate stepDelegate;
+    private final long pollIntervalMs;
+    // Граф кэшируется в ProcessModel, поэтому повторные запуски той же модели не разворачивают процесс заново
+    private final Map<ProcessGraph, String> definitions = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public FlowableExecutionEngine(ObjectProvider<ProcessEngine> processEngine,
+                                   FlowableStepDelegate stepDelegate,
+                                   FlowableEngineProperties properties) {
+        this.processEngine = processEngine;
+        this.stepDelegate = stepDelegate;
+        this.pollIntervalMs = Math.max(1, properties.getPollIntervalMs());
+    }
+
+    /**
+     * Интервал, с которым координатор запуска проверяет состояние экземпляра процесса
+     */
+    public long pollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    /**
+     * Разворачивает процесс (один раз на граф) и запускает его экземпляр.
+     * Задачи экземпляра выполняются обработчиком, пока запуск не закрыт
+     *
+     * @param processModel модель процесса
+     * @param context контекст выполнения, над которым вычисляются условия переходов
+     * @param handler выполняет задачу
+     * @return запущенный экземпляр; должен быть закрыт после завершения
+     */
+    public EngineRun start(ProcessModel processModel, Map<String, Object> context,
+                           FlowableStepDelegate.StepHandler handler) {
+        ProcessEngine engine = processEngine.getObject();
+        ProcessGraph graph = processModel.getGraph();
+        String definitionId = definitions.computeIfAbsent(graph, deployed -> deploy(engine, processModel, deployed));
+
+        String runId = UUID.randomUUID().toString();
+        stepDelegate.register(runId, handler, conditions(graph, context));
+        try {
+            String processInstanceId = engine.getRuntimeService()
+                    .startProcessInstanceById(definitionId,
+                            Map.<String, Object>of(FlowableStepDelegate.RUN_ID_VARIABLE, runId))
+                    .getId();
+            log.debug("Started process instance {} for run {}", processInstanceId, runId);
+            return new EngineRun(engine, runId, processInstanceId);
+        } catch (RuntimeException e) {
+            stepDelegate.unregister(runId);
+            throw e;
+        }
+    }
+
+    /**
+     * Условия переходов запуска по id перехода BPMN модели. Ячейки связываются из контекста
+     * при каждом вычислении: значения, извлеченные шагами, видны сразу после завершения шага
+     */
+    static Predicate<String> conditions(ProcessGraph graph, Map<String, Object> context) {
+        FlowConditions conditions = graph.conditions();
+        Map<String, Integer> edges = new HashMap<>();
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (conditions.hasCondition(edge)) {
+                edges.putIfAbsent(flowId(graph, edge), edge);
+            }
+        }
+        return flowId -> {
+            Integer edge = edges.get(flowId);
+            if (edge == null) {
+                return false;
+            }
+            Object[] slots = new Object[conditions.slotCount()];
+            conditions.bind(context, slots);
+            return conditions.test(edge, slots);
+        };
+    }
+
+    private String deploy(ProcessEngine engine, ProcessModel processModel, ProcessGraph graph) {
+        String key = processModel.getId() != null && PROCESS_KEY.matcher(processModel.getId()).matches()
+                ? processModel.getId()
+                : "process";
+        byte[] xml = new BpmnXMLConverter().convertToXML(toBpmnModel(graph, key, processModel.getName()));
+        ContentHash hash = new ContentHash();
+        hash.update(xml, 0, xml.length);
+
+        // Одинаковый процесс из разных моделей разворачивается один раз
+        Deployment deployment = engine.getRepositoryService().createDeployment()
+                .name(key + "-" + hash.finish())
+                .addBytes(key + ".bpmn20.xml", xml)
+                .enableDuplicateFiltering()
+                .disableSchemaValidation()
+                .deploy();
+        String definitionId = engine.getRepositoryService().createProcessDefinitionQuery()
+                .deploymentId(deployment.getId())
+                .singleResult()
+                .getId();
+        log.info("Deployed process {} to embedded engine as {}", processModel.getId(), definitionId);
+        return definitionId;
+    }
+
+    /**
+     * Строит BPMN модель по графу процесса. Элементы сохраняют id графа: делегат находит задачу по id элемента.
+     * Подпроцесс становится встроенным подпроцессом движка со своими элементами и переходами.
+     * Event-based шлюз выполняется как exclusive, события без определения проходятся насквозь.
+     * Если на уровне процесса или подпроцесса нет стартового события (модель из PlantUML),
+     * добавляется старт, ведущий ко всем элементам этого уровня без входящих переходов
+     */
+    static BpmnModel toBpmnModel(ProcessGraph graph, String key, String name) {
+        Process process = new Process();
+        process.setId(key);
+        process.setName(name);
+        process.setExecutable(true);
+
+        int nodeCount = graph.nodeCount();
+        FlowNode[] elements = new FlowNode[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            FlowNode element = toFlowNode(graph.kind(node));
+            element.setId(graph.nodeId(node));
+            element.setName(graph.nodeName(node));
+            if (element instanceof Gateway gateway && graph.defaultEdge(node) >= 0) {
+                gateway.setDefaultFlow(flowId(graph, graph.defaultEdge(node)));
+            }
+            elements[node] = element;
+        }
+
+        // Элементы подпроцесса добавляются в него; стартовые события учитываются отдельно для каждого уровня
+        boolean processHasStart = false;
+        boolean[] subProcessHasStart = new boolean[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            scope(graph, process, elements, node).addFlowElement(elements[node]);
+            if (graph.kind(node) == ProcessGraph.NodeKind.START_EVENT) {
+                int parent = graph.parent(node);
+                if (parent < 0) {
+                    processHasStart = true;
+                } else {
+                    subProcessHasStart[parent] = true;
+                }
+            }
+        }
+
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            int source = graph.edgeSource(edge);
+            FlowElementsContainer scope = scope(graph, process, elements, source);
+            String targetId = graph.nodeId(graph.edgeTarget(edge));
+            if (graph.isBackEdge(edge)) {
+                EndEvent loopEnd = new EndEvent();
+                loopEnd.setId("engine_loop_end_" + edge);
+                scope.addFlowElement(loopEnd);
+                targetId = loopEnd.getId();
+            }
+            String flowId = flowId(graph, edge);
+            SequenceFlow flow = new SequenceFlow(graph.nodeId(source), targetId);
+            flow.setId(flowId);
+            flow.setName(graph.edgeName(edge));
+            if (graph.conditions().hasCondition(edge)) {
+                flow.setConditionExpression(conditionExpression(flowId));
+            }
+            scope.addFlowElement(flow);
+        }
+
+        if (!processHasStart) {
+            addStart(graph, process, "engine_start", -1);
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            if (elements[node] instanceof SubProcess subProcess && !subProcessHasStart[node]) {
+                addStart(graph, subProcess, "engine_start_" + node, node);
+            }
+        }
+
+        BpmnModel model = new BpmnModel();
+        model.addProcess(process);
+        return model;
+    }
+
+    /**
+     * Процесс или подпроцесс, которому принадлежит элемент
+     */
+    private static FlowElementsContainer scope(ProcessGraph graph, Process process, FlowNode[] elements, int node) {
+        int parent = graph.parent(node);
+        return parent >= 0 ? (SubProcess) elements[parent] : process;
+    }
+
+    private static void addStart(ProcessGraph graph, FlowElementsContainer scope, String startId, int parent) {
+        StartEvent start = new StartEvent();
+        start.setId(startId);
+        scope.addFlowElement(start);
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (graph.parent(node) == parent && graph.inDegree(node) == 0) {
+                SequenceFlow flow = new SequenceFlow(startId, graph.nodeId(node));
+                flow.setId("engine_start_flow_" + node);
+                scope.addFlowElement(flow);
+            }
+        }
+    }
+
+    private static String flowId(ProcessGraph graph, int edge) {
+        return graph.edgeId(edge) != null ? graph.edgeId(edge) : "engine_flow_" + edge;
+    }
+
+    private static FlowNode toFlowNode(ProcessGraph.NodeKind kind) {
+        return switch (kind) {
+            case START_EVENT -> new StartEvent();
+            case END_EVENT -> new EndEvent();
+            case TASK -> stepTask();
+            case EXCLUSIVE_GATEWAY, EVENT_BASED_GATEWAY -> new ExclusiveGateway();
+            case PARALLEL_GATEWAY -> new ParallelGateway();
+            case INCLUSIVE_GATEWAY -> new InclusiveGateway();
+            case SUB_PROCESS -> new SubProcess();
+            case EVENT, OTHER -> new ThrowEvent();
+        };
+    }
+
+    /**
+     * Задача выполняется отдельным заданием async executor; неэксклюзивные задания одного экземпляра
+     * выполняются одновременно
+     */
+    private static ServiceTask stepTask() {
+        ServiceTask task = new ServiceTask();
+        task.setImplementationType(ImplementationType.IMPLEMENTATION_TYPE_DELEGATEEXPRESSION);
+        task.setImplementation("${" + FlowableStepDelegate.BEAN_NAME + "}");
+        task.setAsynchronous(true);
+        task.setNotExclusive(true);
+        return task;
+    }
+
+    /**
+     * Условие вычисляет делегат над контекстом запуска: имена переменных условия не обязаны
+     * существовать в движке, а шаги не записывают переменные процесса
+     */
+    private static String conditionExpression(String flowId) {
+        String literal = flowId.replace("\\", "\\\\").replace("'", "\\'");
+        return "${" + FlowableStepDelegate.BEAN_NAME + ".test(" + FlowableStepDelegate.RUN_ID_VARIABLE
+                + ", '" + literal + "')}";
+    }
+
+    /**
+     * Запущенный экземпляр процесса
+     */
+    public final class EngineRun implements AutoCloseable {
+        private final ProcessEngine engine;
+        private final String runId;
+        private final String processInstanceId;
+
+        private EngineRun(ProcessEngine engine, String runId, String processInstanceId) {
+            this.engine = engine;
+            this.runId = runId;
+            this.processInstanceId = processInstanceId;
+        }
+
+        public String processInstanceId() {
+            return processInstanceId;
+        }
+
+        /**
+         * Завершен ли экземпляр (все токены дошли до завершающих событий)
+         */
+        public boolean isEnded() {
+            return engine.getRuntimeService().createProcessInstanceQuery()
+                    .processInstanceId(processInstanceId)
+                    .count() == 0;
+        }
+
+        /**
+         * Ошибка задания, исчерпавшего повторы (например, ни одно условие exclusive шлюза не выполнено), или null
+         */
+        public String failure() {
+            List<Job> deadLetters = engine.getManagementService().createDeadLetterJobQuery()
+                    .processInstanceId(processInstanceId)
+                    .list();
+            if (deadLetters.isEmpty()) {
+                return null;
+            }
+            String message = deadLetters.get(0).getExceptionMessage();
+            return message != null ? message : "Engine job failed";
+        }
+
+        /**
+         * Удаляет экземпляр: оставшиеся задачи не выполняются
+         */
+        public void cancel(String reason) {
+            try {
+                engine.getRuntimeService().deleteProcessInstance(processInstanceId, reason);
+            } catch (FlowableObjectNotFoundException e) {
+                // Экземпляр уже завершен
+            } catch (FlowableException e) {
+                log.warn("Failed to cancel process instance {}: {}", processInstanceId, e.getMessage());
+            }
+        }
+
+        /**
+         * Отключает запуск от делегата: задания, оставшиеся в движке, больше не выполняют шаги
+         */
+        @Override
+        public void close() {
+            stepDelegate.unregister(runId);
+        }
+    }
+}
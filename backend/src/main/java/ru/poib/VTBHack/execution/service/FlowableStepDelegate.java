@@ -0,0 +1,77 @@
+package ru.poib.VTBHack.execution.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.delegate.JavaDelegate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Делегат задач процесса во встроенном движке Flowable.
+ * Один экземпляр обслуживает все запуски: запуск находится по переменной процесса {@link #RUN_ID_VARIABLE},
+ * задача - по id текущего элемента. Выполнение шага (HTTP запрос, валидация, извлечение данных)
+ * остается в TestExecutionService. Условия переходов движок вычисляет вызовом {@link #test}:
+ * значения берутся из контекста запуска, переменные процесса не записываются
+ */
+@Slf4j
+@Component
+public class FlowableStepDelegate implements JavaDelegate {
+
+    /**
+     * Имя, под которым делегат зарегистрирован в движке
+     */
+    public static final String BEAN_NAME = "stepDelegate";
+
+    /**
+     * Переменная процесса с идентификатором запуска
+     */
+    public static final String RUN_ID_VARIABLE = "executionRunId";
+
+    /**
+     * Выполняет задачу запуска
+     */
+    @FunctionalInterface
+    public interface StepHandler {
+        void execute(String taskId);
+    }
+
+    private record ActiveRun(StepHandler handler, Predicate<String> conditions) {
+    }
+
+    private final Map<String, ActiveRun> runs = new ConcurrentHashMap<>();
+
+    /**
+     * @param conditions вычисляет условие перехода по его id над контекстом запуска
+     */
+    void register(String runId, StepHandler handler, Predicate<String> conditions) {
+        runs.put(runId, new ActiveRun(handler, conditions));
+    }
+
+    void unregister(String runId) {
+        runs.remove(runId);
+    }
+
+    @Override
+    public void execute(DelegateExecution execution) {
+        Object runId = execution.getVariable(RUN_ID_VARIABLE);
+        ActiveRun run = runId != null ? runs.get(runId.toString()) : null;
+        if (run == null) {
+            // Запуск уже завершен (таймаут или остановка), экземпляр процесса удаляется
+            log.debug("No active run {} for activity {}", runId, execution.getCurrentActivityId());
+            return;
+        }
+        run.handler().execute(execution.getCurrentActivityId());
+    }
+
+    /**
+     * Условие перехода: ${stepDelegate.test(executionRunId, 'flowId')}.
+     * Для закрытого запуска условие ложно: экземпляр процесса уже удаляется
+     */
+    public boolean test(String runId, String flowId) {
+        ActiveRun run = runId != null ? runs.get(runId) : null;
+        return run != null && run.conditions().test(flowId);
+    }
+}
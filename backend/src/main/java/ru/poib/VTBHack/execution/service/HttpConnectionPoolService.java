@@ -0,0 +1,54 @@
+package ru.poib.VTBHack.execution.service;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.execution.model.HttpPoolStatistics;
+
+import java.util.Map;
+
+/**
+ * Сервис мониторинга пулов HTTP соединений: блокирующего и неблокирующего клиентов
+ */
+@Service
+public class HttpConnectionPoolService {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final PoolingAsyncClientConnectionManager asyncConnectionManager;
+
+    public HttpConnectionPoolService(PoolingHttpClientConnectionManager connectionManager,
+                                     PoolingAsyncClientConnectionManager asyncConnectionManager) {
+        this.connectionManager = connectionManager;
+        this.asyncConnectionManager = asyncConnectionManager;
+    }
+
+    /**
+     * Возвращает текущую статистику пулов: всего и по каждому известному маршруту
+     */
+    public HttpPoolStatistics getStatistics() {
+        HttpPoolStatistics statistics = new HttpPoolStatistics();
+        statistics.setTotal(toRouteStatistics(connectionManager.getTotalStats()));
+        collectRoutes(connectionManager, statistics.getRoutes());
+        statistics.setAsyncTotal(toRouteStatistics(asyncConnectionManager.getTotalStats()));
+        collectRoutes(asyncConnectionManager, statistics.getAsyncRoutes());
+        return statistics;
+    }
+
+    private void collectRoutes(ConnPoolControl<HttpRoute> pool, Map<String, HttpPoolStatistics.RouteStatistics> routes) {
+        for (HttpRoute route : pool.getRoutes()) {
+            routes.put(route.getTargetHost().toURI(), toRouteStatistics(pool.getStats(route)));
+        }
+    }
+
+    private HttpPoolStatistics.RouteStatistics toRouteStatistics(PoolStats stats) {
+        return new HttpPoolStatistics.RouteStatistics(
+                stats.getLeased(),
+                stats.getPending(),
+                stats.getAvailable(),
+                stats.getMax()
+        );
+    }
+}
@@ -1,28 +1,31 @@
 package ru.poib.VTBHack.execution.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import ru.poib.VTBHack.config.JsonCodecs;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.classic.methods.HttpDelete;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpPut;
 import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
-import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.http.io.entity.StringEntity;
-import org.apache.hc.core5.util.Timeout;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.springframework.stereotype.Service;
 import ru.poib.VTBHack.execution.model.ExecutionConfig;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Сервис для выполнения HTTP запросов
@@ -31,12 +34,18 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class HttpRequestExecutor {
     
+    private static final ContentType TEXT_UTF8 = ContentType.create("text/plain", StandardCharsets.UTF_8);
+    
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final ObjectWriter bodyWriter;
+    private final RequestConfigCache requestConfigs;
     
-    public HttpRequestExecutor(HttpClient httpClient) {
+    public HttpRequestExecutor(HttpClient httpClient, RequestConfig defaultRequestConfig, JsonCodecs jsonCodecs) {
         this.httpClient = httpClient;
-        this.objectMapper = new ObjectMapper();
+        this.requestConfigs = new RequestConfigCache(defaultRequestConfig);
+        this.objectMapper = jsonCodecs.mapper();
+        this.bodyWriter = jsonCodecs.writer();
     }
     
     /**
@@ -45,7 +54,7 @@ public class HttpRequestExecutor {
      * @param method HTTP метод (GET, POST, PUT, DELETE)
      * @param url полный URL запроса
      * @param headers заголовки запроса
-     * @param body тело запроса (может быть null)
+     * @param body тело запроса: byte[] (уже сериализованный JSON), String или объект для сериализации (может быть null)
      * @param config конфигурация выполнения
      * @return результат выполнения запроса
      */
@@ -58,11 +67,7 @@ public class HttpRequestExecutor {
             HttpUriRequestBase request = createRequest(method, url);
             
             // Настраиваем таймауты из конфигурации
-            RequestConfig requestConfig = RequestConfig.custom()
-                    .setConnectionRequestTimeout(Timeout.of(config.getConnectionTimeoutMs(), TimeUnit.MILLISECONDS))
-                    .setResponseTimeout(Timeout.of(config.getRequestTimeoutMs(), TimeUnit.MILLISECONDS))
-                    .build();
-            request.setConfig(requestConfig);
+            request.setConfig(requestConfigs.get(config));
             
             // Устанавливаем заголовки
             if (headers != null) {
@@ -73,13 +78,7 @@ public class HttpRequestExecutor {
             
             // Устанавливаем тело запроса
             if (body != null && (method.equals("POST") || method.equals("PUT") || method.equals("PATCH"))) {
-                String bodyString;
-                if (body instanceof String) {
-                    bodyString = (String) body;
-                } else {
-                    bodyString = objectMapper.writeValueAsString(body);
-                }
-                request.setEntity(new StringEntity(bodyString, StandardCharsets.UTF_8));
+                request.setEntity(createEntity(body));
             }
             
             // Выполняем запрос
@@ -90,26 +89,51 @@ public class HttpRequestExecutor {
                 
                 int statusCode = response.getCode();
                 Map<String, String> responseHeaders = extractHeaders(response);
-                String responseBody = extractBody(response);
+                ResponseBody responseBody = extractBody(response, config);
                 
-                log.debug("Response received: status={}, duration={}ms", statusCode, durationMs);
+                log.debug("Response received: status={}, duration={}ms, size={} bytes",
+                        statusCode, durationMs, responseBody.getSizeBytes());
                 
-                return new ExecutionResult(true, statusCode, responseHeaders, responseBody, durationMs, null);
+                return new ExecutionResult(statusCode, responseHeaders, responseBody, durationMs);
             });
             
+        } catch (ResponseBody.ResponseTooLargeException e) {
+            long durationMs = Instant.now().toEpochMilli() - startTime.toEpochMilli();
+            log.warn("Aborted {} {}: {}", method, url, e.getMessage());
+            return new ExecutionResult(false, 0, null, null, durationMs, e.getMessage(), e);
         } catch (IOException e) {
             long durationMs = Instant.now().toEpochMilli() - startTime.toEpochMilli();
             log.error("Network error for {} {}: {}", method, url, e.getMessage());
             return new ExecutionResult(false, 0, null, null, durationMs, 
-                    "Network error: " + e.getMessage());
+                    "Network error: " + e.getMessage(), e);
         } catch (Exception e) {
             long durationMs = Instant.now().toEpochMilli() - startTime.toEpochMilli();
             log.error("Unexpected error for {} {}: {}", method, url, e.getMessage(), e);
             return new ExecutionResult(false, 0, null, null, durationMs, 
-                    "Unexpected error: " + e.getMessage());
+                    "Unexpected error: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Сериализует тело запроса в JSON (UTF-8) без промежуточной строки
+     * 
+     * @param body объект тела запроса
+     * @return байты JSON
+     */
+    public byte[] serializeBody(Object body) throws JsonProcessingException {
+        return bodyWriter.writeValueAsBytes(body);
+    }
+    
+    private HttpEntity createEntity(Object body) throws JsonProcessingException {
+        if (body instanceof byte[] bytes) {
+            return new ByteArrayEntity(bytes, ContentType.APPLICATION_JSON);
+        }
+        if (body instanceof String text) {
+            return new ByteArrayEntity(text.getBytes(StandardCharsets.UTF_8), TEXT_UTF8);
+        }
+        return new ByteArrayEntity(serializeBody(body), ContentType.APPLICATION_JSON);
+    }
+    
     private HttpUriRequestBase createRequest(String method, String url) {
         return switch (method.toUpperCase()) {
             case "GET" -> new HttpGet(url);
@@ -128,16 +152,36 @@ public class HttpRequestExecutor {
         return headers;
     }
     
-    private String extractBody(ClassicHttpResponse response) {
-        try {
-            HttpEntity entity = response.getEntity();
-            if (entity == null) {
-                return null;
+    /**
+     * Читает тело потоково: JSON разбирается из потока, сохраняется только превью.
+     * Тело больше maxResponseBodyBytes прерывает обмен
+     */
+    private ResponseBody extractBody(ClassicHttpResponse response, ExecutionConfig config)
+            throws ResponseBody.ResponseTooLargeException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return ResponseBody.EMPTY;
+        }
+        try (InputStream content = entity.getContent()) {
+            if (content == null) {
+                return ResponseBody.EMPTY;
             }
-            return EntityUtils.toString(entity, StandardCharsets.UTF_8);
+            return ResponseBody.read(content, entity.getContentType(), charsetOf(entity.getContentType()),
+                    config.getMaxResponseBodyBytes(), config.getResponsePreviewBytes(), objectMapper);
+        } catch (ResponseBody.ResponseTooLargeException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error extracting response body: {}", e.getMessage());
-            return null;
+            return ResponseBody.EMPTY;
+        }
+    }
+    
+    static Charset charsetOf(String contentType) {
+        try {
+            ContentType parsed = contentType != null ? ContentType.parseLenient(contentType) : null;
+            return parsed != null && parsed.getCharset() != null ? parsed.getCharset() : StandardCharsets.UTF_8;
+        } catch (Exception e) {
+            return StandardCharsets.UTF_8;
         }
     }
     
@@ -148,26 +192,48 @@ public class HttpRequestExecutor {
         private final boolean success;
         private final int statusCode;
         private final Map<String, String> headers;
-        private final String body;
+        private final ResponseBody responseBody;
         private final long durationMs;
         private final String errorMessage;
+        private final Throwable error;
         
         public ExecutionResult(boolean success, int statusCode, Map<String, String> headers, 
                               String body, long durationMs, String errorMessage) {
+            this(success, statusCode, headers, body, durationMs, errorMessage, null);
+        }
+        
+        public ExecutionResult(boolean success, int statusCode, Map<String, String> headers, 
+                              String body, long durationMs, String errorMessage, Throwable error) {
+            this(body != null ? ResponseBody.ofText(body) : ResponseBody.EMPTY,
+                    success, statusCode, headers, durationMs, errorMessage, error);
+        }
+        
+        public ExecutionResult(int statusCode, Map<String, String> headers, ResponseBody responseBody, long durationMs) {
+            this(responseBody, true, statusCode, headers, durationMs, null, null);
+        }
+        
+        private ExecutionResult(ResponseBody responseBody, boolean success, int statusCode, Map<String, String> headers,
+                                long durationMs, String errorMessage, Throwable error) {
             this.success = success;
             this.statusCode = statusCode;
             this.headers = headers;
-            this.body = body;
+            this.responseBody = responseBody;
             this.durationMs = durationMs;
             this.errorMessage = errorMessage;
+            this.error = error;
         }
         
         public boolean isSuccess() { return success; }
         public int getStatusCode() { return statusCode; }
         public Map<String, String> getHeaders() { return headers; }
-        public String getBody() { return body; }
+        /**
+         * Превью тела ответа (полное тело, если оно не больше responsePreviewBytes)
+         */
+        public String getBody() { return responseBody.getPreview(); }
+        public ResponseBody getResponseBody() { return responseBody; }
         public long getDurationMs() { return durationMs; }
         public String getErrorMessage() { return errorMessage; }
+        public Throwable getError() { return error; }
     }
 }
 
@@ -0,0 +1,121 @@
+package ru.poib.VTBHack.execution.service;
+
+import com.jayway.jsonpath.JsonPath;
+import ru.poib.VTBHack.execution.model.JsonPathCacheStatistics;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ограниченный кэш скомпилированных JSONPath выражений с учетом попаданий и промахов.
+ * В нагрузочных прогонах одни и те же несколько выражений вычисляются на каждом шаге каждой итерации
+ */
+final class JsonPathCache {
+
+    // Простые определенные пути: $.a.b, $['a'][0] и т.п. Их можно вычислить одним обходом дерева
+    private static final Pattern SIMPLE_SEGMENT = Pattern.compile("\\.([A-Za-z0-9_\\-]+)|\\['([^'\\\\]+)']|\\[(\\d{1,9})]");
+
+    private final int maxSize;
+    private final Map<String, CompiledPath> paths = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    JsonPathCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Возвращает скомпилированное выражение, компилируя его при первом обращении
+     *
+     * @throws com.jayway.jsonpath.InvalidPathException если выражение некорректно (не кэшируется)
+     */
+    CompiledPath get(String expression) {
+        CompiledPath cached = paths.get(expression);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        CompiledPath compiled = new CompiledPath(JsonPath.compile(expression), simpleSegments(expression));
+        if (maxSize <= 0) {
+            return compiled;
+        }
+        if (paths.size() >= maxSize) {
+            evictOne();
+        }
+        CompiledPath previous = paths.putIfAbsent(expression, compiled);
+        return previous != null ? previous : compiled;
+    }
+
+    JsonPathCacheStatistics getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new JsonPathCacheStatistics(
+                paths.size(),
+                maxSize,
+                hitCount,
+                missCount,
+                evictions.sum(),
+                total > 0 ? (double) hitCount / total : 0
+        );
+    }
+
+    private void evictOne() {
+        // Выражений обычно десятки: при переполнении вытесняем произвольное, без учета порядка использования
+        Iterator<String> iterator = paths.keySet().iterator();
+        if (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Разбирает простой определенный путь на сегменты: String - имя поля, Integer - индекс массива
+     *
+     * @return сегменты или null, если путь содержит фильтры, wildcard, рекурсивный спуск и т.п.
+     */
+    static List<Object> simpleSegments(String expression) {
+        if (expression == null || !expression.startsWith("$")) {
+            return null;
+        }
+        List<Object> segments = new ArrayList<>();
+        Matcher matcher = SIMPLE_SEGMENT.matcher(expression);
+        int position = 1;
+        while (position < expression.length()) {
+            matcher.region(position, expression.length());
+            if (!matcher.lookingAt()) {
+                return null;
+            }
+            if (matcher.group(1) != null) {
+                segments.add(matcher.group(1));
+            } else if (matcher.group(2) != null) {
+                segments.add(matcher.group(2));
+            } else {
+                segments.add(Integer.valueOf(matcher.group(3)));
+            }
+            position = matcher.end();
+        }
+        return segments;
+    }
+
+    /**
+     * Скомпилированное выражение
+     *
+     * @param path выражение для вычисления через JsonPath
+     * @param segments сегменты простого пути или null
+     */
+    record CompiledPath(JsonPath path, List<Object> segments) {
+        boolean isSimple() {
+            return segments != null;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package ru.poib.VTBHack.execution.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.execution.model.*;
+import ru.poib.VTBHack.generator.model.TestDataStep;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Сервис нагрузочного прогона процесса.
+ * Повторяет процесс целиком силами K виртуальных пользователей с плавным стартом
+ * и ограничением итераций в секунду. Каждая итерация использует следующий вариант тестовых данных,
+ * результаты агрегируются в гистограммы задержек без хранения шагов.
+ * Прогон идет в фоне, промежуточная статистика доступна по loadTestId
+ */
+@Slf4j
+@Service
+public class LoadTestService {
+
+    private final TestExecutionService testExecutionService;
+    private final ExecutorService executor;
+    private final long retentionMs;
+    private final int maxRetained;
+    private final Map<String, LoadTestHandle> loadTests = new ConcurrentHashMap<>();
+
+    public LoadTestService(
+            TestExecutionService testExecutionService,
+            @Qualifier("testExecutionExecutor") ExecutorService executor,
+            @Value("${execution.async.retention-ms:3600000}") long retentionMs,
+            @Value("${execution.async.max-retained:1000}") int maxRetained) {
+        this.testExecutionService = testExecutionService;
+        this.executor = executor;
+        this.retentionMs = retentionMs;
+        this.maxRetained = maxRetained;
+    }
+
+    /**
+     * Запускает нагрузочный прогон в фоне
+     *
+     * @param request запрос с описанием процесса и параметрами нагрузки
+     * @return начальный снимок с loadTestId и статусом RUNNING
+     * @throws IllegalArgumentException если запрос некорректен
+     */
+    public LoadTestResult submit(LoadTestRequest request) {
+        validate(request);
+        evictExpired();
+
+        LoadTestHandle handle = new LoadTestHandle(UUID.randomUUID().toString(), request);
+        loadTests.put(handle.loadTestId, handle);
+        executor.execute(() -> {
+            try {
+                run(handle);
+            } catch (RuntimeException e) {
+                log.error("Load test {} failed", handle.loadTestId, e);
+                handle.fail(e);
+            }
+        });
+
+        log.info("Submitted load test {}", handle.loadTestId);
+        return handle.snapshot();
+    }
+
+    /**
+     * Возвращает текущий снимок прогона: пока прогон идет - статистику уже завершенных итераций
+     *
+     * @param loadTestId ID прогона
+     * @return снимок, если прогон известен
+     */
+    public Optional<LoadTestResult> getSnapshot(String loadTestId) {
+        LoadTestHandle handle = loadTests.get(loadTestId);
+        return handle != null ? Optional.of(handle.snapshot()) : Optional.empty();
+    }
+
+    private void validate(LoadTestRequest request) {
+        TestExecutionRequest base = request.getExecution();
+        if (base == null || base.getProcessModel() == null || base.getConfig() == null) {
+            throw new IllegalArgumentException("Load test requires execution with processModel and config");
+        }
+        if (base.getTestData() == null || base.getTestData().getVariants() == null
+                || base.getTestData().getVariants().isEmpty()) {
+            throw new IllegalArgumentException("Load test requires at least one test data variant");
+        }
+    }
+
+    private void run(LoadTestHandle handle) {
+        TestExecutionRequest base = handle.base;
+        LoadTestConfig load = handle.load;
+        int users = Math.max(1, load.getVirtualUsers());
+        long totalIterations = handle.totalIterations;
+        List<List<TestDataStep>> variants = base.getTestData().getVariants();
+
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(load.getMaxDurationMs());
+        long intervalNanos = load.getTargetIterationsPerSecond() > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) / load.getTargetIterationsPerSecond())
+                : 0;
+
+        AtomicLong nextIteration = new AtomicLong();
+        AtomicLong nextSlotNanos = new AtomicLong(startNanos);
+        LoadAccumulator accumulator = handle.accumulator;
+
+        log.info("Starting load test {}: users={}, iterations={}, rampUpMs={}, targetIps={}",
+                handle.loadTestId, users, totalIterations, load.getRampUpMs(), load.getTargetIterationsPerSecond());
+
+        try (ExecutorService virtualUsers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < users; user++) {
+                long startDelayNanos = TimeUnit.MILLISECONDS.toNanos(load.getRampUpMs()) * user / users;
+                virtualUsers.execute(() -> {
+                    sleepUntil(startNanos + startDelayNanos);
+                    while (System.nanoTime() < deadlineNanos) {
+                        long iteration = nextIteration.getAndIncrement();
+                        if (iteration >= totalIterations) {
+                            return;
+                        }
+                        if (intervalNanos > 0) {
+                            sleepUntil(claimSlot(nextSlotNanos, intervalNanos));
+                        }
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        runIteration(base, (int) (iteration % variants.size()), accumulator);
+                    }
+                });
+            }
+        }
+
+        handle.finish();
+        log.info("Load test {} finished: {} iterations in {} ms", handle.loadTestId,
+                accumulator.completed.sum(), handle.snapshot().getTotalDurationMs());
+    }
+
+    /**
+     * Занимает ближайший свободный слот расписания. Слоты, время которых уже прошло, пропускаются:
+     * отставшие пользователи не догоняют расписание пачкой запросов, поэтому нагрузка не превышает целевую
+     */
+    static long claimSlot(AtomicLong nextSlotNanos, long intervalNanos) {
+        while (true) {
+            long next = nextSlotNanos.get();
+            long now = System.nanoTime();
+            long slot = next;
+            if (slot < now) {
+                slot += (now - slot + intervalNanos - 1) / intervalNanos * intervalNanos;
+            }
+            if (nextSlotNanos.compareAndSet(next, slot + intervalNanos)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Удаляет завершенные прогоны старше retentionMs и самые старые сверх лимита maxRetained
+     */
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        loadTests.values().removeIf(h -> h.finishedAt > 0 && now - h.finishedAt > retentionMs);
+
+        int excess = loadTests.size() - maxRetained + 1;
+        if (excess > 0) {
+            loadTests.values().stream()
+                    .filter(h -> h.finishedAt > 0)
+                    .sorted((a, b) -> Long.compare(a.finishedAt, b.finishedAt))
+                    .limit(excess)
+                    .map(h -> h.loadTestId)
+                    .toList()
+                    .forEach(loadTests::remove);
+        }
+    }
+
+    private void runIteration(TestExecutionRequest base, int variantIndex, LoadAccumulator accumulator) {
+        TestExecutionRequest iterationRequest = new TestExecutionRequest();
+        BeanUtils.copyProperties(base, iterationRequest);
+        iterationRequest.setTestDataVariantIndex(variantIndex);
+
+        TestExecutionResult result = testExecutionService.executeTest(iterationRequest, accumulator);
+        accumulator.recordIteration(result);
+    }
+
+    private void sleepUntil(long targetNanos) {
+        long remaining;
+        while ((remaining = targetNanos - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Состояние одного нагрузочного прогона: снимок строится из накопителя в любой момент
+     */
+    private static final class LoadTestHandle {
+        private final String loadTestId;
+        private final TestExecutionRequest base;
+        private final LoadTestConfig load;
+        private final long totalIterations;
+        private final Instant startTime = Instant.now();
+        private final LoadAccumulator accumulator = new LoadAccumulator();
+        private volatile LoadTestResult.LoadTestStatus status = LoadTestResult.LoadTestStatus.RUNNING;
+        private volatile String errorMessage;
+        private volatile Instant endTime;
+        private volatile long finishedAt;
+
+        private LoadTestHandle(String loadTestId, LoadTestRequest request) {
+            this.loadTestId = loadTestId;
+            this.base = request.getExecution();
+            this.load = request.getLoadConfig() != null ? request.getLoadConfig() : new LoadTestConfig();
+            this.totalIterations = Math.max(1, load.getIterations());
+        }
+
+        void finish() {
+            endTime = Instant.now();
+            status = LoadTestResult.LoadTestStatus.COMPLETED;
+            finishedAt = System.currentTimeMillis();
+        }
+
+        void fail(Exception e) {
+            errorMessage = e.getMessage();
+            endTime = Instant.now();
+            status = LoadTestResult.LoadTestStatus.FAILED;
+            finishedAt = System.currentTimeMillis();
+        }
+
+        LoadTestResult snapshot() {
+            LoadTestResult result = accumulator.toResult();
+            result.setLoadTestId(loadTestId);
+            result.setStatus(status);
+            result.setErrorMessage(errorMessage);
+            result.setProcessId(base.getProcessModel().getId());
+            result.setProcessName(base.getProcessModel().getName());
+            result.setStartTime(startTime);
+            Instant end = endTime;
+            result.setEndTime(end);
+            result.setTotalDurationMs((end != null ? end : Instant.now()).toEpochMilli() - startTime.toEpochMilli());
+            result.setStoppedByTimeout(end != null && status == LoadTestResult.LoadTestStatus.COMPLETED
+                    && result.getIterationsCompleted() < totalIterations);
+            result.setActualIterationsPerSecond(result.getTotalDurationMs() > 0
+                    ? result.getIterationsCompleted() * 1000.0 / result.getTotalDurationMs()
+                    : 0);
+            return result;
+        }
+    }
+
+    /**
+     * Потокобезопасный накопитель статистики нагрузочного прогона
+     */
+    private static final class LoadAccumulator implements ExecutionProgressListener {
+        private final LatencyHistogram iterationLatency = new LatencyHistogram();
+        private final Map<String, StepAccumulator> steps = new ConcurrentHashMap<>();
+        private final Map<ExecutionProblem.ProblemType, LongAdder> problems = new ConcurrentHashMap<>();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder successful = new LongAdder();
+        private final LongAdder partial = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        @Override
+        public void onStep(TestExecutionStep step) {
+            StepAccumulator stats = steps.computeIfAbsent(step.getTaskId(), id -> new StepAccumulator(step.getTaskName()));
+            switch (step.getStatus()) {
+                case SUCCESS -> stats.success.increment();
+                case FAILED -> stats.failed.increment();
+                case SKIPPED -> stats.skipped.increment();
+            }
+            if (step.getStatus() != TestExecutionStep.StepStatus.SKIPPED) {
+                stats.latency.record(step.getDurationMs());
+            }
+        }
+
+        @Override
+        public void onProblem(ExecutionProblem problem) {
+            if (problem.getType() != null) {
+                problems.computeIfAbsent(problem.getType(), t -> new LongAdder()).increment();
+            }
+        }
+
+        void recordIteration(TestExecutionResult result) {
+            completed.increment();
+            iterationLatency.record(result.getTotalDurationMs());
+            if (result.getStatus() == null) {
+                failed.increment();
+                return;
+            }
+            switch (result.getStatus()) {
+                case SUCCESS -> successful.increment();
+                case PARTIAL -> partial.increment();
+                default -> failed.increment();
+            }
+        }
+
+        LoadTestResult toResult() {
+            LoadTestResult result = new LoadTestResult();
+            result.setIterationsCompleted(completed.sum());
+            result.setSuccessfulIterations(successful.sum());
+            result.setPartialIterations(partial.sum());
+            result.setFailedIterations(failed.sum());
+            result.setIterationLatency(iterationLatency);
+            steps.forEach((taskId, acc) -> result.getStepStatistics().put(taskId,
+                    new LoadTestResult.StepLoadStatistics(taskId, acc.taskName,
+                            acc.success.sum(), acc.failed.sum(), acc.skipped.sum(), acc.latency)));
+            Map<ExecutionProblem.ProblemType, Long> problemCounts = new EnumMap<>(ExecutionProblem.ProblemType.class);
+            problems.forEach((type, count) -> problemCounts.put(type, count.sum()));
+            result.setProblemCounts(problemCounts);
+            return result;
+        }
+    }
+
+    private static final class StepAccumulator {
+        private final String taskName;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder success = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+
+        private StepAccumulator(String taskName) {
+            this.taskName = taskName;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package ru.poib.VTBHack.execution.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import ru.poib.VTBHack.parser.model.openapi.Response;
+import ru.poib.VTBHack.parser.model.openapi.SchemaResolver;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Преобразует схему ответа OpenAPI 3.0 в JSON Schema (draft 7) для валидатора.
+ * Компоненты, на которые ссылается схема, переносятся в definitions
+ */
+final class OpenApiSchemaConverter {
+
+    // Ключевые слова OpenAPI, которых нет в JSON Schema: валидатор предупреждал бы о них на каждой схеме
+    private static final Set<String> OPENAPI_ONLY_KEYWORDS = Set.of(
+            "nullable", "example", "xml", "externalDocs", "discriminator", "deprecated");
+
+    private static final String DEFINITIONS_PREFIX = "#/definitions/";
+
+    private final ObjectMapper objectMapper;
+    // Преобразованные компоненты по спецификации: общие для всех операций одной модели
+    private final Map<SchemaResolver, Map<String, Definition>> definitions =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    OpenApiSchemaConverter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Строит JSON Schema по схеме ответа без разрешения ссылок ($ref не ограничивает ответ)
+     *
+     * @param schema схема из OpenAPI спецификации
+     * @return JSON Schema
+     */
+    JsonNode toJsonSchema(Response.Schema schema) {
+        return toJsonSchema(schema, null);
+    }
+
+    /**
+     * Строит JSON Schema по схеме ответа. Ссылки на components/schemas переносятся в definitions:
+     * туда попадают только достижимые из схемы компоненты, рекурсивные схемы остаются ссылками
+     *
+     * @param schema схема из OpenAPI спецификации
+     * @param resolver компоненты спецификации (может быть null)
+     * @return JSON Schema
+     */
+    JsonNode toJsonSchema(Response.Schema schema, SchemaResolver resolver) {
+        Set<String> references = new LinkedHashSet<>();
+        JsonNode root = normalize(toTree(schema), resolver, references);
+        if (references.isEmpty()) {
+            return root;
+        }
+
+        ObjectNode definitionsNode = objectMapper.createObjectNode();
+        Deque<String> pending = new ArrayDeque<>(references);
+        while (!pending.isEmpty()) {
+            String name = pending.poll();
+            if (definitionsNode.has(name)) {
+                continue;
+            }
+            Definition definition = definition(resolver, name);
+            definitionsNode.set(name, definition.node());
+            definition.references().stream()
+                    .filter(reference -> !definitionsNode.has(reference))
+                    .forEach(pending::add);
+        }
+
+        // Ключевые слова рядом с $ref в draft 7 игнорируются, поэтому корень-ссылка оборачивается в allOf
+        ObjectNode result = root.has("$ref")
+                ? objectMapper.createObjectNode().set("allOf", objectMapper.createArrayNode().add(root))
+                : (ObjectNode) root;
+        result.set("definitions", definitionsNode);
+        return result;
+    }
+
+    private Definition definition(SchemaResolver resolver, String name) {
+        Map<String, Definition> byName = definitions.computeIfAbsent(resolver, r -> new ConcurrentHashMap<>());
+        Definition cached = byName.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        Response.Schema target = resolver.followRef(resolver.component(name));
+        Set<String> references = new LinkedHashSet<>();
+        // Неразрешимая цепочка ссылок не ограничивает ответ
+        JsonNode node = target != null
+                ? normalize(toTree(target), resolver, references)
+                : objectMapper.createObjectNode();
+        Definition definition = new Definition(node, references);
+        byName.putIfAbsent(name, definition);
+        return definition;
+    }
+
+    private ObjectNode toTree(Response.Schema schema) {
+        ObjectNode node = objectMapper.createObjectNode();
+        // Нетипизированные ключевые слова (required, enum, oneOf, ...) сохранены парсером как есть
+        for (Map.Entry<String, Object> entry : schema.getAdditionalProperties().entrySet()) {
+            node.set(entry.getKey(), objectMapper.valueToTree(entry.getValue()));
+        }
+        if (schema.getRef() != null) {
+            node.put("$ref", schema.getRef());
+        }
+        if (schema.getType() != null) {
+            node.put("type", schema.getType());
+        }
+        if (schema.getFormat() != null) {
+            node.put("format", schema.getFormat());
+        }
+        if (schema.getDescription() != null) {
+            node.put("description", schema.getDescription());
+        }
+        if (schema.getProperties() != null && !schema.getProperties().isEmpty()) {
+            ObjectNode properties = node.putObject("properties");
+            for (Map.Entry<String, Response.Schema> entry : schema.getProperties().entrySet()) {
+                properties.set(entry.getKey(), toTree(entry.getValue()));
+            }
+        }
+        if (schema.getItems() != null) {
+            node.set("items", toTree(schema.getItems()));
+        }
+        if (schema.getAllOf() != null && !schema.getAllOf().isEmpty()) {
+            ArrayNode allOf = node.putArray("allOf");
+            schema.getAllOf().forEach(part -> allOf.add(toTree(part)));
+        }
+        return node;
+    }
+
+    /**
+     * Приводит схему к JSON Schema: nullable превращается в тип null, ключевые слова OpenAPI удаляются.
+     * Вложенные схемы обрабатываются только в позициях схем, чтобы не задеть одноименные свойства
+     */
+    private JsonNode normalize(JsonNode schema, SchemaResolver resolver, Set<String> references) {
+        if (!schema.isObject()) {
+            return schema;
+        }
+        if (schema.has("$ref")) {
+            String name = SchemaResolver.componentName(schema.path("$ref").asText(null));
+            if (resolver == null || !resolver.hasComponent(name)) {
+                // Внешние и неизвестные ссылки не разрешаются: такой узел не ограничивает ответ
+                return objectMapper.createObjectNode();
+            }
+            references.add(name);
+            return objectMapper.createObjectNode()
+                    .put("$ref", DEFINITIONS_PREFIX + name.replace("~", "~0").replace("/", "~1"));
+        }
+
+        ObjectNode result = objectMapper.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = schema.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String keyword = field.getKey();
+            JsonNode value = field.getValue();
+            if (OPENAPI_ONLY_KEYWORDS.contains(keyword)) {
+                continue;
+            }
+            switch (keyword) {
+                case "items", "additionalProperties", "not" -> result.set(keyword, value.isArray()
+                        ? normalizeEach((ArrayNode) value, resolver, references)
+                        : normalize(value, resolver, references));
+                case "allOf", "anyOf", "oneOf" -> result.set(keyword, value.isArray()
+                        ? normalizeEach((ArrayNode) value, resolver, references) : value);
+                case "properties", "patternProperties" -> result.set(keyword,
+                        normalizeValues(value, resolver, references));
+                default -> result.set(keyword, value);
+            }
+        }
+
+        JsonNode type = result.get("type");
+        if (schema.path("nullable").asBoolean(false) && type != null && type.isTextual()) {
+            result.set("type", objectMapper.createArrayNode().add(type.asText()).add("null"));
+        }
+        return result;
+    }
+
+    private ArrayNode normalizeEach(ArrayNode schemas, SchemaResolver resolver, Set<String> references) {
+        ArrayNode result = objectMapper.createArrayNode();
+        schemas.forEach(schema -> result.add(normalize(schema, resolver, references)));
+        return result;
+    }
+
+    private JsonNode normalizeValues(JsonNode schemas, SchemaResolver resolver, Set<String> references) {
+        if (!schemas.isObject()) {
+            return schemas;
+        }
+        ObjectNode result = objectMapper.createObjectNode();
+        schemas.fields().forEachRemaining(entry ->
+                result.set(entry.getKey(), normalize(entry.getValue(), resolver, references)));
+        return result;
+    }
+
+    /**
+     * Преобразованный компонент и имена компонентов, на которые он ссылается
+     */
+    private record Definition(JsonNode node, Set<String> references) {
+    }
+}
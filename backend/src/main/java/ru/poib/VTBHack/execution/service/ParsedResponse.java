@@ -0,0 +1,78 @@
+package ru.poib.VTBHack.execution.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import ru.poib.VTBHack.config.JsonCodecs;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Ответ шага, разобранный один раз: JSON дерево и JSONPath документ поверх него.
+ * Создается на шаг и передается в валидацию, извлечение данных и сохранение в контекст
+ */
+public final class ParsedResponse {
+
+    private final ResponseBody body;
+    private final JsonCodecs jsonCodecs;
+    private DocumentContext document;
+
+    private ParsedResponse(ResponseBody body, JsonCodecs jsonCodecs) {
+        this.body = body;
+        this.jsonCodecs = jsonCodecs;
+    }
+
+    /**
+     * Оборачивает тело, JSON которого уже разобран при чтении ответа
+     */
+    public static ParsedResponse of(ResponseBody body, JsonCodecs jsonCodecs) {
+        return new ParsedResponse(body != null ? body : ResponseBody.EMPTY, jsonCodecs);
+    }
+
+    /**
+     * Разбирает готовый текст ответа (единожды для всех последующих проверок)
+     *
+     * @param text тело ответа (может быть null)
+     * @param jsonCodecs общий ObjectMapper приложения
+     */
+    public static ParsedResponse parse(String text, JsonCodecs jsonCodecs) {
+        if (text == null || text.isBlank()) {
+            return new ParsedResponse(ResponseBody.EMPTY, jsonCodecs);
+        }
+        JsonNode json = null;
+        String jsonError = null;
+        try {
+            json = jsonCodecs.mapper().readTree(text);
+            if (json != null && json.isMissingNode()) {
+                json = null;
+            }
+        } catch (JsonProcessingException e) {
+            jsonError = e.getOriginalMessage();
+        }
+        long sizeBytes = text.getBytes(StandardCharsets.UTF_8).length;
+        return new ParsedResponse(new ResponseBody(text, json, jsonError, sizeBytes, false), jsonCodecs);
+    }
+
+    public ResponseBody getBody() { return body; }
+
+    /**
+     * JSON дерево ответа или null, если ответ пустой или не JSON
+     */
+    public JsonNode getJson() { return body.getJson(); }
+
+    public boolean isEmpty() { return body.isEmpty(); }
+
+    /**
+     * JSONPath документ поверх JSON дерева; создается при первом обращении.
+     * Шаг обрабатывается одним потоком, поэтому синхронизация не нужна
+     *
+     * @return документ или null, если JSON нет
+     */
+    public DocumentContext document() {
+        if (document == null && body.getJson() != null) {
+            document = JsonPath.using(jsonCodecs.jsonPathConfiguration()).parse(body.getJson());
+        }
+        return document;
+    }
+}
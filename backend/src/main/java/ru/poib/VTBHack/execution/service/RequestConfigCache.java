@@ -0,0 +1,48 @@
+package ru.poib.VTBHack.execution.service;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.util.Timeout;
+import ru.poib.VTBHack.execution.model.ExecutionConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш RequestConfig по таймаутам ExecutionConfig.
+ * ExecutionConfig изменяемый, поэтому ключом служат значения таймаутов, а не сам объект.
+ * Конфигурация строится копией настроек клиента по умолчанию, чтобы не терять keep-alive и прочие значения
+ */
+final class RequestConfigCache {
+
+    // Различных сочетаний таймаутов обычно единицы, ограничение защищает от неограниченного роста
+    private static final int MAX_CACHED_REQUEST_CONFIGS = 64;
+
+    private final RequestConfig defaults;
+    private final Map<TimeoutKey, RequestConfig> requestConfigs = new ConcurrentHashMap<>();
+
+    RequestConfigCache(RequestConfig defaults) {
+        this.defaults = defaults;
+    }
+
+    /**
+     * Возвращает RequestConfig для таймаутов конфигурации, создавая его один раз на сочетание значений
+     */
+    RequestConfig get(ExecutionConfig config) {
+        TimeoutKey key = new TimeoutKey(config.getConnectionTimeoutMs(), config.getRequestTimeoutMs());
+        RequestConfig cached = requestConfigs.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (requestConfigs.size() >= MAX_CACHED_REQUEST_CONFIGS) {
+            requestConfigs.clear();
+        }
+        return requestConfigs.computeIfAbsent(key, k -> RequestConfig.copy(defaults)
+                .setConnectionRequestTimeout(Timeout.of(k.connectionTimeoutMs(), TimeUnit.MILLISECONDS))
+                .setResponseTimeout(Timeout.of(k.requestTimeoutMs(), TimeUnit.MILLISECONDS))
+                .build());
+    }
+
+    private record TimeoutKey(long connectionTimeoutMs, long requestTimeoutMs) {
+    }
+}
@@ -0,0 +1,239 @@
+package ru.poib.VTBHack.execution.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.execution.model.CircuitBreakerConfig;
+import ru.poib.VTBHack.execution.model.ExecutionConfig;
+import ru.poib.VTBHack.execution.model.ExecutionProblem;
+import ru.poib.VTBHack.execution.model.RateLimitConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Защита целевого API: token bucket и circuit breaker, общие для всех запусков.
+ * Состояние хранится по ключу base URL или эндпоинта, поэтому параллельные
+ * и нагрузочные прогоны против одного окружения ограничиваются совместно
+ */
+@Slf4j
+@Service
+public class RequestGuard {
+
+    // Ключей обычно десятки, ограничение защищает от роста при случайных baseUrl
+    private static final int MAX_KEYS = 10000;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Решает, можно ли отправить запрос
+     *
+     * @param config конфигурация выполнения (rateLimit, circuitBreaker)
+     * @param method HTTP метод
+     * @param endpointPath шаблон пути эндпоинта
+     * @return разрешение с задержкой перед отправкой или отказ с типом проблемы
+     */
+    public Admission admit(ExecutionConfig config, String method, String endpointPath) {
+        CircuitBreakerConfig breakerConfig = config.getCircuitBreaker();
+        CircuitBreaker breaker = null;
+        if (breakerConfig != null && breakerConfig.isEnabled()) {
+            String key = key(breakerConfig.getScope(), config, method, endpointPath);
+            breaker = breakerFor(key);
+            if (!breaker.tryAcquire(breakerConfig, System.nanoTime())) {
+                return Admission.rejected(ExecutionProblem.ProblemType.CIRCUIT_OPEN,
+                        "Circuit breaker is open for " + key);
+            }
+        }
+
+        RateLimitConfig rateLimit = config.getRateLimit();
+        if (rateLimit != null && rateLimit.isEnabled() && rateLimit.getRequestsPerSecond() > 0) {
+            String key = key(rateLimit.getScope(), config, method, endpointPath);
+            TokenBucket bucket = bucketFor(key, rateLimit);
+            long waitNanos = bucket.reserve(System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(rateLimit.getMaxWaitMs()));
+            if (waitNanos < 0) {
+                if (breaker != null) {
+                    breaker.release();
+                }
+                return Admission.rejected(ExecutionProblem.ProblemType.RATE_LIMITED,
+                        "Rate limit of " + rateLimit.getRequestsPerSecond() + " req/s exceeded for " + key);
+            }
+            return Admission.allowed(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+        return Admission.allowed(0);
+    }
+
+    /**
+     * Сообщает circuit breaker результат разрешенного запроса
+     *
+     * @param config конфигурация выполнения
+     * @param method HTTP метод
+     * @param endpointPath шаблон пути эндпоинта
+     * @param result результат запроса
+     */
+    public void onResult(ExecutionConfig config, String method, String endpointPath,
+                         HttpRequestExecutor.ExecutionResult result) {
+        CircuitBreakerConfig breakerConfig = config.getCircuitBreaker();
+        if (breakerConfig == null || !breakerConfig.isEnabled()) {
+            return;
+        }
+        String key = key(breakerConfig.getScope(), config, method, endpointPath);
+        boolean failure = !result.isSuccess() || result.getStatusCode() >= 500;
+        if (breakerFor(key).onResult(breakerConfig, failure, System.nanoTime())) {
+            log.warn("Circuit breaker opened for {}", key);
+        }
+    }
+
+    private String key(ExecutionConfig.GuardScope scope, ExecutionConfig config, String method, String endpointPath) {
+        String baseUrl = config.getBaseUrl() != null ? config.getBaseUrl() : "";
+        if (scope == ExecutionConfig.GuardScope.ENDPOINT) {
+            return method.toUpperCase() + " " + baseUrl + endpointPath;
+        }
+        return baseUrl;
+    }
+
+    private CircuitBreaker breakerFor(String key) {
+        if (breakers.size() >= MAX_KEYS && !breakers.containsKey(key)) {
+            breakers.clear();
+        }
+        return breakers.computeIfAbsent(key, k -> new CircuitBreaker());
+    }
+
+    private TokenBucket bucketFor(String key, RateLimitConfig rateLimit) {
+        if (buckets.size() >= MAX_KEYS && !buckets.containsKey(key)) {
+            buckets.clear();
+        }
+        // Если параметры ограничения изменились, начинаем с нового бакета
+        return buckets.compute(key, (k, existing) ->
+                existing != null && existing.matches(rateLimit)
+                        ? existing
+                        : new TokenBucket(rateLimit.getRequestsPerSecond(), Math.max(1, rateLimit.getBurst()), System.nanoTime()));
+    }
+
+    /**
+     * Результат проверки: задержка перед отправкой или отказ
+     */
+    public record Admission(boolean allowed, long waitMs, ExecutionProblem.ProblemType rejectedBy, String message) {
+        static Admission allowed(long waitMs) {
+            return new Admission(true, waitMs, null, null);
+        }
+
+        static Admission rejected(ExecutionProblem.ProblemType type, String message) {
+            return new Admission(false, 0, type, message);
+        }
+    }
+
+    /**
+     * Token bucket с резервированием: запрос забирает токен сразу (баланс может уйти в минус)
+     * и ждет, пока баланс восстановится, поэтому ожидающие запросы выстраиваются в очередь без опроса
+     */
+    static final class TokenBucket {
+        private final double requestsPerSecond;
+        private final int burst;
+        private final double nanosPerToken;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double requestsPerSecond, int burst, long nowNanos) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+            this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+            this.tokens = burst;
+            this.lastRefillNanos = nowNanos;
+        }
+
+        boolean matches(RateLimitConfig config) {
+            return requestsPerSecond == config.getRequestsPerSecond() && burst == Math.max(1, config.getBurst());
+        }
+
+        /**
+         * Резервирует токен
+         *
+         * @return время ожидания в наносекундах или -1, если ждать пришлось бы дольше maxWaitNanos
+         */
+        synchronized long reserve(long nowNanos, long maxWaitNanos) {
+            tokens = Math.min(burst, tokens + (nowNanos - lastRefillNanos) / nanosPerToken);
+            lastRefillNanos = nowNanos;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            long waitNanos = (long) Math.ceil((1 - tokens) * nanosPerToken);
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+            tokens -= 1;
+            return waitNanos;
+        }
+    }
+
+    /**
+     * Circuit breaker с состояниями CLOSED, OPEN и HALF_OPEN
+     */
+    static final class CircuitBreaker {
+        enum State { CLOSED, OPEN, HALF_OPEN }
+
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAtNanos;
+        private int halfOpenCalls;
+
+        synchronized boolean tryAcquire(CircuitBreakerConfig config, long nowNanos) {
+            if (state == State.OPEN) {
+                if (nowNanos - openedAtNanos < TimeUnit.MILLISECONDS.toNanos(config.getOpenDurationMs())) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                halfOpenCalls = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenCalls >= Math.max(1, config.getHalfOpenMaxCalls())) {
+                    return false;
+                }
+                halfOpenCalls++;
+            }
+            return true;
+        }
+
+        /**
+         * Освобождает пробный слот, если запрос так и не был отправлен
+         */
+        synchronized void release() {
+            if (state == State.HALF_OPEN && halfOpenCalls > 0) {
+                halfOpenCalls--;
+            }
+        }
+
+        /**
+         * Учитывает результат запроса
+         *
+         * @return true, если цепь только что разомкнулась
+         */
+        synchronized boolean onResult(CircuitBreakerConfig config, boolean failure, long nowNanos) {
+            if (!failure) {
+                state = State.CLOSED;
+                consecutiveFailures = 0;
+                return false;
+            }
+            if (state == State.HALF_OPEN) {
+                return open(nowNanos);
+            }
+            consecutiveFailures++;
+            if (state == State.CLOSED && consecutiveFailures >= Math.max(1, config.getFailureThreshold())) {
+                return open(nowNanos);
+            }
+            return false;
+        }
+
+        synchronized State getState() {
+            return state;
+        }
+
+        private boolean open(long nowNanos) {
+            state = State.OPEN;
+            openedAtNanos = nowNanos;
+            consecutiveFailures = 0;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package ru.poib.VTBHack.execution.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Тело HTTP ответа без хранения полного текста: JSON дерево (если ответ JSON),
+ * усеченное превью для отчета и фактический размер в байтах
+ */
+public final class ResponseBody {
+
+    static final ResponseBody EMPTY = new ResponseBody(null, null, null, 0, false);
+
+    private final String preview;
+    private final JsonNode json;
+    private final String jsonError;
+    private final long sizeBytes;
+    private final boolean truncated;
+
+    ResponseBody(String preview, JsonNode json, String jsonError, long sizeBytes, boolean truncated) {
+        this.preview = preview;
+        this.json = json;
+        this.jsonError = jsonError;
+        this.sizeBytes = sizeBytes;
+        this.truncated = truncated;
+    }
+
+    /**
+     * Читает тело из потока: JSON разбирается прямо из потока, в памяти остается только превью
+     *
+     * @param in поток тела ответа
+     * @param contentType значение Content-Type (может быть null)
+     * @param charset кодировка превью
+     * @param maxBytes жесткий лимит размера тела (0 - без лимита)
+     * @param previewBytes сколько байт сохранить в превью
+     * @param objectMapper mapper для разбора JSON
+     * @throws ResponseTooLargeException если тело больше maxBytes
+     */
+    static ResponseBody read(InputStream in, String contentType, Charset charset, long maxBytes, int previewBytes,
+                             ObjectMapper objectMapper) throws IOException {
+        CappedInputStream capped = new CappedInputStream(in, maxBytes, previewBytes);
+        JsonNode json = null;
+        String jsonError = null;
+        if (isJsonCandidate(contentType)) {
+            try {
+                json = presentOrNull(objectMapper.readTree(capped));
+            } catch (ResponseTooLargeException e) {
+                throw e;
+            } catch (JsonProcessingException e) {
+                jsonError = e.getOriginalMessage();
+            }
+        }
+        // Дочитываем остаток, чтобы узнать полный размер и вернуть соединение в пул
+        capped.drain();
+        return new ResponseBody(capped.preview(charset), json, jsonError, capped.count(), capped.count() > previewBytes);
+    }
+
+    /**
+     * Создает тело из уже полученных байт (асинхронный клиент)
+     */
+    static ResponseBody fromBytes(byte[] data, int length, String contentType, Charset charset, int previewBytes,
+                                  ObjectMapper objectMapper) {
+        JsonNode json = null;
+        String jsonError = null;
+        if (isJsonCandidate(contentType) && length > 0) {
+            try {
+                json = presentOrNull(objectMapper.readTree(data, 0, length));
+            } catch (IOException e) {
+                jsonError = e instanceof JsonProcessingException jpe ? jpe.getOriginalMessage() : e.getMessage();
+            }
+        }
+        int previewLength = Math.min(length, Math.max(0, previewBytes));
+        boolean truncated = length > previewLength;
+        String preview = new String(data, 0, truncated ? charBoundary(data, previewLength, charset) : length, charset);
+        return new ResponseBody(preview, json, jsonError, length, truncated);
+    }
+
+    /**
+     * Тело, заданное готовым текстом (без разбора JSON)
+     */
+    static ResponseBody ofText(String text) {
+        return new ResponseBody(text, null, null, text.getBytes(StandardCharsets.UTF_8).length, false);
+    }
+
+    /**
+     * Превью тела (целиком, если тело не больше лимита превью)
+     */
+    public String getPreview() { return preview; }
+
+    /**
+     * Разобранный JSON или null, если ответ не JSON или пустой
+     */
+    public JsonNode getJson() { return json; }
+
+    /**
+     * Ошибка разбора JSON, если тело заявлено как JSON, но не разобралось
+     */
+    public String getJsonError() { return jsonError; }
+
+    public long getSizeBytes() { return sizeBytes; }
+
+    public boolean isTruncated() { return truncated; }
+
+    public boolean isEmpty() { return sizeBytes == 0; }
+
+    private static boolean isJsonCandidate(String contentType) {
+        // Без Content-Type пробуем разобрать как JSON: контрактная проверка сообщит о несоответствии
+        return contentType == null || contentType.toLowerCase().contains("json");
+    }
+
+    private static JsonNode presentOrNull(JsonNode node) {
+        return node == null || node.isMissingNode() ? null : node;
+    }
+
+    /**
+     * Длина усеченного превью без оборванного в конце символа UTF-8: иначе он декодируется как U+FFFD
+     */
+    static int charBoundary(byte[] data, int length, Charset charset) {
+        if (!StandardCharsets.UTF_8.equals(charset) || length == 0) {
+            return length;
+        }
+        // Начало последнего символа: не более трех байт продолжения (10xxxxxx) перед ним
+        int lead = length - 1;
+        while (lead > 0 && lead > length - 4 && (data[lead] & 0xC0) == 0x80) {
+            lead--;
+        }
+        int b = data[lead] & 0xFF;
+        int size = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        return lead + size > length ? lead : length;
+    }
+
+    /**
+     * Тело ответа превышает жесткий лимит
+     */
+    public static final class ResponseTooLargeException extends IOException {
+        public ResponseTooLargeException(long maxBytes) {
+            super("Response body exceeds limit of " + maxBytes + " bytes");
+        }
+    }
+
+    /**
+     * Поток, считающий байты, сохраняющий превью и прерывающий чтение при превышении лимита.
+     * close() не закрывает исходный поток: им управляет HTTP клиент
+     */
+    private static final class CappedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private final int previewBytes;
+        private final ByteArrayOutputStream preview;
+        private long count;
+
+        CappedInputStream(InputStream in, long maxBytes, int previewBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+            this.previewBytes = Math.max(0, previewBytes);
+            this.preview = new ByteArrayOutputStream(Math.min(this.previewBytes, 8192));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                accept(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                accept(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Пропуск тоже учитывается в размере
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        void drain() throws IOException {
+            byte[] buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) >= 0) {
+                // только считаем
+            }
+        }
+
+        long count() {
+            return count;
+        }
+
+        String preview(Charset charset) {
+            if (count <= previewBytes) {
+                return preview.toString(charset);
+            }
+            byte[] data = preview.toByteArray();
+            return new String(data, 0, charBoundary(data, data.length, charset), charset);
+        }
+
+        private void accept(byte[] b, int off, int len) throws ResponseTooLargeException {
+            count += len;
+            if (maxBytes > 0 && count > maxBytes) {
+                throw new ResponseTooLargeException(maxBytes);
+            }
+            int toCopy = (int) Math.min(len, previewBytes - preview.size());
+            if (toCopy > 0) {
+                preview.write(b, off, toCopy);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ru.poib.VTBHack.execution.service;
+
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.config.JsonCodecs;
+import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
+import ru.poib.VTBHack.parser.model.openapi.Operation;
+import ru.poib.VTBHack.parser.model.openapi.Response;
+import ru.poib.VTBHack.parser.model.openapi.SchemaResolver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ожидаемые ответы операций по OpenAPI спецификации.
+ * Схема ответа компилируется один раз на (операция, статус, media type) и переиспользуется всеми шагами
+ */
+@Slf4j
+@Service
+public class ResponseSchemaRegistry {
+
+    // Ожидания без спецификации: прежнее поведение проверки ответа
+    static final ExpectedResponse DEFAULT = new ExpectedResponse(200, "application/json", null);
+
+    private static final int MAX_CACHED_SCHEMAS = 4096;
+
+    private final JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+    private final OpenApiSchemaConverter converter;
+    private final Map<SchemaKey, CompiledSchema> schemas = new ConcurrentHashMap<>();
+
+    public ResponseSchemaRegistry(JsonCodecs jsonCodecs) {
+        this.converter = new OpenApiSchemaConverter(jsonCodecs.mapper());
+    }
+
+    /**
+     * Определяет ожидаемый ответ операции: первый объявленный 2xx статус, его media type и схему
+     *
+     * @param openApiModel спецификация (может быть null)
+     * @param path путь эндпоинта, как он задан в спецификации
+     * @param method HTTP метод
+     * @return ожидаемый ответ; DEFAULT, если операция или успешный ответ не описаны
+     */
+    public ExpectedResponse resolve(OpenApiModel openApiModel, String path, String method) {
+        Operation operation = findOperation(openApiModel, path, method);
+        if (operation == null || operation.getResponses() == null) {
+            return DEFAULT;
+        }
+
+        Map.Entry<String, Response> success = null;
+        for (Map.Entry<String, Response> entry : operation.getResponses().entrySet()) {
+            if (entry.getKey().length() == 3 && entry.getKey().charAt(0) == '2') {
+                success = entry;
+                break;
+            }
+        }
+        if (success == null) {
+            return DEFAULT;
+        }
+        int statusCode = parseStatus(success.getKey());
+
+        Map.Entry<String, Response.MediaType> media = selectMediaType(success.getValue());
+        if (media == null) {
+            // Ответ без тела (например, 204): проверяем только статус
+            return new ExpectedResponse(statusCode, null, null);
+        }
+        String contentType = media.getKey().contains("*") ? null : media.getKey();
+        Response.Schema schema = media.getValue() != null ? media.getValue().getSchema() : null;
+        if (schema == null) {
+            return new ExpectedResponse(statusCode, contentType, null);
+        }
+
+        String operationKey = operation.getOperationId() != null
+                ? operation.getOperationId()
+                : method.toUpperCase() + " " + path;
+        SchemaKey key = new SchemaKey(operationKey, success.getKey(), media.getKey());
+        return new ExpectedResponse(statusCode, contentType, compiled(key, schema, openApiModel.getSchemaResolver()));
+    }
+
+    private JsonSchema compiled(SchemaKey key, Response.Schema schema, SchemaResolver resolver) {
+        CompiledSchema cached = schemas.get(key);
+        // Одинаковые operationId бывают в разных спецификациях: запись действительна только для той же схемы
+        if (cached != null && cached.source() == schema) {
+            return cached.schema();
+        }
+        if (schemas.size() >= MAX_CACHED_SCHEMAS) {
+            schemas.clear();
+        }
+        JsonSchema compiled = null;
+        try {
+            compiled = schemaFactory.getSchema(converter.toJsonSchema(schema, resolver));
+        } catch (Exception e) {
+            // Некомпилируемая схема тоже кэшируется, чтобы не повторять попытку на каждом шаге
+            log.warn("Cannot compile response schema for {} {} {}: {}",
+                    key.operation(), key.status(), key.mediaType(), e.getMessage());
+        }
+        schemas.put(key, new CompiledSchema(schema, compiled));
+        return compiled;
+    }
+
+    private Operation findOperation(OpenApiModel openApiModel, String path, String method) {
+        if (openApiModel == null || openApiModel.getPaths() == null || path == null || method == null) {
+            return null;
+        }
+        OpenApiModel.PathItem pathItem = openApiModel.getPaths().get(path);
+        if (pathItem == null) {
+            return null;
+        }
+        return switch (method.toUpperCase()) {
+            case "GET" -> pathItem.getGet();
+            case "POST" -> pathItem.getPost();
+            case "PUT" -> pathItem.getPut();
+            case "DELETE" -> pathItem.getDelete();
+            default -> null;
+        };
+    }
+
+    private Map.Entry<String, Response.MediaType> selectMediaType(Response response) {
+        if (response == null || response.getContent() == null || response.getContent().isEmpty()) {
+            return null;
+        }
+        for (Map.Entry<String, Response.MediaType> entry : response.getContent().entrySet()) {
+            if (entry.getKey().toLowerCase().contains("json")) {
+                return entry;
+            }
+        }
+        return response.getContent().entrySet().iterator().next();
+    }
+
+    private int parseStatus(String status) {
+        try {
+            return Integer.parseInt(status);
+        } catch (NumberFormatException e) {
+            // Диапазон "2XX"
+            return 200;
+        }
+    }
+
+    /**
+     * Ожидаемый ответ операции
+     *
+     * @param statusCode ожидаемый HTTP статус
+     * @param contentType ожидаемый Content-Type (null - не проверяется)
+     * @param schema скомпилированная схема тела (null - тело не проверяется)
+     */
+    public record ExpectedResponse(int statusCode, String contentType, JsonSchema schema) {
+    }
+
+    private record SchemaKey(String operation, String status, String mediaType) {
+    }
+
+    private record CompiledSchema(Response.Schema source, JsonSchema schema) {
+    }
+}
@@ -1,18 +1,19 @@
 package ru.poib.VTBHack.execution.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.networknt.schema.JsonSchema;
 import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
 import com.networknt.schema.ValidationMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.config.JsonCodecs;
 import ru.poib.VTBHack.execution.model.ValidationResult;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -22,12 +23,16 @@ import java.util.stream.Collectors;
 @Service
 public class ResponseValidator {
     
-    private final ObjectMapper objectMapper;
+    // Схем, передаваемых текстом, обычно немного; ограничение защищает от неограниченного роста
+    private static final int MAX_CACHED_SCHEMAS = 256;
+    
     private final JsonSchemaFactory schemaFactory;
+    private final JsonCodecs jsonCodecs;
+    private final Map<String, JsonSchema> compiledSchemas = new ConcurrentHashMap<>();
     
-    public ResponseValidator() {
-        this.objectMapper = new ObjectMapper();
+    public ResponseValidator(JsonCodecs jsonCodecs) {
         this.schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+        this.jsonCodecs = jsonCodecs;
     }
     
     /**
@@ -53,6 +58,58 @@ public class ResponseValidator {
             long responseTimeMs,
             long maxResponseTimeMs) {
         
+        JsonSchema schema = null;
+        String schemaError = null;
+        if (responseSchema != null) {
+            try {
+                schema = compileSchema(responseSchema);
+            } catch (Exception e) {
+                schemaError = "Error validating schema: " + e.getMessage();
+                log.error("Error compiling JSON schema", e);
+            }
+        }
+        return validate(statusCode, expectedStatusCode, contentType, expectedContentType,
+                ParsedResponse.parse(responseBody, jsonCodecs), schema, schemaError, responseTimeMs, maxResponseTimeMs);
+    }
+    
+    /**
+     * Валидирует ответ, разобранный один раз на шаг
+     * 
+     * @param statusCode фактический HTTP status code
+     * @param expectedStatusCode ожидаемый HTTP status code
+     * @param contentType Content-Type заголовок
+     * @param expectedContentType ожидаемый Content-Type
+     * @param response разобранный ответ (JSON дерево, размер, ошибка разбора)
+     * @param responseSchema скомпилированная JSON схема для валидации (может быть null)
+     * @param responseTimeMs время ответа в миллисекундах
+     * @param maxResponseTimeMs максимально допустимое время ответа
+     * @return результат валидации
+     */
+    public ValidationResult validate(
+            int statusCode,
+            int expectedStatusCode,
+            String contentType,
+            String expectedContentType,
+            ParsedResponse response,
+            JsonSchema responseSchema,
+            long responseTimeMs,
+            long maxResponseTimeMs) {
+        
+        return validate(statusCode, expectedStatusCode, contentType, expectedContentType,
+                response, responseSchema, null, responseTimeMs, maxResponseTimeMs);
+    }
+    
+    private ValidationResult validate(
+            int statusCode,
+            int expectedStatusCode,
+            String contentType,
+            String expectedContentType,
+            ParsedResponse response,
+            JsonSchema responseSchema,
+            String schemaError,
+            long responseTimeMs,
+            long maxResponseTimeMs) {
+        
         ValidationResult result = new ValidationResult();
         result.setErrors(new ArrayList<>());
         result.setWarnings(new ArrayList<>());
@@ -65,21 +122,22 @@ public class ResponseValidator {
         }
         
         // Валидация контрактов
-        ValidationResult.ContractValidation contractValidation = validateContract(contentType, expectedContentType, responseBody);
+        ValidationResult.ContractValidation contractValidation = validateContract(contentType, expectedContentType, response.getBody());
         result.setContractValidation(contractValidation);
         if (!contractValidation.isValid()) {
             result.getErrors().add(contractValidation.getMessage());
         }
         
         // Валидация схемы JSON (если предоставлена)
-        if (responseSchema != null && responseBody != null && !responseBody.trim().isEmpty()) {
-            ValidationResult.SchemaValidation schemaValidation = validateSchema(responseBody, responseSchema);
+        if ((responseSchema != null || schemaError != null) && !response.isEmpty()) {
+            ValidationResult.SchemaValidation schemaValidation = schemaError != null
+                    ? failedSchemaValidation(schemaError)
+                    : validateSchema(response.getBody(), responseSchema);
             result.setSchemaValidation(schemaValidation);
             if (!schemaValidation.isValid()) {
                 result.getErrors().addAll(schemaValidation.getSchemaErrors());
             }
         } else {
-            // Если схема не предоставлена, создаем пустую валидацию
             ValidationResult.SchemaValidation schemaValidation = new ValidationResult.SchemaValidation();
             schemaValidation.setValid(true);
             schemaValidation.setSchemaErrors(new ArrayList<>());
@@ -93,7 +151,6 @@ public class ResponseValidator {
             result.getWarnings().add(performanceValidation.getMessage());
         }
         
-        // Общий результат валидации
         result.setValid(result.getErrors().isEmpty());
         
         return result;
@@ -114,7 +171,8 @@ public class ResponseValidator {
         return validation;
     }
     
-    private ValidationResult.ContractValidation validateContract(String actualContentType, String expectedContentType, String responseBody) {
+    private ValidationResult.ContractValidation validateContract(String actualContentType, String expectedContentType,
+                                                                 ResponseBody responseBody) {
         ValidationResult.ContractValidation validation = new ValidationResult.ContractValidation();
         validation.setExpectedContentType(expectedContentType);
         validation.setActualContentType(actualContentType);
@@ -129,19 +187,16 @@ public class ResponseValidator {
             }
         }
         
-        // Проверка обязательных полей (базовая проверка на наличие JSON)
+        // Проверка JSON по дереву, разобранному при чтении ответа
         if (expectedContentType != null && expectedContentType.contains("json")) {
-            if (responseBody == null || responseBody.trim().isEmpty()) {
+            if (responseBody.isEmpty()) {
                 errors.add("Expected JSON response body, but got empty body");
-            } else {
-                try {
-                    JsonNode jsonNode = objectMapper.readTree(responseBody);
-                    if (!jsonNode.isObject() && !jsonNode.isArray()) {
-                        errors.add("Response body is not a valid JSON object or array");
-                    }
-                } catch (Exception e) {
-                    errors.add("Response body is not valid JSON: " + e.getMessage());
-                }
+            } else if (responseBody.getJsonError() != null) {
+                errors.add("Response body is not valid JSON: " + responseBody.getJsonError());
+            } else if (responseBody.getJson() == null) {
+                errors.add("Response body is not JSON");
+            } else if (!responseBody.getJson().isObject() && !responseBody.getJson().isArray()) {
+                errors.add("Response body is not a valid JSON object or array");
             }
         }
         
@@ -155,14 +210,39 @@ public class ResponseValidator {
         return validation;
     }
     
-    private ValidationResult.SchemaValidation validateSchema(String responseBody, String schemaJson) {
+    /**
+     * Компилирует схему один раз на текст схемы
+     */
+    private JsonSchema compileSchema(String schemaJson) {
+        JsonSchema cached = compiledSchemas.get(schemaJson);
+        if (cached != null) {
+            return cached;
+        }
+        if (compiledSchemas.size() >= MAX_CACHED_SCHEMAS) {
+            compiledSchemas.clear();
+        }
+        return compiledSchemas.computeIfAbsent(schemaJson, schemaFactory::getSchema);
+    }
+    
+    private ValidationResult.SchemaValidation failedSchemaValidation(String errorMsg) {
+        ValidationResult.SchemaValidation validation = new ValidationResult.SchemaValidation();
+        validation.setValid(false);
+        validation.setSchemaErrors(List.of(errorMsg));
+        validation.setMessage(errorMsg);
+        return validation;
+    }
+    
+    private ValidationResult.SchemaValidation validateSchema(ResponseBody responseBody, JsonSchema schema) {
         ValidationResult.SchemaValidation validation = new ValidationResult.SchemaValidation();
         validation.setSchemaErrors(new ArrayList<>());
         
+        if (responseBody.getJson() == null) {
+            return failedSchemaValidation("Error validating schema: " + (responseBody.getJsonError() != null
+                    ? responseBody.getJsonError() : "response body is not JSON"));
+        }
+        
         try {
-            JsonSchema schema = schemaFactory.getSchema(schemaJson);
-            JsonNode jsonNode = objectMapper.readTree(responseBody);
-            Set<ValidationMessage> errors = schema.validate(jsonNode);
+            Set<ValidationMessage> errors = schema.validate(responseBody.getJson());
             
             if (errors.isEmpty()) {
                 validation.setValid(true);
@@ -0,0 +1,126 @@
+package ru.poib.VTBHack.execution.service;
+
+import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.execution.model.ExecutionConfig;
+import ru.poib.VTBHack.execution.model.RetryPolicy;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Решает, нужно ли повторить HTTP запрос, и вычисляет задержку перед повтором
+ */
+@Service
+public class RetryEvaluator {
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS");
+
+    /**
+     * Проверяет, нужно ли повторить запрос после попытки с номером attempt
+     *
+     * @param method HTTP метод
+     * @param result результат последней попытки
+     * @param config конфигурация выполнения (retryCount и retryPolicy)
+     * @param attempt номер выполненной попытки, начиная с 1
+     * @return true, если попытки не исчерпаны и результат считается временной ошибкой
+     */
+    public boolean shouldRetry(String method, HttpRequestExecutor.ExecutionResult result,
+                               ExecutionConfig config, int attempt) {
+        if (attempt > config.getRetryCount()) {
+            return false;
+        }
+        RetryPolicy policy = policy(config);
+        if (!policy.isRetryNonIdempotent() && !IDEMPOTENT_METHODS.contains(method.toUpperCase())) {
+            return false;
+        }
+        if (!result.isSuccess()) {
+            return isRetryableError(result.getError(), policy);
+        }
+        return isRetryableStatus(result.getStatusCode(), policy);
+    }
+
+    /**
+     * Вычисляет задержку перед следующей попыткой
+     *
+     * @param result результат последней попытки (для Retry-After)
+     * @param config конфигурация выполнения
+     * @param attempt номер выполненной попытки, начиная с 1
+     * @return задержка в миллисекундах
+     */
+    public long delayBeforeRetry(HttpRequestExecutor.ExecutionResult result, ExecutionConfig config, int attempt) {
+        RetryPolicy policy = policy(config);
+        long maxDelay = Math.max(0, policy.getMaxDelayMs());
+
+        long retryAfter = policy.isRespectRetryAfter() ? retryAfterMs(result) : -1;
+        if (retryAfter >= 0) {
+            return Math.min(retryAfter, maxDelay);
+        }
+
+        double base = config.getRetryDelayMs() * Math.pow(Math.max(1.0, policy.getBackoffMultiplier()), attempt - 1);
+        double delay = Math.min(base, maxDelay);
+        double jitter = Math.max(0.0, Math.min(policy.getJitter(), 1.0));
+        if (jitter > 0) {
+            delay = delay * (1 - jitter) + ThreadLocalRandom.current().nextDouble() * delay * jitter;
+        }
+        return (long) delay;
+    }
+
+    private RetryPolicy policy(ExecutionConfig config) {
+        return config.getRetryPolicy() != null ? config.getRetryPolicy() : new RetryPolicy();
+    }
+
+    private boolean isRetryableStatus(int statusCode, RetryPolicy policy) {
+        if (policy.getRetryableStatuses() == null) {
+            return false;
+        }
+        String code = String.valueOf(statusCode);
+        for (String pattern : policy.getRetryableStatuses()) {
+            if (pattern == null) {
+                continue;
+            }
+            String p = pattern.trim().toLowerCase();
+            if (p.equals(code)) {
+                return true;
+            }
+            // Класс статусов: "5xx"
+            if (p.length() == 3 && p.endsWith("xx") && code.length() == 3 && p.charAt(0) == code.charAt(0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isRetryableError(Throwable error, RetryPolicy policy) {
+        if (error == null || policy.getRetryableExceptions() == null) {
+            return false;
+        }
+        for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            for (Class<?> type = t.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+                if (policy.getRetryableExceptions().contains(type.getSimpleName())
+                        || policy.getRetryableExceptions().contains(type.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private long retryAfterMs(HttpRequestExecutor.ExecutionResult result) {
+        if (!result.isSuccess() || (result.getStatusCode() != 429 && result.getStatusCode() != 503)
+                || result.getHeaders() == null) {
+            return -1;
+        }
+        for (Map.Entry<String, String> header : result.getHeaders().entrySet()) {
+            if ("Retry-After".equalsIgnoreCase(header.getKey()) && header.getValue() != null) {
+                try {
+                    return Long.parseLong(header.getValue().trim()) * 1000;
+                } catch (NumberFormatException e) {
+                    // HTTP-date не поддерживается, используем экспоненциальную задержку
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+}
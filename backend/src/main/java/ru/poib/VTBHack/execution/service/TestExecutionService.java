@@ -1,17 +1,29 @@
 package ru.poib.VTBHack.execution.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.config.JsonCodecs;
 import ru.poib.VTBHack.execution.model.*;
 import ru.poib.VTBHack.generator.model.TestDataStep;
 import ru.poib.VTBHack.mapping.model.DataFlowEdge;
 import ru.poib.VTBHack.mapping.model.MappingResult;
 import ru.poib.VTBHack.mapping.model.TaskEndpointMapping;
 import ru.poib.VTBHack.parser.model.ProcessModel;
+import ru.poib.VTBHack.parser.model.ProcessTask;
+import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -22,21 +34,42 @@ import java.util.stream.Collectors;
 public class TestExecutionService {
     
     private final HttpRequestExecutor httpRequestExecutor;
+    private final AsyncHttpRequestExecutor asyncHttpRequestExecutor;
     private final ResponseValidator responseValidator;
     private final DataExtractor dataExtractor;
+    private final ResponseSchemaRegistry responseSchemaRegistry;
     private final BpmnExecutionEngine bpmnExecutionEngine;
-    private final ObjectMapper objectMapper;
+    private final FlowableExecutionEngine flowableExecutionEngine;
+    private final RetryEvaluator retryEvaluator;
+    private final RequestGuard requestGuard;
+    private final ExecutorService completionExecutor;
+    private final JsonCodecs jsonCodecs;
     
     public TestExecutionService(
             HttpRequestExecutor httpRequestExecutor,
+            AsyncHttpRequestExecutor asyncHttpRequestExecutor,
             ResponseValidator responseValidator,
             DataExtractor dataExtractor,
-            BpmnExecutionEngine bpmnExecutionEngine) {
+            ResponseSchemaRegistry responseSchemaRegistry,
+            BpmnExecutionEngine bpmnExecutionEngine,
+            FlowableExecutionEngine flowableExecutionEngine,
+            RetryEvaluator retryEvaluator,
+            RequestGuard requestGuard,
+            @Qualifier("testExecutionExecutor") ExecutorService completionExecutor,
+            JsonCodecs jsonCodecs) {
         this.httpRequestExecutor = httpRequestExecutor;
+        this.asyncHttpRequestExecutor = asyncHttpRequestExecutor;
         this.responseValidator = responseValidator;
         this.dataExtractor = dataExtractor;
+        this.responseSchemaRegistry = responseSchemaRegistry;
         this.bpmnExecutionEngine = bpmnExecutionEngine;
-        this.objectMapper = new ObjectMapper();
+        this.flowableExecutionEngine = flowableExecutionEngine;
+        this.retryEvaluator = retryEvaluator;
+        this.requestGuard = requestGuard;
+        // Обработка ответов асинхронного клиента (валидация, извлечение данных) выполняется здесь,
+        // а не в потоках ввода-вывода клиента; здесь же идут шаги блокирующего клиента в режиме PARALLEL
+        this.completionExecutor = completionExecutor;
+        this.jsonCodecs = jsonCodecs;
     }
     
     /**
@@ -46,6 +79,17 @@ public class TestExecutionService {
      * @return результат выполнения
      */
     public TestExecutionResult executeTest(TestExecutionRequest request) {
+        return executeTest(request, ExecutionProgressListener.NONE);
+    }
+
+    /**
+     * Выполняет тест согласно запросу, сообщая о завершении каждого шага слушателю
+     * 
+     * @param request запрос на выполнение теста
+     * @param listener слушатель прогресса (получает шаги по мере их завершения)
+     * @return результат выполнения
+     */
+    public TestExecutionResult executeTest(TestExecutionRequest request, ExecutionProgressListener listener) {
         Instant startTime = Instant.now();
         TestExecutionResult result = new TestExecutionResult();
         result.setStartTime(startTime);
@@ -77,130 +121,58 @@ public class TestExecutionService {
             // Сопоставим ID задачи с именем для фолбэка поиска
             Map<String, String> taskIdToName = processModel.getTasks().stream()
                     .collect(Collectors.toMap(t -> t.getId(), t -> t.getName()));
-            Map<String, ru.poib.VTBHack.parser.model.ProcessTask> taskIdToTask = processModel.getTasks().stream()
-                    .collect(Collectors.toMap(ru.poib.VTBHack.parser.model.ProcessTask::getId, t -> t));
+            Map<String, ProcessTask> taskIdToTask = processModel.getTasks().stream()
+                    .collect(Collectors.toMap(ProcessTask::getId, t -> t));
+
+            boolean parallel = config.getExecutionMode() == ExecutionConfig.ExecutionMode.PARALLEL;
+            boolean engine = config.getExecutionMode() == ExecutionConfig.ExecutionMode.ENGINE;
 
             // Контекст для хранения извлеченных данных между шагами
-            Map<String, Object> executionContext = new HashMap<>();
-            
-            // Выполняем каждый шаг последовательно
-            for (String taskId : executionOrder) {
-                // Проверяем, не превышено ли максимальное время выполнения
-                if (Instant.now().toEpochMilli() - startTime.toEpochMilli() > config.getMaxExecutionTimeMs()) {
-                    ExecutionProblem problem = createProblem(
-                            ExecutionProblem.ProblemType.TIMEOUT,
-                            taskId,
-                            "Process execution timeout",
-                            "Maximum execution time exceeded",
-                            null,
-                            null,
-                            null
-                    );
-                    result.getProblems().add(problem);
-                    
-                    if (request.isStopOnFirstError()) {
-                        break;
-                    }
-                    continue;
-                }
-                
-                // Проверяем, должна ли задача быть выполнена
-                if (!bpmnExecutionEngine.shouldExecuteTask(taskId, executionContext)) {
-                    log.debug("Skipping task {} based on gateway conditions", taskId);
-                    TestExecutionStep skippedStep = createSkippedStep(taskId, "Task skipped by gateway condition");
-                    result.getSteps().add(skippedStep);
-                    continue;
-                }
-                
-                // Получаем маппинг для задачи (если маппинги отсутствуют, считаем, что сопоставления нет)
-                TaskEndpointMapping mapping = safeTaskMappings.get(taskId);
-
-                // Фолбэк: попробуем найти по совпадению taskId внутри значений
-                if (mapping == null) {
-                    for (TaskEndpointMapping m : safeTaskMappings.values()) {
-                        if (m != null && taskId.equals(m.getTaskId())) {
-                            mapping = m;
-                            log.debug("Found mapping by inner taskId for {} -> {} {}", taskId, m.getEndpointMethod(), m.getEndpointPath());
-                            break;
-                        }
-                    }
-                }
+            // В параллельном режиме и в движке шаги пишут в контекст из разных потоков
+            Map<String, Object> executionContext = parallel || engine ? new ConcurrentHashMap<>() : new HashMap<>();
 
-                // Фолбэк: попробуем найти по имени задачи
-                if (mapping == null) {
-                    String taskName = taskIdToName.get(taskId);
-                    if (taskName != null) {
-                        for (TaskEndpointMapping m : safeTaskMappings.values()) {
-                            if (m != null && taskName.equalsIgnoreCase(m.getTaskName())) {
-                                mapping = m;
-                                log.debug("Found mapping by taskName for {} ({}) -> {} {}", taskId, taskName, m.getEndpointMethod(), m.getEndpointPath());
-                                break;
-                            }
-                        }
-                    }
-                }
-                // Фолбэк: синтезируем маппинг из BPMN, если указан METHOD/PATH в имени задачи
-                if (mapping == null) {
-                    ru.poib.VTBHack.parser.model.ProcessTask pTask = taskIdToTask.get(taskId);
-                    if (pTask != null && pTask.getApiEndpointInfo() != null &&
-                            pTask.getApiEndpointInfo().getMethod() != null && pTask.getApiEndpointInfo().getPath() != null) {
-                        TaskEndpointMapping synthetic = new TaskEndpointMapping();
-                        synthetic.setTaskId(pTask.getId());
-                        synthetic.setTaskName(pTask.getName());
-                        synthetic.setEndpointMethod(pTask.getApiEndpointInfo().getMethod().toUpperCase());
-                        synthetic.setEndpointPath(pTask.getApiEndpointInfo().getPath());
-                        synthetic.setConfidenceScore(0.5);
-                        synthetic.setMatchingStrategy("BPMN_NAME_INFERRED");
-                        mapping = synthetic;
-                        log.debug("Synthesized mapping for {} from BPMN: {} {}", taskId, synthetic.getEndpointMethod(), synthetic.getEndpointPath());
-                    }
-                }
-                if (mapping == null) {
-                    log.warn("No mapping found for task {}", taskId);
-                    ExecutionProblem problem = createProblem(
-                            ExecutionProblem.ProblemType.BUSINESS_LOGIC_ERROR,
-                            taskId,
-                            "No endpoint mapping",
-                            "Task has no corresponding API endpoint mapping",
-                            null,
-                            null,
-                            null
-                    );
-                    result.getProblems().add(problem);
-                    continue;
+            RunState run = new RunState(request, config, mappingResult, startTime, testDataMap,
+                    safeTaskMappings, taskIdToName, taskIdToTask, executionContext,
+                    conditionVariables(processModel));
+
+            Map<String, TaskOutcome> outcomes = new ConcurrentHashMap<>();
+            if (engine) {
+                // Ветки шлюзов выбирает и запускает движок Flowable
+                Set<String> skipped = new LinkedHashSet<>();
+                ExecutionProblem engineProblem = null;
+                try {
+                    engineProblem = executeOnEngine(run, processModel, executionOrder, outcomes, skipped, listener);
+                } finally {
+                    recordOutcomes(skipped, executionOrder, outcomes, result, listener);
                 }
-                
-                // Выполняем шаг
-                TestExecutionStep stepResult = executeStep(
-                        taskId,
-                        mapping,
-                        testDataMap.get(taskId),
-                        config,
-                        executionContext,
-                        mappingResult
-                );
-                
-                result.getSteps().add(stepResult);
-                
-                // Если шаг успешен, извлекаем данные для следующих шагов
-                if (stepResult.getStatus() == TestExecutionStep.StepStatus.SUCCESS && stepResult.getResponse() != null) {
-                    extractAndStoreData(stepResult, taskId, mappingResult, executionContext, request.getConfig());
+                if (engineProblem != null) {
+                    result.getProblems().add(engineProblem);
+                    listener.onProblem(engineProblem);
                 }
-                
-                // Если произошла ошибка и установлен флаг остановки
-                if (stepResult.getStatus() == TestExecutionStep.StepStatus.FAILED && request.isStopOnFirstError()) {
-                    log.info("Stopping execution due to error in step {}", taskId);
-                    break;
+            } else {
+                // Шаги запускаются по плану: задачи на невыбранных ветках шлюзов не выполняются
+                ExecutionPlan plan = bpmnExecutionEngine.buildExecutionPlan(processModel, mappingResult, executionOrder);
+                try {
+                    if (parallel) {
+                        executeParallel(run, plan, executionOrder, outcomes, listener);
+                    } else {
+                        executeSequential(run, plan, executionOrder, outcomes, listener);
+                    }
+                } finally {
+                    recordOutcomes(plan.skipped(), executionOrder, outcomes, result, listener);
                 }
             }
             
             // Вычисляем статистику
-            result.setStatistics(calculateStatistics(result));
+            result.setStatistics(calculateStatistics(result, run));
             
             // Определяем общий статус
             result.setStatus(determineOverallStatus(result));
             
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
             log.error("Error during test execution", e);
             ExecutionProblem problem = createProblem(
                     ExecutionProblem.ProblemType.UNEXPECTED_RESPONSE,
@@ -220,14 +192,409 @@ public class TestExecutionService {
         
         return result;
     }
+
+    /**
+     * Выполняет шаги по одному: из готовых к запуску выбирается первый по executionOrder
+     */
+    private void executeSequential(RunState run, ExecutionPlan plan, List<String> executionOrder,
+                                   Map<String, TaskOutcome> outcomes, ExecutionProgressListener listener) {
+        Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < executionOrder.size(); i++) {
+            position.put(executionOrder.get(i), i);
+        }
+        PriorityQueue<String> ready = new PriorityQueue<>(
+                Comparator.comparingInt(taskId -> position.getOrDefault(taskId, Integer.MAX_VALUE)));
+        ready.addAll(plan.start(run.executionContext));
+
+        while (!ready.isEmpty()) {
+            String taskId = ready.poll();
+            TaskOutcome outcome = processTask(run, taskId).join();
+            outcomes.put(taskId, outcome);
+            outcome.publish(listener);
+            if (outcome.stop) {
+                break;
+            }
+            ready.addAll(plan.complete(taskId, run.executionContext));
+        }
+    }
+
+    /**
+     * Выполняет независимые шаги одновременно: не более maxParallelSteps шагов в полете.
+     * Шаг запускается, когда его выдает план: завершены шаги, от которых он зависит по sequence flow
+     * или по потоку данных, а ветки parallel шлюза идут одновременно. С блокирующим клиентом шаги выполняются
+     * в виртуальных потоках общего completionExecutor (число шагов в полете ограничивает координатор),
+     * с асинхронным запросы отправляются из координатора и не занимают потоки до получения ответа
+     */
+    private void executeParallel(RunState run, ExecutionPlan plan, List<String> executionOrder,
+                                 Map<String, TaskOutcome> outcomes,
+                                 ExecutionProgressListener listener) throws InterruptedException {
+        int maxInFlight = Math.max(1, Math.min(run.config.getMaxParallelSteps(), executionOrder.size()));
+        boolean async = run.config.getHttpClientMode() == ExecutionConfig.HttpClientMode.ASYNC;
+
+        BlockingQueue<String> completed = new LinkedBlockingQueue<>();
+        Deque<String> ready = new ArrayDeque<>(plan.start(run.executionContext));
+        int inFlight = 0;
+        boolean stopped = false;
+
+        while (true) {
+            while (!stopped && !ready.isEmpty() && inFlight < maxInFlight) {
+                String taskId = ready.poll();
+                inFlight++;
+                if (async) {
+                    startTask(run, taskId).whenComplete((outcome, error) -> {
+                        outcomes.put(taskId, error == null ? outcome : unexpectedOutcome(taskId, error));
+                        completed.add(taskId);
+                    });
+                    continue;
+                }
+                completionExecutor.execute(() -> {
+                    try {
+                        outcomes.put(taskId, processTask(run, taskId).join());
+                    } catch (RuntimeException e) {
+                        outcomes.put(taskId, unexpectedOutcome(taskId, e));
+                    } finally {
+                        completed.add(taskId);
+                    }
+                });
+            }
+            if (inFlight == 0) {
+                break;
+            }
+
+            String doneTaskId = completed.take();
+            inFlight--;
+            TaskOutcome doneOutcome = outcomes.get(doneTaskId);
+            doneOutcome.publish(listener);
+            if (doneOutcome.stop) {
+                log.info("Stopping parallel execution after step {}", doneTaskId);
+                stopped = true;
+            }
+            ready.addAll(plan.complete(doneTaskId, run.executionContext));
+        }
+    }
+
+    /**
+     * Выполняет процесс во встроенном движке Flowable: движок выбирает ветки шлюзов и запускает задачи
+     * на своем async executor, каждая задача выполняется как обычный шаг. Координатор публикует завершенные
+     * шаги и следит за экземпляром процесса: завершение, ошибка задания движка, остановка после ошибки шага
+     * или таймаут. Задача выполняется не более одного раза: повтор задания движка после конфликта
+     * получает сохраненный итог, а не отправляет запрос снова
+     *
+     * @param skipped заполняется задачами, по которым не прошел токен (если процесс завершился)
+     * @return проблема уровня процесса (таймаут или ошибка движка) или null
+     */
+    private ExecutionProblem executeOnEngine(RunState run, ProcessModel processModel, List<String> executionOrder,
+                                             Map<String, TaskOutcome> outcomes, Set<String> skipped,
+                                             ExecutionProgressListener listener) throws InterruptedException {
+        Map<String, CompletableFuture<TaskOutcome>> started = new ConcurrentHashMap<>();
+        BlockingQueue<String> completed = new LinkedBlockingQueue<>();
+        AtomicBoolean stopped = new AtomicBoolean();
+
+        // Выполняется в потоках async executor движка
+        FlowableStepDelegate.StepHandler handler = taskId -> {
+            if (stopped.get()) {
+                return;
+            }
+            CompletableFuture<TaskOutcome> step = new CompletableFuture<>();
+            CompletableFuture<TaskOutcome> existing = started.putIfAbsent(taskId, step);
+            if (existing != null) {
+                existing.join();
+            } else {
+                TaskOutcome outcome;
+                try {
+                    outcome = startTask(run, taskId).join();
+                } catch (RuntimeException e) {
+                    outcome = unexpectedOutcome(taskId, e);
+                }
+                outcomes.put(taskId, outcome);
+                step.complete(outcome);
+                completed.add(taskId);
+                if (outcome.stop) {
+                    stopped.set(true);
+                }
+            }
+        };
+
+        long deadline = run.startTime.toEpochMilli() + run.config.getMaxExecutionTimeMs();
+        ExecutionProblem problem = null;
+        boolean ended = false;
+        try (FlowableExecutionEngine.EngineRun engineRun = flowableExecutionEngine.start(processModel,
+                run.executionContext, handler)) {
+            while (true) {
+                String doneTaskId = completed.poll(flowableExecutionEngine.pollIntervalMs(), TimeUnit.MILLISECONDS);
+                if (doneTaskId != null) {
+                    outcomes.get(doneTaskId).publish(listener);
+                    continue;
+                }
+                if (engineRun.isEnded()) {
+                    ended = true;
+                    break;
+                }
+                String failure = engineRun.failure();
+                if (failure != null) {
+                    problem = createProblem(
+                            ExecutionProblem.ProblemType.UNEXPECTED_RESPONSE,
+                            null,
+                            "Process engine error",
+                            "Process engine job failed: " + failure,
+                            null,
+                            null,
+                            null
+                    );
+                } else if (Instant.now().toEpochMilli() > deadline) {
+                    problem = createProblem(
+                            ExecutionProblem.ProblemType.TIMEOUT,
+                            null,
+                            "Process execution timeout",
+                            "Maximum execution time exceeded",
+                            null,
+                            null,
+                            null
+                    );
+                } else if (!stopped.get()) {
+                    continue;
+                }
+                String reason = problem != null ? problem.getMessage() : "Stopped on first error";
+                log.info("Cancelling process instance {}: {}", engineRun.processInstanceId(), reason);
+                engineRun.cancel(reason);
+                break;
+            }
+        } finally {
+            // Шаги, начатые до остановки, дописываются в результат
+            for (CompletableFuture<TaskOutcome> step : started.values()) {
+                step.join();
+            }
+            for (String doneTaskId = completed.poll(); doneTaskId != null; doneTaskId = completed.poll()) {
+                outcomes.get(doneTaskId).publish(listener);
+            }
+        }
+
+        if (ended) {
+            for (String taskId : executionOrder) {
+                if (!outcomes.containsKey(taskId)) {
+                    skipped.add(taskId);
+                }
+            }
+        }
+        return problem;
+    }
+
+    /**
+     * Записывает итоги шагов в порядке executionOrder, поэтому форма TestExecutionResult
+     * не зависит от режима. Задачи, пропущенные планом или движком, отмечаются как SKIPPED
+     */
+    private void recordOutcomes(Set<String> skipped, List<String> executionOrder, Map<String, TaskOutcome> outcomes,
+                                TestExecutionResult result, ExecutionProgressListener listener) {
+        for (String taskId : executionOrder) {
+            TaskOutcome outcome = outcomes.get(taskId);
+            if (outcome == null && skipped.contains(taskId)) {
+                log.debug("Skipping task {} based on gateway conditions", taskId);
+                outcome = TaskOutcome.step(createSkippedStep(taskId, "Task skipped by gateway condition"), false);
+                outcome.publish(listener);
+            }
+            if (outcome != null) {
+                outcome.recordTo(result);
+            }
+        }
+    }
+
+    /**
+     * Переменные, на которые ссылаются условия переходов: их значения извлекаются из ответов шагов.
+     * Имена разбираются на сегменты один раз за запуск, а не на каждом шаге
+     */
+    private List<ConditionVariable> conditionVariables(ProcessModel processModel) {
+        Set<String> taskIds = new HashSet<>();
+        for (ProcessTask task : processModel.getTasks()) {
+            taskIds.add(task.getId());
+        }
+        List<ConditionVariable> variables = new ArrayList<>();
+        for (String variable : processModel.getGraph().conditions().variables()) {
+            String[] segments = variable.split("\\.");
+            if (segments.length > 1 && taskIds.contains(segments[0])) {
+                variables.add(new ConditionVariable(variable, segments[0],
+                        Arrays.copyOfRange(segments, 1, segments.length)));
+            } else {
+                variables.add(new ConditionVariable(variable, null, segments));
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * Запускает задачу, перехватывая исключения подготовки, чтобы координатор всегда получил итог
+     */
+    private CompletableFuture<TaskOutcome> startTask(RunState run, String taskId) {
+        try {
+            return processTask(run, taskId);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(unexpectedOutcome(taskId, e));
+        }
+    }
+
+    private TaskOutcome unexpectedOutcome(String taskId, Throwable e) {
+        log.error("Error executing task {}", taskId, e);
+        return TaskOutcome.problem(createProblem(
+                ExecutionProblem.ProblemType.UNEXPECTED_RESPONSE,
+                taskId,
+                "Execution error",
+                "Unexpected error during step execution: " + e.getMessage(),
+                e.toString(),
+                null,
+                null
+        ), false);
+    }
+
+    /**
+     * Обрабатывает одну задачу процесса: проверки, поиск маппинга, выполнение шага и извлечение данных.
+     * С блокирующим клиентом возвращает уже завершенный future
+     */
+    private CompletableFuture<TaskOutcome> processTask(RunState run, String taskId) {
+        // Проверяем, не превышено ли максимальное время выполнения
+        long deadlineMs = run.startTime.toEpochMilli() + run.config.getMaxExecutionTimeMs();
+        if (Instant.now().toEpochMilli() > deadlineMs) {
+            ExecutionProblem problem = createProblem(
+                    ExecutionProblem.ProblemType.TIMEOUT,
+                    taskId,
+                    "Process execution timeout",
+                    "Maximum execution time exceeded",
+                    null,
+                    null,
+                    null
+            );
+            return CompletableFuture.completedFuture(TaskOutcome.problem(problem, run.request.isStopOnFirstError()));
+        }
+        
+        TaskEndpointMapping mapping = resolveMapping(run, taskId);
+        if (mapping == null) {
+            log.warn("No mapping found for task {}", taskId);
+            ExecutionProblem problem = createProblem(
+                    ExecutionProblem.ProblemType.BUSINESS_LOGIC_ERROR,
+                    taskId,
+                    "No endpoint mapping",
+                    "Task has no corresponding API endpoint mapping",
+                    null,
+                    null,
+                    null
+            );
+            return CompletableFuture.completedFuture(TaskOutcome.problem(problem, false));
+        }
+        
+        // Выполняем шаг
+        return executeStep(
+                taskId,
+                mapping,
+                run.testDataMap.get(taskId),
+                run.config,
+                run.authToken,
+                run.executionContext,
+                run.mappingResult,
+                run.request.getOpenApiModel(),
+                deadlineMs
+        ).thenApply(executed -> completeTask(run, taskId, mapping, executed));
+    }
+
+    /**
+     * Учитывает выполненный шаг: задержки, извлечение данных и признак остановки
+     */
+    private TaskOutcome completeTask(RunState run, String taskId, TaskEndpointMapping mapping,
+                                     ExecutedStep executed) {
+        TestExecutionStep stepResult = executed.step();
+        run.recordLatency(mapping, stepResult);
+        
+        // Если шаг успешен, извлекаем данные для следующих шагов
+        if (stepResult.getStatus() == TestExecutionStep.StepStatus.SUCCESS && executed.response() != null) {
+            extractAndStoreData(stepResult, executed.response(), taskId, run);
+        }
+        
+        // Если произошла ошибка и установлен флаг остановки
+        boolean stop = stepResult.getStatus() == TestExecutionStep.StepStatus.FAILED && run.request.isStopOnFirstError();
+        if (stop) {
+            log.info("Stopping execution due to error in step {}", taskId);
+        }
+        
+        // Запрос не был отправлен из-за rate limiter или circuit breaker
+        if (stepResult.getRejectedBy() != null) {
+            ExecutionProblem problem = createProblem(
+                    stepResult.getRejectedBy(),
+                    taskId,
+                    stepResult.getTaskName(),
+                    stepResult.getErrorMessage(),
+                    null,
+                    stepResult.getRequest() != null ? stepResult.getRequest().getUrl() : null,
+                    mapping.getEndpointMethod()
+            );
+            return TaskOutcome.stepWithProblem(stepResult, problem, stop);
+        }
+        return TaskOutcome.step(stepResult, stop);
+    }
+
+    /**
+     * Находит маппинг задачи на эндпоинт с фолбэками по taskId, имени и METHOD/PATH из BPMN
+     */
+    private TaskEndpointMapping resolveMapping(RunState run, String taskId) {
+        // Получаем маппинг для задачи (если маппинги отсутствуют, считаем, что сопоставления нет)
+        TaskEndpointMapping mapping = run.taskMappings.get(taskId);
+
+        // Фолбэк: попробуем найти по совпадению taskId внутри значений
+        if (mapping == null) {
+            for (TaskEndpointMapping m : run.taskMappings.values()) {
+                if (m != null && taskId.equals(m.getTaskId())) {
+                    mapping = m;
+                    log.debug("Found mapping by inner taskId for {} -> {} {}", taskId, m.getEndpointMethod(), m.getEndpointPath());
+                    break;
+                }
+            }
+        }
+
+        // Фолбэк: попробуем найти по имени задачи
+        if (mapping == null) {
+            String taskName = run.taskIdToName.get(taskId);
+            if (taskName != null) {
+                for (TaskEndpointMapping m : run.taskMappings.values()) {
+                    if (m != null && taskName.equalsIgnoreCase(m.getTaskName())) {
+                        mapping = m;
+                        log.debug("Found mapping by taskName for {} ({}) -> {} {}", taskId, taskName, m.getEndpointMethod(), m.getEndpointPath());
+                        break;
+                    }
+                }
+            }
+        }
+        // Фолбэк: синтезируем маппинг из BPMN, если указан METHOD/PATH в имени задачи
+        if (mapping == null) {
+            ProcessTask pTask = run.taskIdToTask.get(taskId);
+            if (pTask != null && pTask.getApiEndpointInfo() != null &&
+                    pTask.getApiEndpointInfo().getMethod() != null && pTask.getApiEndpointInfo().getPath() != null) {
+                TaskEndpointMapping synthetic = new TaskEndpointMapping();
+                synthetic.setTaskId(pTask.getId());
+                synthetic.setTaskName(pTask.getName());
+                synthetic.setEndpointMethod(pTask.getApiEndpointInfo().getMethod().toUpperCase());
+                synthetic.setEndpointPath(pTask.getApiEndpointInfo().getPath());
+                synthetic.setConfidenceScore(0.5);
+                synthetic.setMatchingStrategy("BPMN_NAME_INFERRED");
+                mapping = synthetic;
+                log.debug("Synthesized mapping for {} from BPMN: {} {}", taskId, synthetic.getEndpointMethod(), synthetic.getEndpointPath());
+            }
+        }
+        return mapping;
+    }
     
-    private TestExecutionStep executeStep(
+    /**
+     * Формирует и отправляет запрос шага.
+     * Ответ асинхронного клиента обрабатывается на completionExecutor
+     *
+     * @param authToken токен, полученный предыдущими шагами запуска (null - значение из конфигурации)
+     * @param deadlineMs момент окончания maxExecutionTimeMs: повторы запроса не выходят за него
+     */
+    private CompletableFuture<ExecutedStep> executeStep(
             String taskId,
             TaskEndpointMapping mapping,
             TestDataStep testData,
             ExecutionConfig config,
+            String authToken,
             Map<String, Object> executionContext,
-            MappingResult mappingResult) {
+            MappingResult mappingResult,
+            OpenApiModel openApiModel,
+            long deadlineMs) {
         
         Instant stepStartTime = Instant.now();
         TestExecutionStep step = new TestExecutionStep();
@@ -241,62 +608,165 @@ public class TestExecutionService {
             String url = buildUrl(config.getBaseUrl(), mapping.getEndpointPath(), executionContext, testData);
             
             // Формируем заголовки (с учётом данных из предыдущих шагов и зависимостей)
-            Map<String, String> headers = buildHeaders(config, mapping, taskId, mappingResult, executionContext);
+            Map<String, String> headers = buildHeaders(config, authToken, mapping, taskId, mappingResult, executionContext);
             
-            // Формируем тело запроса
+            // Формируем тело запроса и сериализуем его один раз: для отправки и для отчета
             Object requestBody = buildRequestBody(testData, mapping, executionContext);
-            
-            // Выполняем HTTP запрос
-            HttpRequestExecutor.ExecutionResult httpResult = httpRequestExecutor.execute(
-                    mapping.getEndpointMethod(),
-                    url,
-                    headers,
-                    requestBody,
-                    config
-            );
-            
-            Instant stepEndTime = Instant.now();
-            step.setEndTime(stepEndTime);
-            step.setDurationMs(stepEndTime.toEpochMilli() - stepStartTime.toEpochMilli());
+            byte[] requestBytes = requestBody != null ? httpRequestExecutor.serializeBody(requestBody) : null;
             
             // Сохраняем детали запроса
             TestExecutionStep.RequestDetails requestDetails = new TestExecutionStep.RequestDetails();
             requestDetails.setUrl(url);
             requestDetails.setMethod(mapping.getEndpointMethod());
             requestDetails.setHeaders(headers);
-            try {
-                requestDetails.setBody(requestBody != null ? objectMapper.writeValueAsString(requestBody) : null);
-            } catch (Exception e) {
-                requestDetails.setBody(requestBody != null ? requestBody.toString() : null);
-            }
+            requestDetails.setBody(requestBytes != null ? new String(requestBytes, StandardCharsets.UTF_8) : null);
             requestDetails.setTimestamp(stepStartTime);
             step.setRequest(requestDetails);
             
+            // Ожидаемый ответ по спецификации (схема компилируется один раз на операцию)
+            ResponseSchemaRegistry.ExpectedResponse expected = responseSchemaRegistry.resolve(
+                    openApiModel, mapping.getEndpointPath(), mapping.getEndpointMethod());
+            
+            // Выполняем HTTP запрос (с повторами по политике retryPolicy)
+            CompletableFuture<HttpRequestExecutor.ExecutionResult> response = sendWithRetry(
+                    step,
+                    mapping.getEndpointMethod(),
+                    mapping.getEndpointPath(),
+                    url,
+                    headers,
+                    requestBytes,
+                    config,
+                    deadlineMs,
+                    1,
+                    0
+            );
+            if (config.getHttpClientMode() == ExecutionConfig.HttpClientMode.ASYNC) {
+                return response.thenApplyAsync(httpResult -> completeStep(step, httpResult, expected, config),
+                        completionExecutor);
+            }
+            return response.thenApply(httpResult -> completeStep(step, httpResult, expected, config));
+            
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(new ExecutedStep(failStep(step, e), null));
+        }
+    }
+    
+    /**
+     * Отправляет запрос и повторяет его по политике retryPolicy, записывая каждую попытку в шаг.
+     * Перед каждой попыткой запрос проходит rate limiter и circuit breaker: отклоненный запрос
+     * не отправляется, а шаг помечается причиной отказа.
+     * Ожидания не занимают поток: следующая попытка запускается на completionExecutor.
+     * Задержка перед повтором ограничена оставшимся до deadlineMs временем, после него повторов нет
+     */
+    private CompletableFuture<HttpRequestExecutor.ExecutionResult> sendWithRetry(
+            TestExecutionStep step,
+            String method,
+            String endpointPath,
+            String url,
+            Map<String, String> headers,
+            byte[] body,
+            ExecutionConfig config,
+            long deadlineMs,
+            int attempt,
+            long delayBeforeMs) {
+        RequestGuard.Admission admission = requestGuard.admit(config, method, endpointPath);
+        if (!admission.allowed()) {
+            log.warn("Request {} {} rejected: {}", method, url, admission.message());
+            step.setRejectedBy(admission.rejectedBy());
+            return CompletableFuture.completedFuture(new HttpRequestExecutor.ExecutionResult(
+                    false, 0, null, null, 0, admission.message()));
+        }
+        if (admission.waitMs() > 0) {
+            Executor delayed = CompletableFuture.delayedExecutor(admission.waitMs(), TimeUnit.MILLISECONDS, completionExecutor);
+            return CompletableFuture.runAsync(() -> { }, delayed)
+                    .thenCompose(ignored -> sendAttempt(step, method, endpointPath, url, headers, body, config,
+                            deadlineMs, attempt, delayBeforeMs + admission.waitMs()));
+        }
+        return sendAttempt(step, method, endpointPath, url, headers, body, config, deadlineMs, attempt, delayBeforeMs);
+    }
+    
+    private CompletableFuture<HttpRequestExecutor.ExecutionResult> sendAttempt(
+            TestExecutionStep step,
+            String method,
+            String endpointPath,
+            String url,
+            Map<String, String> headers,
+            byte[] body,
+            ExecutionConfig config,
+            long deadlineMs,
+            int attempt,
+            long delayBeforeMs) {
+        Instant attemptStart = Instant.now();
+        CompletableFuture<HttpRequestExecutor.ExecutionResult> response =
+                config.getHttpClientMode() == ExecutionConfig.HttpClientMode.ASYNC
+                        ? asyncHttpRequestExecutor.execute(method, url, headers, body, config)
+                        : CompletableFuture.completedFuture(httpRequestExecutor.execute(method, url, headers, body, config));
+        
+        return response.thenCompose(result -> {
+            requestGuard.onResult(config, method, endpointPath, result);
+            step.getAttempts().add(new TestExecutionStep.Attempt(attempt, attemptStart, result.getDurationMs(),
+                    delayBeforeMs, result.getStatusCode(), result.getErrorMessage()));
+            if (!retryEvaluator.shouldRetry(method, result, config, attempt)) {
+                return CompletableFuture.completedFuture(result);
+            }
+            
+            long remainingMs = deadlineMs - System.currentTimeMillis();
+            if (remainingMs <= 0) {
+                log.info("Not retrying {} {}: maximum execution time exceeded", method, url);
+                return CompletableFuture.completedFuture(result);
+            }
+            long delay = Math.min(retryEvaluator.delayBeforeRetry(result, config, attempt), remainingMs);
+            log.info("Retrying {} {} in {} ms (attempt {} of {}): {}", method, url, delay, attempt + 1,
+                    config.getRetryCount() + 1,
+                    result.isSuccess() ? "status " + result.getStatusCode() : result.getErrorMessage());
+            Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, completionExecutor);
+            return CompletableFuture.runAsync(() -> { }, delayed)
+                    .thenCompose(ignored -> sendWithRetry(step, method, endpointPath, url, headers, body, config,
+                            deadlineMs, attempt + 1, delay));
+        });
+    }
+    
+    /**
+     * Заполняет шаг по результату HTTP запроса и валидирует ответ
+     */
+    private ExecutedStep completeStep(TestExecutionStep step, HttpRequestExecutor.ExecutionResult httpResult,
+                                      ResponseSchemaRegistry.ExpectedResponse expected, ExecutionConfig config) {
+        try {
+            Instant stepEndTime = Instant.now();
+            step.setEndTime(stepEndTime);
+            step.setDurationMs(stepEndTime.toEpochMilli() - step.getStartTime().toEpochMilli());
+            
             if (!httpResult.isSuccess()) {
                 step.setErrorMessage(httpResult.getErrorMessage());
                 step.setStatus(TestExecutionStep.StepStatus.FAILED);
-                return step;
+                return new ExecutedStep(step, null);
             }
             
-            // Сохраняем детали ответа
+            // Сохраняем детали ответа (в отчет попадает только превью тела)
+            ResponseBody responseBody = httpResult.getResponseBody();
             TestExecutionStep.ResponseDetails responseDetails = new TestExecutionStep.ResponseDetails();
             responseDetails.setStatusCode(httpResult.getStatusCode());
             responseDetails.setHeaders(httpResult.getHeaders());
-            responseDetails.setBody(httpResult.getBody());
+            responseDetails.setBody(responseBody.getPreview());
+            responseDetails.setBodySizeBytes(responseBody.getSizeBytes());
+            responseDetails.setBodyTruncated(responseBody.isTruncated());
             responseDetails.setResponseTimeMs(httpResult.getDurationMs());
             responseDetails.setTimestamp(stepEndTime);
             step.setResponse(responseDetails);
             
+            // Ответ разбирается один раз и дальше используется валидацией, извлечением данных и контекстом
+            ParsedResponse response = ParsedResponse.of(responseBody, jsonCodecs);
+            
             // Валидируем ответ
             String contentType = httpResult.getHeaders() != null ? 
                     httpResult.getHeaders().get("Content-Type") : null;
             ValidationResult validation = responseValidator.validate(
                     httpResult.getStatusCode(),
-                    200, // Ожидаемый статус код (можно сделать настраиваемым)
+                    expected.statusCode(), // Первый объявленный 2xx статус операции (200 без спецификации)
                     contentType,
-                    "application/json", // Ожидаемый Content-Type (можно сделать настраиваемым)
-                    httpResult.getBody(),
-                    null, // JSON схема (можно извлечь из OpenAPI)
+                    expected.contentType(),
+                    response,
+                    expected.schema(), // Схема ответа из OpenAPI (null - тело по схеме не проверяется)
                     httpResult.getDurationMs(),
                     config.getRequestTimeoutMs()
             );
@@ -314,14 +784,18 @@ public class TestExecutionService {
                 }
             }
             
+            return new ExecutedStep(step, response);
         } catch (Exception e) {
-            log.error("Error executing step {}", taskId, e);
-            step.setEndTime(Instant.now());
-            step.setDurationMs(step.getEndTime().toEpochMilli() - stepStartTime.toEpochMilli());
-            step.setErrorMessage("Error executing step: " + e.getMessage());
-            step.setStatus(TestExecutionStep.StepStatus.FAILED);
+            return new ExecutedStep(failStep(step, e), null);
         }
-        
+    }
+    
+    private TestExecutionStep failStep(TestExecutionStep step, Exception e) {
+        log.error("Error executing step {}", step.getTaskId(), e);
+        step.setEndTime(Instant.now());
+        step.setDurationMs(step.getEndTime().toEpochMilli() - step.getStartTime().toEpochMilli());
+        step.setErrorMessage("Error executing step: " + e.getMessage());
+        step.setStatus(TestExecutionStep.StepStatus.FAILED);
         return step;
     }
     
@@ -378,6 +852,7 @@ public class TestExecutionService {
     }
     
     private Map<String, String> buildHeaders(ExecutionConfig config,
+                                             String authToken,
                                              TaskEndpointMapping mapping,
                                              String taskId,
                                              MappingResult mappingResult,
@@ -392,6 +867,8 @@ public class TestExecutionService {
         // Добавляем заголовки аутентификации
         if (config.getAuthConfig() != null) {
             ExecutionConfig.AuthConfig auth = config.getAuthConfig();
+            // Токен, полученный в запуске, заменяет заданное значение; конфигурация запроса не меняется
+            String value = authToken != null ? authToken : auth.getValue();
             switch (auth.getType()) {
                 case BASIC:
                     // В реальной реализации нужно использовать Base64 кодирование
@@ -402,13 +879,13 @@ public class TestExecutionService {
                     }
                     break;
                 case BEARER:
-                    if (auth.getValue() != null) {
-                        headers.put("Authorization", "Bearer " + auth.getValue());
+                    if (value != null) {
+                        headers.put("Authorization", "Bearer " + value);
                     }
                     break;
                 case API_KEY:
-                    if (auth.getHeaderName() != null && auth.getValue() != null) {
-                        headers.put(auth.getHeaderName(), auth.getValue());
+                    if (auth.getHeaderName() != null && value != null) {
+                        headers.put(auth.getHeaderName(), value);
                     }
                     break;
                 case NONE:
@@ -526,13 +1003,15 @@ public class TestExecutionService {
         return requestData.isEmpty() ? null : requestData;
     }
     
-    private void extractAndStoreData(TestExecutionStep step, String taskId, MappingResult mappingResult, Map<String, Object> context, ExecutionConfig config) {
-        if (step.getResponse() == null || step.getResponse().getBody() == null) {
+    private void extractAndStoreData(TestExecutionStep step, ParsedResponse response, String taskId, RunState run) {
+        // Данные извлекаются из JSON дерева, разобранного при чтении ответа: превью в отчете может быть усечено
+        com.fasterxml.jackson.databind.JsonNode root = response.getJson();
+        if (root == null) {
             return;
         }
         
         // Получаем зависимости данных для этой задачи
-        List<DataFlowEdge> dataDependencies = bpmnExecutionEngine.getDataDependencies(taskId, mappingResult);
+        List<DataFlowEdge> dataDependencies = bpmnExecutionEngine.getDataDependencies(taskId, run.mappingResult);
         
         Map<String, String> jsonPaths = new HashMap<>();
         for (DataFlowEdge edge : dataDependencies) {
@@ -550,46 +1029,72 @@ public class TestExecutionService {
         }
         
         // Извлекаем данные
-        Map<String, Object> extractedData = dataExtractor.extractData(step.getResponse().getBody(), jsonPaths);
+        Map<String, Object> extractedData = dataExtractor.extractData(response, jsonPaths);
         step.setExtractedData(extractedData);
         
         // Сохраняем в контекст для следующих шагов
         for (Map.Entry<String, Object> entry : extractedData.entrySet()) {
+            // null-значения не сохраняем: контекст может быть ConcurrentHashMap
+            if (entry.getValue() == null) {
+                continue;
+            }
             String contextKey = taskId + "." + entry.getKey();
-            context.put(contextKey, entry.getValue());
+            run.executionContext.put(contextKey, entry.getValue());
         }
 
-        // Дополнительно: если ответ содержит access_token, сохраняем его в конфигурацию авторизации
-        try {
-            com.fasterxml.jackson.databind.JsonNode root = objectMapper.readTree(step.getResponse().getBody());
-            if (root != null) {
-                // Пытаемся найти токен на верхнем уровне
-                com.fasterxml.jackson.databind.JsonNode tokenNode = root.get("access_token");
-                if (tokenNode == null && root.has("data")) {
-                    // Частый кейс: токен во вложенном объекте data
-                    com.fasterxml.jackson.databind.JsonNode dataNode = root.get("data");
-                    tokenNode = dataNode != null ? dataNode.get("access_token") : null;
-                }
-                if (tokenNode == null && root.has("token")) {
-                    // Фолбэк: некоторые API возвращают ключ token
-                    tokenNode = root.get("token");
-                }
-                if (tokenNode != null && !tokenNode.isNull()) {
-                    String tokenValue = tokenNode.asText();
-                    if (tokenValue != null && !tokenValue.isBlank() && config != null && config.getAuthConfig() != null) {
-                        // Не меняем тип авторизации — он задан на фронте, только наполняем значение
-                        config.getAuthConfig().setValue(tokenValue);
-                        log.info("Captured access token for subsequent requests (type: {}): {}",
-                                config.getAuthConfig().getType(),
-                                "***");
-                    }
-                }
+        // Переменные условий шлюзов: поле ответа с тем же именем становится переменной процесса
+        storeConditionVariables(root, taskId, run.executionContext, run.conditionVariables);
+
+        // Дополнительно: если ответ содержит access_token, сохраняем его для следующих запросов запуска
+        // Пытаемся найти токен на верхнем уровне
+        com.fasterxml.jackson.databind.JsonNode tokenNode = root.get("access_token");
+        if (tokenNode == null && root.has("data")) {
+            // Частый кейс: токен во вложенном объекте data
+            com.fasterxml.jackson.databind.JsonNode dataNode = root.get("data");
+            tokenNode = dataNode != null ? dataNode.get("access_token") : null;
+        }
+        if (tokenNode == null && root.has("token")) {
+            // Фолбэк: некоторые API возвращают ключ token
+            tokenNode = root.get("token");
+        }
+        if (tokenNode != null && !tokenNode.isNull()) {
+            String tokenValue = tokenNode.asText();
+            if (tokenValue != null && !tokenValue.isBlank() && run.config != null && run.config.getAuthConfig() != null) {
+                // Не меняем тип авторизации — он задан на фронте, только наполняем значение
+                run.authToken = tokenValue;
+                log.info("Captured access token for subsequent requests (type: {}): {}",
+                        run.config.getAuthConfig().getType(),
+                        "***");
             }
-        } catch (Exception e) {
-            log.debug("Unable to parse response for access_token: {}", e.getMessage());
         }
     }
     
+    /**
+     * Сохраняет в контекст значения полей ответа, на которые ссылаются условия переходов.
+     * Переменная "status" читается из $.status, "task1.status" - только из ответа задачи task1:
+     * ответы других задач ее не перезаписывают
+     */
+    private void storeConditionVariables(com.fasterxml.jackson.databind.JsonNode root, String taskId,
+                                         Map<String, Object> context, List<ConditionVariable> conditionVariables) {
+        for (ConditionVariable variable : conditionVariables) {
+            if (variable.taskId() != null && !variable.taskId().equals(taskId)) {
+                continue;
+            }
+            com.fasterxml.jackson.databind.JsonNode node = root;
+            for (String segment : variable.path()) {
+                node = node.path(segment);
+            }
+            Object value = jsonCodecs.toPlainValue(node);
+            if (value == null) {
+                continue;
+            }
+            context.put(variable.name(), value);
+            if (variable.taskId() == null) {
+                context.put(taskId + "." + variable.name(), value);
+            }
+        }
+    }
+
     private TestExecutionStep createSkippedStep(String taskId, String reason) {
         TestExecutionStep step = new TestExecutionStep();
         step.setTaskId(taskId);
@@ -622,7 +1127,7 @@ public class TestExecutionService {
         return problem;
     }
     
-    private TestExecutionResult.ExecutionStatistics calculateStatistics(TestExecutionResult result) {
+    private TestExecutionResult.ExecutionStatistics calculateStatistics(TestExecutionResult result, RunState run) {
         TestExecutionResult.ExecutionStatistics stats = new TestExecutionResult.ExecutionStatistics();
         
         int totalSteps = result.getSteps().size();
@@ -634,6 +1139,8 @@ public class TestExecutionService {
         long maxDuration = 0;
         int successfulRequests = 0;
         int validationErrors = 0;
+        int totalAttempts = 0;
+        int retriedSteps = 0;
         
         for (TestExecutionStep step : result.getSteps()) {
             switch (step.getStatus()) {
@@ -658,6 +1165,13 @@ public class TestExecutionService {
             if (step.getValidation() != null && !step.getValidation().isValid()) {
                 validationErrors++;
             }
+            
+            if (step.getAttempts() != null) {
+                totalAttempts += step.getAttempts().size();
+                if (step.getAttempts().size() > 1) {
+                    retriedSteps++;
+                }
+            }
         }
         
         stats.setTotalSteps(totalSteps);
@@ -669,6 +1183,11 @@ public class TestExecutionService {
         stats.setMaxStepDurationMs(maxDuration);
         stats.setSuccessfulRequests(successfulRequests);
         stats.setValidationErrors(validationErrors);
+        stats.setTotalAttempts(totalAttempts);
+        stats.setRetriedSteps(retriedSteps);
+        // Гистограммы накоплены инкрементально по мере завершения шагов
+        stats.setStepLatency(run.stepLatency);
+        stats.setEndpointLatencies(new TreeMap<>(run.endpointLatencies));
         
         return stats;
     }
@@ -691,5 +1210,116 @@ public class TestExecutionService {
             return TestExecutionResult.ExecutionStatus.SUCCESS;
         }
     }
-}
 
+    /**
+     * Выполненный шаг вместе с разобранным ответом (тело не попадает в отчет целиком)
+     */
+    private record ExecutedStep(TestExecutionStep step, ParsedResponse response) {
+    }
+
+    /**
+     * Переменная условия перехода, заранее разобранная на сегменты пути в ответе.
+     * taskId задан, если имя начинается с id задачи процесса: тогда path - путь внутри ее ответа
+     */
+    private record ConditionVariable(String name, String taskId, String[] path) {
+    }
+
+    /**
+     * Состояние одного запуска, общее для всех шагов
+     */
+    private static final class RunState {
+        private final TestExecutionRequest request;
+        private final ExecutionConfig config;
+        private final MappingResult mappingResult;
+        private final Instant startTime;
+        private final Map<String, TestDataStep> testDataMap;
+        private final Map<String, TaskEndpointMapping> taskMappings;
+        private final Map<String, String> taskIdToName;
+        private final Map<String, ProcessTask> taskIdToTask;
+        private final Map<String, Object> executionContext;
+        private final List<ConditionVariable> conditionVariables;
+        // Токен из ответа шага: шаги читают его из других потоков, запрос клиента не меняется
+        private volatile String authToken;
+        private final LatencyHistogram stepLatency = new LatencyHistogram();
+        private final Map<String, LatencyHistogram> endpointLatencies = new ConcurrentHashMap<>();
+
+        private RunState(TestExecutionRequest request,
+                         ExecutionConfig config,
+                         MappingResult mappingResult,
+                         Instant startTime,
+                         Map<String, TestDataStep> testDataMap,
+                         Map<String, TaskEndpointMapping> taskMappings,
+                         Map<String, String> taskIdToName,
+                         Map<String, ProcessTask> taskIdToTask,
+                         Map<String, Object> executionContext,
+                         List<ConditionVariable> conditionVariables) {
+            this.request = request;
+            this.config = config;
+            this.mappingResult = mappingResult;
+            this.startTime = startTime;
+            this.testDataMap = testDataMap;
+            this.taskMappings = taskMappings;
+            this.taskIdToName = taskIdToName;
+            this.taskIdToTask = taskIdToTask;
+            this.executionContext = executionContext;
+            this.conditionVariables = conditionVariables;
+        }
+
+        /**
+         * Записывает длительность выполненного шага в общую гистограмму и гистограмму эндпоинта
+         */
+        void recordLatency(TaskEndpointMapping mapping, TestExecutionStep step) {
+            if (step.getStatus() == TestExecutionStep.StepStatus.SKIPPED) {
+                return;
+            }
+            stepLatency.record(step.getDurationMs());
+            String endpointKey = mapping.getEndpointMethod() + " " + mapping.getEndpointPath();
+            endpointLatencies.computeIfAbsent(endpointKey, k -> new LatencyHistogram()).record(step.getDurationMs());
+        }
+    }
+
+    /**
+     * Итог обработки одной задачи: шаг и/или проблема, а также признак остановки выполнения
+     */
+    private static final class TaskOutcome {
+        private final TestExecutionStep step;
+        private final ExecutionProblem problem;
+        private final boolean stop;
+
+        private TaskOutcome(TestExecutionStep step, ExecutionProblem problem, boolean stop) {
+            this.step = step;
+            this.problem = problem;
+            this.stop = stop;
+        }
+
+        static TaskOutcome step(TestExecutionStep step, boolean stop) {
+            return new TaskOutcome(step, null, stop);
+        }
+
+        static TaskOutcome problem(ExecutionProblem problem, boolean stop) {
+            return new TaskOutcome(null, problem, stop);
+        }
+
+        static TaskOutcome stepWithProblem(TestExecutionStep step, ExecutionProblem problem, boolean stop) {
+            return new TaskOutcome(step, problem, stop);
+        }
+
+        void recordTo(TestExecutionResult result) {
+            if (step != null) {
+                result.getSteps().add(step);
+            }
+            if (problem != null) {
+                result.getProblems().add(problem);
+            }
+        }
+
+        void publish(ExecutionProgressListener listener) {
+            if (step != null) {
+                listener.onStep(step);
+            }
+            if (problem != null) {
+                listener.onProblem(problem);
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package ru.poib.VTBHack.execution.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.poib.VTBHack.mapping.model.DataFlowEdge;
+import ru.poib.VTBHack.parser.model.FlowConditions;
+import ru.poib.VTBHack.parser.model.ProcessGraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * План выполнения с семантикой шлюзов BPMN: по графу процесса движутся токены.
+ * Exclusive gateway отправляет токен по первому переходу с истинным условием (иначе по переходу по умолчанию),
+ * inclusive - по всем истинным, parallel - по всем исходящим. По невыбранным переходам распространяется
+ * "мертвый" сигнал: элемент срабатывает, когда получены сигналы по всем входящим переходам, поэтому
+ * слияния (join) дожидаются только реально запущенных веток, а задачи на невыбранных ветках пропускаются.
+ * Переходы, замыкающие циклы, не учитываются: каждая задача выполняется не более одного раза.
+ * Живой токен в подпроцессе запускает его внутренние стартовые элементы; из подпроцесса токен выходит,
+ * когда сигналы дошли до всех его внутренних завершающих элементов. Мертвый сигнал пропускает подпроцесс целиком.
+ * Задача дополнительно ждет завершения задач, от которых зависит по данным (вперед по executionOrder).
+ * Условия переходов берутся скомпилированными из графа; значения переменных связываются в ячейки плана
+ * один раз на выход из элемента
+ */
+@Slf4j
+public class TokenExecutionPlan implements ExecutionPlan {
+
+    private final ProcessGraph graph;
+    private final FlowConditions conditions;
+    // Ячейки переменных условий и выбранные переходы: переиспользуются при каждом выходе из элемента
+    private final Object[] slots;
+    private boolean[] taken = new boolean[0];
+    private final Map<String, Integer> taskNodes = new HashMap<>();
+    private final boolean[] planned;
+    private final int[] pendingSignals;
+    private final boolean[] liveArrived;
+    private final boolean[] fired;
+    private final boolean[] waitingForData;
+    // Внутренние завершающие элементы подпроцессов, еще не дошедшие сигналы до них и был ли среди них живой
+    private final boolean[] innerEnd;
+    private final int[] remainingEnds;
+    private final boolean[] liveEnds;
+    private final int[] remainingData;
+    private final List<List<Integer>> dataSuccessors;
+    private final List<Integer> plannedNodes = new ArrayList<>();
+    private final Set<String> skipped = new LinkedHashSet<>();
+    // Необработанные сигналы: номер перехода * 2 + 1, если токен живой (обход без рекурсии)
+    private final ArrayDeque<Integer> signals = new ArrayDeque<>();
+
+    /**
+     * @param graph граф процесса
+     * @param executionOrder задачи плана в порядке выполнения
+     * @param dataFlowEdges зависимости по данным (может быть null)
+     */
+    public TokenExecutionPlan(ProcessGraph graph, List<String> executionOrder, List<DataFlowEdge> dataFlowEdges) {
+        this.graph = graph;
+        this.conditions = graph.conditions();
+        this.slots = new Object[conditions.slotCount()];
+        int nodeCount = graph.nodeCount();
+        planned = new boolean[nodeCount];
+        pendingSignals = new int[nodeCount];
+        liveArrived = new boolean[nodeCount];
+        fired = new boolean[nodeCount];
+        waitingForData = new boolean[nodeCount];
+        innerEnd = new boolean[nodeCount];
+        remainingEnds = new int[nodeCount];
+        liveEnds = new boolean[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            for (int end : graph.innerEnds(node)) {
+                innerEnd[end] = true;
+            }
+        }
+        remainingData = new int[nodeCount];
+        dataSuccessors = new ArrayList<>(nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            dataSuccessors.add(List.of());
+        }
+
+        Map<String, Integer> position = new HashMap<>();
+        for (String taskId : executionOrder) {
+            int node = graph.indexOf(taskId);
+            if (node >= 0 && graph.isTask(node)) {
+                planned[node] = true;
+                plannedNodes.add(node);
+                taskNodes.put(taskId, node);
+                position.put(taskId, position.size());
+            }
+        }
+
+        // Сигналы ожидаются только по переходам из достижимых элементов, не замыкающим цикл
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            if (!graph.isBackEdge(edge) && graph.isReachable(graph.edgeSource(edge))) {
+                pendingSignals[graph.edgeTarget(edge)]++;
+            }
+        }
+
+        if (dataFlowEdges != null) {
+            for (DataFlowEdge edge : dataFlowEdges) {
+                Integer sourcePos = position.get(edge.getSourceTaskId());
+                Integer targetPos = position.get(edge.getTargetTaskId());
+                if (sourcePos == null || targetPos == null || sourcePos >= targetPos) {
+                    continue;
+                }
+                int source = taskNodes.get(edge.getSourceTaskId());
+                int target = taskNodes.get(edge.getTargetTaskId());
+                if (dataSuccessors.get(source).isEmpty()) {
+                    dataSuccessors.set(source, new ArrayList<>());
+                }
+                if (!dataSuccessors.get(source).contains(target)) {
+                    dataSuccessors.get(source).add(target);
+                    remainingData[target]++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<String> start() {
+        return start(Map.of());
+    }
+
+    @Override
+    public List<String> start(Map<String, Object> context) {
+        List<String> ready = new ArrayList<>();
+        // Задачи, до которых токен не может дойти от старта, не выполняются
+        for (int node : plannedNodes) {
+            if (!graph.isReachable(node)) {
+                fired[node] = true;
+                skip(node, ready);
+            }
+        }
+        for (int start : graph.startNodes()) {
+            if (!fired[start] && pendingSignals[start] == 0) {
+                fire(start, true, context, ready);
+            }
+        }
+        drain(context, ready);
+        return ready;
+    }
+
+    @Override
+    public List<String> complete(String taskId, Map<String, Object> context) {
+        List<String> ready = new ArrayList<>();
+        Integer node = taskNodes.get(taskId);
+        if (node == null) {
+            return ready;
+        }
+        releaseData(node, ready);
+        leave(node, true, context);
+        drain(context, ready);
+        return ready;
+    }
+
+    @Override
+    public Set<String> skipped() {
+        return skipped;
+    }
+
+    /**
+     * Обрабатывает сигналы по переходам: живой токен или отметку о том, что ветка не выбрана
+     */
+    private void drain(Map<String, Object> context, List<String> ready) {
+        while (!signals.isEmpty()) {
+            int signal = signals.poll();
+            int edge = signal >> 1;
+            boolean live = (signal & 1) == 1;
+            if (graph.isBackEdge(edge)) {
+                // Повторный вход в цикл: задачи уже выполнены или пропущены
+                continue;
+            }
+            int target = graph.edgeTarget(edge);
+            if (fired[target]) {
+                continue;
+            }
+            if (live) {
+                liveArrived[target] = true;
+            }
+            if (--pendingSignals[target] <= 0) {
+                fire(target, liveArrived[target], context, ready);
+            }
+        }
+    }
+
+    private void send(int edge, boolean live) {
+        signals.add(edge << 1 | (live ? 1 : 0));
+    }
+
+    private void fire(int node, boolean live, Map<String, Object> context, List<String> ready) {
+        fired[node] = true;
+        if (planned[node]) {
+            if (!live) {
+                skip(node, ready);
+                leave(node, false, context);
+            } else if (remainingData[node] == 0) {
+                ready.add(graph.nodeId(node));
+            } else {
+                waitingForData[node] = true;
+            }
+            return;
+        }
+        int[] innerStarts = graph.kind(node) == ProcessGraph.NodeKind.SUB_PROCESS ? graph.innerStarts(node) : new int[0];
+        if (innerStarts.length == 0) {
+            leave(node, live, context);
+        } else if (!live) {
+            skipSubProcess(node, ready);
+            leave(node, false, context);
+        } else {
+            remainingEnds[node] = graph.innerEnds(node).length;
+            if (remainingEnds[node] == 0) {
+                // Внутри только цикл без завершения: подпроцесс не задерживает ветку
+                leave(node, true, context);
+            }
+            for (int start : innerStarts) {
+                if (!fired[start]) {
+                    fire(start, true, context, ready);
+                }
+            }
+        }
+    }
+
+    /**
+     * Мертвый сигнал в подпроцессе: все его элементы, включая вложенные подпроцессы, не выполняются
+     */
+    private void skipSubProcess(int subProcess, List<String> ready) {
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (fired[node] || !isInside(node, subProcess)) {
+                continue;
+            }
+            fired[node] = true;
+            if (planned[node]) {
+                skip(node, ready);
+            }
+        }
+    }
+
+    private boolean isInside(int node, int subProcess) {
+        for (int parent = graph.parent(node), depth = 0; parent >= 0 && depth < graph.nodeCount();
+             parent = graph.parent(parent), depth++) {
+            if (parent == subProcess) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Сигнал дошел до внутреннего завершающего элемента: после последнего из них токен выходит из подпроцесса
+     */
+    private void reachInnerEnd(int node, boolean live, Map<String, Object> context) {
+        int subProcess = graph.parent(node);
+        liveEnds[subProcess] |= live;
+        if (--remainingEnds[subProcess] == 0) {
+            leave(subProcess, liveEnds[subProcess], context);
+        }
+    }
+
+    /**
+     * Отправляет сигналы по исходящим переходам элемента согласно его виду
+     */
+    private void leave(int node, boolean live, Map<String, Object> context) {
+        if (innerEnd[node]) {
+            reachInnerEnd(node, live, context);
+        }
+        int outDegree = graph.outDegree(node);
+        if (outDegree == 0) {
+            return;
+        }
+        if (!live) {
+            for (int i = 0; i < outDegree; i++) {
+                send(graph.outgoingEdge(node, i), false);
+            }
+            return;
+        }
+
+        ProcessGraph.NodeKind kind = graph.kind(node);
+        if (taken.length < outDegree) {
+            taken = new boolean[outDegree];
+        }
+        if (kind != ProcessGraph.NodeKind.PARALLEL_GATEWAY && hasConditions(node, outDegree)) {
+            conditions.bind(context, slots);
+        }
+        switch (kind) {
+            case PARALLEL_GATEWAY -> Arrays.fill(taken, 0, outDegree, true);
+            case EXCLUSIVE_GATEWAY, EVENT_BASED_GATEWAY, INCLUSIVE_GATEWAY -> {
+                boolean single = kind != ProcessGraph.NodeKind.INCLUSIVE_GATEWAY;
+                int defaultEdge = graph.defaultEdge(node);
+                boolean any = false;
+                for (int i = 0; i < outDegree; i++) {
+                    int edge = graph.outgoingEdge(node, i);
+                    taken[i] = !(single && any) && edge != defaultEdge && conditions.test(edge, slots);
+                    any |= taken[i];
+                }
+                if (!any) {
+                    for (int i = 0; i < outDegree; i++) {
+                        taken[i] = graph.outgoingEdge(node, i) == defaultEdge;
+                        any |= taken[i];
+                    }
+                }
+                if (!any) {
+                    log.warn("No outgoing flow of gateway {} satisfies its condition, branch stops", graph.nodeId(node));
+                }
+            }
+            default -> {
+                // Условные переходы из задач и событий
+                for (int i = 0; i < outDegree; i++) {
+                    taken[i] = conditions.test(graph.outgoingEdge(node, i), slots);
+                }
+            }
+        }
+        for (int i = 0; i < outDegree; i++) {
+            send(graph.outgoingEdge(node, i), taken[i]);
+        }
+    }
+
+    private boolean hasConditions(int node, int outDegree) {
+        for (int i = 0; i < outDegree; i++) {
+            if (conditions.hasCondition(graph.outgoingEdge(node, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void skip(int node, List<String> ready) {
+        skipped.add(graph.nodeId(node));
+        releaseData(node, ready);
+    }
+
+    /**
+     * Задача завершена или пропущена: зависящие от нее по данным задачи больше ее не ждут
+     */
+    private void releaseData(int node, List<String> ready) {
+        for (int dependent : dataSuccessors.get(node)) {
+            if (--remainingData[dependent] == 0 && waitingForData[dependent]) {
+                waitingForData[dependent] = false;
+                ready.add(graph.nodeId(dependent));
+            }
+        }
+    }
+}
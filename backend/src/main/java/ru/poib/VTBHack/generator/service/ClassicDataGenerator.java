@@ -9,7 +9,9 @@ import ru.poib.VTBHack.mapping.model.TaskEndpointMapping;
 import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
 import ru.poib.VTBHack.parser.model.openapi.Operation;
 import ru.poib.VTBHack.parser.model.openapi.Parameter;
+import ru.poib.VTBHack.parser.model.openapi.RequestBody;
 import ru.poib.VTBHack.parser.model.openapi.Response;
+import ru.poib.VTBHack.parser.model.openapi.SchemaResolver;
 
 import java.util.*;
 import java.util.Random;
@@ -163,7 +165,7 @@ public class ClassicDataGenerator {
         // Генерируем requestBody только если он определён в OpenAPI (operation.requestBody присутствует)
         if (("POST".equalsIgnoreCase(endpointMethod) || "PUT".equalsIgnoreCase(endpointMethod))
                 && operation != null && operation.getRequestBody() != null) {
-            generateRequestBody(operation, requestData, taskId, dataFlowEdges, previousStepData);
+            generateRequestBody(operation, openApiModel, requestData, taskId, dataFlowEdges, previousStepData);
         }
         
         // Если данных все еще нет, генерируем базовые данные на основе метода и пути
@@ -240,11 +242,30 @@ public class ClassicDataGenerator {
     /**
      * Генерирует requestBody для POST/PUT запросов
      */
-    private void generateRequestBody(Operation operation, Map<String, Object> requestData,
+    private void generateRequestBody(Operation operation, OpenApiModel openApiModel,
+                                     Map<String, Object> requestData,
                                      String taskId, List<DataFlowEdge> dataFlowEdges,
                                      Map<String, Map<String, Object>> previousStepData) {
-        // Пока генерируем базовый requestBody на основе summary,
-        // но только если requestBody действительно присутствует в спецификации
+        // Если у тела есть схема, генерируем по ней (ссылки на components разрешаются)
+        Response.Schema bodySchema = findBodySchema(operation.getRequestBody());
+        if (bodySchema != null) {
+            SchemaResolver resolver = openApiModel != null ? openApiModel.getSchemaResolver() : null;
+            Object body = schemaDataGenerator.generateFromSchema(bodySchema, null,
+                    operation.getRequestBody().getDescription(), resolver);
+            if (body instanceof Map<?, ?> fields && !fields.isEmpty()) {
+                for (Map.Entry<?, ?> field : fields.entrySet()) {
+                    String fieldName = String.valueOf(field.getKey());
+                    if (requestData.containsKey(fieldName)) {
+                        continue;
+                    }
+                    Object value = resolveDependency(fieldName, taskId, dataFlowEdges, previousStepData);
+                    requestData.put(fieldName, value != null ? value : field.getValue());
+                }
+                return;
+            }
+        }
+        
+        // Схемы нет: генерируем базовый requestBody на основе summary
         
         String summary = operation.getSummary();
         
@@ -259,6 +280,29 @@ public class ClassicDataGenerator {
         }
     }
     
+    /**
+     * Схема тела запроса: JSON media type, иначе первая объявленная схема
+     */
+    private Response.Schema findBodySchema(RequestBody requestBody) {
+        if (requestBody == null || requestBody.getContent() == null) {
+            return null;
+        }
+        Response.Schema fallback = null;
+        for (Map.Entry<String, Response.MediaType> entry : requestBody.getContent().entrySet()) {
+            Response.Schema schema = entry.getValue() != null ? entry.getValue().getSchema() : null;
+            if (schema == null) {
+                continue;
+            }
+            if (entry.getKey() != null && entry.getKey().toLowerCase().contains("json")) {
+                return schema;
+            }
+            if (fallback == null) {
+                fallback = schema;
+            }
+        }
+        return fallback;
+    }
+    
     /**
      * Генерирует базовые request данные на основе пути и метода
      */
@@ -3,6 +3,7 @@ package ru.poib.VTBHack.generator.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.poib.VTBHack.parser.model.openapi.Response;
+import ru.poib.VTBHack.parser.model.openapi.SchemaResolver;
 
 import java.util.*;
 
@@ -11,6 +12,9 @@ import java.util.*;
  */
 @Component
 public class SchemaDataGenerator {
+    // Значение-маркер: повторное раскрытие рекурсивного компонента на той же ветке
+    private static final Object RECURSION = new Object();
+    
     private final SmartFieldGenerator smartFieldGenerator;
     
     @Autowired
@@ -22,6 +26,43 @@ public class SchemaDataGenerator {
      * Генерирует данные на основе Schema из OpenAPI
      */
     public Object generateFromSchema(Response.Schema schema, String fieldName, String description) {
+        return generateFromSchema(schema, fieldName, description, null);
+    }
+    
+    /**
+     * Генерирует данные на основе Schema из OpenAPI, разрешая ссылки на components/schemas
+     * 
+     * @param resolver разрешение ссылок спецификации (null - ссылки не разрешаются)
+     */
+    public Object generateFromSchema(Response.Schema schema, String fieldName, String description,
+                                     SchemaResolver resolver) {
+        Object value = generate(schema, fieldName, description, new Expansion(resolver));
+        return value == RECURSION ? null : value;
+    }
+    
+    private Object generate(Response.Schema schema, String fieldName, String description, Expansion expansion) {
+        if (schema != null && (schema.getRef() != null
+                || (schema.getAllOf() != null && !schema.getAllOf().isEmpty()))) {
+            String component = SchemaResolver.componentName(schema.getRef());
+            Response.Schema resolved = expansion.resolver != null ? expansion.resolver.resolve(schema) : null;
+            if (resolved == null) {
+                // Внешняя или неразрешимая ссылка: генерируем по имени поля
+                return generate(null, fieldName, description, expansion);
+            }
+            if (component != null && expansion.resolver.isRecursive(component)) {
+                // Рекурсивный компонент раскрывается один раз на ветке
+                if (!expansion.expanding.add(component)) {
+                    return RECURSION;
+                }
+                try {
+                    return generate(resolved, fieldName, description, expansion);
+                } finally {
+                    expansion.expanding.remove(component);
+                }
+            }
+            return generate(resolved, fieldName, description, expansion);
+        }
+        
         if (schema == null) {
             return smartFieldGenerator.generateByFieldName(fieldName, description, "string", null);
         }
@@ -48,12 +89,12 @@ public class SchemaDataGenerator {
         
         // Обрабатываем объект с properties
         if ("object".equals(type) || schema.getProperties() != null && !schema.getProperties().isEmpty()) {
-            return generateObject(schema, fieldName);
+            return generateObject(schema, fieldName, expansion);
         }
         
         // Обрабатываем массив
         if ("array".equals(type)) {
-            return generateArray(schema, fieldName);
+            return generateArray(schema, fieldName, expansion);
         }
         
         // Генерируем примитивные типы с учетом constraints
@@ -63,7 +104,7 @@ public class SchemaDataGenerator {
     /**
      * Генерирует объект на основе Schema
      */
-    private Map<String, Object> generateObject(Response.Schema schema, String parentFieldName) {
+    private Map<String, Object> generateObject(Response.Schema schema, String parentFieldName, Expansion expansion) {
         Map<String, Object> result = new HashMap<>();
         
         if (schema.getProperties() == null || schema.getProperties().isEmpty()) {
@@ -90,9 +131,16 @@ public class SchemaDataGenerator {
             boolean isRequired = requiredFields.contains(fieldName);
             if (isRequired || new Random().nextBoolean()) {
                 String fullFieldName = parentFieldName != null ? parentFieldName + "." + fieldName : fieldName;
-                String description = fieldSchema.getDescription();
+                String description = fieldSchema != null ? fieldSchema.getDescription() : null;
                 
-                Object value = generateFromSchema(fieldSchema, fullFieldName, description);
+                Object value = generate(fieldSchema, fullFieldName, description, expansion);
+                if (value == RECURSION) {
+                    // Вложенный экземпляр рекурсивной схемы: обязательное поле обрывается null
+                    if (isRequired) {
+                        result.put(fieldName, null);
+                    }
+                    continue;
+                }
                 result.put(fieldName, value);
             }
         }
@@ -103,47 +151,10 @@ public class SchemaDataGenerator {
     /**
      * Генерирует массив на основе Schema
      */
-    private List<Object> generateArray(Response.Schema schema, String fieldName) {
+    private List<Object> generateArray(Response.Schema schema, String fieldName, Expansion expansion) {
         List<Object> result = new ArrayList<>();
         
-        // Получаем items schema
-        Response.Schema itemsSchema = null;
-        if (schema.getAdditionalProperties() != null) {
-            Object items = schema.getAdditionalProperties().get("items");
-            if (items instanceof Map) {
-                // Преобразуем Map в Schema (упрощенная версия)
-                itemsSchema = new Response.Schema();
-                @SuppressWarnings("unchecked")
-                Map<String, Object> itemsMap = (Map<String, Object>) items;
-                if (itemsMap.containsKey("type")) {
-                    itemsSchema.setType((String) itemsMap.get("type"));
-                }
-                if (itemsMap.containsKey("format")) {
-                    itemsSchema.setFormat((String) itemsMap.get("format"));
-                }
-                if (itemsMap.containsKey("properties")) {
-                    // Обрабатываем вложенные properties
-                    Map<String, Response.Schema> properties = new HashMap<>();
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> propsMap = (Map<String, Object>) itemsMap.get("properties");
-                    for (Map.Entry<String, Object> entry : propsMap.entrySet()) {
-                        Response.Schema propSchema = new Response.Schema();
-                        if (entry.getValue() instanceof Map) {
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> propMap = (Map<String, Object>) entry.getValue();
-                            if (propMap.containsKey("type")) {
-                                propSchema.setType((String) propMap.get("type"));
-                            }
-                            if (propMap.containsKey("format")) {
-                                propSchema.setFormat((String) propMap.get("format"));
-                            }
-                        }
-                        properties.put(entry.getKey(), propSchema);
-                    }
-                    itemsSchema.setProperties(properties);
-                }
-            }
-        }
+        Response.Schema itemsSchema = schema.getItems();
         
         // Генерируем от 1 до 3 элементов
         int minItems = getIntValue(schema, "minItems", 1);
@@ -152,7 +163,12 @@ public class SchemaDataGenerator {
         
         for (int i = 0; i < count; i++) {
             if (itemsSchema != null) {
-                result.add(generateFromSchema(itemsSchema, fieldName + "[" + i + "]", null));
+                Object item = generate(itemsSchema, fieldName + "[" + i + "]", null, expansion);
+                if (item == RECURSION) {
+                    // Элементы рекурсивной схемы не раскрываются повторно: пустой массив
+                    return new ArrayList<>();
+                }
+                result.add(item);
             } else {
                 result.add(smartFieldGenerator.generateByFieldName(fieldName, null, "string", null));
             }
@@ -288,5 +304,16 @@ public class SchemaDataGenerator {
         }
         return null;
     }
+    
+    /**
+     * Состояние обхода одной генерации: рекурсивные компоненты, раскрываемые на текущей ветке
+     */
+    private static final class Expansion {
+        private final SchemaResolver resolver;
+        private final Set<String> expanding = new HashSet<>();
+        
+        private Expansion(SchemaResolver resolver) {
+            this.resolver = resolver;
+        }
+    }
 }
-
@@ -1,13 +1,12 @@
 package ru.poib.VTBHack.mapping.controller;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import ru.poib.VTBHack.mapping.model.MappingCacheStatistics;
 import ru.poib.VTBHack.mapping.model.MappingResult;
-import ru.poib.VTBHack.mapping.service.MappingService;
-import ru.poib.VTBHack.parser.model.ProcessModel;
-import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
-import ru.poib.VTBHack.parser.service.BpmnParserService;
-import ru.poib.VTBHack.parser.service.OpenApiParserService;
+import ru.poib.VTBHack.mapping.service.MappingCacheService;
 
 /**
  * REST контроллер для модуля сопоставления
@@ -17,16 +16,10 @@ import ru.poib.VTBHack.parser.service.OpenApiParserService;
 @CrossOrigin(origins = "*")
 public class MappingController {
     
-    private final MappingService mappingService;
-    private final BpmnParserService bpmnParserService;
-    private final OpenApiParserService openApiParserService;
+    private final MappingCacheService mappingCacheService;
     
-    public MappingController(MappingService mappingService,
-                             BpmnParserService bpmnParserService,
-                             OpenApiParserService openApiParserService) {
-        this.mappingService = mappingService;
-        this.bpmnParserService = bpmnParserService;
-        this.openApiParserService = openApiParserService;
+    public MappingController(MappingCacheService mappingCacheService) {
+        this.mappingCacheService = mappingCacheService;
     }
     
     /**
@@ -37,10 +30,8 @@ public class MappingController {
             @RequestParam String bpmnXml,
             @RequestParam String openApiJson) {
         try {
-            ProcessModel processModel = bpmnParserService.parse(bpmnXml);
-            OpenApiModel openApiModel = openApiParserService.parseOpenApi(openApiJson);
-            
-            MappingResult result = mappingService.mapProcessToEndpoints(processModel, openApiModel);
+            // Повторное сопоставление тех же файлов обслуживается из кэша
+            MappingResult result = mappingCacheService.map(bpmnXml, openApiJson);
             
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -48,6 +39,25 @@ public class MappingController {
         }
     }
     
+    /**
+     * Сопоставляет BPMN процесс с OpenAPI спецификацией, загруженными файлами (multipart/form-data).
+     * Файлы разбираются из потока, без промежуточных строк, и не упираются в лимит размера параметров формы
+     *
+     * @param bpmn BPMN файл
+     * @param openApi OpenAPI спецификация в JSON
+     * @return результат сопоставления
+     */
+    @PostMapping(value = "/map/files", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<MappingResult> mapProcessToApiFiles(
+            @RequestPart("bpmn") MultipartFile bpmn,
+            @RequestPart("openApi") MultipartFile openApi) {
+        try {
+            return ResponseEntity.ok(mappingCacheService.map(bpmn, openApi));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * Получает рекомендации для несопоставленных задач
      * Использует POST метод для поддержки больших BPMN и OpenAPI файлов
@@ -57,16 +67,20 @@ public class MappingController {
             @RequestParam String bpmnXml,
             @RequestParam String openApiJson) {
         try {
-            ProcessModel processModel = bpmnParserService.parse(bpmnXml);
-            OpenApiModel openApiModel = openApiParserService.parseOpenApi(openApiJson);
-
-            MappingResult result = mappingService.mapProcessToEndpoints(processModel, openApiModel);
+            // Фронтенд вызывает /map и /recommendations для одних и тех же файлов
+            MappingResult result = mappingCacheService.map(bpmnXml, openApiJson);
 
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
+    
+    /**
+     * Возвращает статистику кэша сопоставления: размер, попадания, промахи, вытеснения
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<MappingCacheStatistics> getCacheStatistics() {
+        return ResponseEntity.ok(mappingCacheService.getStatistics());
+    }
 }
-
-
@@ -0,0 +1,61 @@
+package ru.poib.VTBHack.mapping.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Состояние кэша результатов сопоставления
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MappingCacheStatistics {
+    /**
+     * Статистика по областям кэша: processModels, openApiModels, mappingResults
+     */
+    private Map<String, RegionStatistics> regions = new LinkedHashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RegionStatistics {
+        /**
+         * Количество записей в кэше
+         */
+        private int size;
+
+        /**
+         * Максимальное количество записей
+         */
+        private int maxSize;
+
+        /**
+         * Обращения, обслуженные из кэша
+         */
+        private long hits;
+
+        /**
+         * Обращения, потребовавшие вычисления
+         */
+        private long misses;
+
+        /**
+         * Записи, вытесненные из-за ограничения размера
+         */
+        private long evictions;
+
+        /**
+         * Записи, удаленные по истечении времени жизни
+         */
+        private long expirations;
+
+        /**
+         * Доля попаданий от 0 до 1
+         */
+        private double hitRate;
+    }
+}
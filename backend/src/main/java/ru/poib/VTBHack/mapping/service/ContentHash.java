@@ -0,0 +1,140 @@
+package ru.poib.VTBHack.mapping.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 нормализованного содержимого файла, вычисляемый потоково.
+ * Нормализация не меняет смысл файла: BOM в начале, переводы строк (CRLF и CR становятся LF)
+ * и пробельные символы в начале и в конце не влияют на хэш.
+ * Строка и поток с одинаковым содержимым в UTF-8 дают одинаковый хэш
+ */
+public final class ContentHash {
+
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final MessageDigest digest;
+    private final byte[] out = new byte[8192];
+    private int outLength;
+    // Пробельные символы, отложенные до следующего непробельного (в конце файла отбрасываются)
+    private byte[] pending = new byte[64];
+    private int pendingLength;
+    private int bomMatched;
+    private boolean bomChecked;
+    private boolean started;
+    private boolean afterCr;
+
+    public ContentHash() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String of(String content) {
+        ContentHash hash = new ContentHash();
+        if (content != null) {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            hash.update(bytes, 0, bytes.length);
+        }
+        return hash.finish();
+    }
+
+    /**
+     * Читает поток до конца (не закрывая его) и возвращает хэш содержимого
+     */
+    public static String of(InputStream in) throws IOException {
+        ContentHash hash = new ContentHash();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            hash.update(buffer, 0, read);
+        }
+        return hash.finish();
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            byte b = bytes[i];
+            if (!bomChecked) {
+                if (b == BOM[bomMatched]) {
+                    bomMatched++;
+                    bomChecked = bomMatched == BOM.length;
+                    continue;
+                }
+                releaseBomPrefix();
+            }
+            accept(b);
+        }
+    }
+
+    /**
+     * Завершает вычисление и возвращает хэш в шестнадцатеричном виде
+     */
+    public String finish() {
+        if (!bomChecked) {
+            releaseBomPrefix();
+        }
+        flush();
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void releaseBomPrefix() {
+        // Начало файла совпало с BOM лишь частично: эти байты - содержимое
+        bomChecked = true;
+        for (int k = 0; k < bomMatched; k++) {
+            accept(BOM[k]);
+        }
+    }
+
+    private void accept(byte b) {
+        if (b == '\n' && afterCr) {
+            afterCr = false;
+            return;
+        }
+        afterCr = b == '\r';
+        if (afterCr) {
+            b = '\n';
+        }
+        if (isWhitespace(b)) {
+            if (started) {
+                if (pendingLength == pending.length) {
+                    pending = Arrays.copyOf(pending, pending.length * 2);
+                }
+                pending[pendingLength++] = b;
+            }
+            return;
+        }
+        started = true;
+        for (int k = 0; k < pendingLength; k++) {
+            write(pending[k]);
+        }
+        pendingLength = 0;
+        write(b);
+    }
+
+    private void write(byte b) {
+        if (outLength == out.length) {
+            flush();
+        }
+        out[outLength++] = b;
+    }
+
+    private void flush() {
+        digest.update(out, 0, outLength);
+        outLength = 0;
+    }
+
+    /**
+     * Пробельные символы ASCII в смысле Character.isWhitespace
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x1F);
+    }
+}
@@ -3,12 +3,16 @@ package ru.poib.VTBHack.mapping.service;
 import org.springframework.stereotype.Service;
 import ru.poib.VTBHack.mapping.model.DataFlowEdge;
 import ru.poib.VTBHack.mapping.model.TaskEndpointMapping;
+import ru.poib.VTBHack.parser.model.ProcessGraph;
 import ru.poib.VTBHack.parser.model.ProcessModel;
 import ru.poib.VTBHack.parser.model.ProcessTask;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Анализатор потока данных между шагами процесса
@@ -47,31 +51,36 @@ public class DataFlowAnalyzer {
             }
         }
         
-        // Также проверяем связи через sequence flows
-        if (processModel.getSequenceFlows() != null) {
-            processModel.getSequenceFlows().forEach((sourceId, targetId) -> {
-                ProcessTask sourceTask = findTaskById(tasks, sourceId);
-                ProcessTask targetTask = findTaskById(tasks, targetId);
+        // Также проверяем связи по графу процесса (все ветки шлюзов, через промежуточные элементы)
+        Set<String> existing = new HashSet<>();
+        for (DataFlowEdge edge : edges) {
+            existing.add(edge.getSourceTaskId() + "->" + edge.getTargetTaskId());
+        }
+        Map<String, ProcessTask> taskById = new HashMap<>();
+        for (ProcessTask task : tasks) {
+            taskById.putIfAbsent(task.getId(), task);
+        }
+        ProcessGraph graph = processModel.getGraph();
+        for (ProcessTask sourceTask : tasks) {
+            TaskEndpointMapping sourceMapping = taskMappings.get(sourceTask.getId());
+            int node = graph.indexOf(sourceTask.getId());
+            if (sourceMapping == null || node < 0) {
+                continue;
+            }
+            for (int target : graph.nextTasks(node)) {
+                String targetId = graph.nodeId(target);
+                TaskEndpointMapping targetMapping = taskMappings.get(targetId);
+                ProcessTask targetTask = taskById.get(targetId);
                 
-                if (sourceTask != null && targetTask != null) {
-                    TaskEndpointMapping sourceMapping = taskMappings.get(sourceTask.getId());
-                    TaskEndpointMapping targetMapping = taskMappings.get(targetTask.getId());
-                    
-                    if (sourceMapping != null && targetMapping != null) {
-                        // Проверяем, не добавили ли мы уже это ребро
-                        boolean alreadyExists = edges.stream()
-                                .anyMatch(e -> e.getSourceTaskId().equals(sourceId) && 
-                                             e.getTargetTaskId().equals(targetId));
-                        
-                        if (!alreadyExists) {
-                            DataFlowEdge edge = analyzeEdge(sourceTask, targetTask, sourceMapping, targetMapping);
-                            if (edge != null) {
-                                edges.add(edge);
-                            }
-                        }
+                // Проверяем, не добавили ли мы уже это ребро
+                if (targetMapping != null && targetTask != null
+                        && existing.add(sourceTask.getId() + "->" + targetId)) {
+                    DataFlowEdge edge = analyzeEdge(sourceTask, targetTask, sourceMapping, targetMapping);
+                    if (edge != null) {
+                        edges.add(edge);
                     }
                 }
-            });
+            }
         }
         
         return edges;
@@ -174,16 +183,6 @@ public class DataFlowAnalyzer {
         
         return confidence;
     }
-    
-    /**
-     * Находит задачу по ID
-     */
-    private ProcessTask findTaskById(List<ProcessTask> tasks, String taskId) {
-        return tasks.stream()
-                .filter(t -> t.getId().equals(taskId))
-                .findFirst()
-                .orElse(null);
-    }
 }
 
 
@@ -0,0 +1,195 @@
+package ru.poib.VTBHack.mapping.service;
+
+import ru.poib.VTBHack.mapping.model.EndpointInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Инвертированный индекс эндпоинтов для семантического поиска (TF-IDF + cosine similarity).
+ * Строится один раз на OpenAPI модель: словарь, IDF по текстам всех эндпоинтов,
+ * нормированные векторы эндпоинтов и списки эндпоинтов по каждому терму.
+ * Запрос сравнивается только с эндпоинтами, у которых есть общие с ним термы
+ */
+public final class EndpointSearchIndex {
+
+    private final SemanticAnalysisService analyzer;
+    private final List<EndpointInfo> endpoints;
+    private final Map<String, Integer> vocabulary;
+    private final double[] idf;
+    // IDF терма, которого нет ни в одном эндпоинте: влияет только на норму запроса
+    private final double unknownTermIdf;
+    private final int[][] postingEndpoints;
+    private final double[][] postingWeights;
+    private final Map<String, List<Integer>> endpointsByNormalizedText;
+
+    private EndpointSearchIndex(SemanticAnalysisService analyzer, List<EndpointInfo> endpoints) {
+        this.analyzer = analyzer;
+        this.endpoints = List.copyOf(endpoints);
+        int documentCount = this.endpoints.size();
+
+        // Частоты термов по эндпоинтам и документная частота
+        List<Map<String, Integer>> termFrequencies = new ArrayList<>(documentCount);
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        this.endpointsByNormalizedText = new HashMap<>();
+        for (int i = 0; i < documentCount; i++) {
+            String text = this.endpoints.get(i).getFullText();
+            Map<String, Integer> frequencies = countTerms(analyzer.tokenize(text));
+            termFrequencies.add(frequencies);
+            frequencies.keySet().forEach(term -> documentFrequency.merge(term, 1, Integer::sum));
+            if (text != null && !text.isBlank()) {
+                endpointsByNormalizedText.computeIfAbsent(analyzer.normalizeText(text), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        this.vocabulary = new HashMap<>();
+        this.idf = new double[documentFrequency.size()];
+        for (Map.Entry<String, Integer> entry : documentFrequency.entrySet()) {
+            int termId = vocabulary.size();
+            vocabulary.put(entry.getKey(), termId);
+            idf[termId] = idf(documentCount, entry.getValue());
+        }
+        this.unknownTermIdf = idf(documentCount, 0);
+
+        // Нормированные TF-IDF векторы эндпоинтов раскладываются по спискам термов
+        int[] postingSizes = new int[idf.length];
+        for (Map<String, Integer> frequencies : termFrequencies) {
+            frequencies.keySet().forEach(term -> postingSizes[vocabulary.get(term)]++);
+        }
+        this.postingEndpoints = new int[idf.length][];
+        this.postingWeights = new double[idf.length][];
+        for (int termId = 0; termId < idf.length; termId++) {
+            postingEndpoints[termId] = new int[postingSizes[termId]];
+            postingWeights[termId] = new double[postingSizes[termId]];
+        }
+        int[] filled = new int[idf.length];
+        for (int endpoint = 0; endpoint < documentCount; endpoint++) {
+            Map<String, Integer> frequencies = termFrequencies.get(endpoint);
+            Map<Integer, Double> vector = new HashMap<>();
+            int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+            double norm = 0.0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                int termId = vocabulary.get(entry.getKey());
+                double weight = (double) entry.getValue() / length * idf[termId];
+                vector.put(termId, weight);
+                norm += weight * weight;
+            }
+            norm = Math.sqrt(norm);
+            for (Map.Entry<Integer, Double> entry : vector.entrySet()) {
+                int termId = entry.getKey();
+                int position = filled[termId]++;
+                postingEndpoints[termId][position] = endpoint;
+                postingWeights[termId][position] = entry.getValue() / norm;
+            }
+        }
+    }
+
+    /**
+     * Строит индекс по списку эндпоинтов с токенизацией и синонимами сервиса семантического анализа
+     */
+    static EndpointSearchIndex build(SemanticAnalysisService analyzer, List<EndpointInfo> endpoints) {
+        return new EndpointSearchIndex(analyzer, endpoints);
+    }
+
+    public List<EndpointInfo> getEndpoints() {
+        return endpoints;
+    }
+
+    public int getVocabularySize() {
+        return vocabulary.size();
+    }
+
+    /**
+     * Ищет эндпоинты, похожие на текст
+     *
+     * @param text текст задачи
+     * @return эндпоинты со сходством больше 0, по убыванию сходства (при равенстве - в порядке спецификации)
+     */
+    public List<ScoredEndpoint> search(String text) {
+        if (text == null || text.isBlank() || endpoints.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        double[] scores = new double[endpoints.size()];
+        boolean[] touched = new boolean[endpoints.size()];
+        List<Integer> candidates = new ArrayList<>();
+
+        Map<String, Integer> frequencies = countTerms(analyzer.tokenize(text));
+        if (!frequencies.isEmpty()) {
+            int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+            double queryNorm = 0.0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Integer termId = vocabulary.get(entry.getKey());
+                double tf = (double) entry.getValue() / length;
+                double weight = tf * (termId != null ? idf[termId] : unknownTermIdf);
+                queryNorm += weight * weight;
+                if (termId == null) {
+                    continue;
+                }
+                int[] postings = postingEndpoints[termId];
+                double[] weights = postingWeights[termId];
+                for (int i = 0; i < postings.length; i++) {
+                    int endpoint = postings[i];
+                    if (!touched[endpoint]) {
+                        touched[endpoint] = true;
+                        candidates.add(endpoint);
+                    }
+                    scores[endpoint] += weight * weights[i];
+                }
+            }
+            queryNorm = Math.sqrt(queryNorm);
+            for (int endpoint : candidates) {
+                scores[endpoint] = Math.min(1.0, scores[endpoint] / queryNorm);
+            }
+        }
+
+        // Совпадение нормализованных текстов - полное сходство, как в calculateSimilarity
+        List<Integer> identical = endpointsByNormalizedText.get(analyzer.normalizeText(text));
+        if (identical != null) {
+            for (int endpoint : identical) {
+                if (!touched[endpoint]) {
+                    touched[endpoint] = true;
+                    candidates.add(endpoint);
+                }
+                scores[endpoint] = 1.0;
+            }
+        }
+
+        List<ScoredEndpoint> result = new ArrayList<>(candidates.size());
+        for (int endpoint : candidates) {
+            if (scores[endpoint] > 0.0) {
+                result.add(new ScoredEndpoint(endpoints.get(endpoint), scores[endpoint], endpoint));
+            }
+        }
+        result.sort((a, b) -> a.score() != b.score()
+                ? Double.compare(b.score(), a.score())
+                : Integer.compare(a.position(), b.position()));
+        return result;
+    }
+
+    private static Map<String, Integer> countTerms(List<String> tokens) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private static double idf(int documentCount, int documentFrequency) {
+        // Сглаженный IDF: всегда положителен, общие для всех эндпоинтов термы получают минимальный вес
+        return Math.log((double) (documentCount + 1) / (documentFrequency + 1)) + 1;
+    }
+
+    /**
+     * Эндпоинт с оценкой сходства
+     *
+     * @param endpoint эндпоинт
+     * @param score сходство от 0.0 до 1.0
+     * @param position порядковый номер эндпоинта в спецификации
+     */
+    public record ScoredEndpoint(EndpointInfo endpoint, double score, int position) {
+    }
+}
@@ -0,0 +1,98 @@
+package ru.poib.VTBHack.mapping.service;
+
+import ru.poib.VTBHack.mapping.model.MappingCacheStatistics;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэш с ограничением по количеству записей (вытесняется давно не использованная) и по времени жизни
+ */
+final class ExpiringLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    ExpiringLruCache(int maxEntries, long ttlMs, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Возвращает значение, если оно есть и не устарело
+     */
+    synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (isExpired(entry, clock.getAsLong())) {
+            entries.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value();
+    }
+
+    synchronized void put(K key, V value) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        long now = clock.getAsLong();
+        entries.put(key, new Entry<>(value, now));
+        removeExpired(now);
+        Iterator<K> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized MappingCacheStatistics.RegionStatistics getStatistics() {
+        removeExpired(clock.getAsLong());
+        long total = hits + misses;
+        return new MappingCacheStatistics.RegionStatistics(
+                entries.size(),
+                maxEntries,
+                hits,
+                misses,
+                evictions,
+                expirations,
+                total > 0 ? (double) hits / total : 0
+        );
+    }
+
+    private void removeExpired(long now) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (isExpired(iterator.next().getValue(), now)) {
+                iterator.remove();
+                expirations++;
+            }
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlMs > 0 && now - entry.createdAtMs() >= ttlMs;
+    }
+
+    private record Entry<V>(V value, long createdAtMs) {
+    }
+}
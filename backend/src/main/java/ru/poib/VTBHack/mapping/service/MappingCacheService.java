@@ -0,0 +1,176 @@
+package ru.poib.VTBHack.mapping.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.mapping.model.EndpointInfo;
+import ru.poib.VTBHack.mapping.model.MappingCacheStatistics;
+import ru.poib.VTBHack.mapping.model.MappingResult;
+import ru.poib.VTBHack.parser.model.ProcessModel;
+import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
+import ru.poib.VTBHack.parser.service.BpmnParserService;
+import ru.poib.VTBHack.parser.service.OpenApiParserService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Кэш сопоставления по содержимому входных файлов.
+ * Ключ - SHA-256 нормализованного содержимого BPMN и OpenAPI ({@link ContentHash}): разобранные модели,
+ * эндпоинты с индексом поиска и результат сопоставления переиспользуются, пока файлы не изменились.
+ * OpenAPI разбирается потоково: тяжелые части операций связываются только для сопоставленных эндпоинтов.
+ * Кэшированные объекты общие для всех запросов и не должны изменяться вызывающим кодом
+ */
+@Slf4j
+@Service
+public class MappingCacheService {
+
+    private final MappingService mappingService;
+    private final BpmnParserService bpmnParserService;
+    private final OpenApiParserService openApiParserService;
+    private final EndpointExtractor endpointExtractor;
+    private final SemanticAnalysisService semanticAnalysisService;
+    private final ExpiringLruCache<String, ProcessModel> processModels;
+    private final ExpiringLruCache<String, ParsedSpecification> specifications;
+    private final ExpiringLruCache<String, MappingResult> mappingResults;
+
+    public MappingCacheService(
+            MappingService mappingService,
+            BpmnParserService bpmnParserService,
+            OpenApiParserService openApiParserService,
+            EndpointExtractor endpointExtractor,
+            SemanticAnalysisService semanticAnalysisService,
+            @Value("${mapping.cache.max-entries:100}") int maxEntries,
+            @Value("${mapping.cache.ttl-ms:1800000}") long ttlMs) {
+        this.mappingService = mappingService;
+        this.bpmnParserService = bpmnParserService;
+        this.openApiParserService = openApiParserService;
+        this.endpointExtractor = endpointExtractor;
+        this.semanticAnalysisService = semanticAnalysisService;
+        this.processModels = new ExpiringLruCache<>(maxEntries, ttlMs, System::currentTimeMillis);
+        this.specifications = new ExpiringLruCache<>(maxEntries, ttlMs, System::currentTimeMillis);
+        this.mappingResults = new ExpiringLruCache<>(maxEntries, ttlMs, System::currentTimeMillis);
+    }
+
+    /**
+     * Сопоставляет BPMN процесс с OpenAPI спецификацией, используя кэш
+     *
+     * @param bpmnXml XML содержимое BPMN файла
+     * @param openApiJson JSON содержимое OpenAPI спецификации
+     * @return результат сопоставления (общий экземпляр для одинаковых входных данных)
+     */
+    public MappingResult map(String bpmnXml, String openApiJson) throws Exception {
+        return map(contentHash(bpmnXml), () -> bpmnParserService.parse(bpmnXml),
+                contentHash(openApiJson), () -> openApiParserService.parseOpenApiLazily(openApiJson));
+    }
+
+    /**
+     * Сопоставляет загруженные файлы, не копируя их содержимое в строки.
+     * Источник читается дважды: для хэша и, при промахе кэша, для разбора
+     *
+     * @param bpmn источник BPMN XML (например, MultipartFile)
+     * @param openApi источник OpenAPI JSON
+     * @return результат сопоставления
+     */
+    public MappingResult map(InputStreamSource bpmn, InputStreamSource openApi) throws Exception {
+        return map(contentHash(bpmn), bpmn, contentHash(openApi), openApi);
+    }
+
+    /**
+     * Сопоставляет файлы с заранее известными хэшами содержимого (например, из хранилища артефактов)
+     *
+     * @param bpmnHash хэш BPMN, вычисленный {@link #contentHash}
+     * @param bpmn источник BPMN XML, читается только при промахе кэша
+     * @param openApiHash хэш OpenAPI спецификации
+     * @param openApi источник OpenAPI JSON, читается только при промахе кэша
+     * @return результат сопоставления
+     */
+    public MappingResult map(String bpmnHash, InputStreamSource bpmn,
+                             String openApiHash, InputStreamSource openApi) throws Exception {
+        return map(bpmnHash, () -> {
+            try (InputStream in = bpmn.getInputStream()) {
+                return bpmnParserService.parse(in);
+            }
+        }, openApiHash, () -> {
+            try (InputStream in = openApi.getInputStream()) {
+                return openApiParserService.parseOpenApiLazily(in);
+            }
+        });
+    }
+
+    private MappingResult map(String bpmnHash, Parser<ProcessModel> bpmnParser,
+                              String openApiHash, Parser<OpenApiModel> openApiParser) throws Exception {
+        String resultKey = bpmnHash + ":" + openApiHash;
+
+        MappingResult cached = mappingResults.get(resultKey);
+        if (cached != null) {
+            log.debug("Mapping cache hit for {}", resultKey);
+            return cached;
+        }
+
+        ProcessModel processModel = processModels.get(bpmnHash);
+        if (processModel == null) {
+            processModel = bpmnParser.parse();
+            processModels.put(bpmnHash, processModel);
+        }
+
+        ParsedSpecification specification = specifications.get(openApiHash);
+        if (specification == null) {
+            OpenApiModel openApiModel = openApiParser.parse();
+            List<EndpointInfo> endpoints = endpointExtractor.extractEndpoints(openApiModel);
+            specification = new ParsedSpecification(openApiModel, semanticAnalysisService.buildIndex(endpoints));
+            specifications.put(openApiHash, specification);
+        }
+
+        MappingResult result = mappingService.mapProcessToEndpoints(
+                processModel, specification.openApiModel(), specification.endpointIndex());
+        mappingResults.put(resultKey, result);
+        return result;
+    }
+
+    /**
+     * Возвращает статистику кэша по областям
+     */
+    public MappingCacheStatistics getStatistics() {
+        MappingCacheStatistics statistics = new MappingCacheStatistics();
+        statistics.getRegions().put("processModels", processModels.getStatistics());
+        statistics.getRegions().put("openApiModels", specifications.getStatistics());
+        statistics.getRegions().put("mappingResults", mappingResults.getStatistics());
+        return statistics;
+    }
+
+    /**
+     * Очищает кэш (счетчики сохраняются)
+     */
+    public void clear() {
+        processModels.clear();
+        specifications.clear();
+        mappingResults.clear();
+    }
+
+    /**
+     * Хэш содержимого файла, по которому кэш и хранилище артефактов узнают одинаковые входные данные
+     */
+    public static String contentHash(String content) {
+        return ContentHash.of(content);
+    }
+
+    public static String contentHash(InputStreamSource source) throws IOException {
+        try (InputStream in = source.getInputStream()) {
+            return ContentHash.of(in);
+        }
+    }
+
+    /**
+     * Разобранная спецификация вместе с индексом эндпоинтов
+     */
+    private record ParsedSpecification(OpenApiModel openApiModel, EndpointSearchIndex endpointIndex) {
+    }
+
+    @FunctionalInterface
+    private interface Parser<T> {
+        T parse() throws Exception;
+    }
+}
@@ -23,8 +23,10 @@ public class MappingService {
     
     // Пороги уверенности для различных стратегий
     private static final double EXACT_MATCH_THRESHOLD = 0.95;
-    private static final double SEMANTIC_MATCH_THRESHOLD = 0.4; // Снижен для увеличения вероятности сопоставления BPMN задач
-    private static final double MIN_CONFIDENCE_THRESHOLD = 0.3; // Снижен для увеличения вероятности сопоставления BPMN задач
+    // Семантические пороги подобраны под оценки EndpointSearchIndex: IDF по всем эндпоинтам спецификации
+    // дает более высокие оценки, чем попарное сравнение, поэтому пороги выше (см. MappingServiceTest)
+    private static final double SEMANTIC_MATCH_THRESHOLD = 0.55;
+    private static final double MIN_CONFIDENCE_THRESHOLD = 0.45;
     
     @Autowired
     public MappingService(EndpointExtractor endpointExtractor,
@@ -50,8 +52,17 @@ public class MappingService {
      * Эндпоинты OpenAPI, не сопоставленные с задачами, игнорируются.
      */
     public MappingResult mapProcessToEndpoints(ProcessModel processModel, OpenApiModel openApiModel) {
-        // Извлекаем эндпоинты из OpenAPI
+        // Извлекаем эндпоинты из OpenAPI и строим индекс поиска один раз на модель
         List<EndpointInfo> endpoints = endpointExtractor.extractEndpoints(openApiModel);
+        return mapProcessToEndpoints(processModel, openApiModel, semanticAnalysisService.buildIndex(endpoints));
+    }
+    
+    /**
+     * Выполняет сопоставление с готовым индексом эндпоинтов (индекс можно переиспользовать для той же модели)
+     */
+    public MappingResult mapProcessToEndpoints(ProcessModel processModel, OpenApiModel openApiModel,
+                                               EndpointSearchIndex endpointIndex) {
+        List<EndpointInfo> endpoints = endpointIndex.getEndpoints();
         
         // Создаем маппинг для каждой задачи
         Map<String, TaskEndpointMapping> taskMappings = new HashMap<>();
@@ -67,13 +78,15 @@ public class MappingService {
                 continue;
             }
             
-            // Если точного совпадения нет, ищем наилучшее возможное
-            TaskEndpointMapping mapping = findBestMatch(task, endpoints);
+            // Если точного совпадения нет, ищем наилучшее возможное.
+            // Похожие эндпоинты ищутся по индексу один раз на задачу
+            List<EndpointSearchIndex.ScoredEndpoint> similar = endpointIndex.search(buildTaskText(task));
+            TaskEndpointMapping mapping = findBestMatch(task, endpoints, similar);
             if (mapping != null && mapping.getConfidenceScore() >= MIN_CONFIDENCE_THRESHOLD) {
                 taskMappings.put(task.getId(), mapping);
                 matchedEndpointIds.add(mapping.getEndpointPath() + ":" + mapping.getEndpointMethod());
             } else {
-                UnmatchedElement unmatched = createUnmatchedTask(task, endpoints);
+                UnmatchedElement unmatched = createUnmatchedTask(task, similar);
                 unmatchedTasks.add(unmatched);
             }
         }
@@ -114,7 +127,8 @@ public class MappingService {
     /**
      * Находит лучшее сопоставление для задачи
      */
-    private TaskEndpointMapping findBestMatch(ProcessTask task, List<EndpointInfo> endpoints) {
+    private TaskEndpointMapping findBestMatch(ProcessTask task, List<EndpointInfo> endpoints,
+                                              List<EndpointSearchIndex.ScoredEndpoint> similar) {
         TaskEndpointMapping bestMatch = null;
         double bestScore = 0.0;
         
@@ -136,14 +150,14 @@ public class MappingService {
         }
         
         // Стратегия 3: Совпадение по описанию (summary/description)
-        TaskEndpointMapping descriptionMatch = tryDescriptionMatch(task, endpoints);
+        TaskEndpointMapping descriptionMatch = tryDescriptionMatch(task, similar);
         if (descriptionMatch != null && descriptionMatch.getConfidenceScore() > bestScore) {
             bestMatch = descriptionMatch;
             bestScore = descriptionMatch.getConfidenceScore();
         }
         
         // Стратегия 4: Семантический анализ
-        TaskEndpointMapping semanticMatch = trySemanticMatch(task, endpoints);
+        TaskEndpointMapping semanticMatch = trySemanticMatch(task, similar);
         if (semanticMatch != null && semanticMatch.getConfidenceScore() > bestScore) {
             bestMatch = semanticMatch;
             bestScore = semanticMatch.getConfidenceScore();
@@ -266,60 +280,27 @@ public class MappingService {
     /**
      * Стратегия 3: Совпадение по описанию
      */
-    private TaskEndpointMapping tryDescriptionMatch(ProcessTask task, List<EndpointInfo> endpoints) {
-        String taskDescription = buildTaskText(task);
-        if (taskDescription == null || taskDescription.trim().isEmpty()) {
+    private TaskEndpointMapping tryDescriptionMatch(ProcessTask task, List<EndpointSearchIndex.ScoredEndpoint> similar) {
+        if (similar.isEmpty()) {
             return null;
         }
         
-        TaskEndpointMapping bestMatch = null;
-        double bestScore = 0.0;
-        
-        for (EndpointInfo endpoint : endpoints) {
-            String endpointText = endpoint.getFullText();
-            double similarity = semanticAnalysisService.calculateSimilarity(taskDescription, endpointText);
-            
-            if (similarity > bestScore) {
-                bestScore = similarity;
-                bestMatch = createMapping(task, endpoint, similarity * 0.85, "DESCRIPTION");
-            }
-        }
-        
-        return bestMatch;
+        EndpointSearchIndex.ScoredEndpoint best = similar.get(0);
+        return createMapping(task, best.endpoint(), best.score() * 0.85, "DESCRIPTION");
     }
     
     /**
      * Стратегия 4: Семантический анализ
      */
-    private TaskEndpointMapping trySemanticMatch(ProcessTask task, List<EndpointInfo> endpoints) {
-        String taskText = buildTaskText(task);
-        if (taskText == null || taskText.trim().isEmpty()) {
+    private TaskEndpointMapping trySemanticMatch(ProcessTask task, List<EndpointSearchIndex.ScoredEndpoint> similar) {
+        if (similar.isEmpty()) {
             return null;
         }
         
-        // Создаем словарь текстов эндпоинтов
-        Map<String, String> endpointTexts = new HashMap<>();
-        for (EndpointInfo endpoint : endpoints) {
-            String key = endpoint.getPath() + ":" + endpoint.getMethod();
-            endpointTexts.put(key, endpoint.getFullText());
-        }
-        
-        // Находим наиболее похожий эндпоинт
-        Map.Entry<String, Double> bestMatch = semanticAnalysisService.findMostSimilar(taskText, endpointTexts);
-        
-        if (bestMatch != null && bestMatch.getValue() >= SEMANTIC_MATCH_THRESHOLD) {
-            String[] parts = bestMatch.getKey().split(":");
-            String path = parts[0];
-            String method = parts.length > 1 ? parts[1] : "";
-            
-            EndpointInfo endpoint = endpoints.stream()
-                    .filter(e -> e.getPath().equals(path) && e.getMethod().equals(method))
-                    .findFirst()
-                    .orElse(null);
-            
-            if (endpoint != null) {
-                return createMapping(task, endpoint, bestMatch.getValue(), "SEMANTIC");
-            }
+        // Наиболее похожий эндпоинт (список отсортирован по убыванию сходства)
+        EndpointSearchIndex.ScoredEndpoint best = similar.get(0);
+        if (best.score() >= SEMANTIC_MATCH_THRESHOLD) {
+            return createMapping(task, best.endpoint(), best.score(), "SEMANTIC");
         }
         
         return null;
@@ -372,33 +353,20 @@ public class MappingService {
     /**
      * Создает объект несопоставленной задачи
      */
-    private UnmatchedElement createUnmatchedTask(ProcessTask task, List<EndpointInfo> endpoints) {
+    private UnmatchedElement createUnmatchedTask(ProcessTask task, List<EndpointSearchIndex.ScoredEndpoint> similar) {
         UnmatchedElement unmatched = new UnmatchedElement();
         unmatched.setElementId(task.getId());
         unmatched.setElementName(task.getName());
         unmatched.setElementType("TASK");
         
-        // Находим топ-3 наиболее похожих эндпоинта для рекомендаций
-        String taskText = buildTaskText(task);
+        // Топ-3 наиболее похожих эндпоинта для рекомендаций (список уже отсортирован по сходству)
         List<String> recommendations = new ArrayList<>();
-        
-        if (taskText != null && !taskText.trim().isEmpty()) {
-            Map<String, Double> similarities = new HashMap<>();
-            for (EndpointInfo endpoint : endpoints) {
-                double sim = semanticAnalysisService.calculateSimilarity(taskText, endpoint.getFullText());
-                similarities.put(endpoint.getMethod() + " " + endpoint.getPath(), sim);
-            }
-            
-            similarities.entrySet().stream()
-                    .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                    .limit(3)
-                    .forEach(entry -> {
-                        if (entry.getValue() > 0.3) {
-                            recommendations.add("Возможный эндпоинт: " + entry.getKey() + 
-                                              " (сходство: " + String.format("%.2f", entry.getValue()) + ")");
-                        }
-                    });
-        }
+        similar.stream()
+                .limit(3)
+                .filter(scored -> scored.score() > 0.3)
+                .forEach(scored -> recommendations.add("Возможный эндпоинт: "
+                        + scored.endpoint().getMethod() + " " + scored.endpoint().getPath()
+                        + " (сходство: " + String.format("%.2f", scored.score()) + ")"));
         
         if (recommendations.isEmpty()) {
             recommendations.add("Не удалось найти похожие эндпоинты автоматически");
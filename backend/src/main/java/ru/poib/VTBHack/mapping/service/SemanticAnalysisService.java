@@ -1,6 +1,7 @@
 package ru.poib.VTBHack.mapping.service;
 
 import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.mapping.model.EndpointInfo;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -50,7 +51,7 @@ public class SemanticAnalysisService {
     /**
      * Нормализует текст: приводим к нижнему регистру, удаляем лишние пробелы
      */
-    private String normalizeText(String text) {
+    String normalizeText(String text) {
         return text.toLowerCase()
                 .replaceAll("[^\\p{L}\\p{N}\\s]", " ")
                 .replaceAll("\\s+", " ")
@@ -98,7 +99,7 @@ public class SemanticAnalysisService {
     /**
      * Токенизирует текст на слова
      */
-    private List<String> tokenize(String text) {
+    List<String> tokenize(String text) {
         if (text == null || text.trim().isEmpty()) {
             return Collections.emptyList();
         }
@@ -151,6 +152,16 @@ public class SemanticAnalysisService {
         return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
     }
     
+    /**
+     * Строит инвертированный индекс эндпоинтов для поиска без попарного пересчета TF-IDF
+     * 
+     * @param endpoints эндпоинты OpenAPI модели
+     * @return индекс (строится один раз на модель)
+     */
+    public EndpointSearchIndex buildIndex(List<EndpointInfo> endpoints) {
+        return EndpointSearchIndex.build(this, endpoints);
+    }
+    
     /**
      * Находит наиболее похожий текст из списка
      */
@@ -0,0 +1,654 @@
+package ru.poib.VTBHack.parser.model;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Скомпилированные условия переходов (conditionExpression) одного процесса.
+ * Каждое условие разбирается один раз при построении {@link ProcessGraph} в дерево предикатов,
+ * переменные заменяются номерами ячеек (slot). Вычисление не разбирает строку и не создает объектов:
+ * значения переменных связываются из контекста выполнения в массив ячеек ({@link #bind}),
+ * после чего {@link #test} читает их по номеру.
+ * <p>
+ * Поддерживается подмножество JUEL: ${...}, литералы (числа, строки, true/false/null), переменные
+ * с точками (task.field), унарный минус, сравнения (== != < > <= >= и eq ne lt gt le ge), логические
+ * операторы (&& || ! и and or not), скобки, empty. Приоритеты как в JUEL: унарные операторы связывают
+ * сильнее сравнений, поэтому !a == b означает (!a) == b.
+ * Некорректное условие всегда ложно (и пишется в лог с id перехода), отсутствующее - истинно.
+ * Экземпляр неизменяем и безопасен для использования из нескольких потоков
+ */
+@Slf4j
+public final class FlowConditions {
+
+    private static final Node TRUE = new Literal(Boolean.TRUE);
+    private static final Node FALSE = new Literal(Boolean.FALSE);
+
+    // Условие перехода по его номеру; null - условия нет
+    private final Node[] conditions;
+    private final String[] variables;
+    // ".имя" для поиска переменной по окончанию ключа контекста
+    private final String[] suffixes;
+
+    /**
+     * @param edgeIds id переходов (для сообщений о некорректных условиях)
+     * @param expressions условия переходов в том же порядке; null - условия нет
+     */
+    FlowConditions(String[] edgeIds, String[] expressions) {
+        Map<String, Integer> slots = new HashMap<>();
+        Map<String, Node> compiled = new HashMap<>();
+        conditions = new Node[expressions.length];
+        for (int edge = 0; edge < expressions.length; edge++) {
+            String body = unwrap(expressions[edge]);
+            if (!body.isEmpty()) {
+                String edgeId = edgeIds[edge];
+                // Одинаковые условия на разных переходах разбираются один раз;
+                // некорректные не кэшируются, чтобы предупреждение было у каждого перехода
+                Node node = compiled.computeIfAbsent(body, text -> compile(text, edgeId, slots));
+                conditions[edge] = node != null ? node : FALSE;
+            }
+        }
+        variables = new String[slots.size()];
+        slots.forEach((name, slot) -> variables[slot] = name);
+        suffixes = new String[variables.length];
+        for (int slot = 0; slot < variables.length; slot++) {
+            suffixes[slot] = "." + variables[slot];
+        }
+    }
+
+    /**
+     * Количество ячеек: размер массива для {@link #bind}
+     */
+    public int slotCount() {
+        return variables.length;
+    }
+
+    /**
+     * Имена переменных, на которые ссылаются условия, в порядке номеров ячеек
+     */
+    public List<String> variables() {
+        return List.of(variables);
+    }
+
+    public boolean hasCondition(int edge) {
+        return conditions[edge] != null;
+    }
+
+    /**
+     * Заполняет ячейки значениями переменных из контекста.
+     * Переменная ищется по полному имени, затем по окончанию ".имя" (данные, извлеченные шагами),
+     * затем как поле вложенного объекта (task.data.status, где в контексте лежит task.data)
+     *
+     * @param context контекст выполнения
+     * @param slots массив размером не меньше {@link #slotCount()}
+     */
+    public void bind(Map<String, Object> context, Object[] slots) {
+        for (int slot = 0; slot < variables.length; slot++) {
+            slots[slot] = lookup(variables[slot], suffixes[slot], context);
+        }
+    }
+
+    /**
+     * Вычисляет условие перехода над связанными ячейками
+     *
+     * @return true, если условие выполнено или у перехода нет условия
+     */
+    public boolean test(int edge, Object[] slots) {
+        Node condition = conditions[edge];
+        return condition == null || condition.test(slots);
+    }
+
+    private static Object lookup(String name, String suffix, Map<String, Object> context) {
+        if (context == null) {
+            return null;
+        }
+        Object value = context.get(name);
+        if (value != null || context.containsKey(name)) {
+            return value;
+        }
+        for (Map.Entry<String, Object> entry : context.entrySet()) {
+            if (entry.getKey().endsWith(suffix)) {
+                return entry.getValue();
+            }
+        }
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            String parentName = name.substring(0, dot);
+            if (lookup(parentName, "." + parentName, context) instanceof Map<?, ?> parent) {
+                return parent.get(name.substring(dot + 1));
+            }
+        }
+        return null;
+    }
+
+    private static String unwrap(String expression) {
+        if (expression == null) {
+            return "";
+        }
+        String body = expression.trim();
+        if ((body.startsWith("${") || body.startsWith("#{")) && body.endsWith("}")) {
+            body = body.substring(2, body.length() - 1).trim();
+        }
+        return body;
+    }
+
+    /**
+     * @return дерево предикатов или null, если условие не удалось разобрать
+     */
+    private static Node compile(String body, String edgeId, Map<String, Integer> slots) {
+        // Ячейки заводятся только для корректных условий
+        Map<String, Integer> pending = new HashMap<>(slots);
+        try {
+            Parser parser = new Parser(body, pending);
+            Node node = parser.or();
+            parser.expectEnd();
+            slots.putAll(pending);
+            return node;
+        } catch (IllegalArgumentException e) {
+            log.warn("Condition of flow {} is not supported and is treated as false: '{}' ({})",
+                    edgeId, body, e.getMessage());
+            return null;
+        }
+    }
+
+    static boolean truthy(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue() != 0;
+        }
+        if (value instanceof String text) {
+            return "true".equalsIgnoreCase(text.trim());
+        }
+        return true;
+    }
+
+    static boolean isEmpty(Object value) {
+        return value == null
+                || value instanceof String text && text.isEmpty()
+                || value instanceof Collection<?> collection && collection.isEmpty()
+                || value instanceof Map<?, ?> map && map.isEmpty();
+    }
+
+    static boolean compare(Operator operator, Object left, Object right) {
+        double leftNumber = toNumber(left);
+        double rightNumber = toNumber(right);
+        if (!Double.isNaN(leftNumber) && !Double.isNaN(rightNumber)) {
+            if (isIntegral(left) && isIntegral(right)) {
+                // Целые сравниваются точно, без потери разрядов в double
+                return operator.accept(Long.compare(((Number) left).longValue(), ((Number) right).longValue()));
+            }
+            return operator.accept(leftNumber < rightNumber ? -1 : leftNumber > rightNumber ? 1 : 0);
+        }
+        if (operator == Operator.EQ || operator == Operator.NE) {
+            boolean equal = left == null || right == null
+                    ? left == right
+                    : left instanceof Boolean || right instanceof Boolean
+                    ? truthy(left) == truthy(right)
+                    : String.valueOf(left).equals(String.valueOf(right));
+            return (operator == Operator.EQ) == equal;
+        }
+        if (left == null || right == null) {
+            return false;
+        }
+        return operator.accept(String.valueOf(left).compareTo(String.valueOf(right)));
+    }
+
+    /**
+     * Унарный минус: целые остаются целыми, строки с числом приводятся к числу, остальное - null
+     */
+    static Object negate(Object value) {
+        if (isIntegral(value)) {
+            return -((Number) value).longValue();
+        }
+        double number = toNumber(value);
+        return Double.isNaN(number) ? null : -number;
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * Числовое значение или NaN, если значение не число и не строка с десятичным числом
+     */
+    private static double toNumber(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text && isDecimal(text)) {
+            return Double.parseDouble(text);
+        }
+        return Double.NaN;
+    }
+
+    private static boolean isDecimal(String text) {
+        int length = text.length();
+        int i = length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        boolean digits = false;
+        boolean dot = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+    enum Operator {
+        EQ, NE, LT, GT, LE, GE;
+
+        boolean isEquality() {
+            return this == EQ || this == NE;
+        }
+
+        boolean accept(int comparison) {
+            return switch (this) {
+                case EQ -> comparison == 0;
+                case NE -> comparison != 0;
+                case LT -> comparison < 0;
+                case GT -> comparison > 0;
+                case LE -> comparison <= 0;
+                case GE -> comparison >= 0;
+            };
+        }
+
+        static Operator of(String symbol) {
+            return switch (symbol) {
+                case "==" -> EQ;
+                case "!=" -> NE;
+                case "<" -> LT;
+                case ">" -> GT;
+                case "<=" -> LE;
+                case ">=" -> GE;
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * Узел дерева предикатов. Логические узлы возвращают Boolean.TRUE/FALSE без создания объектов
+     */
+    private abstract static class Node {
+        abstract Object value(Object[] slots);
+
+        boolean test(Object[] slots) {
+            return truthy(value(slots));
+        }
+    }
+
+    private static final class Literal extends Node {
+        private final Object value;
+
+        Literal(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object value(Object[] slots) {
+            return value;
+        }
+    }
+
+    private static final class Variable extends Node {
+        private final int slot;
+
+        Variable(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        Object value(Object[] slots) {
+            return slots[slot];
+        }
+    }
+
+    private static final class Negate extends Node {
+        private final Node operand;
+
+        Negate(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        Object value(Object[] slots) {
+            return negate(operand.value(slots));
+        }
+    }
+
+    private abstract static class Predicate extends Node {
+        @Override
+        final Object value(Object[] slots) {
+            return test(slots) ? Boolean.TRUE : Boolean.FALSE;
+        }
+
+        @Override
+        abstract boolean test(Object[] slots);
+    }
+
+    private static final class Not extends Predicate {
+        private final Node operand;
+
+        Not(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean test(Object[] slots) {
+            return !operand.test(slots);
+        }
+    }
+
+    private static final class Empty extends Predicate {
+        private final Node operand;
+
+        Empty(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean test(Object[] slots) {
+            return isEmpty(operand.value(slots));
+        }
+    }
+
+    private static final class And extends Predicate {
+        private final Node left;
+        private final Node right;
+
+        And(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(Object[] slots) {
+            return left.test(slots) && right.test(slots);
+        }
+    }
+
+    private static final class Or extends Predicate {
+        private final Node left;
+        private final Node right;
+
+        Or(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(Object[] slots) {
+            return left.test(slots) || right.test(slots);
+        }
+    }
+
+    private static final class Comparison extends Predicate {
+        private final Operator operator;
+        private final Node left;
+        private final Node right;
+
+        Comparison(Operator operator, Node left, Node right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(Object[] slots) {
+            return compare(operator, left.value(slots), right.value(slots));
+        }
+    }
+
+    /**
+     * Строит дерево предикатов рекурсивным спуском; переменным назначаются ячейки
+     */
+    private static final class Parser {
+        private final Lexer lexer;
+        private final Map<String, Integer> slots;
+        private Token current;
+
+        private Parser(String body, Map<String, Integer> slots) {
+            this.lexer = new Lexer(body);
+            this.slots = slots;
+            this.current = lexer.next();
+        }
+
+        private Node or() {
+            Node left = and();
+            while (current.isOperator("||")) {
+                advance();
+                left = new Or(left, and());
+            }
+            return left;
+        }
+
+        private Node and() {
+            Node left = equality();
+            while (current.isOperator("&&")) {
+                advance();
+                left = new And(left, equality());
+            }
+            return left;
+        }
+
+        private Node equality() {
+            Node left = relational();
+            for (Operator operator = operator(); operator != null && operator.isEquality(); operator = operator()) {
+                advance();
+                left = new Comparison(operator, left, relational());
+            }
+            return left;
+        }
+
+        private Node relational() {
+            Node left = unary();
+            for (Operator operator = operator(); operator != null && !operator.isEquality(); operator = operator()) {
+                advance();
+                left = new Comparison(operator, left, unary());
+            }
+            return left;
+        }
+
+        private Node unary() {
+            if (current.isOperator("!")) {
+                advance();
+                return new Not(unary());
+            }
+            if (current.isOperator("empty")) {
+                advance();
+                return new Empty(unary());
+            }
+            if (current.isOperator("-")) {
+                advance();
+                Node operand = unary();
+                // Отрицательный литерал вычисляется при разборе
+                return operand instanceof Literal literal && literal.value instanceof Number
+                        ? new Literal(negate(literal.value))
+                        : new Negate(operand);
+            }
+            return primary();
+        }
+
+        private Operator operator() {
+            return current.type == TokenType.OPERATOR ? Operator.of(current.text) : null;
+        }
+
+        private Node primary() {
+            Token token = current;
+            switch (token.type) {
+                case OPEN -> {
+                    advance();
+                    Node node = or();
+                    if (current.type != TokenType.CLOSE) {
+                        throw new IllegalArgumentException("Expected )");
+                    }
+                    advance();
+                    return node;
+                }
+                case LITERAL -> {
+                    advance();
+                    return token.value == Boolean.TRUE ? TRUE
+                            : token.value == Boolean.FALSE ? FALSE
+                            : new Literal(token.value);
+                }
+                case IDENTIFIER -> {
+                    advance();
+                    return new Variable(slots.computeIfAbsent(token.text, name -> slots.size()));
+                }
+                case END -> throw new IllegalArgumentException("Unexpected end of expression");
+                default -> throw new IllegalArgumentException("Unexpected token " + token.text);
+            }
+        }
+
+        private void expectEnd() {
+            if (current.type != TokenType.END) {
+                throw new IllegalArgumentException("Unexpected token " + current.text);
+            }
+        }
+
+        private void advance() {
+            current = lexer.next();
+        }
+    }
+
+    private enum TokenType { LITERAL, IDENTIFIER, OPERATOR, OPEN, CLOSE, END }
+
+    private static final class Token {
+        final TokenType type;
+        final String text;
+        final Object value;
+
+        Token(TokenType type, String text, Object value) {
+            this.type = type;
+            this.text = text;
+            this.value = value;
+        }
+
+        boolean isOperator(String operator) {
+            return type == TokenType.OPERATOR && text.equals(operator);
+        }
+    }
+
+    /**
+     * Разбивает выражение на лексемы; словесные операторы JUEL приводятся к символьным
+     */
+    private static final class Lexer {
+        // Двухсимвольные операторы проверяются раньше односимвольных
+        private static final List<String> SYMBOLS = List.of("==", "!=", "<=", ">=", "&&", "||", "<", ">", "!", "-");
+
+        private final String text;
+        private int position;
+
+        Lexer(String text) {
+            this.text = text;
+        }
+
+        Token next() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            if (position >= text.length()) {
+                return new Token(TokenType.END, "", null);
+            }
+            char c = text.charAt(position);
+            if (c == '(') {
+                position++;
+                return new Token(TokenType.OPEN, "(", null);
+            }
+            if (c == ')') {
+                position++;
+                return new Token(TokenType.CLOSE, ")", null);
+            }
+            if (c == '\'' || c == '"') {
+                return string(c);
+            }
+            if (Character.isDigit(c)) {
+                return number();
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                return word();
+            }
+            return symbol();
+        }
+
+        private Token string(char quote) {
+            StringBuilder value = new StringBuilder();
+            position++;
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '\\' && position < text.length()) {
+                    value.append(text.charAt(position++));
+                } else if (c == quote) {
+                    return new Token(TokenType.LITERAL, value.toString(), value.toString());
+                } else {
+                    value.append(c);
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+
+        private Token number() {
+            int start = position;
+            while (position < text.length()
+                    && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (!isDecimal(literal)) {
+                throw new IllegalArgumentException("Invalid number " + literal);
+            }
+            // Целый литерал сравнивается с целыми значениями точно
+            if (literal.indexOf('.') < 0 && literal.length() < 19) {
+                return new Token(TokenType.LITERAL, literal, Long.parseLong(literal));
+            }
+            return new Token(TokenType.LITERAL, literal, Double.parseDouble(literal));
+        }
+
+        private Token word() {
+            int start = position;
+            while (position < text.length()
+                    && (Character.isJavaIdentifierPart(text.charAt(position)) || text.charAt(position) == '.')) {
+                position++;
+            }
+            String word = text.substring(start, position);
+            return switch (word) {
+                case "true" -> new Token(TokenType.LITERAL, word, Boolean.TRUE);
+                case "false" -> new Token(TokenType.LITERAL, word, Boolean.FALSE);
+                case "null" -> new Token(TokenType.LITERAL, word, null);
+                case "and" -> new Token(TokenType.OPERATOR, "&&", null);
+                case "or" -> new Token(TokenType.OPERATOR, "||", null);
+                case "not" -> new Token(TokenType.OPERATOR, "!", null);
+                case "eq" -> new Token(TokenType.OPERATOR, "==", null);
+                case "ne" -> new Token(TokenType.OPERATOR, "!=", null);
+                case "lt" -> new Token(TokenType.OPERATOR, "<", null);
+                case "gt" -> new Token(TokenType.OPERATOR, ">", null);
+                case "le" -> new Token(TokenType.OPERATOR, "<=", null);
+                case "ge" -> new Token(TokenType.OPERATOR, ">=", null);
+                case "empty" -> new Token(TokenType.OPERATOR, "empty", null);
+                default -> new Token(TokenType.IDENTIFIER, word, null);
+            };
+        }
+
+        private Token symbol() {
+            for (String operator : SYMBOLS) {
+                if (text.startsWith(operator, position)) {
+                    position += operator.length();
+                    return new Token(TokenType.OPERATOR, operator, null);
+                }
+            }
+            throw new IllegalArgumentException("Unexpected character " + text.charAt(position));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.poib.VTBHack.parser.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sequence flow между элементами процесса
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessFlow {
+    private String id;
+    private String sourceId;
+    private String targetId;
+    private String name;
+    private String conditionExpression; // Условие перехода из шлюза (может быть null)
+}
@@ -0,0 +1,843 @@
+package ru.poib.VTBHack.parser.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Граф процесса в компактном виде: элементы пронумерованы, исходящие и входящие переходы
+ * хранятся в массивах смежности (CSR). Все ветки шлюзов сохраняются, обходы занимают O(V+E);
+ * ближайшие задачи ({@link #nextTasks}) вычисляются один раз при построении.
+ * Подпроцесс выполняется на своем месте: переход в подпроцесс ведет к его внутренним стартовым элементам,
+ * а исходящие переходы подпроцесса следуют за его внутренними завершающими элементами
+ * (порядок выполнения, ближайшие задачи). Стартовые элементы процесса - только элементы верхнего уровня.
+ * Экземпляр неизменяем и безопасен для использования из нескольких потоков
+ */
+public final class ProcessGraph {
+
+    /**
+     * Вид элемента, определяющий семантику выполнения
+     */
+    public enum NodeKind {
+        START_EVENT,
+        END_EVENT,
+        TASK,
+        EXCLUSIVE_GATEWAY,
+        PARALLEL_GATEWAY,
+        INCLUSIVE_GATEWAY,
+        EVENT_BASED_GATEWAY,
+        EVENT,
+        SUB_PROCESS,
+        OTHER;
+
+        static NodeKind of(String type) {
+            if (type == null) {
+                return OTHER;
+            }
+            return switch (type) {
+                case "StartEvent" -> START_EVENT;
+                case "EndEvent" -> END_EVENT;
+                case "ExclusiveGateway" -> EXCLUSIVE_GATEWAY;
+                case "ParallelGateway" -> PARALLEL_GATEWAY;
+                case "InclusiveGateway", "ComplexGateway" -> INCLUSIVE_GATEWAY;
+                case "EventGateway", "EventBasedGateway" -> EVENT_BASED_GATEWAY;
+                case "SubProcess", "Transaction" -> SUB_PROCESS;
+                case "IntermediateCatchEvent", "IntermediateThrowEvent", "BoundaryEvent" -> EVENT;
+                default -> type.endsWith("Task") ? TASK : OTHER;
+            };
+        }
+
+        public boolean isGateway() {
+            return this == EXCLUSIVE_GATEWAY || this == PARALLEL_GATEWAY
+                    || this == INCLUSIVE_GATEWAY || this == EVENT_BASED_GATEWAY;
+        }
+    }
+
+    private static final int[] NO_NODES = new int[0];
+
+    private final String[] nodeIds;
+    private final String[] nodeNames;
+    private final NodeKind[] nodeKinds;
+    private final int[] defaultEdges;
+    private final int[] parents;
+    private final Map<String, Integer> nodeIndex;
+
+    private final String[] edgeIds;
+    private final String[] edgeNames;
+    private final String[] edgeConditions;
+    private final FlowConditions conditions;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+
+    // outgoingEdges[outgoingOffsets[n] .. outgoingOffsets[n + 1]) - исходящие переходы элемента n
+    private final int[] outgoingOffsets;
+    private final int[] outgoingEdges;
+    private final int[] incomingOffsets;
+    private final int[] incomingEdges;
+
+    // Внутренние стартовые и завершающие элементы подпроцессов (CSR по номеру подпроцесса)
+    private final int[] innerStartOffsets;
+    private final int[] innerStartNodes;
+    private final int[] innerEndOffsets;
+    private final int[] innerEndNodes;
+
+    // Смежность выполнения: переходы графа, где подпроцесс ведет к своим стартовым элементам,
+    // а его завершающие элементы - к целям исходящих переходов подпроцесса
+    private final int[] stepOffsets;
+    private final int[] stepNodes;
+    private final boolean[] stepBackEdges;
+
+    // nextTaskNodes[nextTaskOffsets[n] .. nextTaskOffsets[n + 1]) - ближайшие задачи после элемента n
+    private final int[] nextTaskOffsets;
+    private final int[] nextTaskNodes;
+
+    // Достижимость от стартовых элементов и переходы, замыкающие циклы (по обходу в глубину)
+    private final boolean[] reachable;
+    private final boolean[] backEdges;
+
+    private ProcessGraph(Builder builder) {
+        int nodeCount = builder.nodeIds.size();
+        int edgeCount = builder.edgeSources.size();
+
+        nodeIds = builder.nodeIds.toArray(new String[0]);
+        nodeNames = builder.nodeNames.toArray(new String[0]);
+        nodeKinds = builder.nodeKinds.toArray(new NodeKind[0]);
+        nodeIndex = Map.copyOf(builder.nodeIndex);
+
+        edgeIds = builder.edgeIds.toArray(new String[0]);
+        edgeNames = builder.edgeNames.toArray(new String[0]);
+        edgeConditions = builder.edgeConditions.toArray(new String[0]);
+        conditions = new FlowConditions(edgeIds, edgeConditions);
+        edgeSources = builder.edgeSources.stream().mapToInt(Integer::intValue).toArray();
+        edgeTargets = builder.edgeTargets.stream().mapToInt(Integer::intValue).toArray();
+
+        outgoingOffsets = new int[nodeCount + 1];
+        incomingOffsets = new int[nodeCount + 1];
+        outgoingEdges = new int[edgeCount];
+        incomingEdges = new int[edgeCount];
+        fill(edgeSources, outgoingOffsets, outgoingEdges);
+        fill(edgeTargets, incomingOffsets, incomingEdges);
+
+        defaultEdges = new int[nodeCount];
+        Arrays.fill(defaultEdges, -1);
+        Map<String, Integer> edgeIndex = new HashMap<>();
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (edgeIds[edge] != null) {
+                edgeIndex.putIfAbsent(edgeIds[edge], edge);
+            }
+        }
+        builder.defaultFlows.forEach((node, flowId) -> {
+            Integer edge = edgeIndex.get(flowId);
+            if (edge != null && edgeSources[edge] == node) {
+                defaultEdges[node] = edge;
+            }
+        });
+        parents = new int[nodeCount];
+        Arrays.fill(parents, -1);
+        builder.parents.forEach((node, parentId) -> {
+            Integer parent = nodeIndex.get(parentId);
+            if (parent != null && parent != node && nodeKinds[parent] == NodeKind.SUB_PROCESS) {
+                parents[node] = parent;
+            }
+        });
+
+        innerStartOffsets = new int[nodeCount + 1];
+        innerStartNodes = collectInnerStarts(innerStartOffsets);
+
+        reachable = new boolean[nodeCount];
+        backEdges = findBackEdges(startNodes(), reachable);
+
+        innerEndOffsets = new int[nodeCount + 1];
+        innerEndNodes = collectInnerEnds(innerEndOffsets);
+
+        stepOffsets = new int[nodeCount + 1];
+        StepBuilder steps = new StepBuilder(edgeCount + nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            stepOffsets[node] = steps.size;
+            addSteps(node, steps);
+        }
+        stepOffsets[nodeCount] = steps.size;
+        stepNodes = Arrays.copyOf(steps.nodes, steps.size);
+        stepBackEdges = Arrays.copyOf(steps.back, steps.size);
+
+        nextTaskOffsets = new int[nodeCount + 1];
+        nextTaskNodes = computeNextTasks(stepOffsets, stepNodes, nextTaskOffsets);
+    }
+
+    /**
+     * Внутренние стартовые элементы подпроцессов: start event подпроцесса,
+     * а при их отсутствии - его элементы без входящих переходов
+     */
+    private int[] collectInnerStarts(int[] offsets) {
+        int nodeCount = nodeIds.length;
+        int[] counts = new int[nodeCount];
+        boolean[] hasStartEvent = new boolean[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            if (parents[node] >= 0 && nodeKinds[node] == NodeKind.START_EVENT) {
+                hasStartEvent[parents[node]] = true;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            if (isInnerStart(node, hasStartEvent)) {
+                counts[parents[node]]++;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node + 1] = offsets[node] + counts[node];
+        }
+        int[] result = new int[offsets[nodeCount]];
+        int[] next = Arrays.copyOf(offsets, nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            if (isInnerStart(node, hasStartEvent)) {
+                result[next[parents[node]]++] = node;
+            }
+        }
+        return result;
+    }
+
+    private boolean isInnerStart(int node, boolean[] hasStartEvent) {
+        int parent = parents[node];
+        return parent >= 0 && (hasStartEvent[parent]
+                ? nodeKinds[node] == NodeKind.START_EVENT
+                : inDegree(node) == 0);
+    }
+
+    /**
+     * Внутренние завершающие элементы подпроцессов: достижимые элементы подпроцесса без исходящих переходов,
+     * не замыкающих цикл. Подпроцесс завершается, когда до них дошло выполнение
+     */
+    private int[] collectInnerEnds(int[] offsets) {
+        int nodeCount = nodeIds.length;
+        int[] counts = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            if (isInnerEnd(node)) {
+                counts[parents[node]]++;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node + 1] = offsets[node] + counts[node];
+        }
+        int[] result = new int[offsets[nodeCount]];
+        int[] next = Arrays.copyOf(offsets, nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            if (isInnerEnd(node)) {
+                result[next[parents[node]]++] = node;
+            }
+        }
+        return result;
+    }
+
+    private boolean isInnerEnd(int node) {
+        if (parents[node] < 0 || !reachable[node]) {
+            return false;
+        }
+        for (int i = outgoingOffsets[node]; i < outgoingOffsets[node + 1]; i++) {
+            if (!backEdges[outgoingEdges[i]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Последователи элемента в смежности выполнения
+     */
+    private void addSteps(int node, StepBuilder steps) {
+        boolean entersSubProcess = innerStartOffsets[node] < innerStartOffsets[node + 1];
+        boolean hasInnerEnds = innerEndOffsets[node] < innerEndOffsets[node + 1];
+        if (entersSubProcess) {
+            for (int i = innerStartOffsets[node]; i < innerStartOffsets[node + 1]; i++) {
+                steps.add(innerStartNodes[i], false);
+            }
+        }
+        if (!entersSubProcess || !hasInnerEnds) {
+            addOutgoingSteps(node, steps);
+        }
+        if (!isInnerEnd(node) || entersSubProcess && hasInnerEnds) {
+            return;
+        }
+        // Завершающий элемент подпроцесса ведет туда же, куда исходящие переходы подпроцесса;
+        // подпроцесс без исходящих переходов сам завершает объемлющий подпроцесс
+        int scope = parents[node];
+        for (int depth = 0; scope >= 0 && depth < nodeIds.length; depth++) {
+            if (outDegree(scope) > 0) {
+                addOutgoingSteps(scope, steps);
+                return;
+            }
+            if (!isInnerEnd(scope)) {
+                return;
+            }
+            scope = parents[scope];
+        }
+    }
+
+    private void addOutgoingSteps(int node, StepBuilder steps) {
+        for (int i = outgoingOffsets[node]; i < outgoingOffsets[node + 1]; i++) {
+            int edge = outgoingEdges[i];
+            steps.add(edgeTargets[edge], backEdges[edge]);
+        }
+    }
+
+    /**
+     * Раскладывает ребра по элементам подсчетом: порядок переходов элемента совпадает с порядком добавления
+     */
+    private static void fill(int[] endpoints, int[] offsets, int[] edges) {
+        for (int endpoint : endpoints) {
+            offsets[endpoint + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int edge = 0; edge < endpoints.length; edge++) {
+            edges[next[endpoints[edge]]++] = edge;
+        }
+    }
+
+    /**
+     * Строит граф по элементам и переходам модели. Задачи попадают в граф всегда;
+     * элементы, встречающиеся только в переходах, добавляются с видом OTHER
+     */
+    public static ProcessGraph of(List<ProcessTask> tasks, List<ProcessNode> nodes, List<ProcessFlow> flows) {
+        Builder builder = new Builder();
+        if (tasks != null) {
+            for (ProcessTask task : tasks) {
+                builder.addNode(task.getId(), task.getName(), NodeKind.TASK);
+            }
+        }
+        if (nodes != null) {
+            for (ProcessNode node : nodes) {
+                int index = builder.addNode(node.getId(), node.getName(), NodeKind.of(node.getType()));
+                if (node.getDefaultFlowId() != null) {
+                    builder.defaultFlows.put(index, node.getDefaultFlowId());
+                }
+                if (node.getParentId() != null) {
+                    builder.parents.put(index, node.getParentId());
+                }
+            }
+        }
+        if (flows != null) {
+            for (ProcessFlow flow : flows) {
+                builder.addEdge(flow.getId(), flow.getSourceId(), flow.getTargetId(),
+                        flow.getName(), flow.getConditionExpression());
+            }
+        }
+        return new ProcessGraph(builder);
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public int edgeCount() {
+        return edgeSources.length;
+    }
+
+    /**
+     * Номер элемента по id или -1
+     */
+    public int indexOf(String nodeId) {
+        Integer index = nodeId != null ? nodeIndex.get(nodeId) : null;
+        return index != null ? index : -1;
+    }
+
+    public String nodeId(int node) {
+        return nodeIds[node];
+    }
+
+    public String nodeName(int node) {
+        return nodeNames[node];
+    }
+
+    public NodeKind kind(int node) {
+        return nodeKinds[node];
+    }
+
+    public boolean isTask(int node) {
+        return nodeKinds[node] == NodeKind.TASK;
+    }
+
+    /**
+     * Переход по умолчанию шлюза или -1
+     */
+    public int defaultEdge(int node) {
+        return defaultEdges[node];
+    }
+
+    /**
+     * Подпроцесс, в который вложен элемент, или -1 для элемента верхнего уровня
+     */
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * Внутренние стартовые элементы подпроцесса (пусто, если элемент не подпроцесс)
+     */
+    public int[] innerStarts(int subProcess) {
+        return Arrays.copyOfRange(innerStartNodes, innerStartOffsets[subProcess], innerStartOffsets[subProcess + 1]);
+    }
+
+    /**
+     * Внутренние завершающие элементы подпроцесса: достижимые элементы без исходящих переходов,
+     * не замыкающих цикл
+     */
+    public int[] innerEnds(int subProcess) {
+        return Arrays.copyOfRange(innerEndNodes, innerEndOffsets[subProcess], innerEndOffsets[subProcess + 1]);
+    }
+
+    public int outDegree(int node) {
+        return outgoingOffsets[node + 1] - outgoingOffsets[node];
+    }
+
+    public int inDegree(int node) {
+        return incomingOffsets[node + 1] - incomingOffsets[node];
+    }
+
+    /**
+     * i-й исходящий переход элемента (0 <= i < outDegree)
+     */
+    public int outgoingEdge(int node, int i) {
+        return outgoingEdges[outgoingOffsets[node] + i];
+    }
+
+    /**
+     * i-й входящий переход элемента (0 <= i < inDegree)
+     */
+    public int incomingEdge(int node, int i) {
+        return incomingEdges[incomingOffsets[node] + i];
+    }
+
+    public int edgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public String edgeId(int edge) {
+        return edgeIds[edge];
+    }
+
+    public String edgeName(int edge) {
+        return edgeNames[edge];
+    }
+
+    public String edgeCondition(int edge) {
+        return edgeConditions[edge];
+    }
+
+    /**
+     * Условия переходов, скомпилированные при построении графа (номера совпадают с номерами переходов)
+     */
+    public FlowConditions conditions() {
+        return conditions;
+    }
+
+    /**
+     * Замыкает ли переход цикл (ведет к элементу, из которого достижим его источник, по обходу от старта)
+     */
+    public boolean isBackEdge(int edge) {
+        return backEdges[edge];
+    }
+
+    /**
+     * Достижим ли элемент от стартовых элементов
+     */
+    public boolean isReachable(int node) {
+        return reachable[node];
+    }
+
+    /**
+     * Есть ли в процессе шлюзы (ветвления, требующие вычисления условий или синхронизации)
+     */
+    public boolean hasGateways() {
+        for (NodeKind kind : nodeKinds) {
+            if (kind.isGateway()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Непосредственные последователи элемента в порядке переходов
+     */
+    public int[] successors(int node) {
+        int[] result = new int[outDegree(node)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = edgeTargets[outgoingEdge(node, i)];
+        }
+        return result;
+    }
+
+    /**
+     * Непосредственные предшественники элемента
+     */
+    public int[] predecessors(int node) {
+        int[] result = new int[inDegree(node)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = edgeSources[incomingEdge(node, i)];
+        }
+        return result;
+    }
+
+    /**
+     * Ближайшие задачи, достижимые из элемента через шлюзы и события (сами задачи не проходятся).
+     * Вычислены при построении графа
+     */
+    public int[] nextTasks(int node) {
+        int from = nextTaskOffsets[node];
+        int to = nextTaskOffsets[node + 1];
+        return from == to ? NO_NODES : Arrays.copyOfRange(nextTaskNodes, from, to);
+    }
+
+    /**
+     * Смежность "элемент -> ближайшие задачи" в виде CSR. Задача прерывает обход, поэтому результат элемента -
+     * объединение его последователей-задач и результатов последователей, не являющихся задачами.
+     * Такие элементы обходятся один раз алгоритмом Тарьяна: компоненты сильной связности выдаются
+     * в обратном топологическом порядке, и результаты последователей к этому моменту готовы (цикл из шлюзов
+     * получает общий результат). Время - O(V+E) плюс суммарный размер объединяемых результатов
+     *
+     * @param successorOffsets смежность последователей (CSR)
+     * @param successorNodes последователи элементов
+     * @param offsets заполняется смещениями результата
+     */
+    private int[] computeNextTasks(int[] successorOffsets, int[] successorNodes, int[] offsets) {
+        int nodeCount = nodeIds.length;
+        // Результаты элементов, не являющихся задачами; null - еще не вычислен
+        int[][] reached = new int[nodeCount][];
+        int[] index = new int[nodeCount];
+        Arrays.fill(index, -1);
+        int[] low = new int[nodeCount];
+        boolean[] onStack = new boolean[nodeCount];
+        int[] component = new int[nodeCount];
+        int componentSize = 0;
+        // Стек обхода без рекурсии: элемент и позиция следующего последователя
+        int[] callNodes = new int[nodeCount];
+        int[] callNext = new int[nodeCount];
+        int counter = 0;
+        int[] mark = new int[nodeCount];
+        int[] buffer = new int[nodeCount];
+        int epoch = 0;
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (isTask(root) || index[root] >= 0) {
+                continue;
+            }
+            index[root] = low[root] = counter++;
+            component[componentSize++] = root;
+            onStack[root] = true;
+            callNodes[0] = root;
+            callNext[0] = successorOffsets[root];
+            int depth = 1;
+            while (depth > 0) {
+                int node = callNodes[depth - 1];
+                if (callNext[depth - 1] < successorOffsets[node + 1]) {
+                    int target = successorNodes[callNext[depth - 1]++];
+                    if (isTask(target)) {
+                        continue;
+                    }
+                    if (index[target] < 0) {
+                        index[target] = low[target] = counter++;
+                        component[componentSize++] = target;
+                        onStack[target] = true;
+                        callNodes[depth] = target;
+                        callNext[depth++] = successorOffsets[target];
+                    } else if (onStack[target]) {
+                        low[node] = Math.min(low[node], index[target]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (depth > 0) {
+                    int caller = callNodes[depth - 1];
+                    low[caller] = Math.min(low[caller], low[node]);
+                }
+                if (low[node] != index[node]) {
+                    continue;
+                }
+                int from = componentSize - 1;
+                while (component[from] != node) {
+                    from--;
+                }
+                epoch++;
+                int size = 0;
+                for (int i = from; i < componentSize; i++) {
+                    size = collectNextTasks(component[i], successorOffsets, successorNodes, reached,
+                            mark, epoch, buffer, size);
+                }
+                int[] result = Arrays.copyOf(buffer, size);
+                for (int i = from; i < componentSize; i++) {
+                    reached[component[i]] = result;
+                    onStack[component[i]] = false;
+                }
+                componentSize = from;
+            }
+        }
+
+        // Задачи не входят в компоненты: их результат собирается из готовых результатов последователей
+        for (int node = 0; node < nodeCount; node++) {
+            if (isTask(node)) {
+                int size = collectNextTasks(node, successorOffsets, successorNodes, reached, mark, ++epoch, buffer, 0);
+                reached[node] = Arrays.copyOf(buffer, size);
+            }
+        }
+        int total = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            total += reached[node].length;
+        }
+        int[] found = new int[total];
+        total = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node] = total;
+            System.arraycopy(reached[node], 0, found, total, reached[node].length);
+            total += reached[node].length;
+        }
+        offsets[nodeCount] = total;
+        return found;
+    }
+
+    /**
+     * Добавляет в buffer последователей-задачи элемента и готовые результаты остальных последователей
+     * (элементы текущей компоненты еще не вычислены и пропускаются), без повторов в пределах epoch
+     *
+     * @return новый размер buffer
+     */
+    private int collectNextTasks(int node, int[] successorOffsets, int[] successorNodes, int[][] reached,
+                                 int[] mark, int epoch, int[] buffer, int size) {
+        for (int i = successorOffsets[node]; i < successorOffsets[node + 1]; i++) {
+            int target = successorNodes[i];
+            if (isTask(target)) {
+                if (mark[target] != epoch) {
+                    mark[target] = epoch;
+                    buffer[size++] = target;
+                }
+                continue;
+            }
+            int[] result = reached[target];
+            if (result == null) {
+                continue;
+            }
+            for (int task : result) {
+                if (mark[task] != epoch) {
+                    mark[task] = epoch;
+                    buffer[size++] = task;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Стартовые элементы процесса: start event верхнего уровня, а при их отсутствии - элементы
+     * верхнего уровня без входящих переходов. Элементы подпроцессов запускаются при входе в подпроцесс
+     */
+    public int[] startNodes() {
+        List<Integer> starts = new ArrayList<>();
+        for (int node = 0; node < nodeKinds.length; node++) {
+            if (parents[node] < 0 && nodeKinds[node] == NodeKind.START_EVENT) {
+                starts.add(node);
+            }
+        }
+        if (starts.isEmpty()) {
+            for (int node = 0; node < nodeKinds.length; node++) {
+                if (parents[node] < 0 && inDegree(node) == 0) {
+                    starts.add(node);
+                }
+            }
+        }
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Элементы в порядке выполнения: сначала достижимые из стартовых в топологическом порядке
+     * по уровням (ветки шлюза идут рядом, в порядке объявления переходов; переходы, замыкающие циклы,
+     * не учитываются), затем недостижимые в порядке номеров. Элементы подпроцесса идут после подпроцесса
+     * и раньше элементов, следующих за ним. O(V+E)
+     */
+    public int[] topologicalOrder() {
+        int nodeCount = nodeIds.length;
+        int[] starts = startNodes();
+
+        int[] inDegree = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            if (!reachable[node]) {
+                continue;
+            }
+            for (int i = stepOffsets[node]; i < stepOffsets[node + 1]; i++) {
+                if (!stepBackEdges[i]) {
+                    inDegree[stepNodes[i]]++;
+                }
+            }
+        }
+
+        // Алгоритм Кана: без обратных переходов достижимая часть графа ациклична
+        int[] order = new int[nodeCount];
+        boolean[] queued = new boolean[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int start : starts) {
+            if (inDegree[start] == 0 && !queued[start]) {
+                queued[start] = true;
+                order[tail++] = start;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            if (reachable[node] && inDegree[node] == 0 && !queued[node]) {
+                queued[node] = true;
+                order[tail++] = node;
+            }
+        }
+        while (head < tail) {
+            int node = order[head++];
+            for (int i = stepOffsets[node]; i < stepOffsets[node + 1]; i++) {
+                int target = stepNodes[i];
+                if (!stepBackEdges[i] && --inDegree[target] == 0 && !queued[target]) {
+                    queued[target] = true;
+                    order[tail++] = target;
+                }
+            }
+        }
+
+        for (int node = 0; node < nodeCount; node++) {
+            if (!queued[node]) {
+                order[tail++] = node;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Обход в глубину от стартовых элементов без рекурсии: отмечает достижимые элементы
+     * и переходы на элемент, находящийся в текущем пути (замыкающие цикл).
+     * Из подпроцесса обход заходит в его внутренние стартовые элементы
+     */
+    private boolean[] findBackEdges(int[] starts, boolean[] visited) {
+        boolean[] backEdge = new boolean[edgeSources.length];
+        boolean[] onPath = new boolean[nodeIds.length];
+        // Стек обхода: элемент и номер следующего исходящего перехода (после переходов - внутренние старты)
+        int[] stackNodes = new int[nodeIds.length];
+        int[] stackNext = new int[nodeIds.length];
+
+        for (int start : starts) {
+            if (visited[start]) {
+                continue;
+            }
+            int depth = 0;
+            visited[start] = true;
+            onPath[start] = true;
+            stackNodes[depth] = start;
+            stackNext[depth++] = 0;
+            while (depth > 0) {
+                int node = stackNodes[depth - 1];
+                int next = stackNext[depth - 1]++;
+                int innerStarts = innerStartOffsets[node + 1] - innerStartOffsets[node];
+                if (next == outDegree(node) + innerStarts) {
+                    onPath[node] = false;
+                    depth--;
+                    continue;
+                }
+                int target;
+                if (next < outDegree(node)) {
+                    int edge = outgoingEdge(node, next);
+                    target = edgeTargets[edge];
+                    if (onPath[target]) {
+                        backEdge[edge] = true;
+                        continue;
+                    }
+                } else {
+                    target = innerStartNodes[innerStartOffsets[node] + next - outDegree(node)];
+                }
+                if (!visited[target] && !onPath[target]) {
+                    visited[target] = true;
+                    onPath[target] = true;
+                    stackNodes[depth] = target;
+                    stackNext[depth++] = 0;
+                }
+            }
+        }
+        return backEdge;
+    }
+
+    @Override
+    public String toString() {
+        return "ProcessGraph{nodes=" + nodeCount() + ", edges=" + edgeCount() + "}";
+    }
+
+    /**
+     * Растущие массивы смежности выполнения
+     */
+    private static final class StepBuilder {
+        private int[] nodes;
+        private boolean[] back;
+        private int size;
+
+        private StepBuilder(int capacity) {
+            nodes = new int[Math.max(1, capacity)];
+            back = new boolean[nodes.length];
+        }
+
+        private void add(int node, boolean backEdge) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                back = Arrays.copyOf(back, size * 2);
+            }
+            nodes[size] = node;
+            back[size++] = backEdge;
+        }
+    }
+
+    private static final class Builder {
+        private final List<String> nodeIds = new ArrayList<>();
+        private final List<String> nodeNames = new ArrayList<>();
+        private final List<NodeKind> nodeKinds = new ArrayList<>();
+        private final Map<String, Integer> nodeIndex = new HashMap<>();
+        private final Map<Integer, String> defaultFlows = new HashMap<>();
+        private final Map<Integer, String> parents = new HashMap<>();
+        private final List<String> edgeIds = new ArrayList<>();
+        private final List<String> edgeNames = new ArrayList<>();
+        private final List<String> edgeConditions = new ArrayList<>();
+        private final List<Integer> edgeSources = new ArrayList<>();
+        private final List<Integer> edgeTargets = new ArrayList<>();
+
+        /**
+         * Добавляет элемент; повторный id не создает новый элемент, но уточняет вид, если он был неизвестен
+         */
+        private int addNode(String id, String name, NodeKind kind) {
+            if (id == null) {
+                throw new IllegalArgumentException("Process element without id"
+                        + (name != null ? ": " + name : "") + " (" + kind + ")");
+            }
+            Integer existing = nodeIndex.get(id);
+            if (existing != null) {
+                if (nodeKinds.get(existing) == NodeKind.OTHER) {
+                    nodeKinds.set(existing, kind);
+                }
+                if (nodeNames.get(existing) == null) {
+                    nodeNames.set(existing, name);
+                }
+                return existing;
+            }
+            nodeIndex.put(id, nodeIds.size());
+            nodeIds.add(id);
+            nodeNames.add(name);
+            nodeKinds.add(kind);
+            return nodeIds.size() - 1;
+        }
+
+        private void addEdge(String id, String sourceId, String targetId, String name, String condition) {
+            if (sourceId == null || targetId == null) {
+                return;
+            }
+            edgeIds.add(id);
+            edgeNames.add(name);
+            edgeConditions.add(condition);
+            edgeSources.add(addNode(sourceId, null, NodeKind.OTHER));
+            edgeTargets.add(addNode(targetId, null, NodeKind.OTHER));
+        }
+    }
+}
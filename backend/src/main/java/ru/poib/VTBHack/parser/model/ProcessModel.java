@@ -1,7 +1,14 @@
 package ru.poib.VTBHack.parser.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -10,7 +17,72 @@ public class ProcessModel {
     private String id;
     private String name;
     private List<ProcessTask> tasks;
-    private Map<String, String> sequenceFlows; // sourceId -> targetId
+    private Map<String, String> sequenceFlows; // sourceId -> targetId, по одному переходу на элемент
+    private List<ProcessNode> nodes; // Все элементы процесса, включая шлюзы и события
+    private List<ProcessFlow> flows; // Все sequence flows, включая ветки шлюзов
     private String startEventName;
     private String endEventName;
+
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile ProcessGraph graph;
+
+    public void setTasks(List<ProcessTask> tasks) {
+        this.tasks = tasks;
+        this.graph = null;
+    }
+
+    public void setSequenceFlows(Map<String, String> sequenceFlows) {
+        this.sequenceFlows = sequenceFlows;
+        this.graph = null;
+    }
+
+    public void setNodes(List<ProcessNode> nodes) {
+        this.nodes = nodes;
+        this.graph = null;
+    }
+
+    public void setFlows(List<ProcessFlow> flows) {
+        this.flows = flows;
+        this.graph = null;
+    }
+
+    /**
+     * Граф процесса со всеми ветками, строится при первом обращении.
+     * Если полный список переходов не задан (модель из PlantUML или старого клиента), граф строится по sequenceFlows
+     */
+    @JsonIgnore
+    public ProcessGraph getGraph() {
+        ProcessGraph current = graph;
+        if (current == null) {
+            synchronized (this) {
+                current = graph;
+                if (current == null) {
+                    current = ProcessGraph.of(tasks, nodes, flows != null ? flows : toFlows(sequenceFlows));
+                    graph = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Сохраняет граф, уже построенный по текущим задачам, элементам и переходам модели,
+     * чтобы getGraph не строил его повторно. Вызывается после установки этих полей
+     */
+    public void attachGraph(ProcessGraph graph) {
+        this.graph = graph;
+    }
+
+    private static List<ProcessFlow> toFlows(Map<String, String> sequenceFlows) {
+        List<ProcessFlow> result = new ArrayList<>();
+        if (sequenceFlows != null) {
+            sequenceFlows.forEach((sourceId, targetId) ->
+                    result.add(new ProcessFlow(null, sourceId, targetId, null, null)));
+        }
+        return result;
+    }
 }
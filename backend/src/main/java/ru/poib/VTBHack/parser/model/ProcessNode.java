@@ -0,0 +1,23 @@
+package ru.poib.VTBHack.parser.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Элемент процесса: задача, шлюз или событие
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessNode {
+    private String id;
+    private String name;
+    private String type; // StartEvent, EndEvent, ServiceTask, ExclusiveGateway, ParallelGateway, ...
+    private String defaultFlowId; // Переход по умолчанию для exclusive/inclusive шлюза
+    private String parentId; // Подпроцесс, в который вложен элемент; null - элемент верхнего уровня
+
+    public ProcessNode(String id, String name, String type, String defaultFlowId) {
+        this(id, name, type, defaultFlowId, null);
+    }
+}
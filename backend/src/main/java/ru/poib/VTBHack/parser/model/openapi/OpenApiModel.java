@@ -1,5 +1,6 @@
 package ru.poib.VTBHack.parser.model.openapi;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Map;
@@ -14,6 +15,13 @@ public class OpenApiModel {
     
     @JsonProperty("paths")
     private Map<String, PathItem> paths;
+
+    @JsonProperty("components")
+    private Components components;
+
+    // Разрешенные ссылки на components переиспользуются генерацией данных и валидацией ответов
+    @JsonIgnore
+    private volatile SchemaResolver schemaResolver;
     
     // Getters and Setters
     public String getOpenApiVersion() {
@@ -40,6 +48,33 @@ public class OpenApiModel {
         this.paths = paths;
     }
 
+    public Components getComponents() {
+        return components;
+    }
+
+    public void setComponents(Components components) {
+        this.components = components;
+        this.schemaResolver = null;
+    }
+
+    /**
+     * Разрешение $ref на components/schemas этой спецификации (создается один раз на модель)
+     */
+    @JsonIgnore
+    public SchemaResolver getSchemaResolver() {
+        SchemaResolver resolver = schemaResolver;
+        if (resolver == null) {
+            synchronized (this) {
+                resolver = schemaResolver;
+                if (resolver == null) {
+                    resolver = new SchemaResolver(components != null ? components.getSchemas() : null);
+                    schemaResolver = resolver;
+                }
+            }
+        }
+        return resolver;
+    }
+
     // Inner classes
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Info {
@@ -63,6 +98,19 @@ public class OpenApiModel {
         }
     }
 
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Components {
+        private Map<String, Response.Schema> schemas;
+
+        public Map<String, Response.Schema> getSchemas() {
+            return schemas;
+        }
+
+        public void setSchemas(Map<String, Response.Schema> schemas) {
+            this.schemas = schemas;
+        }
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class PathItem {
         private Operation post;
@@ -7,9 +7,8 @@ import java.util.Map;
 public class RequestBody {
     private String description;
     private Boolean required;
-    // Минимально необходимое: нам важно лишь наличие requestBody,
-    // поэтому тип контента упрощаем до Map
-    private Map<String, Object> content;
+    // Схема тела по media type используется генератором данных
+    private Map<String, Response.MediaType> content;
 
     public String getDescription() {
         return description;
@@ -27,11 +26,11 @@ public class RequestBody {
         this.required = required;
     }
 
-    public Map<String, Object> getContent() {
+    public Map<String, Response.MediaType> getContent() {
         return content;
     }
 
-    public void setContent(Map<String, Object> content) {
+    public void setContent(Map<String, Response.MediaType> content) {
         this.content = content;
     }
 }
\ No newline at end of file
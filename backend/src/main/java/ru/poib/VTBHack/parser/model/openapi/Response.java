@@ -2,7 +2,9 @@ package ru.poib.VTBHack.parser.model.openapi;
 
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -59,10 +61,17 @@ public class Response {
 
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Schema {
+        /**
+         * Ссылка на схему, например "#/components/schemas/Account" (разрешается через SchemaResolver)
+         */
+        @JsonProperty("$ref")
+        private String ref;
         private String type;
         private String format;
         private String description;
         private Map<String, Schema> properties = new HashMap<>();
+        private Schema items;
+        private List<Schema> allOf;
         private Map<String, Object> additionalProperties = new HashMap<>();
 
         @JsonAnySetter
@@ -70,6 +79,14 @@ public class Response {
             this.additionalProperties.put(name, value);
         }
 
+        public String getRef() {
+            return ref;
+        }
+
+        public void setRef(String ref) {
+            this.ref = ref;
+        }
+
         public String getType() {
             return type;
         }
@@ -102,6 +119,22 @@ public class Response {
             this.properties = properties;
         }
 
+        public Schema getItems() {
+            return items;
+        }
+
+        public void setItems(Schema items) {
+            this.items = items;
+        }
+
+        public List<Schema> getAllOf() {
+            return allOf;
+        }
+
+        public void setAllOf(List<Schema> allOf) {
+            this.allOf = allOf;
+        }
+
         public Map<String, Object> getAdditionalProperties() {
             return additionalProperties;
         }
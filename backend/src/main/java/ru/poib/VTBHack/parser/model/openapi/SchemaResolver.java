@@ -0,0 +1,308 @@
+package ru.poib.VTBHack.parser.model.openapi;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Разрешение ссылок $ref на components/schemas одной спецификации.
+ * Результаты запоминаются: цепочка ссылок и объединение allOf вычисляются один раз на схему,
+ * а граф схем общий для генерации данных и валидации ответов.
+ * Циклы обнаруживаются: цепочка ссылок по кругу не разрешается, а компоненты, ссылающиеся на себя
+ * через свойства (дерево категорий и т.п.), помечаются как рекурсивные
+ */
+public final class SchemaResolver {
+
+    public static final String COMPONENTS_PREFIX = "#/components/schemas/";
+
+    // Ограничение вложенности allOf при объединении
+    private static final int MAX_MERGE_DEPTH = 32;
+
+    private final Map<String, Response.Schema> components;
+    private final Map<String, Optional<Response.Schema>> resolvedRefs = new ConcurrentHashMap<>();
+    // Ключ - сама схема: Schema не переопределяет equals, сравнение по ссылке
+    private final Map<Response.Schema, Response.Schema> mergedSchemas = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> references = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> recursiveComponents = new ConcurrentHashMap<>();
+
+    SchemaResolver(Map<String, Response.Schema> components) {
+        this.components = components != null ? components : Collections.emptyMap();
+    }
+
+    /**
+     * Имя компонента по ссылке "#/components/schemas/Name" (JSON Pointer раскодируется)
+     *
+     * @return имя или null, если ссылка ведет не на components/schemas
+     */
+    public static String componentName(String ref) {
+        if (ref == null || !ref.startsWith(COMPONENTS_PREFIX) || ref.length() == COMPONENTS_PREFIX.length()) {
+            return null;
+        }
+        return ref.substring(COMPONENTS_PREFIX.length()).replace("~1", "/").replace("~0", "~");
+    }
+
+    public boolean hasComponent(String name) {
+        return name != null && components.containsKey(name);
+    }
+
+    /**
+     * Схема компонента как она задана в спецификации (без разрешения ссылок)
+     */
+    public Response.Schema component(String name) {
+        return name != null ? components.get(name) : null;
+    }
+
+    /**
+     * Разрешает схему для использования: проходит цепочку $ref и объединяет allOf в одну объектную схему
+     *
+     * @param schema схема из спецификации (может быть null)
+     * @return схема без ссылки верхнего уровня; null, если ссылку нельзя разрешить или она зациклена
+     */
+    public Response.Schema resolve(Response.Schema schema) {
+        Response.Schema target = followRef(schema);
+        if (target == null || target.getAllOf() == null || target.getAllOf().isEmpty()) {
+            return target;
+        }
+        Response.Schema merged = mergedSchemas.get(target);
+        if (merged == null) {
+            merged = merge(target, 0);
+            Response.Schema existing = mergedSchemas.putIfAbsent(target, merged);
+            merged = existing != null ? existing : merged;
+        }
+        return merged;
+    }
+
+    /**
+     * Проходит цепочку ссылок до схемы без $ref (allOf не объединяется)
+     *
+     * @return схема без ссылки верхнего уровня; null, если ссылку нельзя разрешить или она зациклена
+     */
+    public Response.Schema followRef(Response.Schema schema) {
+        if (schema == null || schema.getRef() == null) {
+            return schema;
+        }
+        return resolveRef(schema.getRef());
+    }
+
+    public Response.Schema resolveRef(String ref) {
+        Optional<Response.Schema> cached = resolvedRefs.get(ref);
+        if (cached == null) {
+            cached = Optional.ofNullable(follow(ref));
+            resolvedRefs.putIfAbsent(ref, cached);
+        }
+        return cached.orElse(null);
+    }
+
+    /**
+     * Входит ли компонент в цикл ссылок через свойства, элементы массивов или композицию схем.
+     * Генерация данных раскрывает такие компоненты не более одного раза на ветке
+     */
+    public boolean isRecursive(String name) {
+        if (name == null || !components.containsKey(name)) {
+            return false;
+        }
+        Boolean recursive = recursiveComponents.get(name);
+        return recursive != null ? recursive : classifyReachable(name);
+    }
+
+    private Response.Schema follow(String ref) {
+        Set<String> visited = new HashSet<>();
+        String current = ref;
+        while (true) {
+            String name = componentName(current);
+            if (name == null || !components.containsKey(name) || !visited.add(name)) {
+                // Внешняя, отсутствующая или замкнутая на себя ссылка
+                return null;
+            }
+            Response.Schema schema = components.get(name);
+            if (schema == null || schema.getRef() == null) {
+                return schema;
+            }
+            current = schema.getRef();
+        }
+    }
+
+    /**
+     * Объединяет allOf: свойства и required всех частей, собственные свойства схемы имеют приоритет
+     */
+    private Response.Schema merge(Response.Schema schema, int depth) {
+        Response.Schema merged = new Response.Schema();
+        Map<String, Response.Schema> properties = new LinkedHashMap<>();
+        Set<String> required = new LinkedHashSet<>();
+
+        if (depth < MAX_MERGE_DEPTH) {
+            for (Response.Schema part : schema.getAllOf()) {
+                Response.Schema resolved = followRef(part);
+                if (resolved == null) {
+                    continue;
+                }
+                if (resolved.getAllOf() != null && !resolved.getAllOf().isEmpty()) {
+                    resolved = merge(resolved, depth + 1);
+                }
+                copyInto(resolved, merged, properties, required);
+            }
+        }
+        copyInto(schema, merged, properties, required);
+
+        if (merged.getType() == null) {
+            merged.setType("object");
+        }
+        merged.setProperties(properties);
+        if (!required.isEmpty()) {
+            merged.setAdditionalProperty("required", new ArrayList<>(required));
+        }
+        return merged;
+    }
+
+    private static void copyInto(Response.Schema source, Response.Schema target,
+                                 Map<String, Response.Schema> properties, Set<String> required) {
+        if (source.getType() != null) {
+            target.setType(source.getType());
+        }
+        if (source.getFormat() != null) {
+            target.setFormat(source.getFormat());
+        }
+        if (source.getDescription() != null) {
+            target.setDescription(source.getDescription());
+        }
+        if (source.getItems() != null) {
+            target.setItems(source.getItems());
+        }
+        if (source.getProperties() != null) {
+            properties.putAll(source.getProperties());
+        }
+        source.getAdditionalProperties().forEach((keyword, value) -> {
+            if ("required".equals(keyword) && value instanceof Collection<?> names) {
+                names.forEach(name -> required.add(String.valueOf(name)));
+            } else {
+                target.setAdditionalProperty(keyword, value);
+            }
+        });
+    }
+
+    /**
+     * Классифицирует компоненты, достижимые из root: входящие в сильно связные компоненты графа ссылок
+     * размером больше 1 или ссылающиеся на себя рекурсивны (алгоритм Тарьяна без рекурсии).
+     * Обход из root находит все достижимые сильно связные компоненты целиком, поэтому уже классифицированные
+     * компоненты дальше не обходятся, а компоненты, недостижимые из запрошенных схем, не разбираются вовсе
+     */
+    private synchronized boolean classifyReachable(String root) {
+        Boolean known = recursiveComponents.get(root);
+        if (known != null) {
+            return known;
+        }
+
+        Map<String, Integer> index = new HashMap<>();
+        Map<String, Integer> lowLink = new HashMap<>();
+        Deque<String> stack = new ArrayDeque<>();
+        Set<String> onStack = new HashSet<>();
+        int counter = 0;
+
+        Deque<Map.Entry<String, Iterator<String>>> work = new ArrayDeque<>();
+        index.put(root, counter);
+        lowLink.put(root, counter++);
+        stack.push(root);
+        onStack.add(root);
+        work.push(Map.entry(root, references(root).iterator()));
+
+        while (!work.isEmpty()) {
+            String node = work.peek().getKey();
+            Iterator<String> successors = work.peek().getValue();
+            if (successors.hasNext()) {
+                String next = successors.next();
+                if (recursiveComponents.containsKey(next)) {
+                    // Компонент next уже классифицирован и не может входить в один цикл с node
+                    continue;
+                }
+                if (!index.containsKey(next)) {
+                    index.put(next, counter);
+                    lowLink.put(next, counter++);
+                    stack.push(next);
+                    onStack.add(next);
+                    work.push(Map.entry(next, references(next).iterator()));
+                } else if (onStack.contains(next)) {
+                    lowLink.put(node, Math.min(lowLink.get(node), index.get(next)));
+                }
+                continue;
+            }
+            work.pop();
+            if (!work.isEmpty()) {
+                String parent = work.peek().getKey();
+                lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(node)));
+            }
+            if (lowLink.get(node).equals(index.get(node))) {
+                List<String> component = new ArrayList<>();
+                String member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (!member.equals(node));
+                boolean recursive = component.size() > 1 || references(node).contains(node);
+                component.forEach(name -> recursiveComponents.put(name, recursive));
+            }
+        }
+        return recursiveComponents.get(root);
+    }
+
+    /**
+     * Компоненты, на которые ссылается схема компонента; вычисляется один раз на компонент
+     */
+    private Set<String> references(String name) {
+        return references.computeIfAbsent(name, n -> {
+            Set<String> result = new LinkedHashSet<>();
+            collectReferences(components.get(n), result);
+            result.removeIf(reference -> !components.containsKey(reference));
+            return result;
+        });
+    }
+
+    private static void collectReferences(Response.Schema schema, Set<String> references) {
+        if (schema == null) {
+            return;
+        }
+        addReference(schema.getRef(), references);
+        if (schema.getProperties() != null) {
+            schema.getProperties().values().forEach(property -> collectReferences(property, references));
+        }
+        collectReferences(schema.getItems(), references);
+        if (schema.getAllOf() != null) {
+            schema.getAllOf().forEach(part -> collectReferences(part, references));
+        }
+        // oneOf, anyOf, additionalProperties и т.п. хранятся как есть (Map/List)
+        schema.getAdditionalProperties().values().forEach(value -> collectRawReferences(value, references));
+    }
+
+    private static void collectRawReferences(Object value, Set<String> references) {
+        if (value instanceof Map<?, ?> map) {
+            map.forEach((key, nested) -> {
+                if ("$ref".equals(key) && nested instanceof String ref) {
+                    addReference(ref, references);
+                } else {
+                    collectRawReferences(nested, references);
+                }
+            });
+        } else if (value instanceof Collection<?> collection) {
+            collection.forEach(nested -> collectRawReferences(nested, references));
+        }
+    }
+
+    private static void addReference(String ref, Set<String> references) {
+        String name = componentName(ref);
+        if (name != null) {
+            references.add(name);
+        }
+    }
+}
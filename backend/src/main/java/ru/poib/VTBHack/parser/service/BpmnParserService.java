@@ -5,14 +5,16 @@ import org.springframework.stereotype.Service;
 import org.flowable.bpmn.converter.BpmnXMLConverter;
 import org.flowable.bpmn.model.*;
 import ru.poib.VTBHack.parser.model.ApiEndpointInfo;
+import ru.poib.VTBHack.parser.model.ProcessFlow;
+import ru.poib.VTBHack.parser.model.ProcessGraph;
 import ru.poib.VTBHack.parser.model.ProcessModel;
+import ru.poib.VTBHack.parser.model.ProcessNode;
 import ru.poib.VTBHack.parser.model.ProcessTask;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class BpmnParserService {
@@ -22,7 +24,13 @@ public class BpmnParserService {
      * Парсит BPMN XML и возвращает модель процесса
      */
     public ProcessModel parse(String bpmnXml) throws Exception {
-        InputStream inputStream = new ByteArrayInputStream(bpmnXml.getBytes(StandardCharsets.UTF_8));
+        return parse(new ByteArrayInputStream(bpmnXml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Парсит BPMN XML из потока (UTF-8), не загружая документ в строку
+     */
+    public ProcessModel parse(InputStream inputStream) throws Exception {
         BpmnModel bpmnModel = bpmnXMLConverter.convertToBpmnModel(
                 () -> inputStream,
                 false,
@@ -46,48 +54,71 @@ public class BpmnParserService {
         model.setId(process.getId());
         model.setName(process.getName());
 
-        // Извлекаем все задачи
-        List<ProcessTask> tasks = new ArrayList<>();
-
-        // Service Tasks - задачи, которые обычно соответствуют API вызовам
-        for (ServiceTask serviceTask : process.findFlowElementsOfType(ServiceTask.class)) {
-            tasks.add(createTaskFromServiceTask(serviceTask));
-        }
-
-        // User Tasks - для полноты картины
-        for (UserTask userTask : process.findFlowElementsOfType(UserTask.class)) {
-            tasks.add(createTaskFromUserTask(userTask));
-        }
-
-        // Обычные Tasks (generic)
-        for (Task task : process.findFlowElementsOfType(Task.class)) {
-            // Проверяем, не добавили ли мы уже эту задачу как ServiceTask или UserTask
-            boolean alreadyAdded = tasks.stream()
-                    .anyMatch(t -> t.getId().equals(task.getId()));
-            if (!alreadyAdded) {
-                tasks.add(createTaskFromGenericTask(task));
+        // Один проход по элементам процесса (с вложенными подпроцессами):
+        // задачи, все элементы, включая шлюзы и события, и sequence flows
+        List<ProcessTask> serviceTasks = new ArrayList<>();
+        List<ProcessTask> userTasks = new ArrayList<>();
+        List<ProcessTask> genericTasks = new ArrayList<>();
+        List<ProcessNode> nodes = new ArrayList<>();
+        List<ProcessFlow> processFlows = new ArrayList<>();
+        Map<String, String> flows = new HashMap<>();
+        StartEvent firstStart = null;
+        EndEvent firstEnd = null;
+
+        List<FlowElement> elements = new ArrayList<>();
+        collectFlowElements(process.getFlowElements(), elements);
+        for (FlowElement element : elements) {
+            if (element instanceof SequenceFlow flow) {
+                processFlows.add(new ProcessFlow(flow.getId(), flow.getSourceRef(), flow.getTargetRef(),
+                        flow.getName(), flow.getConditionExpression()));
+                flows.put(flow.getSourceRef(), flow.getTargetRef());
+                continue;
+            }
+            if (!(element instanceof FlowNode)) {
+                continue;
+            }
+            String defaultFlow = element instanceof Gateway gateway ? gateway.getDefaultFlow() : null;
+            String parentId = element.getParentContainer() instanceof SubProcess parent ? parent.getId() : null;
+            nodes.add(new ProcessNode(element.getId(), element.getName(),
+                    element.getClass().getSimpleName(), defaultFlow, parentId));
+
+            if (element instanceof ServiceTask serviceTask) {
+                // Service Tasks - задачи, которые обычно соответствуют API вызовам
+                serviceTasks.add(createTaskFromServiceTask(serviceTask));
+            } else if (element instanceof UserTask userTask) {
+                // User Tasks - для полноты картины
+                userTasks.add(createTaskFromUserTask(userTask));
+            } else if (element instanceof Task task) {
+                // Обычные Tasks (generic)
+                genericTasks.add(createTaskFromGenericTask(task));
+            } else if (element instanceof StartEvent start && firstStart == null) {
+                firstStart = start;
+            } else if (element instanceof EndEvent end && firstEnd == null) {
+                firstEnd = end;
             }
         }
 
-        // Сортируем задачи по порядку выполнения
-        List<ProcessTask> sortedTasks = sortTasksBySequence(tasks, process);
-        model.setTasks(sortedTasks);
+        List<ProcessTask> tasks = new ArrayList<>(serviceTasks.size() + userTasks.size() + genericTasks.size());
+        tasks.addAll(serviceTasks);
+        tasks.addAll(userTasks);
+        tasks.addAll(genericTasks);
 
-        // Извлекаем sequence flows (связи между задачами)
-        Map<String, String> flows = new HashMap<>();
-        for (SequenceFlow flow : process.findFlowElementsOfType(SequenceFlow.class)) {
-            flows.put(flow.getSourceRef(), flow.getTargetRef());
-        }
+        // Сортируем задачи по порядку выполнения; граф сохраняется в модели для последующих этапов
+        ProcessGraph graph = ProcessGraph.of(tasks, nodes, processFlows);
+        List<ProcessTask> sortedTasks = sortTasksBySequence(graph, tasks);
+        model.setTasks(sortedTasks);
+        model.setNodes(nodes);
+        model.setFlows(processFlows);
         model.setSequenceFlows(flows);
+        model.attachGraph(graph);
 
         // Извлекаем start и end события
-        process.findFlowElementsOfType(StartEvent.class).stream()
-                .findFirst()
-                .ifPresent(start -> model.setStartEventName(start.getName()));
-
-        process.findFlowElementsOfType(EndEvent.class).stream()
-                .findFirst()
-                .ifPresent(end -> model.setEndEventName(end.getName()));
+        if (firstStart != null) {
+            model.setStartEventName(firstStart.getName());
+        }
+        if (firstEnd != null) {
+            model.setEndEventName(firstEnd.getName());
+        }
 
         return model;
     }
@@ -199,49 +230,36 @@ public class BpmnParserService {
     }
 
     /**
-     * Сортирует задачи по порядку их выполнения в процессе
+     * Сортирует задачи по порядку их выполнения в процессе: топологический обход графа от start event
+     * по всем веткам шлюзов за O(V+E). Задачи, недостижимые от старта, идут в конце в исходном порядке
      */
-    private List<ProcessTask> sortTasksBySequence(List<ProcessTask> tasks, Process process) {
-        List<ProcessTask> sorted = new ArrayList<>();
-        Map<String, ProcessTask> taskMap = tasks.stream()
-                .collect(Collectors.toMap(ProcessTask::getId, t -> t));
-
-        // Находим start event
-        StartEvent startEvent = process.findFlowElementsOfType(StartEvent.class)
-                .stream()
-                .findFirst()
-                .orElse(null);
-
-        if (startEvent == null) {
-            return tasks; // Возвращаем как есть, если нет start event
+    private List<ProcessTask> sortTasksBySequence(ProcessGraph graph, List<ProcessTask> tasks) {
+        Map<String, ProcessTask> taskMap = new HashMap<>();
+        for (ProcessTask task : tasks) {
+            taskMap.putIfAbsent(task.getId(), task);
         }
-
-        // Обходим граф начиная со start event
-        String currentId = startEvent.getId();
-        Set<String> visited = new HashSet<>();
-
-        while (currentId != null && !visited.contains(currentId)) {
-            visited.add(currentId);
-
-            ProcessTask task = taskMap.get(currentId);
+        List<ProcessTask> sorted = new ArrayList<>(taskMap.size());
+        for (int node : graph.topologicalOrder()) {
+            ProcessTask task = graph.isTask(node) ? taskMap.get(graph.nodeId(node)) : null;
             if (task != null) {
                 sorted.add(task);
             }
-
-            // Находим следующий элемент
-            String finalCurrentId = currentId;
-            SequenceFlow outgoing = process.findFlowElementsOfType(SequenceFlow.class)
-                    .stream()
-                    .filter(sf -> sf.getSourceRef().equals(finalCurrentId))
-                    .findFirst()
-                    .orElse(null);
-
-            currentId = (outgoing != null) ? outgoing.getTargetRef() : null;
         }
-
         return sorted;
     }
 
+    /**
+     * Раскладывает элементы процесса в список, заходя во вложенные подпроцессы
+     */
+    private void collectFlowElements(Collection<FlowElement> source, List<FlowElement> target) {
+        for (FlowElement element : source) {
+            target.add(element);
+            if (element instanceof SubProcess subProcess) {
+                collectFlowElements(subProcess.getFlowElements(), target);
+            }
+        }
+    }
+
     /**
      * Валидация BPMN файла
      */
@@ -263,8 +281,9 @@ public class BpmnParserService {
                 errors.add("Процесс не содержит End Event");
             }
 
+            ProcessGraph graph = model.getGraph();
             for (ProcessTask task : model.getTasks()) {
-                if (!model.getSequenceFlows().containsKey(task.getId())) {
+                if (graph.outDegree(graph.indexOf(task.getId())) == 0) {
                     errors.add("Задача " + task.getId() + " не имеет исходящего потока");
                 }
             }
@@ -278,6 +297,7 @@ public class BpmnParserService {
 
     private boolean isEndTask(ProcessTask task, ProcessModel model) {
         // Проверяем, является ли задача последней (перед EndEvent)
-        return !model.getSequenceFlows().containsKey(task.getId());
+        ProcessGraph graph = model.getGraph();
+        return graph.outDegree(graph.indexOf(task.getId())) == 0;
     }
 }
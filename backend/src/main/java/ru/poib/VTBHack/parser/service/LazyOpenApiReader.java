@@ -0,0 +1,334 @@
+package ru.poib.VTBHack.parser.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
+import ru.poib.VTBHack.parser.model.openapi.Operation;
+import ru.poib.VTBHack.parser.model.openapi.Parameter;
+import ru.poib.VTBHack.parser.model.openapi.RequestBody;
+import ru.poib.VTBHack.parser.model.openapi.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Потоковый разбор OpenAPI документа на JsonParser.
+ * За один проход читаются info и легкие поля операций (tags, summary, description, operationId),
+ * а для parameters, responses, requestBody и схем components/schemas запоминаются границы в байтах документа.
+ * Эти поля связываются в объекты при первом обращении, остальные разделы (прочие components, examples и т.п.)
+ * пропускаются без создания объектов. Документ в UTF-8 хранится, пока у операций есть несвязанные поля
+ */
+final class LazyOpenApiReader {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader infoReader;
+    private final ObjectReader tagsReader;
+    private final ObjectReader parametersReader;
+    private final ObjectReader responsesReader;
+    private final ObjectReader requestBodyReader;
+    private final ObjectReader schemaReader;
+
+    LazyOpenApiReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.infoReader = objectMapper.readerFor(OpenApiModel.Info.class);
+        this.tagsReader = objectMapper.readerFor(new TypeReference<List<String>>() { });
+        this.parametersReader = objectMapper.readerFor(new TypeReference<List<Parameter>>() { });
+        this.responsesReader = objectMapper.readerFor(new TypeReference<LinkedHashMap<String, Response>>() { });
+        this.requestBodyReader = objectMapper.readerFor(RequestBody.class);
+        this.schemaReader = objectMapper.readerFor(Response.Schema.class);
+    }
+
+    OpenApiModel read(byte[] document) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(document)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw MismatchedInputException.from(parser, OpenApiModel.class, "OpenAPI document must be a JSON object");
+            }
+            OpenApiModel model = new OpenApiModel();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "openapi" -> model.setOpenApiVersion(parser.getValueAsString());
+                    case "info" -> model.setInfo(infoReader.readValue(parser));
+                    case "paths" -> model.setPaths(readPaths(parser, document));
+                    case "components" -> model.setComponents(readComponents(parser, document));
+                    default -> parser.skipChildren();
+                }
+            }
+            return model;
+        }
+    }
+
+    private Map<String, OpenApiModel.PathItem> readPaths(JsonParser parser, byte[] document) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectObject(parser, "paths");
+        Map<String, OpenApiModel.PathItem> paths = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String path = parser.currentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                paths.put(path, null);
+                continue;
+            }
+            expectObject(parser, path);
+            OpenApiModel.PathItem pathItem = new OpenApiModel.PathItem();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String method = parser.currentName();
+                parser.nextToken();
+                switch (method) {
+                    case "get" -> pathItem.setGet(readOperation(parser, document));
+                    case "post" -> pathItem.setPost(readOperation(parser, document));
+                    case "put" -> pathItem.setPut(readOperation(parser, document));
+                    case "delete" -> pathItem.setDelete(readOperation(parser, document));
+                    default -> parser.skipChildren();
+                }
+            }
+            paths.put(path, pathItem);
+        }
+        return paths;
+    }
+
+    /**
+     * Из components читаются только schemas: каждая схема связывается при первом обращении к ней по имени
+     */
+    private OpenApiModel.Components readComponents(JsonParser parser, byte[] document) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectObject(parser, "components");
+        OpenApiModel.Components components = new OpenApiModel.Components();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String section = parser.currentName();
+            parser.nextToken();
+            if (!"schemas".equals(section) || parser.currentToken() == JsonToken.VALUE_NULL) {
+                parser.skipChildren();
+                continue;
+            }
+            expectObject(parser, "schemas");
+            Map<String, LazyField<Response.Schema>> schemas = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                schemas.put(name, readLazily(parser, document, schemaReader));
+            }
+            components.setSchemas(new LazyMap<>(schemas));
+        }
+        return components;
+    }
+
+    private Operation readOperation(JsonParser parser, byte[] document) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectObject(parser, "operation");
+        LazyOperation operation = new LazyOperation();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "tags" -> operation.setTags(tagsReader.readValue(parser));
+                case "summary" -> operation.setSummary(parser.getValueAsString());
+                case "description" -> operation.setDescription(parser.getValueAsString());
+                case "operationId" -> operation.setOperationId(parser.getValueAsString());
+                case "parameters" -> operation.parameters = readLazily(parser, document, parametersReader);
+                case "responses" -> operation.responses = readLazily(parser, document, responsesReader);
+                case "requestBody" -> operation.requestBody = readLazily(parser, document, requestBodyReader);
+                default -> parser.skipChildren();
+            }
+        }
+        return operation;
+    }
+
+    /**
+     * Запоминает границы объекта или массива; скаляры (в том числе null) связываются сразу
+     */
+    private static <T> LazyField<T> readLazily(JsonParser parser, byte[] document, ObjectReader reader) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+            return LazyField.of(reader.readValue(parser));
+        }
+        int start = (int) parser.currentTokenLocation().getByteOffset();
+        parser.skipChildren();
+        int end = (int) parser.currentLocation().getByteOffset();
+        return new LazyField<>(reader, document, start, end);
+    }
+
+    private static void expectObject(JsonParser parser, String name) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw MismatchedInputException.from(parser, Object.class,
+                    "Expected JSON object for '" + name + "' but got " + parser.currentToken());
+        }
+    }
+
+    /**
+     * Значение, связываемое из фрагмента документа при первом обращении
+     */
+    static final class LazyField<T> {
+        private final ObjectReader reader;
+        private byte[] document;
+        private final int start;
+        private final int end;
+        private T value;
+        private volatile boolean resolved;
+
+        private LazyField(ObjectReader reader, byte[] document, int start, int end) {
+            this.reader = reader;
+            this.document = document;
+            this.start = start;
+            this.end = end;
+        }
+
+        static <T> LazyField<T> of(T value) {
+            LazyField<T> field = new LazyField<>(null, null, 0, 0);
+            field.value = value;
+            field.resolved = true;
+            return field;
+        }
+
+        T get() {
+            if (!resolved) {
+                synchronized (this) {
+                    if (!resolved) {
+                        try {
+                            value = reader.readValue(document, start, end - start);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(
+                                    "Invalid OpenAPI fragment at bytes " + start + "-" + end + ": " + e.getMessage(), e);
+                        }
+                        document = null;
+                        resolved = true;
+                    }
+                }
+            }
+            return value;
+        }
+
+        void set(T newValue) {
+            synchronized (this) {
+                value = newValue;
+                document = null;
+                resolved = true;
+            }
+        }
+    }
+
+    /**
+     * Неизменяемое отображение, значения которого связываются при первом обращении к ключу.
+     * Перебор entrySet связывает все значения
+     */
+    static final class LazyMap<V> extends AbstractMap<String, V> {
+        private final Map<String, LazyField<V>> fields;
+
+        LazyMap(Map<String, LazyField<V>> fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public V get(Object key) {
+            LazyField<V> field = fields.get(key);
+            return field != null ? field.get() : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return fields.containsKey(key);
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(fields.keySet());
+        }
+
+        @Override
+        public int size() {
+            return fields.size();
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+                    Iterator<Entry<String, LazyField<V>>> entries = fields.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, V> next() {
+                            Entry<String, LazyField<V>> entry = entries.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().get());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return fields.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Операция, у которой parameters, responses и requestBody связываются при первом обращении.
+     * Безопасна для чтения из нескольких потоков (модель разделяется через кэш сопоставления)
+     */
+    static final class LazyOperation extends Operation {
+        private LazyField<List<Parameter>> parameters = LazyField.of(null);
+        private LazyField<Map<String, Response>> responses = LazyField.of(null);
+        private LazyField<RequestBody> requestBody = LazyField.of(null);
+
+        @Override
+        public List<Parameter> getParameters() {
+            return parameters.get();
+        }
+
+        @Override
+        public void setParameters(List<Parameter> parameters) {
+            this.parameters.set(parameters);
+        }
+
+        @Override
+        public Map<String, Response> getResponses() {
+            return responses.get();
+        }
+
+        @Override
+        public void setResponses(Map<String, Response> responses) {
+            this.responses.set(responses);
+        }
+
+        @Override
+        public RequestBody getRequestBody() {
+            return requestBody.get();
+        }
+
+        @Override
+        public void setRequestBody(RequestBody requestBody) {
+            this.requestBody.set(requestBody);
+        }
+
+        /**
+         * Связаны ли тяжелые поля (для диагностики и тестов)
+         */
+        boolean isResponsesBound() {
+            return responses.resolved;
+        }
+    }
+}
@@ -1,27 +1,43 @@
 package ru.poib.VTBHack.parser.service;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.springframework.stereotype.Service;
+import ru.poib.VTBHack.config.JsonCodecs;
 import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
 @Service
 public class OpenApiParserService {
-    private final ObjectMapper objectMapper;
+    // Общий mapper не падает на неизвестных полях спецификации
+    private final ObjectReader openApiReader;
+    private final LazyOpenApiReader lazyReader;
 
-    public OpenApiParserService() {
-        this.objectMapper = new ObjectMapper()
-            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    public OpenApiParserService(JsonCodecs jsonCodecs) {
+        this.openApiReader = jsonCodecs.openApiModelReader();
+        this.lazyReader = new LazyOpenApiReader(jsonCodecs.mapper());
     }
 
     public OpenApiModel parseOpenApi(String jsonContent) throws IOException {
-        return objectMapper.readValue(jsonContent, OpenApiModel.class);
+        return openApiReader.readValue(jsonContent);
     }
 
     public OpenApiModel parseOpenApi(InputStream inputStream) throws IOException {
-        return objectMapper.readValue(inputStream, OpenApiModel.class);
+        return openApiReader.readValue(inputStream);
+    }
+
+    /**
+     * Потоковый разбор для больших спецификаций: пути, методы и описания операций читаются сразу,
+     * а parameters, responses и requestBody связываются только для операций, к которым обращаются.
+     * Ошибки внутри несвязанных фрагментов проявятся при обращении к ним (UncheckedIOException)
+     */
+    public OpenApiModel parseOpenApiLazily(String jsonContent) throws IOException {
+        return lazyReader.read(jsonContent.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public OpenApiModel parseOpenApiLazily(InputStream inputStream) throws IOException {
+        return lazyReader.read(inputStream.readAllBytes());
     }
 
     // Additional methods for specific parsing needs can be added here
@@ -0,0 +1,173 @@
+package ru.poib.VTBHack.storage.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import ru.poib.VTBHack.execution.model.TestExecutionResult;
+import ru.poib.VTBHack.mapping.model.MappingResult;
+import ru.poib.VTBHack.mapping.service.MappingCacheService;
+import ru.poib.VTBHack.storage.model.SpecificationType;
+import ru.poib.VTBHack.storage.model.StoredExecutionSummary;
+import ru.poib.VTBHack.storage.model.StoredMappingResult;
+import ru.poib.VTBHack.storage.model.StoredSpecification;
+import ru.poib.VTBHack.storage.service.ArtifactStoreService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST контроллер хранилища артефактов
+ */
+@RestController
+@RequestMapping("/api/artifacts")
+@CrossOrigin(origins = "*")
+public class ArtifactStoreController {
+
+    private final ArtifactStoreService artifactStoreService;
+    private final MappingCacheService mappingCacheService;
+
+    public ArtifactStoreController(ArtifactStoreService artifactStoreService,
+                                   MappingCacheService mappingCacheService) {
+        this.artifactStoreService = artifactStoreService;
+        this.mappingCacheService = mappingCacheService;
+    }
+
+    /**
+     * Загружает спецификацию. Повторная загрузка того же содержимого возвращает существующую запись
+     *
+     * @param type BPMN или OPENAPI
+     * @param name имя файла (необязательно)
+     * @param content содержимое файла
+     * @return запись с ID и хэшем содержимого
+     */
+    @PostMapping("/specifications")
+    public ResponseEntity<StoredSpecification> uploadSpecification(
+            @RequestParam SpecificationType type,
+            @RequestParam(required = false) String name,
+            @RequestParam String content) {
+        try {
+            return ResponseEntity.ok(artifactStoreService.storeSpecification(type, name, content));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Загружает спецификацию файлом (multipart/form-data), содержимое читается потоком
+     *
+     * @param type BPMN или OPENAPI
+     * @param file файл спецификации
+     * @return запись с ID и хэшем содержимого
+     */
+    @PostMapping(value = "/specifications/file", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StoredSpecification> uploadSpecificationFile(
+            @RequestParam SpecificationType type,
+            @RequestPart("file") MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.ok(artifactStoreService.storeSpecification(type, file.getOriginalFilename(), in));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Загружает спецификацию телом запроса как есть (XML, JSON или octet-stream).
+     * Тело читается потоком без разбора формы
+     *
+     * @param type BPMN или OPENAPI
+     * @param name имя файла (необязательно)
+     * @param body тело запроса
+     * @return запись с ID и хэшем содержимого
+     */
+    @PostMapping("/specifications/raw")
+    public ResponseEntity<StoredSpecification> uploadSpecificationRaw(
+            @RequestParam SpecificationType type,
+            @RequestParam(required = false) String name,
+            InputStream body) {
+        try {
+            return ResponseEntity.ok(artifactStoreService.storeSpecification(type, name, body));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/specifications/{id}")
+    public ResponseEntity<StoredSpecification> getSpecification(@PathVariable Long id) {
+        return artifactStoreService.findSpecification(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Сопоставляет сохраненные спецификации и сохраняет результат.
+     * Если для пары уже есть сохраненный результат, он возвращается без повторного сопоставления
+     *
+     * @param bpmnId ID сохраненной BPMN спецификации
+     * @param openApiId ID сохраненной OpenAPI спецификации
+     * @param refresh выполнить сопоставление заново (по умолчанию false)
+     * @return сводная запись результата сопоставления
+     */
+    @PostMapping("/mappings")
+    public ResponseEntity<StoredMappingResult> mapStoredSpecifications(
+            @RequestParam Long bpmnId,
+            @RequestParam Long openApiId,
+            @RequestParam(defaultValue = "false") boolean refresh) {
+        if (!refresh) {
+            Optional<StoredMappingResult> existing = artifactStoreService.findLatestMappingResult(bpmnId, openApiId);
+            if (existing.isPresent()) {
+                return ResponseEntity.ok(existing.get());
+            }
+        }
+
+        Optional<StoredSpecification> bpmn = artifactStoreService.findSpecification(bpmnId, SpecificationType.BPMN);
+        Optional<StoredSpecification> openApi = artifactStoreService.findSpecification(openApiId, SpecificationType.OPENAPI);
+        if (bpmn.isEmpty() || openApi.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            // Хэши уже известны: при попадании в кэш содержимое даже не распаковывается
+            MappingResult result = mappingCacheService.map(
+                    bpmn.get().getContentHash(), artifactStoreService.contentSource(bpmn.get()),
+                    openApi.get().getContentHash(), artifactStoreService.contentSource(openApi.get()));
+            return ResponseEntity.ok(artifactStoreService.storeMappingResult(bpmnId, openApiId, result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Возвращает сохраненный результат сопоставления целиком
+     */
+    @GetMapping("/mappings/{id}")
+    public ResponseEntity<MappingResult> getMappingResult(@PathVariable Long id) {
+        return artifactStoreService.loadMappingResult(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Возвращает последние сохраненные выполнения тестов
+     *
+     * @param processId ID процесса для фильтрации (необязательно)
+     * @param limit максимальное количество записей (по умолчанию 50)
+     */
+    @GetMapping("/executions")
+    public ResponseEntity<List<StoredExecutionSummary>> listExecutionResults(
+            @RequestParam(required = false) String processId,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(artifactStoreService.listExecutionResults(processId, limit));
+    }
+
+    /**
+     * Возвращает сохраненный результат выполнения теста целиком
+     */
+    @GetMapping("/executions/{executionId}")
+    public ResponseEntity<TestExecutionResult> getExecutionResult(@PathVariable String executionId) {
+        return artifactStoreService.loadExecutionResult(executionId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,9 @@
+package ru.poib.VTBHack.storage.model;
+
+/**
+ * Тип загруженной спецификации
+ */
+public enum SpecificationType {
+    BPMN,
+    OPENAPI
+}
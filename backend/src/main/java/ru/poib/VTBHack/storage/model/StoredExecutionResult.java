@@ -0,0 +1,64 @@
+package ru.poib.VTBHack.storage.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import ru.poib.VTBHack.execution.model.TestExecutionResult;
+
+import java.time.Instant;
+
+/**
+ * Сохраненный результат выполнения теста.
+ * Сводные поля доступны для запросов, полный результат с телами ответов хранится сжатым
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "stored_execution_result",
+        indexes = @Index(columnList = "processId"))
+public class StoredExecutionResult {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String executionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private TestExecutionResult.ExecutionStatus status;
+
+    private String processId;
+
+    private String processName;
+
+    private Instant startTime;
+
+    private Instant endTime;
+
+    private long totalDurationMs;
+
+    private int totalSteps;
+
+    private int failedSteps;
+
+    /**
+     * Размер JSON результата до сжатия в байтах
+     */
+    private long originalSize;
+
+    private Instant createdAt;
+
+    /**
+     * TestExecutionResult в JSON, сжатый gzip
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload;
+}
@@ -0,0 +1,38 @@
+package ru.poib.VTBHack.storage.model;
+
+import ru.poib.VTBHack.execution.model.TestExecutionResult;
+
+import java.time.Instant;
+
+/**
+ * Сводные поля сохраненного выполнения без сжатого результата.
+ * Проекция для списков: колонка payload в запрос не попадает
+ */
+public interface StoredExecutionSummary {
+    Long getId();
+
+    String getExecutionId();
+
+    TestExecutionResult.ExecutionStatus getStatus();
+
+    String getProcessId();
+
+    String getProcessName();
+
+    Instant getStartTime();
+
+    Instant getEndTime();
+
+    long getTotalDurationMs();
+
+    int getTotalSteps();
+
+    int getFailedSteps();
+
+    /**
+     * Размер JSON результата до сжатия в байтах
+     */
+    long getOriginalSize();
+
+    Instant getCreatedAt();
+}
@@ -0,0 +1,52 @@
+package ru.poib.VTBHack.storage.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Сохраненный результат сопоставления BPMN процесса с OpenAPI спецификацией
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "stored_mapping_result",
+        indexes = @Index(columnList = "bpmnSpecificationId, openApiSpecificationId"))
+public class StoredMappingResult {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * ID сохраненной BPMN спецификации
+     */
+    private Long bpmnSpecificationId;
+
+    /**
+     * ID сохраненной OpenAPI спецификации
+     */
+    private Long openApiSpecificationId;
+
+    private int totalTasks;
+
+    private int matchedTasks;
+
+    private double overallConfidence;
+
+    private Instant createdAt;
+
+    /**
+     * MappingResult в JSON, сжатый gzip
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload;
+}
@@ -0,0 +1,62 @@
+package ru.poib.VTBHack.storage.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Загруженная спецификация (BPMN или OpenAPI).
+ * Одинаковое содержимое хранится один раз: запись находится по типу и хэшу содержимого
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "stored_specification",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"type", "content_hash"}))
+public class StoredSpecification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private SpecificationType type;
+
+    /**
+     * SHA-256 нормализованного содержимого
+     */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    /**
+     * Имя файла или произвольное название
+     */
+    private String name;
+
+    /**
+     * Размер содержимого в байтах (UTF-8)
+     */
+    private long originalSize;
+
+    /**
+     * Размер сжатого содержимого в байтах
+     */
+    private long compressedSize;
+
+    private Instant createdAt;
+
+    /**
+     * Содержимое, сжатое gzip
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @Lob
+    @Column(nullable = false)
+    private byte[] content;
+}
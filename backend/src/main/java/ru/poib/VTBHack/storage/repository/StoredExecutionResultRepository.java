@@ -0,0 +1,18 @@
+package ru.poib.VTBHack.storage.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.poib.VTBHack.storage.model.StoredExecutionResult;
+import ru.poib.VTBHack.storage.model.StoredExecutionSummary;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface StoredExecutionResultRepository extends JpaRepository<StoredExecutionResult, Long> {
+
+    Optional<StoredExecutionResult> findByExecutionId(String executionId);
+
+    List<StoredExecutionSummary> findByOrderByCreatedAtDesc(Pageable pageable);
+
+    List<StoredExecutionSummary> findByProcessIdOrderByCreatedAtDesc(String processId, Pageable pageable);
+}
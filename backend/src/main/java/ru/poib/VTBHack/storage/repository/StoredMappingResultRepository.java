@@ -0,0 +1,12 @@
+package ru.poib.VTBHack.storage.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.poib.VTBHack.storage.model.StoredMappingResult;
+
+import java.util.Optional;
+
+public interface StoredMappingResultRepository extends JpaRepository<StoredMappingResult, Long> {
+
+    Optional<StoredMappingResult> findFirstByBpmnSpecificationIdAndOpenApiSpecificationIdOrderByCreatedAtDesc(
+            Long bpmnSpecificationId, Long openApiSpecificationId);
+}
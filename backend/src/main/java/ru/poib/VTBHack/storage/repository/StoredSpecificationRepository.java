@@ -0,0 +1,12 @@
+package ru.poib.VTBHack.storage.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.poib.VTBHack.storage.model.SpecificationType;
+import ru.poib.VTBHack.storage.model.StoredSpecification;
+
+import java.util.Optional;
+
+public interface StoredSpecificationRepository extends JpaRepository<StoredSpecification, Long> {
+
+    Optional<StoredSpecification> findByTypeAndContentHash(SpecificationType type, String contentHash);
+}
@@ -0,0 +1,292 @@
+package ru.poib.VTBHack.storage.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.poib.VTBHack.config.JsonCodecs;
+import ru.poib.VTBHack.execution.model.TestExecutionResult;
+import ru.poib.VTBHack.mapping.model.MappingResult;
+import ru.poib.VTBHack.mapping.service.ContentHash;
+import ru.poib.VTBHack.storage.model.SpecificationType;
+import ru.poib.VTBHack.storage.model.StoredExecutionResult;
+import ru.poib.VTBHack.storage.model.StoredExecutionSummary;
+import ru.poib.VTBHack.storage.model.StoredMappingResult;
+import ru.poib.VTBHack.storage.model.StoredSpecification;
+import ru.poib.VTBHack.storage.repository.StoredExecutionResultRepository;
+import ru.poib.VTBHack.storage.repository.StoredMappingResultRepository;
+import ru.poib.VTBHack.storage.repository.StoredSpecificationRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Хранилище артефактов: загруженные спецификации, результаты сопоставления и результаты выполнения тестов.
+ * Содержимое и JSON результатов хранятся сжатыми gzip, сводные поля - в отдельных колонках для запросов
+ */
+@Slf4j
+@Service
+public class ArtifactStoreService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final StoredSpecificationRepository specificationRepository;
+    private final StoredMappingResultRepository mappingResultRepository;
+    private final StoredExecutionResultRepository executionResultRepository;
+    private final JsonCodecs jsonCodecs;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean recordExecutionResults;
+
+    public ArtifactStoreService(
+            StoredSpecificationRepository specificationRepository,
+            StoredMappingResultRepository mappingResultRepository,
+            StoredExecutionResultRepository executionResultRepository,
+            JsonCodecs jsonCodecs,
+            PlatformTransactionManager transactionManager,
+            @Value("${storage.record-execution-results:true}") boolean recordExecutionResults) {
+        this.specificationRepository = specificationRepository;
+        this.mappingResultRepository = mappingResultRepository;
+        this.executionResultRepository = executionResultRepository;
+        this.jsonCodecs = jsonCodecs;
+        // Транзакция задается явно: recordExecutionResult вызывает сохранение изнутри сервиса,
+        // где @Transactional через прокси не применяется
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recordExecutionResults = recordExecutionResults;
+    }
+
+    /**
+     * Сохраняет спецификацию. Если такое же содержимое уже загружено, возвращает существующую запись
+     *
+     * @param type тип спецификации
+     * @param name имя файла (необязательно)
+     * @param content содержимое
+     * @return сохраненная или существующая запись
+     */
+    public StoredSpecification storeSpecification(SpecificationType type, String name, String content) throws IOException {
+        if (content == null || content.isBlank()) {
+            throw new IllegalArgumentException("Specification content is empty");
+        }
+        return storeSpecification(type, name, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Сохраняет спецификацию из потока: хэш и сжатое содержимое вычисляются за один проход,
+     * документ целиком в памяти не держится
+     *
+     * @param type тип спецификации
+     * @param name имя файла (необязательно)
+     * @param content поток с содержимым в UTF-8, читается до конца
+     * @return сохраненная или существующая запись
+     */
+    public StoredSpecification storeSpecification(SpecificationType type, String name, InputStream content) throws IOException {
+        ContentHash contentHash = new ContentHash();
+        ByteArrayOutputStream compressedBuffer = new ByteArrayOutputStream();
+        long originalSize = 0;
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressedBuffer)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                contentHash.update(buffer, 0, read);
+                gzip.write(buffer, 0, read);
+                originalSize += read;
+            }
+        }
+        if (originalSize == 0) {
+            throw new IllegalArgumentException("Specification content is empty");
+        }
+
+        String hash = contentHash.finish();
+        Optional<StoredSpecification> existing = specificationRepository.findByTypeAndContentHash(type, hash);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        byte[] compressed = compressedBuffer.toByteArray();
+        StoredSpecification specification = new StoredSpecification(
+                null, type, hash, name, originalSize, compressed.length, Instant.now(), compressed);
+        try {
+            return specificationRepository.save(specification);
+        } catch (DataIntegrityViolationException e) {
+            // Та же спецификация загружена параллельным запросом
+            return specificationRepository.findByTypeAndContentHash(type, hash).orElseThrow(() -> e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<StoredSpecification> findSpecification(Long id) {
+        return specificationRepository.findById(id);
+    }
+
+    /**
+     * Сохраненная спецификация заданного типа
+     */
+    @Transactional(readOnly = true)
+    public Optional<StoredSpecification> findSpecification(Long id, SpecificationType type) {
+        return specificationRepository.findById(id)
+                .filter(specification -> specification.getType() == type);
+    }
+
+    /**
+     * Источник содержимого спецификации: каждый вызов открывает новый поток распаковки
+     */
+    public InputStreamSource contentSource(StoredSpecification specification) {
+        byte[] content = specification.getContent();
+        return () -> GzipCodec.decompressing(content);
+    }
+
+    /**
+     * Сохраняет результат сопоставления двух сохраненных спецификаций
+     */
+    @Transactional
+    public StoredMappingResult storeMappingResult(Long bpmnSpecificationId, Long openApiSpecificationId,
+                                                  MappingResult result) {
+        byte[] payload = GzipCodec.compress(toJson(() -> jsonCodecs.mappingResultWriter().writeValueAsBytes(result)));
+        StoredMappingResult stored = new StoredMappingResult(
+                null,
+                bpmnSpecificationId,
+                openApiSpecificationId,
+                result.getTotalTasks(),
+                result.getMatchedTasks(),
+                result.getOverallConfidence(),
+                Instant.now(),
+                payload);
+        return mappingResultRepository.save(stored);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<StoredMappingResult> findMappingResult(Long id) {
+        return mappingResultRepository.findById(id);
+    }
+
+    /**
+     * Последний сохраненный результат сопоставления для пары спецификаций
+     */
+    @Transactional(readOnly = true)
+    public Optional<StoredMappingResult> findLatestMappingResult(Long bpmnSpecificationId, Long openApiSpecificationId) {
+        return mappingResultRepository.findFirstByBpmnSpecificationIdAndOpenApiSpecificationIdOrderByCreatedAtDesc(
+                bpmnSpecificationId, openApiSpecificationId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<MappingResult> loadMappingResult(Long id) {
+        return mappingResultRepository.findById(id)
+                .map(stored -> fromJson(stored.getPayload(), in -> jsonCodecs.mappingResultReader().readValue(in)));
+    }
+
+    /**
+     * Сохраняет результат выполнения теста. Результату без executionId (синхронный запуск) назначается новый ID.
+     * Повторное сохранение с тем же executionId заменяет запись.
+     * JSON сериализуется и сжимается до начала транзакции
+     *
+     * @param result итоговый результат выполнения
+     * @return сводная запись
+     */
+    public StoredExecutionResult storeExecutionResult(TestExecutionResult result) {
+        if (result.getExecutionId() == null) {
+            result.setExecutionId(UUID.randomUUID().toString());
+        }
+        byte[] json = toJson(() -> jsonCodecs.executionResultWriter().writeValueAsBytes(result));
+        byte[] payload = GzipCodec.compress(json);
+        try {
+            return transactionTemplate.execute(status -> saveExecutionResult(result, json.length, payload));
+        } catch (DataIntegrityViolationException e) {
+            // Запись с тем же executionId создана параллельным сохранением: повторяем как обновление
+            return transactionTemplate.execute(status -> saveExecutionResult(result, json.length, payload));
+        }
+    }
+
+    private StoredExecutionResult saveExecutionResult(TestExecutionResult result, long originalSize, byte[] payload) {
+        StoredExecutionResult stored = executionResultRepository.findByExecutionId(result.getExecutionId())
+                .orElseGet(StoredExecutionResult::new);
+        stored.setExecutionId(result.getExecutionId());
+        stored.setStatus(result.getStatus());
+        stored.setProcessId(result.getProcessId());
+        stored.setProcessName(result.getProcessName());
+        stored.setStartTime(result.getStartTime());
+        stored.setEndTime(result.getEndTime());
+        stored.setTotalDurationMs(result.getTotalDurationMs());
+        if (result.getStatistics() != null) {
+            stored.setTotalSteps(result.getStatistics().getTotalSteps());
+            stored.setFailedSteps(result.getStatistics().getFailedSteps());
+        }
+        stored.setOriginalSize(originalSize);
+        stored.setCreatedAt(Instant.now());
+        stored.setPayload(payload);
+        return executionResultRepository.saveAndFlush(stored);
+    }
+
+    /**
+     * Сохраняет итоговый результат выполнения, если запись включена (storage.record-execution-results).
+     * Ошибка записи не прерывает выполнение теста
+     */
+    public void recordExecutionResult(TestExecutionResult result) {
+        if (!recordExecutionResults || result == null) {
+            return;
+        }
+        try {
+            storeExecutionResult(result);
+        } catch (RuntimeException e) {
+            log.warn("Failed to store execution result {}: {}", result.getExecutionId(), e.getMessage());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<TestExecutionResult> loadExecutionResult(String executionId) {
+        return executionResultRepository.findByExecutionId(executionId)
+                .map(stored -> fromJson(stored.getPayload(), in -> jsonCodecs.executionResultReader().readValue(in)));
+    }
+
+    /**
+     * Последние сохраненные выполнения (сводные записи без тел ответов)
+     *
+     * @param processId ID процесса для фильтрации (необязательно)
+     * @param limit максимальное количество записей
+     */
+    @Transactional(readOnly = true)
+    public List<StoredExecutionSummary> listExecutionResults(String processId, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return processId != null
+                ? executionResultRepository.findByProcessIdOrderByCreatedAtDesc(processId, page)
+                : executionResultRepository.findByOrderByCreatedAtDesc(page);
+    }
+
+    private static byte[] toJson(JsonWrite write) {
+        try {
+            return write.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T fromJson(byte[] payload, JsonRead<T> read) {
+        try (InputStream in = GzipCodec.decompressing(payload)) {
+            return read.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonWrite {
+        byte[] write() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface JsonRead<T> {
+        T read(InputStream in) throws IOException;
+    }
+}
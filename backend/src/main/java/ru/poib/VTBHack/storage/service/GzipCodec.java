@@ -0,0 +1,47 @@
+package ru.poib.VTBHack.storage.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Сжатие содержимого артефактов перед записью в базу
+ */
+final class GzipCodec {
+
+    private GzipCodec() {
+    }
+
+    static byte[] compress(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Поток для чтения сжатых данных: JSON разбирается без промежуточного массива
+     */
+    static InputStream decompressing(byte[] data) {
+        try {
+            return new GZIPInputStream(new ByteArrayInputStream(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] decompress(byte[] data) {
+        try (InputStream in = decompressing(data)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ru.poib.VTBHack.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.poib.VTBHack.execution.model.TestExecutionResult;
+import ru.poib.VTBHack.execution.model.TestExecutionStep;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение пропускной способности сериализации TestExecutionResult:
+ * mapper без Blackbird с поиском сериализатора на каждый вызов против подготовленного writer'а JsonCodecs.
+ * Запуск: mvn test -Dtest=JsonCodecsBenchmarkTest -Dbenchmark=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JsonCodecsBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 2_000;
+    private static final int MEASURED_ITERATIONS = 20_000;
+    // Допуск на шум измерений: подготовленный writer не должен проигрывать baseline
+    private static final double TOLERANCE = 0.9;
+
+    @Test
+    void preparedWriterWithBlackbirdSerializesFaster() throws Exception {
+        ObjectMapper baseline = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        JsonCodecs codecs = JsonCodecs.standalone();
+        TestExecutionResult result = sampleResult(50);
+
+        // Результаты должны совпадать, иначе сравнение скорости не имеет смысла
+        assertArrayEquals(baseline.writeValueAsBytes(result), codecs.executionResultWriter().writeValueAsBytes(result));
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            baseline.writeValueAsBytes(result);
+            codecs.executionResultWriter().writeValueAsBytes(result);
+        }
+
+        long baselineNanos = measure(() -> baseline.writeValueAsBytes(result));
+        long codecsNanos = measure(() -> codecs.executionResultWriter().writeValueAsBytes(result));
+
+        double baselineOps = MEASURED_ITERATIONS * 1e9 / baselineNanos;
+        double codecsOps = MEASURED_ITERATIONS * 1e9 / codecsNanos;
+        log.info("TestExecutionResult serialization: baseline {} ops/s, JsonCodecs {} ops/s (x{})",
+                Math.round(baselineOps), Math.round(codecsOps), String.format("%.2f", codecsOps / baselineOps));
+        assertTrue(codecsOps >= baselineOps * TOLERANCE,
+                "Подготовленный writer с Blackbird медленнее mapper без Blackbird");
+
+        TestExecutionResult restored = codecs.executionResultReader().readValue(
+                codecs.executionResultWriter().writeValueAsBytes(result));
+        assertEquals(result.getSteps().size(), restored.getSteps().size());
+    }
+
+    private long measure(SerializationCall call) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            call.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private TestExecutionResult sampleResult(int steps) {
+        TestExecutionResult result = new TestExecutionResult();
+        result.setExecutionId("benchmark");
+        result.setStatus(TestExecutionResult.ExecutionStatus.SUCCESS);
+        result.setStartTime(Instant.parse("2025-01-01T00:00:00Z"));
+        result.setEndTime(Instant.parse("2025-01-01T00:00:05Z"));
+        result.setTotalDurationMs(5000);
+        result.setProcessId("process");
+        result.setProcessName("Оформление кредита");
+        for (int i = 0; i < steps; i++) {
+            TestExecutionStep step = new TestExecutionStep();
+            step.setTaskId("Task_" + i);
+            step.setTaskName("Шаг " + i);
+            step.setStatus(TestExecutionStep.StepStatus.SUCCESS);
+            step.setStartTime(result.getStartTime());
+            step.setEndTime(result.getEndTime());
+            step.setDurationMs(100 + i);
+
+            TestExecutionStep.RequestDetails request = new TestExecutionStep.RequestDetails();
+            request.setUrl("https://api.example.com/accounts/" + i);
+            request.setMethod("POST");
+            request.setHeaders(Map.of("Content-Type", "application/json", "Authorization", "Bearer token"));
+            request.setBody("{\"amount\": " + i + ", \"currency\": \"RUB\"}");
+            request.setTimestamp(result.getStartTime());
+            step.setRequest(request);
+
+            TestExecutionStep.ResponseDetails response = new TestExecutionStep.ResponseDetails();
+            response.setStatusCode(200);
+            response.setHeaders(Map.of("Content-Type", "application/json"));
+            response.setBody("{\"id\": \"acc-" + i + "\", \"status\": \"OPEN\"}");
+            response.setResponseTimeMs(100 + i);
+            response.setTimestamp(result.getEndTime());
+            step.setResponse(response);
+
+            step.setExtractedData(Map.of("id", "acc-" + i));
+            result.getSteps().add(step);
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface SerializationCall {
+        void run() throws Exception;
+    }
+}
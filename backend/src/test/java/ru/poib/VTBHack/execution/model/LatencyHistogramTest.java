@@ -0,0 +1,62 @@
+package ru.poib.VTBHack.execution.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesStayWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 10000; v++) {
+            histogram.record(v);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(10000, histogram.getMax());
+        assertEquals(5000.5, histogram.getMean(), 0.001);
+        assertEquals(5000, histogram.getP50(), 5000 * 0.02);
+        assertEquals(9900, histogram.getP99(), 9900 * 0.02);
+        assertEquals(9990, histogram.getP999(), 9990 * 0.02);
+    }
+
+    @Test
+    void mergeCombinesCounts() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            first.record(10);
+        }
+        for (int i = 0; i < 10; i++) {
+            second.record(1000);
+        }
+
+        first.merge(second);
+
+        assertEquals(100, first.getCount());
+        assertEquals(10, first.getP50());
+        assertEquals(10, first.getMin());
+        assertEquals(1000, first.getMax());
+        assertTrue(first.getP99() >= 990);
+    }
+
+    @Test
+    void bucketsRoundTrip() {
+        LatencyHistogram original = new LatencyHistogram();
+        original.record(3);
+        original.record(250);
+        original.record(70000);
+
+        LatencyHistogram restored = new LatencyHistogram();
+        restored.setBuckets(original.getBuckets());
+        restored.setMin(original.getMin());
+        restored.setMax(original.getMax());
+        restored.setSum(original.getSum());
+
+        assertEquals(original.getCount(), restored.getCount());
+        assertEquals(original.getP50(), restored.getP50());
+        assertEquals(original.getP99(), restored.getP99());
+    }
+}
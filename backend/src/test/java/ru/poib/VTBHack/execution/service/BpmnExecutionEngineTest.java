@@ -0,0 +1,106 @@
+package ru.poib.VTBHack.execution.service;
+
+import org.junit.jupiter.api.Test;
+import ru.poib.VTBHack.mapping.model.DataFlowEdge;
+import ru.poib.VTBHack.mapping.model.MappingResult;
+import ru.poib.VTBHack.parser.model.ProcessFlow;
+import ru.poib.VTBHack.parser.model.ProcessModel;
+import ru.poib.VTBHack.parser.model.ProcessNode;
+import ru.poib.VTBHack.parser.model.ProcessTask;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BpmnExecutionEngineTest {
+
+    private final BpmnExecutionEngine engine = new BpmnExecutionEngine();
+
+    @Test
+    void independentTasksAreReadyTogether() {
+        // auth -> accounts, auth -> cards; accounts и cards не зависят друг от друга
+        ProcessModel model = createModel("auth", "accounts", "cards");
+        MappingResult mapping = new MappingResult();
+        mapping.setDataFlowEdges(List.of(
+                new DataFlowEdge("auth", "accounts", List.of("data"), 0.8),
+                new DataFlowEdge("auth", "cards", List.of("data"), 0.8)
+        ));
+
+        List<String> order = List.of("auth", "accounts", "cards");
+        DagExecutionPlan plan = engine.buildExecutionDag(model, mapping, order);
+
+        assertEquals(List.of("auth"), plan.start());
+        List<String> ready = plan.complete("auth", Map.of());
+        assertEquals(Set.of("accounts", "cards"), new HashSet<>(ready));
+    }
+
+    @Test
+    void sequenceFlowThroughGatewayCreatesDependency() {
+        ProcessModel model = createModel("first", "second");
+        Map<String, String> flows = new HashMap<>();
+        flows.put("first", "gateway");
+        flows.put("gateway", "second");
+        model.setSequenceFlows(flows);
+
+        List<String> order = List.of("first", "second");
+        DagExecutionPlan plan = engine.buildExecutionDag(model, new MappingResult(), order);
+
+        assertEquals(List.of("first"), plan.start());
+        assertEquals(List.of("second"), plan.complete("first", Map.of()));
+    }
+
+    @Test
+    void backwardEdgesAreIgnored() {
+        ProcessModel model = createModel("a", "b");
+        MappingResult mapping = new MappingResult();
+        mapping.setDataFlowEdges(List.of(
+                new DataFlowEdge("a", "b", List.of("id"), 0.7),
+                new DataFlowEdge("b", "a", List.of("id"), 0.7)
+        ));
+
+        DagExecutionPlan plan = engine.buildExecutionDag(model, mapping, List.of("a", "b"));
+
+        assertEquals(List.of("a"), plan.start());
+        assertEquals(List.of("b"), plan.complete("a", Map.of()));
+        assertTrue(plan.complete("b", Map.of()).isEmpty());
+    }
+
+    @Test
+    void parallelGatewayBranchesBecomeIndependentSuccessors() {
+        ProcessModel model = createModel("auth", "accounts", "cards", "report");
+        model.setNodes(List.of(
+                new ProcessNode("fork", null, "ParallelGateway", null),
+                new ProcessNode("join", null, "ParallelGateway", null)));
+        model.setFlows(List.of(
+                new ProcessFlow("f1", "auth", "fork", null, null),
+                new ProcessFlow("f2", "fork", "accounts", null, null),
+                new ProcessFlow("f3", "fork", "cards", null, null),
+                new ProcessFlow("f4", "accounts", "join", null, null),
+                new ProcessFlow("f5", "cards", "join", null, null),
+                new ProcessFlow("f6", "join", "report", null, null)));
+
+        List<String> order = engine.determineExecutionOrder(model, new MappingResult());
+        assertEquals(List.of("auth", "accounts", "cards", "report"), order);
+
+        DagExecutionPlan plan = engine.buildExecutionDag(model, new MappingResult(), order);
+        assertEquals(List.of("auth"), plan.start());
+        assertEquals(Set.of("accounts", "cards"), new HashSet<>(plan.complete("auth", Map.of())));
+        assertTrue(plan.complete("accounts", Map.of()).isEmpty());
+        assertEquals(List.of("report"), plan.complete("cards", Map.of()));
+    }
+
+    private ProcessModel createModel(String... taskIds) {
+        ProcessModel model = new ProcessModel();
+        model.setId("process");
+        List<ProcessTask> tasks = new ArrayList<>();
+        for (String id : taskIds) {
+            ProcessTask task = new ProcessTask();
+            task.setId(id);
+            task.setName(id);
+            tasks.add(task);
+        }
+        model.setTasks(tasks);
+        model.setSequenceFlows(new HashMap<>());
+        return model;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.poib.VTBHack.execution.service;
+
+import org.junit.jupiter.api.Test;
+import ru.poib.VTBHack.config.JsonCodecs;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataExtractorTest {
+
+    private final JsonCodecs jsonCodecs = JsonCodecs.standalone();
+    private final DataExtractor extractor = new DataExtractor(jsonCodecs, 16);
+
+    @Test
+    void extractsPlainValuesFromParsedTree() {
+        ParsedResponse response = ParsedResponse.parse(
+                "{\"id\": 42, \"name\": \"Иван\", \"items\": [1, 2], \"owner\": {\"login\": \"ivan\"}, \"empty\": null}", jsonCodecs);
+
+        Map<String, Object> data = extractor.extractData(response, Map.of(
+                "id", "$.id",
+                "name", "$.name",
+                "items", "$.items",
+                "owner", "$.owner",
+                "missing", "$.missing"));
+
+        assertEquals(42, data.get("id"));
+        assertEquals("Иван", data.get("name"));
+        assertEquals(List.of(1, 2), data.get("items"));
+        assertEquals(Map.of("login", "ivan"), data.get("owner"));
+        assertFalse(data.containsKey("missing"));
+        assertNull(extractor.extractValue(response, "$.empty"));
+    }
+
+    @Test
+    void documentIsBuiltOncePerResponse() {
+        ParsedResponse response = ParsedResponse.parse("{\"a\": 1}", jsonCodecs);
+
+        assertSame(response.document(), response.document());
+        assertEquals(1, extractor.extractValue(response, "$.a"));
+    }
+
+    @Test
+    void invalidOrEmptyBodyYieldsNoData() {
+        assertTrue(extractor.extractData("not json", Map.of("a", "$.a")).isEmpty());
+        assertTrue(extractor.extractData("  ", Map.of("a", "$.a")).isEmpty());
+        assertNull(extractor.extractValue((String) null, "$.a"));
+        assertNotNull(ParsedResponse.parse("not json", jsonCodecs).getBody().getJsonError());
+    }
+
+    @Test
+    void simpleAndComplexPathsAreEvaluatedTogether() {
+        ParsedResponse response = ParsedResponse.parse(
+                "{\"user\": {\"id\": 7, \"roles\": [\"admin\", \"dev\"]}, \"items\": [{\"price\": 5}, {\"price\": 15}]}", jsonCodecs);
+
+        Map<String, Object> data = extractor.extractData(response, Map.of(
+                "id", "$.user.id",
+                "firstRole", "$['user'].roles[0]",
+                "user", "$.user",
+                "expensive", "$.items[?(@.price > 10)].price",
+                "missing", "$.user.address.city",
+                "data", "$"));
+
+        assertEquals(7, data.get("id"));
+        assertEquals("admin", data.get("firstRole"));
+        assertEquals(List.of(15), data.get("expensive"));
+        assertFalse(data.containsKey("missing"));
+        assertTrue(data.get("data") instanceof Map);
+        assertEquals(Map.of("id", 7, "roles", List.of("admin", "dev")), data.get("user"));
+    }
+
+    @Test
+    void compiledPathsAreCachedWithinBound() {
+        DataExtractor small = new DataExtractor(jsonCodecs, 2);
+        ParsedResponse response = ParsedResponse.parse("{\"a\": 1, \"b\": 2, \"c\": 3}", jsonCodecs);
+
+        small.extractValue(response, "$.a");
+        small.extractValue(response, "$.a");
+        small.extractValue(response, "$.b");
+        small.extractValue(response, "$.c");
+
+        var statistics = small.getCacheStatistics();
+        assertEquals(1, statistics.getHits());
+        assertEquals(3, statistics.getMisses());
+        assertEquals(1, statistics.getEvictions());
+        assertEquals(2, statistics.getSize());
+    }
+
+    @Test
+    void onlyDefinitePathsAreSimple() {
+        assertEquals(List.of("a", 0, "b-c"), JsonPathCache.simpleSegments("$.a[0]['b-c']"));
+        assertEquals(List.of(), JsonPathCache.simpleSegments("$"));
+        assertNull(JsonPathCache.simpleSegments("$..a"));
+        assertNull(JsonPathCache.simpleSegments("$.a[*]"));
+        assertNull(JsonPathCache.simpleSegments("$.a[-1]"));
+    }
+}
@@ -0,0 +1,198 @@
+package ru.poib.VTBHack.execution.service;
+
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.EndEvent;
+import org.flowable.bpmn.model.ExclusiveGateway;
+import org.flowable.bpmn.model.Process;
+import org.flowable.bpmn.model.SequenceFlow;
+import org.flowable.bpmn.model.ServiceTask;
+import org.flowable.bpmn.model.StartEvent;
+import org.flowable.bpmn.model.SubProcess;
+import org.flowable.engine.ProcessEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import ru.poib.VTBHack.execution.config.FlowableEngineConfig;
+import ru.poib.VTBHack.execution.config.FlowableEngineProperties;
+import ru.poib.VTBHack.parser.model.ProcessFlow;
+import ru.poib.VTBHack.parser.model.ProcessModel;
+import ru.poib.VTBHack.parser.model.ProcessNode;
+import ru.poib.VTBHack.parser.model.ProcessTask;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowableExecutionEngineTest {
+
+    @Test
+    void tasksBecomeAsyncServiceTasksCallingTheStepDelegate() {
+        ProcessModel model = model(List.of("auth", "review", "approve"),
+                List.of(new ProcessNode("start", null, "StartEvent", null),
+                        new ProcessNode("check", null, "ExclusiveGateway", "toApprove"),
+                        new ProcessNode("end", null, "EndEvent", null)),
+                List.of(flow("start", "auth"),
+                        flow("auth", "check"),
+                        new ProcessFlow("toReview", "check", "review", null, "amount > 1000"),
+                        new ProcessFlow("toApprove", "check", "approve", null, null),
+                        flow("review", "end"),
+                        flow("approve", "end")));
+
+        Process process = FlowableExecutionEngine.toBpmnModel(model.getGraph(), "process", null).getMainProcess();
+
+        ServiceTask auth = (ServiceTask) process.getFlowElement("auth");
+        assertEquals("${" + FlowableStepDelegate.BEAN_NAME + "}", auth.getImplementation());
+        assertTrue(auth.isAsynchronous());
+        assertTrue(auth.isNotExclusive());
+        assertEquals("toApprove", ((ExclusiveGateway) process.getFlowElement("check")).getDefaultFlow());
+        assertEquals("${stepDelegate.test(executionRunId, 'toReview')}",
+                ((SequenceFlow) process.getFlowElement("toReview")).getConditionExpression());
+        assertNull(((SequenceFlow) process.getFlowElement("toApprove")).getConditionExpression());
+        assertInstanceOf(StartEvent.class, process.getFlowElement("start"));
+    }
+
+    @Test
+    void loopBackEdgeEndsTheTokenAndMissingStartIsAdded() {
+        ProcessModel model = model(List.of("auth", "create", "fix"), List.of(),
+                List.of(flow("auth", "create"), flow("create", "fix"), flow("fix", "create")));
+
+        BpmnModel bpmn = FlowableExecutionEngine.toBpmnModel(model.getGraph(), "process", null);
+        Process process = bpmn.getMainProcess();
+
+        SequenceFlow loop = (SequenceFlow) process.getFlowElement("fix-create");
+        assertInstanceOf(EndEvent.class, process.getFlowElement(loop.getTargetRef()));
+        assertNotNull(process.getFlowElement("engine_start"));
+    }
+
+    @Test
+    void conditionsAreEvaluatedOverTheRunContext() {
+        ProcessModel model = model(List.of("auth", "review", "report"), List.of(),
+                List.of(new ProcessFlow("toReview", "auth", "review", null, "${auth.amount > 1000 && status == 'NEW'}"),
+                        new ProcessFlow("toReport", "auth", "report", null, null)));
+        Map<String, Object> context = new ConcurrentHashMap<>();
+        Predicate<String> conditions = FlowableExecutionEngine.conditions(model.getGraph(), context);
+
+        assertFalse(conditions.test("toReview"));
+        // Значения, извлеченные шагом после старта, видны при следующем вычислении
+        context.put("auth.amount", 5000);
+        context.put("auth.status", "NEW");
+        assertTrue(conditions.test("toReview"));
+        assertFalse(conditions.test("unknown"));
+
+        // Закрытый запуск не выбирает ветки
+        assertFalse(new FlowableStepDelegate().test("closed-run", "toReview"));
+    }
+
+    @Test
+    void subProcessKeepsItsElementsAndStartEvent() throws InterruptedException {
+        ProcessModel model = model(List.of("auth", "fetch", "report"),
+                List.of(new ProcessNode("start", null, "StartEvent", null),
+                        new ProcessNode("sub", null, "SubProcess", null),
+                        new ProcessNode("subStart", null, "StartEvent", null, "sub"),
+                        new ProcessNode("fetch", null, "ServiceTask", null, "sub"),
+                        new ProcessNode("subEnd", null, "EndEvent", null, "sub"),
+                        new ProcessNode("end", null, "EndEvent", null)),
+                List.of(flow("start", "auth"), flow("auth", "sub"),
+                        flow("subStart", "fetch"), flow("fetch", "subEnd"),
+                        flow("sub", "report"), flow("report", "end")));
+
+        Process process = FlowableExecutionEngine.toBpmnModel(model.getGraph(), "process", null).getMainProcess();
+
+        SubProcess sub = (SubProcess) process.getFlowElement("sub", true);
+        assertSame(sub, process.getFlowElement("fetch", true).getParentContainer());
+        assertSame(sub, process.getFlowElement("subStart-fetch", true).getParentContainer());
+        assertEquals(1, process.getFlowElements().stream().filter(StartEvent.class::isInstance).count());
+
+        Set<String> executed = ConcurrentHashMap.newKeySet();
+        runOnEngine(model, new ConcurrentHashMap<>(), executed::add);
+
+        assertEquals(Set.of("auth", "fetch", "report"), executed);
+    }
+
+    @Test
+    void engineRunsParallelBranchesAndTakesTheDefaultFlow() throws InterruptedException {
+        ProcessModel model = model(List.of("auth", "left", "right", "review", "approve"),
+                List.of(new ProcessNode("start", null, "StartEvent", null),
+                        new ProcessNode("fork", null, "ParallelGateway", null),
+                        new ProcessNode("join", null, "ParallelGateway", null),
+                        new ProcessNode("check", null, "ExclusiveGateway", "toApprove"),
+                        new ProcessNode("end", null, "EndEvent", null)),
+                List.of(flow("start", "auth"), flow("auth", "fork"),
+                        flow("fork", "left"), flow("fork", "right"),
+                        flow("left", "join"), flow("right", "join"), flow("join", "check"),
+                        new ProcessFlow("toReview", "check", "review", null, "${auth.status == 'REVIEW'}"),
+                        new ProcessFlow("toApprove", "check", "approve", null, null),
+                        flow("review", "end"), flow("approve", "end")));
+        Map<String, Object> context = new ConcurrentHashMap<>();
+        Set<String> executed = ConcurrentHashMap.newKeySet();
+        // Ветки ждут друг друга: тест завершится, только если движок выполняет их одновременно
+        CountDownLatch branches = new CountDownLatch(2);
+
+        runOnEngine(model, context, taskId -> {
+            if (taskId.equals("auth")) {
+                context.put("auth.status", "NEW");
+            }
+            if (taskId.equals("left") || taskId.equals("right")) {
+                branches.countDown();
+                try {
+                    assertTrue(branches.await(10, TimeUnit.SECONDS), "Branches were not executed in parallel");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            executed.add(taskId);
+        });
+
+        assertEquals(Set.of("auth", "left", "right", "approve"), executed);
+    }
+
+    /**
+     * Выполняет модель во встроенном движке с конфигурацией приложения и ждет завершения экземпляра
+     */
+    private void runOnEngine(ProcessModel model, Map<String, Object> context,
+                             FlowableStepDelegate.StepHandler handler) throws InterruptedException {
+        FlowableEngineProperties properties = new FlowableEngineProperties();
+        properties.setJdbcUrl("jdbc:h2:mem:flowable-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        FlowableStepDelegate stepDelegate = new FlowableStepDelegate();
+        ProcessEngine engine = new FlowableEngineConfig().flowableProcessEngine(properties, stepDelegate);
+        try {
+            FlowableExecutionEngine flowable = new FlowableExecutionEngine(
+                    new StaticListableBeanFactory(Map.of("processEngine", engine)).getBeanProvider(ProcessEngine.class),
+                    stepDelegate, properties);
+            try (FlowableExecutionEngine.EngineRun run = flowable.start(model, context, handler)) {
+                long deadline = System.currentTimeMillis() + 30_000;
+                while (!run.isEnded()) {
+                    assertNull(run.failure());
+                    assertTrue(System.currentTimeMillis() < deadline, "Process instance did not finish");
+                    Thread.sleep(flowable.pollIntervalMs());
+                }
+            }
+        } finally {
+            engine.close();
+        }
+    }
+
+    private ProcessModel model(List<String> taskIds, List<ProcessNode> nodes, List<ProcessFlow> flows) {
+        ProcessModel model = new ProcessModel();
+        model.setId("process");
+        List<ProcessTask> tasks = new ArrayList<>();
+        for (String id : taskIds) {
+            ProcessTask task = new ProcessTask();
+            task.setId(id);
+            task.setName(id);
+            task.setType("ServiceTask");
+            tasks.add(task);
+        }
+        model.setTasks(tasks);
+        model.setNodes(nodes);
+        model.setFlows(flows);
+        return model;
+    }
+
+    private ProcessFlow flow(String source, String target) {
+        return new ProcessFlow(source + "-" + target, source, target, null, null);
+    }
+}
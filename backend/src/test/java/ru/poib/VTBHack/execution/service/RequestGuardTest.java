@@ -0,0 +1,74 @@
+package ru.poib.VTBHack.execution.service;
+
+import org.junit.jupiter.api.Test;
+import ru.poib.VTBHack.execution.model.ExecutionConfig;
+import ru.poib.VTBHack.execution.model.ExecutionProblem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestGuardTest {
+
+    private final RequestGuard guard = new RequestGuard();
+
+    @Test
+    void rateLimiterRejectsWhenWaitExceedsLimit() {
+        ExecutionConfig config = config();
+        config.getRateLimit().setEnabled(true);
+        config.getRateLimit().setRequestsPerSecond(1);
+        config.getRateLimit().setBurst(2);
+        config.getRateLimit().setMaxWaitMs(0);
+
+        assertTrue(guard.admit(config, "GET", "/accounts").allowed());
+        assertTrue(guard.admit(config, "GET", "/cards").allowed());
+
+        RequestGuard.Admission third = guard.admit(config, "GET", "/accounts");
+        assertFalse(third.allowed());
+        assertEquals(ExecutionProblem.ProblemType.RATE_LIMITED, third.rejectedBy());
+    }
+
+    @Test
+    void tokenBucketQueuesReservationsWithinMaxWait() {
+        RequestGuard.TokenBucket bucket = new RequestGuard.TokenBucket(10, 1, 0);
+        long maxWait = 1_000_000_000L;
+
+        assertEquals(0, bucket.reserve(0, maxWait));
+        assertEquals(100_000_000L, bucket.reserve(0, maxWait));
+        assertEquals(200_000_000L, bucket.reserve(0, maxWait));
+        assertEquals(-1, bucket.reserve(0, 100_000_000L));
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndClosesAfterSuccessfulProbe() throws InterruptedException {
+        ExecutionConfig config = config();
+        config.getCircuitBreaker().setEnabled(true);
+        config.getCircuitBreaker().setFailureThreshold(2);
+        config.getCircuitBreaker().setOpenDurationMs(50);
+        HttpRequestExecutor.ExecutionResult unavailable =
+                new HttpRequestExecutor.ExecutionResult(true, 503, null, null, 1, null);
+        HttpRequestExecutor.ExecutionResult ok =
+                new HttpRequestExecutor.ExecutionResult(true, 200, null, null, 1, null);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(guard.admit(config, "GET", "/accounts").allowed());
+            guard.onResult(config, "GET", "/accounts", unavailable);
+        }
+
+        RequestGuard.Admission rejected = guard.admit(config, "GET", "/accounts");
+        assertFalse(rejected.allowed());
+        assertEquals(ExecutionProblem.ProblemType.CIRCUIT_OPEN, rejected.rejectedBy());
+        // Другой эндпоинт не затронут
+        assertTrue(guard.admit(config, "GET", "/cards").allowed());
+
+        Thread.sleep(60);
+        assertTrue(guard.admit(config, "GET", "/accounts").allowed());
+        assertFalse(guard.admit(config, "GET", "/accounts").allowed());
+        guard.onResult(config, "GET", "/accounts", ok);
+        assertTrue(guard.admit(config, "GET", "/accounts").allowed());
+    }
+
+    private ExecutionConfig config() {
+        ExecutionConfig config = new ExecutionConfig();
+        config.setBaseUrl("http://localhost:8080");
+        return config;
+    }
+}
@@ -0,0 +1,45 @@
+package ru.poib.VTBHack.execution.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.poib.VTBHack.config.JsonCodecs;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseBodyTest {
+
+    private final ObjectMapper objectMapper = JsonCodecs.standalone().mapper();
+
+    @Test
+    void truncatedPreviewDoesNotEndInsideCharacter() throws Exception {
+        // "Счет" - по два байта на символ: лимит в 5 байт приходится на середину третьего символа
+        byte[] data = "{\"name\":\"Счет\"}".getBytes(StandardCharsets.UTF_8);
+        int previewBytes = 9 + 5;
+
+        ResponseBody fromBytes = ResponseBody.fromBytes(data, data.length, "application/json",
+                StandardCharsets.UTF_8, previewBytes, objectMapper);
+        ResponseBody read = ResponseBody.read(new ByteArrayInputStream(data), "application/json",
+                StandardCharsets.UTF_8, 0, previewBytes, objectMapper);
+
+        for (ResponseBody body : new ResponseBody[]{fromBytes, read}) {
+            assertEquals("{\"name\":\"Сч", body.getPreview());
+            assertTrue(body.isTruncated());
+            assertEquals(data.length, body.getSizeBytes());
+            assertEquals("Счет", body.getJson().get("name").asText());
+        }
+    }
+
+    @Test
+    void previewKeepsCompleteCharacters() {
+        byte[] emoji = "ok 😀".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(emoji.length, ResponseBody.charBoundary(emoji, emoji.length, StandardCharsets.UTF_8));
+        assertEquals(3, ResponseBody.charBoundary(emoji, emoji.length - 1, StandardCharsets.UTF_8));
+        assertEquals(3, ResponseBody.charBoundary(emoji, 4, StandardCharsets.UTF_8));
+        assertEquals(3, ResponseBody.charBoundary(emoji, 3, StandardCharsets.UTF_8));
+        assertEquals(5, ResponseBody.charBoundary(emoji, 5, StandardCharsets.ISO_8859_1));
+    }
+}
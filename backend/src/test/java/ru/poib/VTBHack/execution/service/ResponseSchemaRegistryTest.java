@@ -0,0 +1,132 @@
+package ru.poib.VTBHack.execution.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.poib.VTBHack.config.JsonCodecs;
+import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseSchemaRegistryTest {
+
+    private static final String SPEC = """
+            {
+              "openapi": "3.0.1",
+              "paths": {
+                "/accounts": {
+                  "post": {
+                    "operationId": "createAccount",
+                    "responses": {
+                      "400": {"description": "bad request"},
+                      "201": {
+                        "description": "created",
+                        "content": {
+                          "application/json": {
+                            "schema": {
+                              "type": "object",
+                              "required": ["id"],
+                              "properties": {
+                                "id": {"type": "string"},
+                                "comment": {"type": "string", "nullable": true, "example": "text"},
+                                "tags": {"type": "array", "items": {"type": "string"}}
+                              }
+                            }
+                          }
+                        }
+                      }
+                    }
+                  },
+                  "delete": {
+                    "responses": {"204": {"description": "deleted"}}
+                  }
+                }
+              }
+            }
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ResponseSchemaRegistry registry = new ResponseSchemaRegistry(JsonCodecs.standalone());
+
+    @Test
+    void firstDeclaredSuccessResponseDefinesExpectations() throws Exception {
+        OpenApiModel model = objectMapper.readValue(SPEC, OpenApiModel.class);
+
+        ResponseSchemaRegistry.ExpectedResponse expected = registry.resolve(model, "/accounts", "post");
+
+        assertEquals(201, expected.statusCode());
+        assertEquals("application/json", expected.contentType());
+        assertNotNull(expected.schema());
+        assertTrue(expected.schema().validate(objectMapper.readTree(
+                "{\"id\": \"a1\", \"comment\": null, \"tags\": [\"x\"]}")).isEmpty());
+        assertFalse(expected.schema().validate(objectMapper.readTree("{\"tags\": [1]}")).isEmpty());
+    }
+
+    @Test
+    void compiledSchemaIsReusedForTheSameOperation() throws Exception {
+        OpenApiModel model = objectMapper.readValue(SPEC, OpenApiModel.class);
+
+        assertSame(registry.resolve(model, "/accounts", "POST").schema(),
+                registry.resolve(model, "/accounts", "POST").schema());
+    }
+
+    @Test
+    void responseWithoutBodyAndMissingSpecification() throws Exception {
+        OpenApiModel model = objectMapper.readValue(SPEC, OpenApiModel.class);
+
+        ResponseSchemaRegistry.ExpectedResponse deleted = registry.resolve(model, "/accounts", "DELETE");
+        assertEquals(204, deleted.statusCode());
+        assertNull(deleted.contentType());
+        assertNull(deleted.schema());
+
+        assertEquals(ResponseSchemaRegistry.DEFAULT, registry.resolve(null, "/accounts", "POST"));
+        assertEquals(ResponseSchemaRegistry.DEFAULT, registry.resolve(model, "/unknown", "GET"));
+    }
+
+    @Test
+    void referencesToComponentsAreResolvedIncludingRecursiveSchemas() throws Exception {
+        OpenApiModel model = objectMapper.readValue("""
+                {
+                  "openapi": "3.0.1",
+                  "paths": {
+                    "/categories": {
+                      "get": {
+                        "responses": {
+                          "200": {
+                            "description": "ok",
+                            "content": {
+                              "application/json": {"schema": {"$ref": "#/components/schemas/Category"}}
+                            }
+                          }
+                        }
+                      }
+                    }
+                  },
+                  "components": {
+                    "schemas": {
+                      "Category": {
+                        "type": "object",
+                        "required": ["name"],
+                        "properties": {
+                          "name": {"type": "string"},
+                          "children": {"type": "array", "items": {"$ref": "#/components/schemas/Category"}},
+                          "owner": {"$ref": "#/components/schemas/Owner"}
+                        }
+                      },
+                      "Owner": {"type": "object", "required": ["id"], "properties": {"id": {"type": "integer"}}}
+                    }
+                  }
+                }
+                """, OpenApiModel.class);
+
+        ResponseSchemaRegistry.ExpectedResponse expected = registry.resolve(model, "/categories", "GET");
+
+        assertNotNull(expected.schema());
+        assertTrue(expected.schema().validate(objectMapper.readTree(
+                "{\"name\": \"root\", \"owner\": {\"id\": 1}, \"children\": [{\"name\": \"leaf\", \"children\": []}]}"))
+                .isEmpty());
+        assertFalse(expected.schema().validate(objectMapper.readTree(
+                "{\"name\": \"root\", \"children\": [{\"children\": []}]}")).isEmpty());
+        assertFalse(expected.schema().validate(objectMapper.readTree(
+                "{\"name\": \"root\", \"owner\": {\"id\": \"x\"}}")).isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package ru.poib.VTBHack.execution.service;
+
+import org.junit.jupiter.api.Test;
+import ru.poib.VTBHack.execution.model.ExecutionConfig;
+
+import java.net.ConnectException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryEvaluatorTest {
+
+    private final RetryEvaluator evaluator = new RetryEvaluator();
+
+    @Test
+    void retriesTransientStatusForIdempotentMethodUntilAttemptsExhausted() {
+        ExecutionConfig config = config(2);
+        HttpRequestExecutor.ExecutionResult unavailable = response(503, Map.of());
+
+        assertTrue(evaluator.shouldRetry("GET", unavailable, config, 1));
+        assertTrue(evaluator.shouldRetry("GET", unavailable, config, 2));
+        assertFalse(evaluator.shouldRetry("GET", unavailable, config, 3));
+        assertFalse(evaluator.shouldRetry("GET", response(400, Map.of()), config, 1));
+    }
+
+    @Test
+    void postIsRetriedOnlyWhenExplicitlyAllowed() {
+        ExecutionConfig config = config(1);
+        HttpRequestExecutor.ExecutionResult unavailable = response(503, Map.of());
+
+        assertFalse(evaluator.shouldRetry("POST", unavailable, config, 1));
+        config.getRetryPolicy().setRetryNonIdempotent(true);
+        assertTrue(evaluator.shouldRetry("POST", unavailable, config, 1));
+    }
+
+    @Test
+    void statusClassAndExceptionHierarchyAreMatched() {
+        ExecutionConfig config = config(1);
+        config.getRetryPolicy().setRetryableStatuses(List.of("5xx"));
+
+        assertTrue(evaluator.shouldRetry("GET", response(500, Map.of()), config, 1));
+        assertFalse(evaluator.shouldRetry("GET", response(429, Map.of()), config, 1));
+
+        HttpRequestExecutor.ExecutionResult networkError = new HttpRequestExecutor.ExecutionResult(
+                false, 0, null, null, 5, "Network error", new RuntimeException(new ConnectException("refused")));
+        assertTrue(evaluator.shouldRetry("GET", networkError, config, 1));
+    }
+
+    @Test
+    void delayGrowsExponentiallyAndHonorsRetryAfter() {
+        ExecutionConfig config = config(5);
+        config.setRetryDelayMs(100);
+        config.getRetryPolicy().setJitter(0);
+        config.getRetryPolicy().setMaxDelayMs(1000);
+        HttpRequestExecutor.ExecutionResult unavailable = response(502, Map.of());
+
+        assertEquals(100, evaluator.delayBeforeRetry(unavailable, config, 1));
+        assertEquals(400, evaluator.delayBeforeRetry(unavailable, config, 3));
+        assertEquals(1000, evaluator.delayBeforeRetry(unavailable, config, 5));
+
+        HttpRequestExecutor.ExecutionResult throttled = response(429, Map.of("retry-after", "2"));
+        assertEquals(1000, evaluator.delayBeforeRetry(throttled, config, 1));
+    }
+
+    private ExecutionConfig config(int retryCount) {
+        ExecutionConfig config = new ExecutionConfig();
+        config.setRetryCount(retryCount);
+        return config;
+    }
+
+    private HttpRequestExecutor.ExecutionResult response(int status, Map<String, String> headers) {
+        return new HttpRequestExecutor.ExecutionResult(true, status, headers, null, 5, null);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.poib.VTBHack.execution.service;
+
+import org.junit.jupiter.api.Test;
+import ru.poib.VTBHack.mapping.model.DataFlowEdge;
+import ru.poib.VTBHack.parser.model.ProcessFlow;
+import ru.poib.VTBHack.parser.model.ProcessModel;
+import ru.poib.VTBHack.parser.model.ProcessNode;
+import ru.poib.VTBHack.parser.model.ProcessTask;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenExecutionPlanTest {
+
+    @Test
+    void exclusiveGatewayTakesFirstTrueConditionAndSkipsOtherBranch() {
+        ProcessModel model = model(List.of("auth", "review", "approve", "notify"),
+                List.of(new ProcessNode("start", null, "StartEvent", null),
+                        new ProcessNode("check", null, "ExclusiveGateway", "toApprove"),
+                        new ProcessNode("merge", null, "ExclusiveGateway", null),
+                        new ProcessNode("end", null, "EndEvent", null)),
+                List.of(flow("start", "auth"),
+                        flow("auth", "check"),
+                        new ProcessFlow("toReview", "check", "review", null, "${amount > 1000}"),
+                        new ProcessFlow("toApprove", "check", "approve", null, null),
+                        flow("review", "merge"),
+                        flow("approve", "merge"),
+                        flow("merge", "notify"),
+                        flow("notify", "end")));
+        ExecutionPlan plan = plan(model, null);
+        Map<String, Object> context = new HashMap<>();
+
+        assertEquals(List.of("auth"), plan.start(context));
+        context.put("auth.amount", 5000);
+        assertEquals(List.of("review"), plan.complete("auth", context));
+        assertEquals(List.of("notify"), plan.complete("review", context));
+        assertTrue(plan.complete("notify", context).isEmpty());
+        assertEquals(Set.of("approve"), plan.skipped());
+    }
+
+    @Test
+    void defaultFlowIsTakenWhenNoConditionHolds() {
+        ProcessModel model = model(List.of("auth", "review", "approve"),
+                List.of(new ProcessNode("check", null, "ExclusiveGateway", "toApprove")),
+                List.of(flow("auth", "check"),
+                        new ProcessFlow("toReview", "check", "review", null, "${amount > 1000}"),
+                        new ProcessFlow("toApprove", "check", "approve", null, null)));
+        ExecutionPlan plan = plan(model, null);
+
+        assertEquals(List.of("auth"), plan.start(Map.of()));
+        assertEquals(List.of("approve"), plan.complete("auth", Map.of("amount", "10")));
+        assertEquals(Set.of("review"), plan.skipped());
+    }
+
+    @Test
+    void parallelGatewayForksAndJoins() {
+        ProcessModel model = model(List.of("auth", "accounts", "cards", "report"),
+                List.of(new ProcessNode("fork", null, "ParallelGateway", null),
+                        new ProcessNode("join", null, "ParallelGateway", null)),
+                List.of(flow("auth", "fork"),
+                        flow("fork", "accounts"),
+                        flow("fork", "cards"),
+                        flow("accounts", "join"),
+                        flow("cards", "join"),
+                        flow("join", "report")));
+        ExecutionPlan plan = plan(model, null);
+
+        assertEquals(List.of("auth"), plan.start(Map.of()));
+        assertEquals(List.of("accounts", "cards"), plan.complete("auth", Map.of()));
+        assertTrue(plan.complete("cards", Map.of()).isEmpty());
+        assertEquals(List.of("report"), plan.complete("accounts", Map.of()));
+        assertTrue(plan.skipped().isEmpty());
+    }
+
+    @Test
+    void inclusiveJoinWaitsOnlyForActivatedBranches() {
+        ProcessModel model = model(List.of("auth", "sms", "email", "push", "done"),
+                List.of(new ProcessNode("split", null, "InclusiveGateway", null),
+                        new ProcessNode("join", null, "InclusiveGateway", null)),
+                List.of(flow("auth", "split"),
+                        new ProcessFlow("s1", "split", "sms", null, "${phone != null}"),
+                        new ProcessFlow("s2", "split", "email", null, "${not empty email}"),
+                        new ProcessFlow("s3", "split", "push", null, "${pushEnabled}"),
+                        flow("sms", "join"),
+                        flow("email", "join"),
+                        flow("push", "join"),
+                        flow("join", "done")));
+        ExecutionPlan plan = plan(model, null);
+        Map<String, Object> context = Map.of("phone", "+70000000000", "email", "a@b.c", "pushEnabled", false);
+
+        assertEquals(List.of("auth"), plan.start(context));
+        assertEquals(List.of("sms", "email"), plan.complete("auth", context));
+        assertTrue(plan.complete("sms", context).isEmpty());
+        assertEquals(List.of("done"), plan.complete("email", context));
+        assertEquals(Set.of("push"), plan.skipped());
+    }
+
+    @Test
+    void loopsRunEachTaskOnceAndDataDependenciesDelayStart() {
+        ProcessModel model = model(List.of("create", "check", "fix", "confirm"),
+                List.of(new ProcessNode("ok", null, "ExclusiveGateway", null)),
+                List.of(flow("create", "check"),
+                        flow("check", "ok"),
+                        new ProcessFlow("retry", "ok", "fix", null, "${valid == false}"),
+                        new ProcessFlow("done", "ok", "confirm", null, "${valid}"),
+                        flow("fix", "check")));
+        ExecutionPlan plan = plan(model, List.of(new DataFlowEdge("create", "confirm", List.of("id"), 0.9)));
+
+        assertEquals(List.of("create"), plan.start(Map.of()));
+        assertEquals(List.of("check"), plan.complete("create", Map.of()));
+        assertEquals(List.of("fix"), plan.complete("check", Map.of("valid", false)));
+        // Возврат к уже выполненной проверке не запускает ее повторно, ветка confirm пропущена
+        assertTrue(plan.complete("fix", Map.of("valid", true)).isEmpty());
+        assertEquals(Set.of("confirm"), plan.skipped());
+    }
+
+    @Test
+    void subProcessRunsInsideItsBranchAndIsSkippedWithIt() {
+        ProcessModel model = model(List.of("auth", "review", "fetch", "store", "notify"),
+                List.of(new ProcessNode("check", null, "ExclusiveGateway", "toSub"),
+                        new ProcessNode("sub", null, "SubProcess", null),
+                        new ProcessNode("subStart", null, "StartEvent", null, "sub"),
+                        new ProcessNode("fetch", null, "ServiceTask", null, "sub"),
+                        new ProcessNode("store", null, "ServiceTask", null, "sub"),
+                        new ProcessNode("subEnd", null, "EndEvent", null, "sub"),
+                        new ProcessNode("merge", null, "ExclusiveGateway", null)),
+                List.of(flow("auth", "check"),
+                        new ProcessFlow("toReview", "check", "review", null, "${amount > 1000}"),
+                        new ProcessFlow("toSub", "check", "sub", null, null),
+                        flow("subStart", "fetch"), flow("fetch", "store"), flow("store", "subEnd"),
+                        flow("review", "merge"), flow("sub", "merge"), flow("merge", "notify")));
+
+        // Ветка с подпроцессом не выбрана: его задачи пропускаются, слияние ждет только review
+        ExecutionPlan notTaken = plan(model, null);
+        assertEquals(List.of("auth"), notTaken.start(Map.of()));
+        assertEquals(List.of("review"), notTaken.complete("auth", Map.of("amount", 5000)));
+        assertEquals(Set.of("fetch", "store"), notTaken.skipped());
+        assertEquals(List.of("notify"), notTaken.complete("review", Map.of()));
+
+        // Выбранная ветка: из подпроцесса токен выходит после его последней задачи
+        ExecutionPlan taken = plan(model, null);
+        assertEquals(List.of("auth"), taken.start(Map.of()));
+        assertEquals(List.of("fetch"), taken.complete("auth", Map.of("amount", 10)));
+        assertEquals(List.of("store"), taken.complete("fetch", Map.of()));
+        assertEquals(List.of("notify"), taken.complete("store", Map.of()));
+        assertEquals(Set.of("review"), taken.skipped());
+    }
+
+    @Test
+    void engineUsesTokenPlanOnlyForProcessesWithGateways() {
+        BpmnExecutionEngine engine = new BpmnExecutionEngine();
+        ProcessModel linear = model(List.of("a", "b"), List.of(), List.of(flow("a", "b")));
+        ProcessModel branching = model(List.of("a", "b"),
+                List.of(new ProcessNode("x", null, "ParallelGateway", null)),
+                List.of(flow("a", "x"), flow("x", "b")));
+
+        assertInstanceOf(DagExecutionPlan.class, engine.buildExecutionPlan(linear, null, List.of("a", "b")));
+        assertInstanceOf(TokenExecutionPlan.class, engine.buildExecutionPlan(branching, null, List.of("a", "b")));
+    }
+
+    private ExecutionPlan plan(ProcessModel model, List<DataFlowEdge> dataFlowEdges) {
+        List<String> order = model.getTasks().stream().map(ProcessTask::getId).toList();
+        return new TokenExecutionPlan(model.getGraph(), order, dataFlowEdges);
+    }
+
+    private ProcessModel model(List<String> taskIds, List<ProcessNode> nodes, List<ProcessFlow> flows) {
+        ProcessModel model = new ProcessModel();
+        model.setId("process");
+        List<ProcessTask> tasks = new ArrayList<>();
+        for (String id : taskIds) {
+            ProcessTask task = new ProcessTask();
+            task.setId(id);
+            task.setName(id);
+            task.setType("ServiceTask");
+            tasks.add(task);
+        }
+        model.setTasks(tasks);
+        model.setNodes(nodes);
+        model.setFlows(flows);
+        return model;
+    }
+
+    private ProcessFlow flow(String source, String target) {
+        return new ProcessFlow(source + "-" + target, source, target, null, null);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.poib.VTBHack.mapping.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashTest {
+
+    @Test
+    void ignoresLineEndingsBomAndSurroundingWhitespace() {
+        String unix = ContentHash.of("<a>\n<b/>\n</a>\n");
+
+        assertEquals(unix, ContentHash.of("\uFEFF<a>\r\n<b/>\r\n</a>"));
+        assertEquals(unix, ContentHash.of("  \n<a>\r<b/>\r</a>\t\n"));
+        assertNotEquals(unix, ContentHash.of("<a>\n\n<b/>\n</a>"));
+        assertNotEquals(unix, ContentHash.of("<a><c/></a>"));
+    }
+
+    @Test
+    void streamMatchesStringRegardlessOfChunking() throws IOException {
+        String content = "\uFEFF{\r\n  \"openapi\": \"3.0.1\",\r\n  \"title\": \"Платежи\"\r\n}\r\n";
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(ContentHash.of(content), ContentHash.of(new ByteArrayInputStream(bytes)));
+        // CRLF и BOM на границе чтения
+        assertEquals(ContentHash.of(content), ContentHash.of(new OneByteInputStream(bytes)));
+    }
+
+    @Test
+    void partialBomIsContent() {
+        byte[] bytes = {(byte) 0xEF, (byte) 0xBB, 'x'};
+        ContentHash hash = new ContentHash();
+        hash.update(bytes, 0, bytes.length);
+
+        assertNotEquals(ContentHash.of("x"), hash.finish());
+    }
+
+    /**
+     * Поток, отдающий по одному байту за чтение
+     */
+    private static final class OneByteInputStream extends InputStream {
+        private final byte[] bytes;
+        private int position;
+
+        private OneByteInputStream(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= bytes.length) {
+                return -1;
+            }
+            buffer[offset] = bytes[position++];
+            return 1;
+        }
+    }
+}
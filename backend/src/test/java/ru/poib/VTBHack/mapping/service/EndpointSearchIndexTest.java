@@ -0,0 +1,49 @@
+package ru.poib.VTBHack.mapping.service;
+
+import org.junit.jupiter.api.Test;
+import ru.poib.VTBHack.mapping.model.EndpointInfo;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointSearchIndexTest {
+
+    private final SemanticAnalysisService semanticAnalysisService = new SemanticAnalysisService();
+
+    private final List<EndpointInfo> endpoints = List.of(
+            new EndpointInfo("/auth/token", "POST", "login", "Авторизация пользователя", "Выдача токена доступа"),
+            new EndpointInfo("/accounts", "GET", "getAccounts", "Получение счетов", "Список счетов клиента"),
+            new EndpointInfo("/payments", "POST", "createPayment", "Создание платежа", "Перевод между счетами"),
+            new EndpointInfo("/cards", "GET", "getCards", "Карты клиента", "Список банковских карт"));
+
+    @Test
+    void ranksOnlyEndpointsSharingTerms() {
+        EndpointSearchIndex index = semanticAnalysisService.buildIndex(endpoints);
+
+        List<EndpointSearchIndex.ScoredEndpoint> result = index.search("Получение списка счетов клиента");
+
+        assertFalse(result.isEmpty());
+        assertEquals("/accounts", result.get(0).endpoint().getPath());
+        assertTrue(result.stream().noneMatch(scored -> scored.endpoint().getPath().equals("/auth/token")));
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i - 1).score() >= result.get(i).score());
+        }
+    }
+
+    @Test
+    void synonymsAndIdenticalTextsAreMatched() {
+        EndpointSearchIndex index = semanticAnalysisService.buildIndex(endpoints);
+
+        // "логин" и "авторизация" приводятся к одному терму словарем синонимов
+        assertEquals("/auth/token", index.search("Логин пользователя").get(0).endpoint().getPath());
+        assertEquals(1.0, index.search(endpoints.get(3).getFullText()).get(0).score(), 1e-9);
+    }
+
+    @Test
+    void emptyQueriesAndIndexesYieldNothing() {
+        assertTrue(semanticAnalysisService.buildIndex(endpoints).search("  ").isEmpty());
+        assertTrue(semanticAnalysisService.buildIndex(List.of()).search("Получение счетов").isEmpty());
+        assertTrue(semanticAnalysisService.buildIndex(endpoints).search("неизвестные слова").isEmpty());
+    }
+}
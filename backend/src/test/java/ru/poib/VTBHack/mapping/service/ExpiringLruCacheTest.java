@@ -0,0 +1,46 @@
+package ru.poib.VTBHack.mapping.service;
+
+import org.junit.jupiter.api.Test;
+import ru.poib.VTBHack.mapping.model.MappingCacheStatistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringLruCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, 0, now::get);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+
+        cache.put("c", "3");
+
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        MappingCacheStatistics.RegionStatistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.getSize());
+        assertEquals(1, statistics.getEvictions());
+        assertEquals(3, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10, 1000, now::get);
+        cache.put("a", "1");
+
+        now.set(999);
+        assertEquals("1", cache.get("a"));
+
+        now.set(1000);
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getStatistics().getExpirations());
+        assertEquals(0, cache.getStatistics().getSize());
+    }
+}
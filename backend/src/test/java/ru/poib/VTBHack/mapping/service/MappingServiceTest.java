@@ -2,7 +2,9 @@ package ru.poib.VTBHack.mapping.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.poib.VTBHack.mapping.model.EndpointInfo;
 import ru.poib.VTBHack.mapping.model.MappingResult;
+import ru.poib.VTBHack.mapping.model.TaskEndpointMapping;
 import ru.poib.VTBHack.parser.model.ProcessModel;
 import ru.poib.VTBHack.parser.model.ProcessTask;
 import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
@@ -115,7 +117,124 @@ class MappingServiceTest {
         assertNotNull(result);
     }
     
+    @Test
+    void sampleTasksKeepTheirEndpointsAboveThresholds() {
+        // Задачи из примеров ai/bpmn без суффикса "METHOD /path": сопоставление идет только по тексту
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("Получение списка счетов", "GET /accounts");
+        expected.put("Инициация платежа", "POST /payments");
+        expected.put("Проверка статуса платежа", "GET /payments/{payment_id}");
+        expected.put("Создание VRP согласия", "POST /domestic-vrp-consents");
+        expected.put("Получение списка продуктов", "GET /products");
+        expected.put("Получение деталей продукта", "GET /products/{product_id}");
+        expected.put("Проверка статуса заявки", "GET /product-application/{application_id}");
+        expected.put("Создание договора", "POST /product-agreements");
+        // Слабые совпадения не проходят порог: без порога они попали бы на чужие эндпоинты
+        List<String> weak = List.of("Получение списка транзакций", "Инициация первого платежа");
+
+        ProcessModel processModel = new ProcessModel();
+        processModel.setId("samples");
+        List<ProcessTask> tasks = new ArrayList<>();
+        for (String name : concat(expected.keySet(), weak)) {
+            ProcessTask task = new ProcessTask();
+            task.setId("task-" + tasks.size());
+            task.setName(name);
+            task.setType("ServiceTask");
+            tasks.add(task);
+        }
+        processModel.setTasks(tasks);
+        processModel.setSequenceFlows(new HashMap<>());
+        OpenApiModel openApiModel = createSampleBankOpenApiModel();
+
+        MappingResult result = mappingService.mapProcessToEndpoints(processModel, openApiModel);
+
+        List<EndpointInfo> endpoints = endpointExtractor.extractEndpoints(openApiModel);
+        for (ProcessTask task : tasks) {
+            TaskEndpointMapping mapping = result.getTaskMappings().get(task.getId());
+            if (weak.contains(task.getName())) {
+                assertNull(mapping, task.getName());
+                continue;
+            }
+            assertNotNull(mapping, task.getName());
+            String endpoint = mapping.getEndpointMethod() + " " + mapping.getEndpointPath();
+            assertEquals(expected.get(task.getName()), endpoint, task.getName());
+            // Тот же эндпоинт выбирает и попарное сравнение текстов, которым сопоставление работало до индекса
+            EndpointInfo pairwise = endpoints.stream()
+                    .max(Comparator.comparingDouble(e ->
+                            semanticAnalysisService.calculateSimilarity(task.getName(), e.getFullText())))
+                    .orElseThrow();
+            assertEquals(endpoint, pairwise.getMethod() + " " + pairwise.getPath(), task.getName());
+        }
+        assertEquals(expected.size(), result.getMatchedTasks());
+    }
+
     // Вспомогательные методы для создания тестовых данных
+
+    private static List<String> concat(Collection<String> first, Collection<String> second) {
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
+    }
+
+    /**
+     * Эндпоинты банковского API, которые вызывают примеры процессов из ai/bpmn
+     */
+    private OpenApiModel createSampleBankOpenApiModel() {
+        OpenApiModel model = new OpenApiModel();
+        model.setOpenApiVersion("3.0.0");
+        OpenApiModel.Info info = new OpenApiModel.Info();
+        info.setTitle("Bank API");
+        info.setVersion("1.0.0");
+        model.setInfo(info);
+        Map<String, OpenApiModel.PathItem> paths = new LinkedHashMap<>();
+        paths.put("/auth/bank-token", post(operation("createBankToken", "Аутентификация банка", "Выдача токена доступа")));
+        paths.put("/accounts", get(operation("getAccounts", "Получение списка счетов", "Счета клиента")));
+        paths.put("/accounts/{account_id}", get(operation("getAccount", "Получение деталей счета", "Информация о счете клиента")));
+        paths.put("/accounts/{account_id}/balances", get(operation("getBalances", "Баланс счета", "Остатки на счете")));
+        paths.put("/accounts/{account_id}/transactions",
+                get(operation("getTransactions", "Получение транзакций счета", "История операций по счету")));
+        OpenApiModel.PathItem status = new OpenApiModel.PathItem();
+        status.setPut(operation("updateAccountStatus", "Изменение статуса счета", "Закрытие или блокировка счета"));
+        paths.put("/accounts/{account_id}/status", status);
+        paths.put("/payments", post(operation("createPayment", "Создание платежа", "Инициация платежа с согласием")));
+        paths.put("/payments/{payment_id}", get(operation("getPayment", "Статус платежа", "Проверка статуса платежа")));
+        paths.put("/domestic-vrp-consents",
+                post(operation("createVrpConsent", "Создание VRP согласия", "Согласие на периодические платежи")));
+        paths.put("/domestic-vrp-payments",
+                post(operation("createVrpPayment", "Создание VRP платежа", "Инициация платежа по VRP согласию")));
+        paths.put("/products", get(operation("getProducts", "Получение списка продуктов", "Каталог продуктов банка")));
+        paths.put("/products/{product_id}", get(operation("getProduct", "Получение деталей продукта", "Информация о продукте")));
+        paths.put("/product-application",
+                post(operation("createProductApplication", "Подача заявки на продукт", "Заявка на открытие продукта")));
+        paths.put("/product-application/{application_id}",
+                get(operation("getProductApplication", "Статус заявки на продукт", "Проверка статуса заявки")));
+        paths.put("/product-agreements",
+                post(operation("createProductAgreement", "Создание договора", "Открытие договора по продукту")));
+        paths.put("/customer-leads", post(operation("createCustomerLead", "Создание лида", "Заявка потенциального клиента")));
+        model.setPaths(paths);
+        return model;
+    }
+
+    private static ru.poib.VTBHack.parser.model.openapi.Operation operation(String operationId, String summary,
+                                                                          String description) {
+        ru.poib.VTBHack.parser.model.openapi.Operation operation = new ru.poib.VTBHack.parser.model.openapi.Operation();
+        operation.setOperationId(operationId);
+        operation.setSummary(summary);
+        operation.setDescription(description);
+        return operation;
+    }
+
+    private static OpenApiModel.PathItem get(ru.poib.VTBHack.parser.model.openapi.Operation operation) {
+        OpenApiModel.PathItem pathItem = new OpenApiModel.PathItem();
+        pathItem.setGet(operation);
+        return pathItem;
+    }
+
+    private static OpenApiModel.PathItem post(ru.poib.VTBHack.parser.model.openapi.Operation operation) {
+        OpenApiModel.PathItem pathItem = new OpenApiModel.PathItem();
+        pathItem.setPost(operation);
+        return pathItem;
+    }
     
     private ProcessModel createTestProcessModel() {
         ProcessModel model = new ProcessModel();
@@ -0,0 +1,85 @@
+package ru.poib.VTBHack.parser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowConditionsTest {
+
+    @Test
+    void variablesAreResolvedToSharedSlots() {
+        FlowConditions conditions = conditions(
+                "${amount > 1000}", null, "${amount le 1000 and status == 'NEW'}", "${amount > 1000}");
+
+        assertEquals(List.of("amount", "status"), conditions.variables());
+        assertTrue(conditions.hasCondition(0));
+        assertFalse(conditions.hasCondition(1));
+
+        Object[] slots = new Object[conditions.slotCount()];
+        Map<String, Object> context = new HashMap<>();
+        context.put("auth.amount", 500);
+        context.put("status", "NEW");
+        conditions.bind(context, slots);
+
+        assertFalse(conditions.test(0, slots));
+        assertTrue(conditions.test(1, slots));
+        assertTrue(conditions.test(2, slots));
+    }
+
+    @Test
+    void comparesNumbersStringsAndEmptyValues() {
+        FlowConditions conditions = conditions(
+                "${score >= 7.5}", "${!(code != \"200\")}", "${empty items}", "${not approved}");
+        Object[] slots = new Object[conditions.slotCount()];
+        conditions.bind(Map.of("score", "7.5", "code", 200, "items", List.of(), "approved", false), slots);
+
+        assertTrue(conditions.test(0, slots));
+        assertTrue(conditions.test(1, slots));
+        assertTrue(conditions.test(2, slots));
+        assertTrue(conditions.test(3, slots));
+    }
+
+    @Test
+    void nestedFieldIsReadFromContextObject() {
+        FlowConditions conditions = conditions("${task.data.status == 'OK'}");
+        Object[] slots = new Object[conditions.slotCount()];
+        conditions.bind(Map.of("task.data", Map.of("status", "OK")), slots);
+
+        assertTrue(conditions.test(0, slots));
+    }
+
+    @Test
+    void malformedConditionIsFalseAndAddsNoSlots() {
+        FlowConditions conditions = conditions("${amount >}", "${(a == 1}");
+
+        assertEquals(0, conditions.slotCount());
+        assertFalse(conditions.test(0, new Object[0]));
+        assertFalse(conditions.test(1, new Object[0]));
+    }
+
+    @Test
+    void unaryOperatorsBindTighterThanComparisons() {
+        FlowConditions conditions = conditions(
+                "${!token == false}", "${balance > -100}", "${-delta >= 5}", "${a < b == true}");
+        Object[] slots = new Object[conditions.slotCount()];
+        conditions.bind(Map.of("balance", -50, "delta", "-5.5", "a", 1, "b", 2), slots);
+
+        // (!null) == false ложно; при разборе как !(token == false) было бы истинно
+        assertFalse(conditions.test(0, slots));
+        assertTrue(conditions.test(1, slots));
+        assertTrue(conditions.test(2, slots));
+        assertTrue(conditions.test(3, slots));
+    }
+
+    private static FlowConditions conditions(String... expressions) {
+        String[] edgeIds = new String[expressions.length];
+        for (int edge = 0; edge < expressions.length; edge++) {
+            edgeIds[edge] = "flow" + edge;
+        }
+        return new FlowConditions(edgeIds, expressions);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.poib.VTBHack.parser.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessGraphTest {
+
+    @Test
+    void nextTasksPassThroughGatewayChainsAndCycles() {
+        // auth -> g1 -> g2 -> {accounts, g3}; g3 -> {cards, g2}: шлюзы g2 и g3 образуют цикл
+        ProcessGraph graph = ProcessGraph.of(tasks("auth", "accounts", "cards"),
+                List.of(new ProcessNode("g1", null, "ExclusiveGateway", null),
+                        new ProcessNode("g2", null, "ExclusiveGateway", null),
+                        new ProcessNode("g3", null, "ExclusiveGateway", null)),
+                List.of(flow("auth", "g1"), flow("g1", "g2"), flow("g2", "accounts"), flow("g2", "g3"),
+                        flow("g3", "cards"), flow("g3", "g2"), flow("cards", "auth")));
+
+        assertEquals(List.of("accounts", "cards"), nextTasks(graph, "auth"));
+        assertEquals(List.of("accounts", "cards"), nextTasks(graph, "g3"));
+        assertEquals(List.of("auth"), nextTasks(graph, "cards"));
+        assertEquals(List.of(), nextTasks(graph, "accounts"));
+    }
+
+    @Test
+    void subProcessContentsAreOrderedAtTheSubProcess() {
+        // start -> auth -> sub{subStart -> fetch -> check -> {left, right}} -> report
+        ProcessGraph graph = ProcessGraph.of(tasks("report", "fetch", "auth", "left", "right"),
+                List.of(new ProcessNode("start", null, "StartEvent", null),
+                        new ProcessNode("sub", null, "SubProcess", null),
+                        new ProcessNode("subStart", null, "StartEvent", null, "sub"),
+                        new ProcessNode("fetch", null, "ServiceTask", null, "sub"),
+                        new ProcessNode("check", null, "ExclusiveGateway", null, "sub"),
+                        new ProcessNode("left", null, "ServiceTask", null, "sub"),
+                        new ProcessNode("right", null, "ServiceTask", null, "sub")),
+                List.of(flow("start", "auth"), flow("auth", "sub"), flow("subStart", "fetch"),
+                        flow("fetch", "check"), flow("check", "left"), flow("check", "right"),
+                        flow("sub", "report")));
+
+        assertEquals(List.of("start"), Arrays.stream(graph.startNodes()).mapToObj(graph::nodeId).toList());
+        List<String> tasks = Arrays.stream(graph.topologicalOrder()).filter(graph::isTask)
+                .mapToObj(graph::nodeId).toList();
+        assertEquals(List.of("auth", "fetch", "left", "right", "report"), tasks);
+        assertEquals(List.of("fetch"), nextTasks(graph, "auth"));
+        assertEquals(List.of("report"), nextTasks(graph, "left"));
+        assertEquals(List.of("left", "right"),
+                Arrays.stream(graph.innerEnds(graph.indexOf("sub"))).mapToObj(graph::nodeId).toList());
+    }
+
+    @Test
+    void elementWithoutIdIsRejected() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> ProcessGraph.of(List.of(), List.of(new ProcessNode(null, "Check", "ExclusiveGateway", null)),
+                        List.of()));
+        assertTrue(error.getMessage().contains("Check"));
+    }
+
+    private static List<String> nextTasks(ProcessGraph graph, String nodeId) {
+        return Arrays.stream(graph.nextTasks(graph.indexOf(nodeId))).mapToObj(graph::nodeId).toList();
+    }
+
+    private static List<ProcessTask> tasks(String... ids) {
+        List<ProcessTask> tasks = new ArrayList<>();
+        for (String id : ids) {
+            ProcessTask task = new ProcessTask();
+            task.setId(id);
+            task.setName(id);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static ProcessFlow flow(String source, String target) {
+        return new ProcessFlow(source + "-" + target, source, target, null, null);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.poib.VTBHack.parser.model.openapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaResolverTest {
+
+    private static final String SPEC = """
+            {
+              "openapi": "3.0.1",
+              "paths": {},
+              "components": {
+                "schemas": {
+                  "Id": {"$ref": "#/components/schemas/Uuid"},
+                  "Uuid": {"type": "string", "format": "uuid"},
+                  "Loop": {"$ref": "#/components/schemas/Loop"},
+                  "Base": {"type": "object", "required": ["id"], "properties": {"id": {"$ref": "#/components/schemas/Id"}}},
+                  "Payment": {
+                    "allOf": [
+                      {"$ref": "#/components/schemas/Base"},
+                      {"type": "object", "required": ["amount"], "properties": {"amount": {"type": "number"}}}
+                    ]
+                  },
+                  "Node": {"type": "object", "properties": {"next": {"$ref": "#/components/schemas/Node"}}},
+                  "Ping": {"type": "object", "properties": {"pong": {"$ref": "#/components/schemas/Pong"}}},
+                  "Pong": {"type": "object", "properties": {"pings": {"type": "array", "items": {"$ref": "#/components/schemas/Ping"}}}},
+                  "Holder": {"type": "object", "properties": {"ping": {"$ref": "#/components/schemas/Ping"}}},
+                  "Folder/Item": {"type": "string"}
+                }
+              }
+            }
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void referenceChainsAreFollowedAndMemoized() throws Exception {
+        SchemaResolver resolver = objectMapper.readValue(SPEC, OpenApiModel.class).getSchemaResolver();
+
+        Response.Schema id = resolver.resolveRef("#/components/schemas/Id");
+        assertEquals("uuid", id.getFormat());
+        assertSame(id, resolver.resolveRef("#/components/schemas/Id"));
+        assertSame(resolver.component("Folder/Item"), resolver.resolveRef("#/components/schemas/Folder~1Item"));
+
+        assertNull(resolver.resolveRef("#/components/schemas/Loop"));
+        assertNull(resolver.resolveRef("#/components/schemas/Missing"));
+        assertNull(resolver.resolveRef("common.json#/Uuid"));
+    }
+
+    @Test
+    void allOfIsMergedIntoOneObjectSchema() throws Exception {
+        SchemaResolver resolver = objectMapper.readValue(SPEC, OpenApiModel.class).getSchemaResolver();
+        Response.Schema reference = new Response.Schema();
+        reference.setRef("#/components/schemas/Payment");
+
+        Response.Schema payment = resolver.resolve(reference);
+
+        assertEquals("object", payment.getType());
+        assertEquals(List.of("id", "amount"), List.copyOf(payment.getProperties().keySet()));
+        assertEquals(List.of("id", "amount"), payment.getAdditionalProperties().get("required"));
+        assertSame(payment, resolver.resolve(reference));
+    }
+
+    @Test
+    void componentsOnReferenceCyclesAreRecursive() throws Exception {
+        SchemaResolver resolver = objectMapper.readValue(SPEC, OpenApiModel.class).getSchemaResolver();
+
+        assertTrue(resolver.isRecursive("Node"));
+        assertTrue(resolver.isRecursive("Ping"));
+        assertTrue(resolver.isRecursive("Pong"));
+        assertTrue(resolver.isRecursive("Loop"));
+        assertFalse(resolver.isRecursive("Holder"));
+        assertFalse(resolver.isRecursive("Payment"));
+        assertFalse(resolver.isRecursive("Id"));
+    }
+
+    @Test
+    void recursionIsDetectedOnlyOverComponentsReachableFromTheQuery() throws Exception {
+        Set<Object> inspected = new HashSet<>();
+        Map<String, Response.Schema> components = new HashMap<>(
+                objectMapper.readValue(SPEC, OpenApiModel.class).getComponents().getSchemas()) {
+            @Override
+            public Response.Schema get(Object key) {
+                inspected.add(key);
+                return super.get(key);
+            }
+        };
+        SchemaResolver resolver = new SchemaResolver(components);
+
+        assertFalse(resolver.isRecursive("Holder"));
+        assertEquals(Set.of("Holder", "Ping", "Pong"), inspected);
+
+        // Компоненты, классифицированные при обходе, повторно не разбираются
+        inspected.clear();
+        assertTrue(resolver.isRecursive("Pong"));
+        assertTrue(inspected.isEmpty());
+    }
+}
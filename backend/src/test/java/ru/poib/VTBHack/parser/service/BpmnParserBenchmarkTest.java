@@ -0,0 +1,98 @@
+package ru.poib.VTBHack.parser.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import ru.poib.VTBHack.parser.model.ProcessModel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Время разбора сгенерированных BPMN разного размера: цепочки блоков
+ * "задача -> exclusive gateway -> две ветки -> слияние" с обратным переходом на повтор.
+ * При линейном упорядочивании задач время растет пропорционально размеру файла.
+ * Запуск: mvn test -Dtest=BpmnParserBenchmarkTest -Dbenchmark=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BpmnParserBenchmarkTest {
+
+    private static final int[] BLOCKS = {250, 1_000, 4_000};
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    private final BpmnParserService service = new BpmnParserService();
+
+    @Test
+    void parseTimeGrowsLinearlyWithProcessSize() throws Exception {
+        double[] nanosPerBlock = new double[BLOCKS.length];
+        for (int i = 0; i < BLOCKS.length; i++) {
+            String bpmn = generate(BLOCKS[i]);
+
+            ProcessModel model = service.parse(bpmn);
+            assertEquals(BLOCKS[i] * 4, model.getTasks().size());
+            assertEquals("check_0", model.getTasks().get(0).getId());
+            assertEquals("next_" + (BLOCKS[i] - 1), model.getTasks().get(model.getTasks().size() - 1).getId());
+
+            for (int w = 0; w < WARMUP_ITERATIONS; w++) {
+                service.parse(bpmn);
+            }
+            long start = System.nanoTime();
+            for (int m = 0; m < MEASURED_ITERATIONS; m++) {
+                service.parse(bpmn);
+            }
+            long elapsed = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+            nanosPerBlock[i] = (double) elapsed / BLOCKS[i];
+            log.info("BPMN parse: {} elements, {} flows, {} ms",
+                    BLOCKS[i] * 6 + 2, BLOCKS[i] * 7 + 1, elapsed / 1_000_000);
+        }
+
+        // При квадратичной сложности время на блок выросло бы в 16 раз
+        assertTrue(nanosPerBlock[BLOCKS.length - 1] < nanosPerBlock[0] * 4,
+                "Время разбора на элемент растет с размером процесса");
+    }
+
+    private String generate(int blocks) {
+        StringBuilder elements = new StringBuilder();
+        StringBuilder flows = new StringBuilder();
+        int flowId = 0;
+        elements.append("    <startEvent id=\"start\" name=\"Start\"/>\n");
+        String previous = "start";
+        for (int b = 0; b < blocks; b++) {
+            elements.append("    <serviceTask id=\"check_").append(b).append("\" name=\"Проверка ").append(b)
+                    .append(": GET /checks/").append(b).append("\"/>\n")
+                    .append("    <exclusiveGateway id=\"split_").append(b).append("\"/>\n")
+                    .append("    <serviceTask id=\"approve_").append(b).append("\" name=\"Одобрение ").append(b)
+                    .append(": POST /approvals\"/>\n")
+                    .append("    <serviceTask id=\"reject_").append(b).append("\" name=\"Отказ ").append(b)
+                    .append(": POST /rejections\"/>\n")
+                    .append("    <exclusiveGateway id=\"merge_").append(b).append("\"/>\n")
+                    .append("    <serviceTask id=\"next_").append(b).append("\" name=\"Продолжение ").append(b)
+                    .append(": GET /next\"/>\n");
+            flowId = flow(flows, flowId, previous, "check_" + b);
+            flowId = flow(flows, flowId, "check_" + b, "split_" + b);
+            flowId = flow(flows, flowId, "split_" + b, "approve_" + b);
+            flowId = flow(flows, flowId, "split_" + b, "reject_" + b);
+            flowId = flow(flows, flowId, "approve_" + b, "merge_" + b);
+            flowId = flow(flows, flowId, "reject_" + b, "check_" + b);
+            flowId = flow(flows, flowId, "merge_" + b, "next_" + b);
+            previous = "next_" + b;
+        }
+        elements.append("    <endEvent id=\"end\" name=\"End\"/>\n");
+        flow(flows, flowId, previous, "end");
+
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<definitions xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"\n" +
+                "             targetNamespace=\"Examples\">\n" +
+                "  <process id=\"generated\" name=\"Generated\" isExecutable=\"true\">\n" +
+                elements + flows +
+                "  </process>\n" +
+                "</definitions>";
+    }
+
+    private int flow(StringBuilder flows, int id, String source, String target) {
+        flows.append("    <sequenceFlow id=\"flow_").append(id).append("\" sourceRef=\"").append(source)
+                .append("\" targetRef=\"").append(target).append("\"/>\n");
+        return id + 1;
+    }
+}
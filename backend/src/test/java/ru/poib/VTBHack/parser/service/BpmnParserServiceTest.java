@@ -2,9 +2,11 @@ package ru.poib.VTBHack.parser.service;
 
 import org.junit.jupiter.api.Test;
 import ru.poib.VTBHack.parser.model.ApiEndpointInfo;
+import ru.poib.VTBHack.parser.model.ProcessGraph;
 import ru.poib.VTBHack.parser.model.ProcessModel;
 import ru.poib.VTBHack.parser.model.ProcessTask;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -98,4 +100,81 @@ public class BpmnParserServiceTest {
         assertTrue(errors.stream().anyMatch(s -> s.contains("Задача service1 не имеет исходящего потока")),
                 "Ожидается сообщение о том, что задача service1 не имеет исходящего потока");
     }
+
+    @Test
+    void gatewayBranchesArePreservedInGraph() throws Exception {
+        String bpmn =
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<definitions xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"\n" +
+                        "             xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+                        "             targetNamespace=\"Examples\">\n" +
+                        "  <process id=\"process4\" name=\"Parallel\" isExecutable=\"true\">\n" +
+                        "    <startEvent id=\"start\" name=\"Start\"/>\n" +
+                        "    <serviceTask id=\"auth\" name=\"Авторизация: POST /auth\"/>\n" +
+                        "    <parallelGateway id=\"fork\"/>\n" +
+                        "    <serviceTask id=\"accounts\" name=\"Счета: GET /accounts\"/>\n" +
+                        "    <serviceTask id=\"cards\" name=\"Карты: GET /cards\"/>\n" +
+                        "    <parallelGateway id=\"join\"/>\n" +
+                        "    <endEvent id=\"end\" name=\"End\"/>\n" +
+                        "    <sequenceFlow id=\"f1\" sourceRef=\"start\" targetRef=\"auth\"/>\n" +
+                        "    <sequenceFlow id=\"f2\" sourceRef=\"auth\" targetRef=\"fork\"/>\n" +
+                        "    <sequenceFlow id=\"f3\" sourceRef=\"fork\" targetRef=\"accounts\"/>\n" +
+                        "    <sequenceFlow id=\"f4\" sourceRef=\"fork\" targetRef=\"cards\"/>\n" +
+                        "    <sequenceFlow id=\"f5\" sourceRef=\"accounts\" targetRef=\"join\"/>\n" +
+                        "    <sequenceFlow id=\"f6\" sourceRef=\"cards\" targetRef=\"join\"/>\n" +
+                        "    <sequenceFlow id=\"f7\" sourceRef=\"join\" targetRef=\"end\"/>\n" +
+                        "  </process>\n" +
+                        "</definitions>";
+
+        ProcessModel model = service.parse(bpmn);
+        ProcessGraph graph = model.getGraph();
+
+        assertEquals(7, graph.nodeCount());
+        assertEquals(7, graph.edgeCount());
+        int fork = graph.indexOf("fork");
+        assertEquals(ProcessGraph.NodeKind.PARALLEL_GATEWAY, graph.kind(fork));
+        assertEquals(2, graph.outDegree(fork));
+        assertEquals(2, graph.inDegree(graph.indexOf("join")));
+
+        List<String> next = Arrays.stream(graph.nextTasks(graph.indexOf("auth")))
+                .mapToObj(graph::nodeId)
+                .toList();
+        assertEquals(List.of("accounts", "cards"), next);
+        assertEquals(List.of("auth", "accounts", "cards"),
+                model.getTasks().stream().map(ProcessTask::getId).toList());
+        assertTrue(service.validate(bpmn).isEmpty());
+    }
+
+    @Test
+    void subProcessElementsKeepTheirParent() throws Exception {
+        String bpmn =
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<definitions xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\"\n" +
+                        "             targetNamespace=\"Examples\">\n" +
+                        "  <process id=\"process5\" name=\"SubProcess\" isExecutable=\"true\">\n" +
+                        "    <startEvent id=\"start\"/>\n" +
+                        "    <serviceTask id=\"auth\" name=\"Авторизация: POST /auth\"/>\n" +
+                        "    <subProcess id=\"sub\">\n" +
+                        "      <startEvent id=\"subStart\"/>\n" +
+                        "      <serviceTask id=\"accounts\" name=\"Счета: GET /accounts\"/>\n" +
+                        "      <endEvent id=\"subEnd\"/>\n" +
+                        "      <sequenceFlow id=\"s1\" sourceRef=\"subStart\" targetRef=\"accounts\"/>\n" +
+                        "      <sequenceFlow id=\"s2\" sourceRef=\"accounts\" targetRef=\"subEnd\"/>\n" +
+                        "    </subProcess>\n" +
+                        "    <endEvent id=\"end\"/>\n" +
+                        "    <sequenceFlow id=\"f1\" sourceRef=\"start\" targetRef=\"auth\"/>\n" +
+                        "    <sequenceFlow id=\"f2\" sourceRef=\"auth\" targetRef=\"sub\"/>\n" +
+                        "    <sequenceFlow id=\"f3\" sourceRef=\"sub\" targetRef=\"end\"/>\n" +
+                        "  </process>\n" +
+                        "</definitions>";
+
+        ProcessGraph graph = service.parse(bpmn).getGraph();
+
+        int sub = graph.indexOf("sub");
+        assertEquals(ProcessGraph.NodeKind.SUB_PROCESS, graph.kind(sub));
+        assertEquals(sub, graph.parent(graph.indexOf("subStart")));
+        assertEquals(sub, graph.parent(graph.indexOf("accounts")));
+        assertEquals(-1, graph.parent(graph.indexOf("auth")));
+        assertEquals(-1, graph.parent(sub));
+    }
 }
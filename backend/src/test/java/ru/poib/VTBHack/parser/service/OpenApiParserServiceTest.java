@@ -2,10 +2,12 @@ package ru.poib.VTBHack.parser.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.poib.VTBHack.config.JsonCodecs;
 import ru.poib.VTBHack.parser.model.openapi.OpenApiModel;
 import ru.poib.VTBHack.parser.model.openapi.Operation;
 import ru.poib.VTBHack.parser.model.openapi.Parameter;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -17,7 +19,7 @@ class OpenApiParserServiceTest {
 
     @BeforeEach
     void setUp() {
-        parserService = new OpenApiParserService();
+        parserService = new OpenApiParserService(JsonCodecs.standalone());
         sampleOpenApiJson = "{\n" +
                 "  \"openapi\": \"3.1.0\",\n" +
                 "  \"info\": {\n" +
@@ -113,4 +115,50 @@ class OpenApiParserServiceTest {
         assertTrue(parameter.isRequired());
         assertEquals("string", parameter.getSchema().getType());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLazyParseMatchesFullBinding() throws IOException {
+        JsonCodecs codecs = JsonCodecs.standalone();
+        byte[] document;
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("sample-openapi.json")) {
+            assertNotNull(is);
+            document = is.readAllBytes();
+        }
+
+        OpenApiModel full = parserService.parseOpenApi(new ByteArrayInputStream(document));
+        OpenApiModel lazy = parserService.parseOpenApiLazily(new ByteArrayInputStream(document));
+
+        // Сериализация обращается ко всем геттерам и связывает все отложенные поля
+        assertEquals(codecs.mapper().readTree(codecs.writer().writeValueAsBytes(full)),
+                codecs.mapper().readTree(codecs.writer().writeValueAsBytes(lazy)));
+    }
+
+    @Test
+    void testLazyParseBindsOperationsOnDemand() throws IOException {
+        OpenApiModel model = parserService.parseOpenApiLazily(sampleOpenApiJson);
+
+        Operation operation = model.getPaths().get("/auth/bank-token").getPost();
+        assertEquals("Create Bank Token", operation.getSummary());
+        assertEquals("create_bank_token", operation.getOperationId());
+        LazyOpenApiReader.LazyOperation lazy = assertInstanceOf(LazyOpenApiReader.LazyOperation.class, operation);
+        assertFalse(lazy.isResponsesBound());
+
+        assertEquals("Successful Response", operation.getResponses().get("200").getDescription());
+        assertTrue(lazy.isResponsesBound());
+        assertEquals("client_id", operation.getParameters().get(0).getName());
+    }
+
+    @Test
+    void testLazyParseSkipsUnknownSections() throws IOException {
+        String json = "{\"openapi\":\"3.0.1\",\"components\":{\"schemas\":{\"A\":{\"type\":\"object\"}}}," +
+                "\"paths\":{\"/a\":{\"parameters\":[],\"patch\":{},\"get\":{\"x-extra\":[1,{\"b\":2}]," +
+                "\"requestBody\":null}}}}";
+
+        OpenApiModel model = parserService.parseOpenApiLazily(json);
+
+        assertEquals("3.0.1", model.getOpenApiVersion());
+        assertNotNull(model.getPaths().get("/a").getGet());
+        assertNull(model.getPaths().get("/a").getGet().getRequestBody());
+        assertNull(model.getPaths().get("/a").getPost());
+    }
+}
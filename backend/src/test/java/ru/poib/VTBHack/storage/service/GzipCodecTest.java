@@ -0,0 +1,26 @@
+package ru.poib.VTBHack.storage.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GzipCodecTest {
+
+    @Test
+    void roundTripsAndShrinksRepetitiveJson() {
+        String json = "{\"steps\":[" + "{\"status\":\"SUCCESS\",\"body\":\"ответ сервера\"},".repeat(200) + "{}]}";
+        byte[] raw = json.getBytes(StandardCharsets.UTF_8);
+
+        byte[] compressed = GzipCodec.compress(raw);
+
+        assertTrue(compressed.length < raw.length / 10);
+        assertEquals(json, new String(GzipCodec.decompress(compressed), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void handlesEmptyContent() {
+        assertArrayEquals(new byte[0], GzipCodec.decompress(GzipCodec.compress(new byte[0])));
+    }
+}